@@ -21,19 +21,27 @@ import me.bounser.nascraft.commands.sell.sellinv.SellInvCommand;
 import me.bounser.nascraft.commands.sellwand.GiveSellWandCommand;
 import me.bounser.nascraft.database.DatabaseExecutor;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.CandleStore;
+import me.bounser.nascraft.database.FlowLedger;
+import me.bounser.nascraft.database.StockJournal;
 import me.bounser.nascraft.discord.DiscordBot;
+import me.bounser.nascraft.discord.DiscordInteractions;
+import me.bounser.nascraft.discord.DiscordLog;
 import me.bounser.nascraft.commands.discord.LinkCommand;
 import me.bounser.nascraft.discord.linking.LinkManager;
 import me.bounser.nascraft.discord.linking.LinkingMethod;
 import me.bounser.nascraft.inventorygui.InventoryListener;
+import me.bounser.nascraft.inventorygui.MenuSubscriptions;
 import me.bounser.nascraft.managers.DebtManager;
 import me.bounser.nascraft.managers.EventsManager;
+import me.bounser.nascraft.managers.MarketScheduler;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.placeholderapi.PAPIExpansion;
 import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.sellwand.WandListener;
 import me.bounser.nascraft.sellwand.WandsManager;
 import me.bounser.nascraft.updatechecker.UpdateChecker;
+import me.bounser.nascraft.web.WebServer;
 import me.leoko.advancedgui.AdvancedGUI;
 import me.leoko.advancedgui.manager.GuiItemManager;
 import me.leoko.advancedgui.manager.GuiWallManager;
@@ -141,8 +149,13 @@ public final class Nascraft extends JavaPlugin {
 
         createImagesFolder();
 
+        // Created here, on the server thread, before prices start changing from other threads.
+        MenuSubscriptions.getInstance();
+
         MarketManager.getInstance();
 
+        if (config.getWebEnabled()) WebServer.getInstance().start();
+
         if (config.isCommandEnabled("nascraft")) {
             new NascraftCommand();
 
@@ -179,15 +192,23 @@ public final class Nascraft extends JavaPlugin {
     @Override
     public void onDisable() {
 
+        MarketScheduler.shutdown();
+        WebServer.shutdown();
+
         getLogger().info("Shutting down async database executor...");
         DatabaseExecutor.getInstance().shutdown();
         getLogger().info("Done!");
 
         getLogger().info("Saving and closing connection with database...");
+        FlowLedger.getInstance().flush();
+        CandleStore.getInstance().flush();
         DatabaseManager.get().getDatabase().disconnect();
+        StockJournal.getInstance().close();
         getLogger().info("Done!");
 
         if (Config.getInstance().getDiscordEnabled() && DiscordBot.getInstance() != null) {
+            DiscordInteractions.shutdown();
+            DiscordLog.shutdown();
             DiscordBot.getInstance().sendClosedMessage();
             DiscordBot.getInstance().getJDA().shutdown();
         }
@@ -1,9 +1,17 @@
 package me.bounser.nascraft.api;
 
 import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.stats.Candle;
+import me.bounser.nascraft.market.unit.stats.CandleResolution;
+
+import java.util.List;
 
 public class NascraftAPI {
 
     public MarketManager getMarketManager() { return MarketManager.getInstance(); }
 
+    // Last candles of the item, from the oldest to the current one.
+    public List<Candle> getCandles(Item item, CandleResolution resolution, int count) { return item.getPrice().getCandles().getCandles(resolution, count); }
+
 }
@@ -0,0 +1,50 @@
+package me.bounser.nascraft.api.events;
+
+import me.bounser.nascraft.market.unit.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+import java.util.HashMap;
+
+public class SellItemsEvent extends Event implements Cancellable {
+
+    private final HandlerList HANDLERS_LIST = new HandlerList();
+
+    private boolean cancelled;
+
+    private Player player;
+    private HashMap<Item, Integer> items;
+
+    public SellItemsEvent(Player player, HashMap<Item, Integer> items) {
+        cancelled = false;
+
+        this.player = player;
+        this.items = items;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS_LIST;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    // Items and amounts about to be sold. Listeners can remove entries to leave them out of the sale.
+    public HashMap<Item, Integer> getItems() {
+        return items;
+    }
+}
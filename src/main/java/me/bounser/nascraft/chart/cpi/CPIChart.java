@@ -3,6 +3,7 @@ package me.bounser.nascraft.chart.cpi;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.metrics.Metrics;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
@@ -27,6 +28,10 @@ import java.util.List;
 public class CPIChart {
 
     public static BufferedImage getImage(int width, int height) {
+        return Metrics.getInstance().time("render", "CPIChart", () -> render(width, height));
+    }
+
+    private static BufferedImage render(int width, int height) {
         return createChart().createBufferedImage(width, height);
     }
 
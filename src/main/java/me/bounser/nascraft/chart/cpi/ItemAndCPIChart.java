@@ -5,6 +5,7 @@ import me.bounser.nascraft.config.lang.Message;
 import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.market.unit.stats.Instant;
+import me.bounser.nascraft.metrics.Metrics;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.annotations.XYTitleAnnotation;
@@ -32,6 +33,10 @@ import java.util.List;
 public class ItemAndCPIChart {
 
     public static BufferedImage getImage(int width, int height, Item item) {
+        return Metrics.getInstance().time("render", "ItemAndCPIChart", () -> render(width, height, item));
+    }
+
+    private static BufferedImage render(int width, int height, Item item) {
         return createChart(item).createBufferedImage(width, height);
     }
 
@@ -3,7 +3,9 @@ package me.bounser.nascraft.chart.flows;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.FlowLedger;
 import me.bounser.nascraft.database.commands.resources.DayInfo;
+import me.bounser.nascraft.metrics.Metrics;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.annotations.XYTitleAnnotation;
 import org.jfree.chart.axis.DateAxis;
@@ -36,6 +38,10 @@ public class FlowChart {
     private static IntervalXYDataset dataset2;
 
     public static BufferedImage getImage(int width, int height) {
+        return Metrics.getInstance().time("render", "FlowChart", () -> render(width, height));
+    }
+
+    private static BufferedImage render(int width, int height) {
         return createChart().createBufferedImage(width, height);
     }
 
@@ -147,7 +153,7 @@ public class FlowChart {
         float value = 0;
         float taxes = 0;
 
-        for (DayInfo info : DatabaseManager.get().getDatabase().getDayInfos()) {
+        for (DayInfo info : FlowLedger.getInstance().getDayInfos(DatabaseManager.get().getDatabase().getDayInfos())) {
 
             value += info.getFlow();
             taxes += info.getTax();
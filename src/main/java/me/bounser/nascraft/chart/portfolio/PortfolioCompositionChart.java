@@ -2,6 +2,7 @@ package me.bounser.nascraft.chart.portfolio;
 
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.portfolio.Portfolio;
+import me.bounser.nascraft.metrics.Metrics;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.PiePlot;
@@ -18,6 +19,10 @@ public class PortfolioCompositionChart {
     public static Color[] colorPalette = { new Color(77,74,174), new Color(129,73,175), new Color(243,199,64), new Color(247,140,67), new Color(211,80,98), new Color(108,171,1), new Color(209,206,236) };
 
     public static BufferedImage getImage(Portfolio portfolio, int width, int height) {
+        return Metrics.getInstance().time("render", "PortfolioCompositionChart", () -> render(portfolio, width, height));
+    }
+
+    private static BufferedImage render(Portfolio portfolio, int width, int height) {
 
         if (portfolio.getContent().isEmpty()) return new BufferedImage(128, 128, BufferedImage.TYPE_INT_ARGB);
 
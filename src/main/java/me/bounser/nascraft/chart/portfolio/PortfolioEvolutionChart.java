@@ -4,6 +4,7 @@ import me.bounser.nascraft.database.Database;
 import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.database.commands.resources.NormalisedDate;
 import me.bounser.nascraft.portfolio.Portfolio;
+import me.bounser.nascraft.metrics.Metrics;
 import org.bukkit.Bukkit;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
@@ -25,6 +26,10 @@ import java.util.UUID;
 public class PortfolioEvolutionChart {
 
     public static BufferedImage getImage(Portfolio portfolio, int width, int height) {
+        return Metrics.getInstance().time("render", "PortfolioEvolutionChart", () -> render(portfolio, width, height));
+    }
+
+    private static BufferedImage render(Portfolio portfolio, int width, int height) {
 
         if (portfolio == null) return new BufferedImage(128, 128, BufferedImage.TYPE_INT_ARGB);
 
@@ -1,8 +1,10 @@
 package me.bounser.nascraft.chart.price;
 
+import me.bounser.nascraft.database.CandleStore;
 import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.market.unit.stats.Instant;
+import me.bounser.nascraft.metrics.Metrics;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.DateAxis;
@@ -22,6 +24,10 @@ import java.util.UUID;
 public class AdvancedGUIChart {
 
     public static BufferedImage getImage(Item item, ChartType chartType, UUID uuid) {
+        return Metrics.getInstance().time("render", "AdvancedGUIChart", () -> render(item, chartType, uuid));
+    }
+
+    private static BufferedImage render(Item item, ChartType chartType, UUID uuid) {
 
         Item finalItem = item.isParent() ? item : item.getParent();
 
@@ -32,21 +38,25 @@ public class AdvancedGUIChart {
 
         List<Instant> data;
 
-        switch (chartType) {
-            case DAY:
-                data = DatabaseManager.get().getDatabase().getDayPrices(item);
-                break;
-            case MONTH:
-                data = DatabaseManager.get().getDatabase().getMonthPrices(item);
-                break;
-            case YEAR:
-                data = DatabaseManager.get().getDatabase().getYearPrices(item);
-                break;
-            case ALL:
-                data = DatabaseManager.get().getDatabase().getAllPrices(item);
-                break;
-            default:
-                data = DatabaseManager.get().getDatabase().getDayPrices(item);
+        data = CandleStore.getInstance().getChartData(item, chartType);
+
+        if (data == null) {
+            switch (chartType) {
+                case DAY:
+                    data = DatabaseManager.get().getDatabase().getDayPrices(item);
+                    break;
+                case MONTH:
+                    data = DatabaseManager.get().getDatabase().getMonthPrices(item);
+                    break;
+                case YEAR:
+                    data = DatabaseManager.get().getDatabase().getYearPrices(item);
+                    break;
+                case ALL:
+                    data = DatabaseManager.get().getDatabase().getAllPrices(item);
+                    break;
+                default:
+                    data = DatabaseManager.get().getDatabase().getDayPrices(item);
+            }
         }
 
         TimeSeries series = createPriceDataset(data);
@@ -1,11 +1,26 @@
 package me.bounser.nascraft.chart.price;
 
+import me.bounser.nascraft.market.unit.stats.CandleResolution;
+
 public enum ChartType {
 
-    DAY,
-    MONTH,
-    YEAR,
-    ALL;
+    DAY(CandleResolution.FIVE_MINUTES, 288),
+    MONTH(CandleResolution.FOUR_HOURS, 180),
+    YEAR(CandleResolution.DAY, 365),
+    ALL(null, 0);
+
+    // Candles that cover the period of the chart, ALL is always read from the database.
+    private final CandleResolution candleResolution;
+    private final int candles;
+
+    ChartType(CandleResolution candleResolution, int candles) {
+        this.candleResolution = candleResolution;
+        this.candles = candles;
+    }
+
+    public CandleResolution getCandleResolution() { return candleResolution; }
+
+    public int getCandles() { return candles; }
 
     public static ChartType getChartType(char numberOfChart) {
 
@@ -7,11 +7,13 @@ import java.text.SimpleDateFormat;
 import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
+import me.bounser.nascraft.database.CandleStore;
 import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.database.commands.resources.Trade;
 import me.bounser.nascraft.discord.linking.LinkManager;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.market.unit.stats.Instant;
+import me.bounser.nascraft.metrics.Metrics;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
@@ -39,36 +41,40 @@ import java.awt.image.BufferedImage;
 public class ItemChart {
 
     public static BufferedImage getImage(Item item, ChartType chartType, String userid, int width, int height) {
+        return Metrics.getInstance().time("render", "ItemChart", () -> render(item, chartType, userid, width, height));
+    }
+
+    private static BufferedImage render(Item item, ChartType chartType, String userid, int width, int height) {
         return createChart(item, chartType, userid).createBufferedImage(width, height);
     }
 
     private static JFreeChart createChart(Item item, ChartType chartType, String userid) {
 
         SimpleDateFormat simpleDateFormat;
-        List<Instant> data;
+        List<Instant> data = CandleStore.getInstance().getChartData(item, chartType);
 
         switch (chartType) {
 
             case DAY:
                 simpleDateFormat = new SimpleDateFormat("HH:mm");
-                data = DatabaseManager.get().getDatabase().getDayPrices(item);
+                if (data == null) data = DatabaseManager.get().getDatabase().getDayPrices(item);
                 break;
             case MONTH:
                 simpleDateFormat = new SimpleDateFormat("d-MMM");
-                data = DatabaseManager.get().getDatabase().getMonthPrices(item);
+                if (data == null) data = DatabaseManager.get().getDatabase().getMonthPrices(item);
                 break;
             case YEAR:
                 simpleDateFormat = new SimpleDateFormat("d-MMM-yyyy");
-                data = DatabaseManager.get().getDatabase().getYearPrices(item);
+                if (data == null) data = DatabaseManager.get().getDatabase().getYearPrices(item);
                 break;
             case ALL:
                 simpleDateFormat = new SimpleDateFormat("d-MMM-yyyy");
-                data = DatabaseManager.get().getDatabase().getAllPrices(item);
+                if (data == null) data = DatabaseManager.get().getDatabase().getAllPrices(item);
                 break;
 
             default:
                 simpleDateFormat = new SimpleDateFormat("HH:mm");
-                data = DatabaseManager.get().getDatabase().getDayPrices(item);
+                if (data == null) data = DatabaseManager.get().getDatabase().getDayPrices(item);
 
         }
 
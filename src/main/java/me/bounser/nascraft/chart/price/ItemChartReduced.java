@@ -1,9 +1,11 @@
 package me.bounser.nascraft.chart.price;
 
 import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.database.CandleStore;
 import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.market.unit.stats.Instant;
+import me.bounser.nascraft.metrics.Metrics;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.DateAxis;
@@ -47,26 +49,36 @@ public class ItemChartReduced {
     }
 
     public static BufferedImage getImage(Item item, ChartType chartType) {
+        return Metrics.getInstance().time("render", "ItemChartReduced", () -> render(item, chartType));
+    }
+
+    private static BufferedImage render(Item item, ChartType chartType) {
 
         Item finalItem = item.isParent() ? item : item.getParent();
 
-        BufferedImage image = createChart(finalItem, chartType).createBufferedImage(128, 128);
+        List<Instant> data = CandleStore.getInstance().getChartData(finalItem, chartType);
 
-        boolean up = false;
+        if (data == null) {
+            switch (chartType) {
+                case MONTH:
+                    data = DatabaseManager.get().getDatabase().getMonthPrices(finalItem); break;
+                case YEAR:
+                    data = DatabaseManager.get().getDatabase().getYearPrices(finalItem); break;
+                case ALL:
+                    data = DatabaseManager.get().getDatabase().getAllPrices(finalItem); break;
 
-        switch (chartType) {
-            case DAY:
-                up = item.getPrice().getDayChange() > 0; break;
-            case MONTH:
-                up = item.getPrice().getMonthChange() > 0; break;
-            case YEAR:
-                up = item.getPrice().getYearChange() > 0; break;
-            case ALL:
-                up = item.getPrice().getAllChange() > 0; break;
-
-            default: up = false;
+                default: data = DatabaseManager.get().getDatabase().getDayPrices(finalItem);
+            }
         }
 
+        TimeSeries series = createPriceDataset(data, finalItem, chartType);
+
+        // The color follows the series drawn, whether it comes from the candles or from the database.
+        boolean up = series.getItemCount() > 1 &&
+                series.getDataItem(series.getItemCount() - 1).getValue().doubleValue() > series.getDataItem(0).getValue().doubleValue();
+
+        BufferedImage image = createChart(series, up).createBufferedImage(128, 128);
+
         BufferedImage background;
 
         if (up) {
@@ -136,49 +148,10 @@ public class ItemChartReduced {
         return redDiff <= tolerance && greenDiff <= tolerance && blueDiff <= tolerance;
     }
 
-    private static JFreeChart createChart(Item item, ChartType chartType) {
-
-        List<Instant> data;
-
-        boolean up;
+    private static JFreeChart createChart(TimeSeries series, boolean up) {
 
-        switch (chartType) {
-            case DAY:
-                data = DatabaseManager.get().getDatabase().getDayPrices(item);
-                break;
-            case MONTH:
-                data = DatabaseManager.get().getDatabase().getMonthPrices(item);
-                break;
-            case YEAR:
-                data = DatabaseManager.get().getDatabase().getYearPrices(item);
-                break;
-            case ALL:
-                data = DatabaseManager.get().getDatabase().getAllPrices(item);
-                break;
-            default:
-                data = DatabaseManager.get().getDatabase().getDayPrices(item);
-        }
-
-        TimeSeries series = createPriceDataset(data, item, chartType);
         TimeSeriesCollection dataset = new TimeSeriesCollection(series);
 
-        switch (chartType) {
-            case DAY:
-                up = (item.getPrice().getDayChange() > 0);
-                break;
-            case MONTH:
-                up = (item.getPrice().getMonthChange() > 0);
-                break;
-            case YEAR:
-                up = (item.getPrice().getYearChange() > 0);
-                break;
-            case ALL:
-                up = (item.getPrice().getAllChange() > 0);
-                break;
-            default:
-                up = (item.getPrice().getDayChange() > 0);
-        }
-
         JFreeChart chart = ChartFactory.createTimeSeriesChart(
                 null,
                 null,
@@ -7,13 +7,23 @@ import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.FlowLedger;
 import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.managers.DebtManager;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import me.bounser.nascraft.managers.currencies.Currency;
+import me.bounser.nascraft.market.ConsumerPriceIndex;
 import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.simulation.MarketSimulator;
+import me.bounser.nascraft.market.simulation.RecordedTrades;
+import me.bounser.nascraft.market.simulation.SimulatedMarket;
+import me.bounser.nascraft.market.simulation.SimulationReport;
+import me.bounser.nascraft.market.simulation.SyntheticTrades;
+import me.bounser.nascraft.market.simulation.TradeSource;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.metrics.Metrics;
+import me.bounser.nascraft.metrics.ProfileReport;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
@@ -21,17 +31,24 @@ import org.bukkit.entity.Player;
 import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.util.StringUtil;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 
 public class NascraftCommand extends Command {
 
-    private final List<String> arguments = Arrays.asList("reload", "edit", "stop", "resume", "info", "save", "logs", "forgivedebt");
+    private final List<String> arguments = Arrays.asList("reload", "edit", "stop", "resume", "info", "save", "simulate", "profile", "logs", "forgivedebt");
 
     private final List<String> tradesArguments = Arrays.asList("<player nick or uuid>", "<item>", "global");
 
+    private final List<String> simulateArguments = Arrays.asList("<hours>", "<seed>", "<trades per hour>", "log");
+
+    private final List<String> profileArguments = Arrays.asList("<top>", "jobs", "counters", "reset", "dump");
+
     public NascraftCommand() {
         super(
                 "nascraft",
@@ -68,6 +85,87 @@ public class NascraftCommand extends Command {
                 sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.GRAY + "Data saved.");
                 break;
 
+            case "simulate":
+
+                if (args.length < 2 || args.length > 4) {
+                    sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.RED + "Wrong syntax. /nascraft simulate <hours> [seed] [trades per hour | log]");
+                    return;
+                }
+
+                int hours;
+                long seed;
+                int tradesPerHour = 600;
+                boolean fromLog = false;
+
+                try {
+                    hours = Integer.parseInt(args[1]);
+                    seed = args.length > 2 ? Long.parseLong(args[2]) : new Random().nextLong();
+                    if (args.length > 3) {
+                        if (args[3].equalsIgnoreCase("log")) fromLog = true;
+                        else tradesPerHour = Integer.parseInt(args[3]);
+                    }
+                } catch (NumberFormatException e) {
+                    sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.RED + "Invalid number.");
+                    return;
+                }
+
+                if (hours <= 0 || hours > 1_000_000 || tradesPerHour < 0) {
+                    sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.RED + "Invalid amount of hours or trades.");
+                    return;
+                }
+
+                if (!MarketSimulator.start()) {
+                    sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.RED + "A simulation is already running.");
+                    return;
+                }
+
+                simulate(sender, hours, seed, tradesPerHour, fromLog);
+                break;
+
+            case "profile":
+
+                String option = args.length > 1 ? args[1].toLowerCase() : "10";
+
+                if (!option.equals("jobs") && !Metrics.getInstance().isEnabled()) {
+                    sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.RED + "Metrics are disabled in the config.");
+                    return;
+                }
+
+                List<String> lines;
+
+                switch (option) {
+
+                    case "jobs":
+                        lines = ProfileReport.getJobs(); break;
+
+                    case "counters":
+                        lines = ProfileReport.getCounters(); break;
+
+                    case "reset":
+                        Metrics.getInstance().reset();
+                        lines = Collections.singletonList("Timings and counters restarted.");
+                        break;
+
+                    case "dump":
+                        File file = Metrics.getPrometheusFile();
+                        Bukkit.getScheduler().runTaskAsynchronously(Nascraft.getInstance(), () -> Metrics.getInstance().writePrometheus(file));
+                        lines = Collections.singletonList("Writing the metrics to " + file.getPath());
+                        break;
+
+                    default:
+                        try {
+                            lines = ProfileReport.getTimings(Math.max(1, Integer.parseInt(option)));
+                        } catch (NumberFormatException e) {
+                            sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.RED + "Wrong syntax. /nascraft profile [top | jobs | counters | reset | dump]");
+                            return;
+                        }
+                }
+
+                for (String line : lines)
+                    sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.GRAY + line);
+
+                break;
+
             case "logs":
 
                 if (args.length != 2) {
@@ -129,7 +227,7 @@ public class NascraftCommand extends Command {
                 String msg = "\n<color:#9985ff>● All time inflation: <color:#57ffa0>" + Formatter.roundToDecimals(MarketManager.getInstance().getConsumerPriceIndex()-100, 3) + "%</color>\n\n"
                         + "● All outstanding debt: " + Formatter.format(currency, DatabaseManager.get().getDatabase().getAllOutstandingDebt(), Style.ROUND_BASIC) + " (" + DatabaseManager.get().getDatabase().getUUIDAndDebt().keySet().size()  + " debtors)\n"
                         + "● All interests collected: " + Formatter.format(currency, DatabaseManager.get().getDatabase().getAllInterestsPaid(), Style.ROUND_BASIC) + "\n\n"
-                        + "● All taxes collected: " + Formatter.format(currency, Math.abs(DatabaseManager.get().getDatabase().getAllTaxesCollected()), Style.ROUND_BASIC) + "</color>\n";
+                        + "● All taxes collected: " + Formatter.format(currency, Math.abs(DatabaseManager.get().getDatabase().getAllTaxesCollected()) + FlowLedger.getInstance().getTodayTaxes(), Style.ROUND_BASIC) + "</color>\n";
 
                 Lang.get().message((Player) sender, msg);
 
@@ -158,6 +256,8 @@ public class NascraftCommand extends Command {
 
                 Config.getInstance().reload();
 
+                ConsumerPriceIndex.getInstance().rebuild(MarketManager.getInstance().getAllParentItems());
+
                 Lang.get().reload();
 
                 sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.GRAY + "Lang reloaded. Using: " + Config.getInstance().getSelectedLanguage());
@@ -220,6 +320,56 @@ public class NascraftCommand extends Command {
         }
     }
 
+    // The state of the market is copied here and simulated asynchronously. The report is sent back from the main thread.
+    private void simulate(CommandSender sender, int hours, long seed, int tradesPerHour, boolean fromLog) {
+
+        SimulatedMarket market;
+
+        try {
+            market = new SimulatedMarket(MarketManager.getInstance().getAllParentItems(), seed);
+        } catch (RuntimeException e) {
+            MarketSimulator.finish();
+            Nascraft.getInstance().getLogger().warning("Error preparing the market simulation: " + e.getMessage());
+            sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.RED + "The simulation couldn't be prepared: " + e.getMessage());
+            return;
+        }
+
+        sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.GRAY + "Simulating " + hours + " hours with seed " + seed + "...");
+
+        Bukkit.getScheduler().runTaskAsynchronously(Nascraft.getInstance(), () -> {
+
+            List<String> lines;
+
+            try {
+                TradeSource source = fromLog ?
+                        new RecordedTrades(market, 100_000) :
+                        new SyntheticTrades(market.size(), tradesPerHour, seed);
+
+                SimulationReport report = new MarketSimulator(market, source, seed, 10).run(hours);
+
+                lines = report.getLines();
+
+                File file = new File(Nascraft.getInstance().getDataFolder(), "simulations/simulation-" + seed + ".csv");
+                report.writeTrajectories(file);
+                lines.add("Price trajectories saved in " + file.getPath());
+
+            } catch (Exception e) {
+                Nascraft.getInstance().getLogger().warning("Error running the market simulation: " + e.getMessage());
+                lines = Collections.singletonList("The simulation failed: " + e.getMessage());
+            } finally {
+                market.close();
+                MarketSimulator.finish();
+            }
+
+            List<String> result = lines;
+
+            Bukkit.getScheduler().runTask(Nascraft.getInstance(), () -> {
+                for (String line : result)
+                    sender.sendMessage(ChatColor.DARK_PURPLE + "[NC] " + ChatColor.GRAY + line);
+            });
+        });
+    }
+
     public static boolean isValidUUID(String uuidString) {
         try {
             UUID uuid = UUID.fromString(uuidString);
@@ -235,6 +385,12 @@ public class NascraftCommand extends Command {
             if (args[0].equalsIgnoreCase("logs"))
                 return StringUtil.copyPartialMatches(args[1], tradesArguments, new ArrayList<>());
 
+            if (args[0].equalsIgnoreCase("profile") && args.length == 2)
+                return StringUtil.copyPartialMatches(args[1], profileArguments, new ArrayList<>());
+
+            if (args[0].equalsIgnoreCase("simulate"))
+                return Collections.singletonList(simulateArguments.get(Math.min(args.length - 2, simulateArguments.size() - 1)));
+
             if (args[0].equalsIgnoreCase("forgivedebt")) {
 
                 if (args.length == 3) {
@@ -170,17 +170,24 @@ public class SellAllCommand extends Command {
 
         if (confirmed) {
 
+            if (!MarketManager.getInstance().getActive()) {
+                Lang.get().message(player, Message.SHOP_CLOSED);
+                return;
+            }
+
+            HashMap<Item, Double> sold = MarketManager.getInstance().sellItems(content, player.getUniqueId(), true);
+
             HashMap<Currency, Double> value = new HashMap<>();
             int amount = 0;
 
-            for (Item item : content.keySet()) {
+            for (Item item : sold.keySet()) {
                 amount += content.get(item);
 
-                if (value.containsKey(item.getCurrency())) {
-                    value.put(item.getCurrency(), value.get(item.getCurrency()) + item.sell(content.get(item), player.getUniqueId(), true));
-                } else {
-                    value.put(item.getCurrency(), item.sell(content.get(item), player.getUniqueId(), true));
-                }
+                player.getInventory().removeItem(item.getItemStack(content.get(item)));
+
+                value.merge(item.getCurrency(), sold.get(item), Double::sum);
+
+                Lang.get().message(player, Message.SELL_MESSAGE, Formatter.format(item.getCurrency(), sold.get(item), Style.ROUND_BASIC), String.valueOf(content.get(item)), item.getTaggedName());
             }
 
             String values = "";
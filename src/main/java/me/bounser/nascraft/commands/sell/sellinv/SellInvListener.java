@@ -141,27 +141,27 @@ public class SellInvListener implements Listener {
 
                     HashMap<Currency, Double> result = new HashMap<>();
 
-                    List<ItemStack> newPlayerItems = new ArrayList<>();
+                    HashMap<Item, Integer> content = new HashMap<>();
 
                     for (ItemStack itemStack : playerItems.get(player)) {
 
                         Item item = MarketManager.getInstance().getItem(itemStack);
 
-                        if (item.getPrice().canStockChange(itemStack.getAmount(), false) || !item.isPriceRestricted()) {
-                            double value = item.sell(itemStack.getAmount(), player.getUniqueId(), false);
+                        content.merge(item, itemStack.getAmount(), Integer::sum);
+                    }
+
+                    content.keySet().removeIf(item -> !item.getPrice().canStockChange(content.get(item), false) && item.isPriceRestricted());
 
-                            if (result.containsKey(item.getCurrency())) {
-                                double tempValue = result.get(item.getCurrency());
-                                tempValue += value;
-                                result.put(item.getCurrency(), tempValue);
-                            } else {
-                                result.put(item.getCurrency(), value);
-                            }
+                    HashMap<Item, Double> sold = MarketManager.getInstance().sellItems(content, player.getUniqueId(), true);
 
-                        } else {
+                    for (Item item : sold.keySet())
+                        result.merge(item.getCurrency(), sold.get(item), Double::sum);
+
+                    List<ItemStack> newPlayerItems = new ArrayList<>();
+
+                    for (ItemStack itemStack : playerItems.get(player))
+                        if (!sold.containsKey(MarketManager.getInstance().getItem(itemStack)))
                             newPlayerItems.add(itemStack);
-                        }
-                    }
 
                     if (newPlayerItems.isEmpty()) playerItems.remove(player);
                     else playerItems.put(player, newPlayerItems);
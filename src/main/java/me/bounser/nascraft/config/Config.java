@@ -105,6 +105,32 @@ public class Config {
         }
     }
 
+    // Installs upgraded from before the web server still have it enabled, so it only listens locally unless a host is set.
+    public String getWebHost() {
+        if (config.contains("web.host")) {
+            return config.getString("web.host");
+        } else {
+            return "127.0.0.1";
+        }
+    }
+
+    // Origin other sites can read the API from, none if it isn't set.
+    public String getWebAllowedOrigin() {
+        if (config.contains("web.allowed-origin")) {
+            return config.getString("web.allowed-origin");
+        } else {
+            return null;
+        }
+    }
+
+    public int getWebSnapshotPeriod() {
+        if (config.contains("web.snapshot-period")) {
+            return Math.max(1, config.getInt("web.snapshot-period"));
+        } else {
+            return 5;
+        }
+    }
+
     public String getDiscordId() {
         if (config.contains("web.discord-client-id")) {
             return config.getString("web.discord-client-id");
@@ -137,6 +163,30 @@ public class Config {
         }
     }
 
+    public boolean getMetricsEnabled() {
+        if (config.contains("metrics.enabled")) {
+            return config.getBoolean("metrics.enabled");
+        } else {
+            return true;
+        }
+    }
+
+    public boolean getMetricsFileEnabled() {
+        if (config.contains("metrics.prometheus-file.enabled")) {
+            return config.getBoolean("metrics.prometheus-file.enabled");
+        } else {
+            return false;
+        }
+    }
+
+    public int getMetricsFilePeriod() {
+        if (config.contains("metrics.prometheus-file.period")) {
+            return Math.max(1, config.getInt("metrics.prometheus-file.period"));
+        } else {
+            return 60;
+        }
+    }
+
     public Boolean getCheckResources() {
         return config.getBoolean("auto-resources-injection");
     }
@@ -198,6 +248,22 @@ public class Config {
         return config.getInt("database.days-until-history-removed");
     }
 
+    public boolean getArchiveEnabled() {
+        if (config.contains("database.archive.enabled")) {
+            return config.getBoolean("database.archive.enabled");
+        } else {
+            return true;
+        }
+    }
+
+    public int getArchiveAfterDays() {
+        if (config.contains("database.archive.after-days")) {
+            return config.getInt("database.archive.after-days");
+        } else {
+            return 30;
+        }
+    }
+
     public String getSelectedLanguage() {
         return config.getString("language");
     }
@@ -268,6 +334,12 @@ public class Config {
         return config.getInt("price-options.noise.time");
     }
 
+    // 0 or missing draws a different noise on every start.
+    public long getNoiseSeed() {
+        if (!config.contains("price-options.noise.seed")) return 0;
+        return config.getLong("price-options.noise.seed");
+    }
+
     public boolean isMarketClosed() {
         if (!config.contains("market-control.closed")) return false;
         return config.getBoolean("market-control.closed");
@@ -905,6 +977,22 @@ public class Config {
         return null;
     }
 
+    public boolean getLiveMenusEnabled() {
+        if (inventorygui.contains("live-update.enabled")) {
+            return inventorygui.getBoolean("live-update.enabled");
+        } else {
+            return true;
+        }
+    }
+
+    public int getLiveMenusSlotsPerTick() {
+        if (inventorygui.contains("live-update.slots-per-tick")) {
+            return inventorygui.getInt("live-update.slots-per-tick");
+        } else {
+            return 64;
+        }
+    }
+
     public int getMainMenuSize() {
         return inventorygui.getInt("main-menu.size");
     }
@@ -0,0 +1,95 @@
+package me.bounser.nascraft.database;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.chart.price.ChartType;
+import me.bounser.nascraft.market.ConsumerPriceIndex;
+import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.resources.Category;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.stats.Candle;
+import me.bounser.nascraft.market.unit.stats.CandleResolution;
+import me.bounser.nascraft.market.unit.stats.Instant;
+
+import java.util.HashMap;
+import java.util.List;
+
+// Moves candles between the items and the candles table.
+public class CandleStore {
+
+    private static CandleStore instance;
+
+    public static CandleStore getInstance() { return instance == null ? instance = new CandleStore() : instance; }
+
+    // Fills every item with the stored candles it keeps in memory.
+    public void load() {
+
+        long now = System.currentTimeMillis() / 1000;
+
+        for (CandleResolution resolution : CandleResolution.values()) {
+
+            long since = now - (long) resolution.getRetained() * resolution.getSeconds();
+
+            HashMap<String, List<Candle>> stored = DatabaseManager.get().getDatabase().retrieveCandles(resolution, since);
+            if (stored == null) continue;
+
+            for (Item item : MarketManager.getInstance().getAllParentItems()) {
+                List<Candle> candles = stored.get(item.getIdentifier());
+                if (candles != null) item.getPrice().getCandles().load(resolution, candles);
+            }
+
+            for (Category category : MarketManager.getInstance().getCategories()) {
+                List<Candle> candles = stored.get(getIdentifier(category));
+                if (candles != null) ConsumerPriceIndex.getInstance().getCategoryCandles(category).load(resolution, candles);
+            }
+        }
+
+        for (Item item : MarketManager.getInstance().getAllParentItems())
+            item.getPrice().getCandles().setLoaded();
+
+        for (Category category : MarketManager.getInstance().getCategories())
+            ConsumerPriceIndex.getInstance().getCategoryCandles(category).setLoaded();
+    }
+
+    // Candles of the categories are stored with the ones of the items, under a name no item can have.
+    private static String getIdentifier(Category category) { return "category:" + category.getIdentifier(); }
+
+    // Chart points built from the candles in memory, or null if they don't cover the period of the chart yet.
+    public List<Instant> getChartData(Item item, ChartType chartType) {
+
+        if (chartType.getCandleResolution() == null) return null;
+
+        return item.getPrice().getCandles().getInstants(chartType.getCandleResolution(), chartType.getCandles(), item.getPrice().getValue(), item.getVolume());
+    }
+
+    public void flush() {
+
+        HashMap<String, List<Candle>> unsaved = new HashMap<>();
+
+        for (Item item : MarketManager.getInstance().getAllParentItems()) {
+            List<Candle> candles = item.getPrice().getCandles().collectUnsaved();
+            if (!candles.isEmpty()) unsaved.put(item.getIdentifier(), candles);
+        }
+
+        for (Category category : MarketManager.getInstance().getCategories()) {
+            List<Candle> candles = ConsumerPriceIndex.getInstance().getCategoryCandles(category).collectUnsaved();
+            if (!candles.isEmpty()) unsaved.put(getIdentifier(category), candles);
+        }
+
+        if (unsaved.isEmpty()) return;
+
+        try {
+            DatabaseManager.get().getDatabase().saveCandles(unsaved);
+        } catch (RuntimeException e) {
+            Nascraft.getInstance().getLogger().warning("Error while trying to save the candles, retrying on the next flush.");
+            for (Item item : MarketManager.getInstance().getAllParentItems()) {
+                List<Candle> candles = unsaved.get(item.getIdentifier());
+                if (candles != null) item.getPrice().getCandles().markUnsaved(candles);
+            }
+            for (Category category : MarketManager.getInstance().getCategories()) {
+                List<Candle> candles = unsaved.get(getIdentifier(category));
+                if (candles != null) ConsumerPriceIndex.getInstance().getCategoryCandles(category).markUnsaved(candles);
+            }
+        }
+    }
+
+}
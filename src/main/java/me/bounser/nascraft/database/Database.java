@@ -2,16 +2,22 @@ package me.bounser.nascraft.database;
 
 import me.bounser.nascraft.chart.cpi.CPIInstant;
 import me.bounser.nascraft.database.commands.resources.DayInfo;
+import me.bounser.nascraft.database.commands.resources.ItemState;
+import me.bounser.nascraft.database.commands.resources.PlayerSnapshot;
 import me.bounser.nascraft.database.commands.resources.Trade;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.stats.Candle;
+import me.bounser.nascraft.market.unit.stats.CandleResolution;
 import me.bounser.nascraft.market.unit.stats.Instant;
 import me.bounser.nascraft.portfolio.Portfolio;
 
 import java.sql.Connection;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface Database {
@@ -42,17 +48,22 @@ public interface Database {
     List<Instant> getYearPrices(Item item);
     List<Instant> getAllPrices(Item item);
     Double getPriceOfDay(String identifier, int day);
+    void saveCandles(Map<String, List<Candle>> candles);
+    HashMap<String, List<Candle>> retrieveCandles(CandleResolution resolution, long since);
 
     //
 
     void saveItem(Item item);
     void retrieveItem(Item item);
     void retrieveItems();
+    HashMap<String, ItemState> retrieveItemStates();
+    void saveItems(Collection<Item> items);
     float retrieveLastPrice(Item item);
 
     //
 
     void saveTrade(Trade trade);
+    void saveTrades(List<Trade> trades);
     List<Trade> retrieveTrades(UUID uuid, int offset, int limit);
     List<Trade> retrieveTrades(UUID uuid, Item item, int offset, int limit);
     List<Trade> retrieveTrades(Item item, int offset, int limit);
@@ -81,6 +92,7 @@ public interface Database {
     void saveOrUpdateWorth(UUID uuid, int day, double worth);
     void saveOrUpdateWorthToday(UUID uuid, double worth);
     HashMap<UUID, Portfolio> getTopWorth(int n);
+    LinkedHashMap<UUID, Double> getTopWorthValues(int n);
     double getLatestWorth(UUID uuid);
 
     //
@@ -97,7 +109,7 @@ public interface Database {
 
     List<CPIInstant> getCPIHistory();
     List<Instant> getPriceAgainstCPI(Item item);
-    void addTransaction(double newFlow, double effectiveTaxes);
+    void addFlows(int day, double flow, double taxes, int operations);
     List<DayInfo> getDayInfos();
     double getAllTaxesCollected();
 
@@ -116,6 +128,8 @@ public interface Database {
     void saveOrUpdateName(UUID uuid, String name);
 
     void updateBalance(UUID uuid);
+    void saveBalances(Map<UUID, Double> balances);
     void saveOrUpdatePlayerStats(UUID uuid);
+    void savePlayerSnapshots(List<PlayerSnapshot> snapshots);
 
 }
@@ -3,8 +3,8 @@ package me.bounser.nascraft.database;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
@@ -13,6 +13,7 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.metrics.Metrics;
 
 import java.io.File;
 
@@ -20,7 +21,7 @@ public class DatabaseExecutor {
 
     private static DatabaseExecutor instance;
 
-    private final ExecutorService executor;
+    private final ThreadPoolExecutor executor;
     private final HikariDataSource dataSource;
     private final ConcurrentHashMap<String, Long> transactionIds;
     private final AtomicLong idCounter;
@@ -36,7 +37,7 @@ public class DatabaseExecutor {
     }
 
     private DatabaseExecutor() {
-        this.executor = Executors.newSingleThreadExecutor(r -> {
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
             Thread t = new Thread(r, "Nascraft-DB");
             t.setDaemon(true);
             return t;
@@ -62,8 +63,14 @@ public class DatabaseExecutor {
         config.addDataSourceProperty("busy_timeout", "30000");
 
         this.dataSource = new HikariDataSource(config);
+
+        Metrics.getInstance().registerGauge("db_executor", "queued", this::getQueued);
+        Metrics.getInstance().registerGauge("db_pool", "active", () -> dataSource.getHikariPoolMXBean().getActiveConnections());
+        Metrics.getInstance().registerGauge("db_pool", "waiting", () -> dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection());
     }
 
+    public int getQueued() { return executor.getQueue().size(); }
+
     public void execute(Runnable task) {
         executor.submit(() -> {
             try {
@@ -39,6 +39,8 @@ public class DatabaseManager {
         }
 
         database.connect();
+
+        database = TimedDatabase.wrap(database);
     }
 
     public Database getDatabase() {
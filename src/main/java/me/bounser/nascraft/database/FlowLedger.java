@@ -0,0 +1,125 @@
+package me.bounser.nascraft.database;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.database.commands.resources.DayInfo;
+import me.bounser.nascraft.database.commands.resources.NormalisedDate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class FlowLedger {
+
+    private static FlowLedger instance;
+
+    // Day -> Flow accumulated since the last flush.
+    private volatile ConcurrentHashMap<Integer, DayFlow> pending = new ConcurrentHashMap<>();
+
+    // Writers share the read lock, the flush takes the write lock to swap the pending map.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public static FlowLedger getInstance() { return instance == null ? instance = new FlowLedger() : instance; }
+
+    public void addTransaction(double newFlow, double effectiveTaxes) {
+
+        lock.readLock().lock();
+        try {
+            pending.computeIfAbsent(NormalisedDate.getDays(), day -> new DayFlow()).add(newFlow, Math.abs(effectiveTaxes), 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void flush() {
+
+        ConcurrentHashMap<Integer, DayFlow> toSave;
+
+        lock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) return;
+            toSave = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        for (int day : toSave.keySet()) {
+
+            DayFlow flow = toSave.get(day);
+
+            try {
+                DatabaseManager.get().getDatabase().addFlows(day, flow.getFlow(), flow.getTaxes(), flow.getOperations());
+            } catch (RuntimeException e) {
+                Nascraft.getInstance().getLogger().warning("Error while trying to save the flows of day " + day + ", retrying on the next flush.");
+                restore(day, flow);
+            }
+        }
+    }
+
+    private void restore(int day, DayFlow flow) {
+        lock.readLock().lock();
+        try {
+            pending.computeIfAbsent(day, d -> new DayFlow()).add(flow.getFlow(), flow.getTaxes(), flow.getOperations());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Persisted days with the flows that haven't been flushed yet added on top.
+    public List<DayInfo> getDayInfos(List<DayInfo> persisted) {
+
+        Map<Integer, DayFlow> unsaved = new HashMap<>(pending);
+
+        List<DayInfo> dayInfos = new ArrayList<>();
+
+        if (persisted != null) for (DayInfo info : persisted) {
+            DayFlow flow = unsaved.remove(info.getDay());
+            if (flow == null) dayInfos.add(info);
+            else dayInfos.add(new DayInfo(info.getDay(), info.getFlow() + flow.getFlow(), info.getTax() + flow.getTaxes()));
+        }
+
+        for (int day : unsaved.keySet())
+            dayInfos.add(new DayInfo(day, unsaved.get(day).getFlow(), unsaved.get(day).getTaxes()));
+
+        dayInfos.sort((a, b) -> Integer.compare(a.getDay(), b.getDay()));
+
+        return dayInfos;
+    }
+
+    public double getTodayFlow() {
+        DayFlow flow = pending.get(NormalisedDate.getDays());
+        return flow == null ? 0 : flow.getFlow();
+    }
+
+    public double getTodayTaxes() {
+        DayFlow flow = pending.get(NormalisedDate.getDays());
+        return flow == null ? 0 : flow.getTaxes();
+    }
+
+    public int getTodayOperations() {
+        DayFlow flow = pending.get(NormalisedDate.getDays());
+        return flow == null ? 0 : flow.getOperations();
+    }
+
+    private static class DayFlow {
+
+        private final DoubleAdder flow = new DoubleAdder();
+        private final DoubleAdder taxes = new DoubleAdder();
+        private final LongAdder operations = new LongAdder();
+
+        private void add(double flow, double taxes, long operations) {
+            this.flow.add(flow);
+            this.taxes.add(taxes);
+            this.operations.add(operations);
+        }
+
+        private double getFlow() { return flow.sum(); }
+        private double getTaxes() { return taxes.sum(); }
+        private int getOperations() { return operations.intValue(); }
+    }
+}
@@ -0,0 +1,222 @@
+package me.bounser.nascraft.database;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.unit.Item;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Append-only log of every stock change made since the last save of the items table.
+// If the server crashes, replaying it over the saved items restores the stock they had.
+// Prices keep their own changes (See Price#takeUnjournaled), which are written here on every sync
+// as one record per item, so changing the stock never waits for the journal.
+public class StockJournal {
+
+    private static final byte DEFINE = 0;
+    private static final byte DELTA = 1;
+
+    private static StockJournal instance;
+
+    private final Path current;
+    private final Path checkpointed;
+
+    private FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    // Identifier -> Id used in the records of the current file.
+    private final HashMap<String, Integer> ids = new HashMap<>();
+
+    private boolean broken = false;
+
+    public static StockJournal getInstance() { return instance == null ? instance = new StockJournal() : instance; }
+
+    private StockJournal() {
+
+        File dataDir = new File(Nascraft.getInstance().getDataFolder(), "data");
+        if (!dataDir.exists()) dataDir.mkdirs();
+
+        current = new File(dataDir, "stock.journal").toPath();
+        checkpointed = new File(dataDir, "stock.journal.old").toPath();
+
+        open();
+    }
+
+    private void open() {
+        try {
+            channel = FileChannel.open(current, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            broken = false;
+        } catch (IOException e) {
+            broken = true;
+            Nascraft.getInstance().getLogger().warning("Unable to open the stock journal: " + e.getMessage());
+        }
+    }
+
+    private void append(String identifier, float delta) {
+
+        if (broken || delta == 0) return;
+
+        Integer id = ids.get(identifier);
+
+        if (id == null) {
+            id = ids.size();
+            ids.put(identifier, id);
+
+            byte[] name = identifier.getBytes(StandardCharsets.UTF_8);
+            ensureSpace(1 + 4 + 2 + name.length);
+            buffer.put(DEFINE).putInt(id).putShort((short) name.length).put(name);
+        }
+
+        ensureSpace(1 + 4 + 4 + 8);
+        buffer.put(DELTA).putInt(id).putFloat(delta).putLong(System.currentTimeMillis());
+    }
+
+    private void ensureSpace(int bytes) {
+        if (buffer.remaining() < bytes) write();
+    }
+
+    private void write() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            broken = true;
+            Nascraft.getInstance().getLogger().warning("Unable to write the stock journal: " + e.getMessage());
+        }
+        buffer.clear();
+    }
+
+    // Called periodically, bounds what a crash can lose to the time between two syncs.
+    public synchronized void sync() {
+
+        if (broken) return;
+
+        for (Item item : MarketManager.getInstance().getAllParentItems())
+            append(item.getIdentifier(), item.getPrice().takeUnjournaled());
+
+        if (buffer.position() > 0) write();
+
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            Nascraft.getInstance().getLogger().warning("Unable to sync the stock journal: " + e.getMessage());
+        }
+    }
+
+    // Moves the records written so far aside and runs the snapshot, so every change is either in the
+    // snapshot or in the new file. The snapshot has to drop the changes still kept by each price it reads,
+    // under the lock of that price. The records moved aside are only deleted by commit(), once the
+    // snapshot has been saved.
+    public synchronized <T> T checkpoint(Supplier<T> snapshot) {
+
+        sync();
+
+        try {
+            if (channel != null) channel.close();
+
+            if (Files.exists(checkpointed)) {
+                // The previous snapshot was never committed, its records are still needed.
+                try (FileChannel old = FileChannel.open(checkpointed, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                     FileChannel recent = FileChannel.open(current, StandardOpenOption.READ)) {
+                    recent.transferTo(0, recent.size(), old);
+                    old.force(false);
+                }
+                Files.delete(current);
+            } else {
+                Files.move(current, checkpointed, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Nascraft.getInstance().getLogger().warning("Unable to rotate the stock journal: " + e.getMessage());
+        }
+
+        ids.clear();
+        open();
+
+        return snapshot.get();
+    }
+
+    public synchronized void commit() {
+        try {
+            Files.deleteIfExists(checkpointed);
+        } catch (IOException e) {
+            Nascraft.getInstance().getLogger().warning("Unable to clear the stock journal: " + e.getMessage());
+        }
+    }
+
+    // Applies every recorded change over the state loaded from the items table. Returns the amount of changes replayed.
+    public synchronized int replay(Map<String, Item> items) {
+        return replay(checkpointed, items) + replay(current, items);
+    }
+
+    private int replay(Path path, Map<String, Item> items) {
+
+        if (!Files.exists(path)) return 0;
+
+        int replayed = 0;
+        long end = 0;
+
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            ByteBuffer content = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+
+            HashMap<Integer, String> identifiers = new HashMap<>();
+
+            try {
+                while (content.hasRemaining()) {
+
+                    byte type = content.get();
+
+                    if (type == DEFINE) {
+                        int id = content.getInt();
+                        byte[] name = new byte[content.getShort()];
+                        content.get(name);
+                        identifiers.put(id, new String(name, StandardCharsets.UTF_8));
+                    } else if (type == DELTA) {
+                        int id = content.getInt();
+                        float delta = content.getFloat();
+                        content.getLong();
+
+                        Item item = items.get(identifiers.get(id));
+                        if (item != null) {
+                            item.getPrice().replayStockChange(delta);
+                            replayed++;
+                        }
+                    } else {
+                        break;
+                    }
+
+                    end = content.position();
+                }
+            } catch (BufferUnderflowException e) {
+                // The last record was being written when the server stopped.
+            }
+
+            // Drops an incomplete last record so new records don't end up after it.
+            if (end < file.size()) file.truncate(end);
+
+        } catch (IOException e) {
+            Nascraft.getInstance().getLogger().warning("Unable to replay the stock journal: " + e.getMessage());
+        }
+
+        return replayed;
+    }
+
+    public synchronized void close() {
+        sync();
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException ignored) {}
+        broken = true;
+    }
+}
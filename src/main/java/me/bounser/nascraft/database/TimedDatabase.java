@@ -0,0 +1,45 @@
+package me.bounser.nascraft.database;
+
+import me.bounser.nascraft.metrics.Metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+// Database that records how long each call to the real one takes, under the name of the method,
+// and counts the calls that end in an exception.
+public class TimedDatabase implements InvocationHandler {
+
+    private final Database database;
+
+    private TimedDatabase(Database database) { this.database = database; }
+
+    public static Database wrap(Database database) {
+
+        if (!Metrics.getInstance().isEnabled()) return database;
+
+        return (Database) Proxy.newProxyInstance(
+                Database.class.getClassLoader(),
+                new Class<?>[]{Database.class},
+                new TimedDatabase(database));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+        if (method.getDeclaringClass() == Object.class) return method.invoke(database, args);
+
+        long start = System.nanoTime();
+
+        try {
+            return method.invoke(database, args);
+        } catch (InvocationTargetException e) {
+            Metrics.getInstance().increment("db_errors", method.getName());
+            throw e.getCause();
+        } finally {
+            Metrics.getInstance().stop("db", method.getName(), start);
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+package me.bounser.nascraft.database.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Encodings used by the archive segments to store each column compactly.
+public class ColumnCodec {
+
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    public static void writeVarInt(DataOutput out, int value) throws IOException { writeVarLong(out, value & 0xFFFFFFFFL); }
+
+    public static int readVarInt(DataInput in) throws IOException { return (int) readVarLong(in); }
+
+    // Zigzag keeps small negative numbers small once written as varints.
+    public static void writeSignedVarLong(DataOutput out, long value) throws IOException { writeVarLong(out, (value << 1) ^ (value >> 63)); }
+
+    public static long readSignedVarLong(DataInput in) throws IOException {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    // Each value is stored as the XOR with the previous one. Consecutive prices share sign, exponent and
+    // most of the mantissa, so only the few bits in between the leading and trailing zeros are written.
+    public static void writeDoubles(DataOutput out, double[] values) throws IOException {
+
+        BitWriter bits = new BitWriter();
+
+        long previous = 0;
+        int previousLeading = -1;
+        int previousTrailing = 0;
+
+        for (double value : values) {
+
+            long current = Double.doubleToRawLongBits(value);
+            long xor = current ^ previous;
+
+            if (xor == 0) {
+                bits.write(0, 1);
+            } else {
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                int meaningful = 64 - leading - trailing;
+
+                // The previous window is reused unless describing a new, tighter one takes fewer bits.
+                if (previousLeading != -1 && leading >= previousLeading && trailing >= previousTrailing
+                        && 64 - previousLeading - previousTrailing <= meaningful + 11) {
+                    // Fits in the window of the previous value.
+                    bits.write(0b10, 2);
+                    bits.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                } else {
+                    bits.write(0b11, 2);
+                    bits.write(leading, 5);
+                    bits.write(meaningful - 1, 6);
+                    bits.write(xor >>> trailing, meaningful);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+
+            previous = current;
+        }
+
+        byte[] encoded = bits.toByteArray();
+        writeVarInt(out, encoded.length);
+        out.write(encoded);
+    }
+
+    public static double[] readDoubles(DataInput in, int count) throws IOException {
+
+        byte[] encoded = new byte[readVarInt(in)];
+        in.readFully(encoded);
+
+        BitReader bits = new BitReader(encoded);
+
+        double[] values = new double[count];
+
+        long previous = 0;
+        int previousLeading = 0;
+        int previousTrailing = 0;
+
+        for (int i = 0; i < count; i++) {
+
+            if (bits.read(1) != 0) {
+                if (bits.read(1) == 0) {
+                    previous ^= bits.read(64 - previousLeading - previousTrailing) << previousTrailing;
+                } else {
+                    previousLeading = (int) bits.read(5);
+                    int meaningful = (int) bits.read(6) + 1;
+                    previousTrailing = 64 - previousLeading - meaningful;
+                    previous ^= bits.read(meaningful) << previousTrailing;
+                }
+            }
+
+            values[i] = Double.longBitsToDouble(previous);
+        }
+
+        return values;
+    }
+
+    private static class BitWriter {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int current;
+        private int used;
+
+        private void write(long value, int length) {
+            for (int i = length - 1; i >= 0; i--) {
+                current = (current << 1) | (int) ((value >>> i) & 1);
+                if (++used == 8) {
+                    bytes.write(current);
+                    current = 0;
+                    used = 0;
+                }
+            }
+        }
+
+        private byte[] toByteArray() {
+            if (used > 0) {
+                bytes.write(current << (8 - used));
+                current = 0;
+                used = 0;
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static class BitReader {
+
+        private final byte[] bytes;
+        private int position;
+
+        private BitReader(byte[] bytes) { this.bytes = bytes; }
+
+        private long read(int length) {
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                int bit = (bytes[position >>> 3] >>> (7 - (position & 7))) & 1;
+                value = (value << 1) | bit;
+                position++;
+            }
+            return value;
+        }
+    }
+}
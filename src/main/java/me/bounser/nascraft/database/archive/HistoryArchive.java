@@ -0,0 +1,367 @@
+package me.bounser.nascraft.database.archive;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.commands.resources.NormalisedDate;
+import me.bounser.nascraft.database.commands.resources.Trade;
+import me.bounser.nascraft.market.unit.stats.Instant;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Moves whole months of daily prices and trades out of the database into compressed segment files,
+// one per month and kind, and reads them back for the charts and the trade logs.
+public class HistoryArchive {
+
+    private static final int MAGIC = 0x4E534547;
+    private static final byte VERSION = 1;
+
+    private static final String PRICES = "prices";
+    private static final String TRADES = "trades";
+
+    // The year chart reads the last 385 days straight from prices_history.
+    private static final int MIN_PRICE_DAYS = 400;
+
+    private static final LocalDate START = LocalDate.of(2023, 1, 1);
+
+    private static HistoryArchive instance;
+
+    private final File folder;
+
+    // Every archived daily price, read from the segments on first use.
+    private volatile ArchivedPrices prices;
+
+    // Last decoded trade segments, the logs usually page through the same months.
+    private final LinkedHashMap<YearMonth, TradeSegment> tradeSegments = new LinkedHashMap<YearMonth, TradeSegment>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<YearMonth, TradeSegment> eldest) { return size() > 4; }
+    };
+
+    public static HistoryArchive getInstance() { return instance == null ? instance = new HistoryArchive() : instance; }
+
+    private HistoryArchive() {
+        folder = new File(Nascraft.getInstance().getDataFolder(), "data/archive");
+        if (!folder.exists()) folder.mkdirs();
+    }
+
+    public void archive(Connection connection) {
+
+        if (!Config.getInstance().getArchiveEnabled()) return;
+
+        int today = NormalisedDate.getDays();
+        int afterDays = Math.max(0, Config.getInstance().getArchiveAfterDays());
+
+        long start = System.currentTimeMillis();
+
+        int prices = archivePrices(connection, firstDayOfMonth(today - Math.max(afterDays, MIN_PRICE_DAYS)));
+        int trades = archiveTrades(connection, firstDayOfMonth(today - afterDays));
+
+        if (prices + trades > 0)
+            Nascraft.getInstance().getLogger().info("Archived " + prices + " daily prices and " + trades + " trades in " + (System.currentTimeMillis() - start) + "ms.");
+    }
+
+    private int archivePrices(Connection connection, int beforeDay) {
+
+        TreeMap<YearMonth, PriceSegment.Builder> months = new TreeMap<>();
+        int rows = 0;
+
+        try {
+            PreparedStatement statement = connection.prepareStatement("SELECT day, identifier, price, volume FROM prices_history WHERE day < ? ORDER BY id;");
+            statement.setInt(1, beforeDay);
+            ResultSet resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+                int day = resultSet.getInt("day");
+                months.computeIfAbsent(monthOf(day), month -> new PriceSegment.Builder())
+                        .add(resultSet.getString("identifier"), day, resultSet.getDouble("price"), resultSet.getInt("volume"));
+                rows++;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (rows == 0) return 0;
+
+        for (YearMonth month : months.keySet()) {
+
+            PriceSegment.Builder builder = new PriceSegment.Builder();
+
+            File file = segmentFile(PRICES, month);
+            if (file.exists()) {
+                PriceSegment archived = readSegment(file, PriceSegment::readFrom);
+                if (archived == null) return 0;
+                builder.addAll(archived);
+            }
+
+            // Rows of the database replace archived ones of the same day.
+            builder.addAll(months.get(month).build());
+
+            PriceSegment segment = builder.build();
+            if (!writeSegment(file, segment::writeTo)) return 0;
+        }
+
+        delete(connection, "DELETE FROM prices_history WHERE day < ?;", beforeDay);
+
+        prices = null;
+
+        return rows;
+    }
+
+    private int archiveTrades(Connection connection, int beforeDay) {
+
+        int rows = 0;
+        TreeMap<YearMonth, TradeSegment.Builder> months = new TreeMap<>();
+
+        try {
+            PreparedStatement statement = connection.prepareStatement("SELECT * FROM trade_log WHERE day < ? ORDER BY id;");
+            statement.setInt(1, beforeDay);
+            ResultSet resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+
+                YearMonth month = monthOf(resultSet.getInt("day"));
+
+                TradeSegment.Builder builder = months.get(month);
+
+                if (builder == null) {
+                    builder = new TradeSegment.Builder();
+                    File file = segmentFile(TRADES, month);
+                    // Rows that were archived before but not deleted are skipped by their id.
+                    if (file.exists()) {
+                        TradeSegment archived = readSegment(file, TradeSegment::readFrom);
+                        if (archived == null) return 0;
+                        builder.addAll(archived);
+                    }
+                    months.put(month, builder);
+                }
+
+                builder.add(
+                        resultSet.getLong("id"),
+                        UUID.fromString(resultSet.getString("uuid")),
+                        resultSet.getString("identifier"),
+                        NormalisedDate.parseDateTime(resultSet.getString("date")),
+                        resultSet.getInt("amount"),
+                        resultSet.getFloat("value"),
+                        resultSet.getBoolean("buy"),
+                        resultSet.getBoolean("discord")
+                );
+                rows++;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (rows == 0) return 0;
+
+        for (YearMonth month : months.keySet()) {
+            TradeSegment segment = months.get(month).build();
+            if (!writeSegment(segmentFile(TRADES, month), segment::writeTo)) return 0;
+        }
+
+        delete(connection, "DELETE FROM trade_log WHERE day < ?;", beforeDay);
+
+        synchronized (tradeSegments) {
+            tradeSegments.clear();
+        }
+
+        return rows;
+    }
+
+    // Removes the archived trades of every month that ended before the given day.
+    public void purgeTrades(int beforeDay) {
+
+        YearMonth limit = monthOf(beforeDay);
+
+        for (YearMonth month : months(TRADES))
+            if (month.isBefore(limit)) segmentFile(TRADES, month).delete();
+
+        synchronized (tradeSegments) {
+            tradeSegments.clear();
+        }
+    }
+
+    // Archived daily prices of the item, from the most recent day to the oldest.
+    public List<Instant> getPrices(String identifier) {
+        return loadPrices().instants.getOrDefault(identifier, Collections.emptyList());
+    }
+
+    public double getPriceOfDay(String identifier, int day) {
+        TreeMap<Integer, Double> days = loadPrices().byDay.get(identifier);
+        if (days == null) return 0;
+        return days.getOrDefault(day, 0.0);
+    }
+
+    private synchronized ArchivedPrices loadPrices() {
+
+        ArchivedPrices loaded = prices;
+        if (loaded != null) return loaded;
+
+        HashMap<String, TreeMap<Integer, Double>> byDay = new HashMap<>();
+        HashMap<String, List<Instant>> instants = new HashMap<>();
+
+        for (YearMonth month : months(PRICES)) {
+
+            PriceSegment segment = readSegment(segmentFile(PRICES, month), PriceSegment::readFrom);
+            if (segment == null) continue;
+
+            for (String identifier : segment.getSeries().keySet()) {
+                PriceSegment.Series series = segment.getSeries().get(identifier);
+                TreeMap<Integer, Double> days = byDay.computeIfAbsent(identifier, k -> new TreeMap<>());
+                List<Instant> list = instants.computeIfAbsent(identifier, k -> new ArrayList<>());
+                for (int i = 0; i < series.size(); i++) {
+                    days.put(series.getDay(i), series.getPrice(i));
+                    list.add(new Instant(LocalDateTime.of(2023, 1, 1, 1, 1).plusDays(series.getDay(i)), series.getPrice(i), series.getVolume(i)));
+                }
+            }
+        }
+
+        for (List<Instant> list : instants.values()) list.sort((a, b) -> b.getLocalDateTime().compareTo(a.getLocalDateTime()));
+
+        return prices = new ArchivedPrices(instants, byDay);
+    }
+
+    public boolean hasTrades() { return !months(TRADES).isEmpty(); }
+
+    // Archived trades, newest first, matching the uuid and identifier. A null uuid or identifier matches any.
+    public List<Trade> getTrades(UUID uuid, String identifier, int offset, int limit) {
+
+        List<Trade> trades = new ArrayList<>();
+
+        List<YearMonth> months = months(TRADES);
+        Collections.reverse(months);
+
+        for (YearMonth month : months) {
+
+            if (trades.size() >= limit) break;
+
+            TradeSegment segment;
+            synchronized (tradeSegments) {
+                segment = tradeSegments.get(month);
+                if (segment == null) {
+                    segment = readSegment(segmentFile(TRADES, month), TradeSegment::readFrom);
+                    if (segment == null) continue;
+                    tradeSegments.put(month, segment);
+                }
+            }
+
+            offset = segment.collect(uuid, identifier, offset, limit, trades);
+        }
+
+        return trades;
+    }
+
+    // Months with a segment of the given kind, oldest first.
+    private List<YearMonth> months(String kind) {
+
+        List<YearMonth> months = new ArrayList<>();
+
+        File[] files = folder.listFiles((dir, name) -> name.startsWith(kind + "-") && name.endsWith(".seg"));
+        if (files == null) return months;
+
+        for (File file : files)
+            months.add(YearMonth.parse(file.getName().substring(kind.length() + 1, file.getName().length() - 4)));
+
+        Collections.sort(months);
+        return months;
+    }
+
+    private File segmentFile(String kind, YearMonth month) { return new File(folder, kind + "-" + month + ".seg"); }
+
+    private static YearMonth monthOf(int day) { return YearMonth.from(START.plusDays(day)); }
+
+    private static int firstDayOfMonth(int day) { return (int) ChronoUnit.DAYS.between(START, monthOf(day).atDay(1)); }
+
+    private void delete(Connection connection, String sql, int beforeDay) {
+        try {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setInt(1, beforeDay);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // The segment is written next to the target and moved over it once it is on disk, so a crash
+    // leaves either the old segment or the new one. Rows are only deleted from the database afterwards.
+    private boolean writeSegment(File file, SegmentWriter writer) {
+
+        File temporary = new File(file.getPath() + ".tmp");
+
+        try (FileOutputStream fileStream = new FileOutputStream(temporary)) {
+
+            DeflaterOutputStream deflater = new DeflaterOutputStream(fileStream);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflater));
+
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            writer.write(out);
+
+            out.flush();
+            deflater.finish();
+            fileStream.getFD().sync();
+
+        } catch (IOException e) {
+            Nascraft.getInstance().getLogger().warning("Unable to write the archive segment " + file.getName() + ": " + e.getMessage());
+            temporary.delete();
+            return false;
+        }
+
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            Nascraft.getInstance().getLogger().warning("Unable to replace the archive segment " + file.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private <T> T readSegment(File file, SegmentReader<T> reader) {
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(file))))) {
+
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                Nascraft.getInstance().getLogger().warning("Archive segment " + file.getName() + " has an unknown format.");
+                return null;
+            }
+
+            return reader.read(in);
+
+        } catch (IOException e) {
+            Nascraft.getInstance().getLogger().warning("Unable to read the archive segment " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static class ArchivedPrices {
+
+        // Identifier -> Daily prices, from the most recent day to the oldest.
+        private final HashMap<String, List<Instant>> instants;
+        // Identifier -> (Day -> Price)
+        private final HashMap<String, TreeMap<Integer, Double>> byDay;
+
+        private ArchivedPrices(HashMap<String, List<Instant>> instants, HashMap<String, TreeMap<Integer, Double>> byDay) {
+            this.instants = instants;
+            this.byDay = byDay;
+        }
+    }
+
+    private interface SegmentWriter {
+        void write(DataOutput out) throws IOException;
+    }
+
+    private interface SegmentReader<T> {
+        T read(DataInput in) throws IOException;
+    }
+}
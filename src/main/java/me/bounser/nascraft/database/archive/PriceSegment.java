@@ -0,0 +1,140 @@
+package me.bounser.nascraft.database.archive;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Daily prices of one month, stored column by column for each item.
+public class PriceSegment {
+
+    private final HashMap<String, Series> series;
+
+    private PriceSegment(HashMap<String, Series> series) { this.series = series; }
+
+    public HashMap<String, Series> getSeries() { return series; }
+
+    public void writeTo(DataOutput out) throws IOException {
+
+        ColumnCodec.writeVarInt(out, series.size());
+
+        for (String identifier : series.keySet()) {
+
+            Series entry = series.get(identifier);
+
+            out.writeUTF(identifier);
+            ColumnCodec.writeVarInt(out, entry.size());
+
+            int previousDay = 0;
+            for (int day : entry.days) {
+                ColumnCodec.writeSignedVarLong(out, day - previousDay);
+                previousDay = day;
+            }
+
+            ColumnCodec.writeDoubles(out, entry.prices);
+
+            for (int volume : entry.volumes) ColumnCodec.writeSignedVarLong(out, volume);
+        }
+    }
+
+    public static PriceSegment readFrom(DataInput in) throws IOException {
+
+        int count = ColumnCodec.readVarInt(in);
+
+        HashMap<String, Series> series = new HashMap<>();
+
+        for (int i = 0; i < count; i++) {
+
+            String identifier = in.readUTF();
+            int size = ColumnCodec.readVarInt(in);
+
+            int[] days = new int[size];
+            int previousDay = 0;
+            for (int j = 0; j < size; j++) days[j] = previousDay += (int) ColumnCodec.readSignedVarLong(in);
+
+            double[] prices = ColumnCodec.readDoubles(in, size);
+
+            int[] volumes = new int[size];
+            for (int j = 0; j < size; j++) volumes[j] = (int) ColumnCodec.readSignedVarLong(in);
+
+            series.put(identifier, new Series(days, prices, volumes));
+        }
+
+        return new PriceSegment(series);
+    }
+
+    public static class Series {
+
+        private final int[] days;
+        private final double[] prices;
+        private final int[] volumes;
+
+        private Series(int[] days, double[] prices, int[] volumes) {
+            this.days = days;
+            this.prices = prices;
+            this.volumes = volumes;
+        }
+
+        public int size() { return days.length; }
+
+        public int getDay(int index) { return days[index]; }
+
+        public double getPrice(int index) { return prices[index]; }
+
+        public int getVolume(int index) { return volumes[index]; }
+
+        // Index of the day, or a negative number if there is no price for it.
+        public int indexOf(int day) { return Arrays.binarySearch(days, day); }
+    }
+
+    public static class Builder {
+
+        // Identifier -> (Day -> Price and volume), a later row replaces an earlier one of the same day.
+        private final HashMap<String, TreeMap<Integer, double[]>> rows = new HashMap<>();
+
+        public Builder add(String identifier, int day, double price, int volume) {
+            rows.computeIfAbsent(identifier, k -> new TreeMap<>()).put(day, new double[]{price, volume});
+            return this;
+        }
+
+        public Builder addAll(PriceSegment segment) {
+            for (String identifier : segment.series.keySet()) {
+                Series entry = segment.series.get(identifier);
+                for (int i = 0; i < entry.size(); i++)
+                    add(identifier, entry.days[i], entry.prices[i], entry.volumes[i]);
+            }
+            return this;
+        }
+
+        public boolean isEmpty() { return rows.isEmpty(); }
+
+        public PriceSegment build() {
+
+            HashMap<String, Series> series = new HashMap<>();
+
+            for (String identifier : rows.keySet()) {
+
+                TreeMap<Integer, double[]> days = rows.get(identifier);
+
+                int[] dayColumn = new int[days.size()];
+                double[] priceColumn = new double[days.size()];
+                int[] volumeColumn = new int[days.size()];
+
+                int i = 0;
+                for (Map.Entry<Integer, double[]> entry : days.entrySet()) {
+                    dayColumn[i] = entry.getKey();
+                    priceColumn[i] = entry.getValue()[0];
+                    volumeColumn[i] = (int) entry.getValue()[1];
+                    i++;
+                }
+
+                series.put(identifier, new Series(dayColumn, priceColumn, volumeColumn));
+            }
+
+            return new PriceSegment(series);
+        }
+    }
+}
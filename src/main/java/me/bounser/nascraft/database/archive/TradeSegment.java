@@ -0,0 +1,224 @@
+package me.bounser.nascraft.database.archive;
+
+import me.bounser.nascraft.database.commands.resources.Trade;
+import me.bounser.nascraft.market.MarketManager;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+// Trades of one month in the order they were logged. Players and items are stored once
+// in a dictionary and referenced by their position in it.
+public class TradeSegment {
+
+    private static final byte BUY = 1;
+    private static final byte DISCORD = 2;
+
+    // Id in trade_log of the last trade, rows up to it are already in the segment.
+    private final long lastId;
+
+    private final UUID[] uuids;
+    private final String[] identifiers;
+
+    private final long[] seconds;
+    private final int[] uuidColumn;
+    private final int[] identifierColumn;
+    private final int[] amounts;
+    private final double[] values;
+    private final byte[] flags;
+
+    private TradeSegment(long lastId, UUID[] uuids, String[] identifiers, long[] seconds, int[] uuidColumn,
+                         int[] identifierColumn, int[] amounts, double[] values, byte[] flags) {
+        this.lastId = lastId;
+        this.uuids = uuids;
+        this.identifiers = identifiers;
+        this.seconds = seconds;
+        this.uuidColumn = uuidColumn;
+        this.identifierColumn = identifierColumn;
+        this.amounts = amounts;
+        this.values = values;
+        this.flags = flags;
+    }
+
+    public long getLastId() { return lastId; }
+
+    public int size() { return seconds.length; }
+
+    // Adds the matching trades, newest first, to the list. A null uuid or identifier matches any.
+    // Returns how many of the trades to skip are still left for older segments.
+    public int collect(UUID uuid, String identifier, int skip, int limit, List<Trade> trades) {
+
+        int uuidIndex = uuid == null ? -1 : indexOf(uuids, uuid);
+        int identifierIndex = identifier == null ? -1 : indexOf(identifiers, identifier);
+
+        if ((uuid != null && uuidIndex == -1) || (identifier != null && identifierIndex == -1)) return skip;
+
+        for (int i = size() - 1; i >= 0 && trades.size() < limit; i--) {
+
+            if (uuidIndex != -1 && uuidColumn[i] != uuidIndex) continue;
+            if (identifierIndex != -1 && identifierColumn[i] != identifierIndex) continue;
+
+            if (skip > 0) { skip--; continue; }
+
+            trades.add(new Trade(
+                    MarketManager.getInstance().getItem(identifiers[identifierColumn[i]]),
+                    LocalDateTime.ofEpochSecond(seconds[i], 0, ZoneOffset.UTC),
+                    values[i],
+                    amounts[i],
+                    (flags[i] & BUY) != 0,
+                    (flags[i] & DISCORD) != 0,
+                    uuids[uuidColumn[i]]
+            ));
+        }
+
+        return skip;
+    }
+
+    private static int indexOf(Object[] dictionary, Object value) {
+        for (int i = 0; i < dictionary.length; i++) if (dictionary[i].equals(value)) return i;
+        return -1;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+
+        out.writeLong(lastId);
+
+        ColumnCodec.writeVarInt(out, uuids.length);
+        for (UUID uuid : uuids) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+
+        ColumnCodec.writeVarInt(out, identifiers.length);
+        for (String identifier : identifiers) out.writeUTF(identifier);
+
+        ColumnCodec.writeVarInt(out, size());
+
+        long previous = 0;
+        for (long second : seconds) {
+            ColumnCodec.writeSignedVarLong(out, second - previous);
+            previous = second;
+        }
+
+        for (int index : uuidColumn) ColumnCodec.writeVarInt(out, index);
+        for (int index : identifierColumn) ColumnCodec.writeVarInt(out, index);
+        for (int amount : amounts) ColumnCodec.writeSignedVarLong(out, amount);
+        ColumnCodec.writeDoubles(out, values);
+        out.write(flags);
+    }
+
+    public static TradeSegment readFrom(DataInput in) throws IOException {
+
+        long lastId = in.readLong();
+
+        UUID[] uuids = new UUID[ColumnCodec.readVarInt(in)];
+        for (int i = 0; i < uuids.length; i++) uuids[i] = new UUID(in.readLong(), in.readLong());
+
+        String[] identifiers = new String[ColumnCodec.readVarInt(in)];
+        for (int i = 0; i < identifiers.length; i++) identifiers[i] = in.readUTF();
+
+        int size = ColumnCodec.readVarInt(in);
+
+        long[] seconds = new long[size];
+        long previous = 0;
+        for (int i = 0; i < size; i++) seconds[i] = previous += ColumnCodec.readSignedVarLong(in);
+
+        int[] uuidColumn = new int[size];
+        for (int i = 0; i < size; i++) uuidColumn[i] = ColumnCodec.readVarInt(in);
+
+        int[] identifierColumn = new int[size];
+        for (int i = 0; i < size; i++) identifierColumn[i] = ColumnCodec.readVarInt(in);
+
+        int[] amounts = new int[size];
+        for (int i = 0; i < size; i++) amounts[i] = (int) ColumnCodec.readSignedVarLong(in);
+
+        double[] values = ColumnCodec.readDoubles(in, size);
+
+        byte[] flags = new byte[size];
+        in.readFully(flags);
+
+        return new TradeSegment(lastId, uuids, identifiers, seconds, uuidColumn, identifierColumn, amounts, values, flags);
+    }
+
+    public static class Builder {
+
+        private long lastId = 0;
+
+        private final HashMap<UUID, Integer> uuids = new HashMap<>();
+        private final HashMap<String, Integer> identifiers = new HashMap<>();
+
+        private final List<long[]> rows = new ArrayList<>();
+        private final List<Double> values = new ArrayList<>();
+
+        // Rows have to be added in the order of their id. Rows already in the segment are ignored.
+        public Builder add(long id, UUID uuid, String identifier, LocalDateTime date, int amount, double value, boolean buy, boolean discord) {
+
+            if (id <= lastId) return this;
+            lastId = id;
+
+            rows.add(new long[]{
+                    date.toEpochSecond(ZoneOffset.UTC),
+                    uuids.computeIfAbsent(uuid, k -> uuids.size()),
+                    identifiers.computeIfAbsent(identifier, k -> identifiers.size()),
+                    amount,
+                    (buy ? BUY : 0) | (discord ? DISCORD : 0)
+            });
+            values.add(value);
+
+            return this;
+        }
+
+        public Builder addAll(TradeSegment segment) {
+            for (int i = 0; i < segment.size(); i++) {
+                rows.add(new long[]{
+                        segment.seconds[i],
+                        uuids.computeIfAbsent(segment.uuids[segment.uuidColumn[i]], k -> uuids.size()),
+                        identifiers.computeIfAbsent(segment.identifiers[segment.identifierColumn[i]], k -> identifiers.size()),
+                        segment.amounts[i],
+                        segment.flags[i]
+                });
+                values.add(segment.values[i]);
+            }
+            lastId = Math.max(lastId, segment.lastId);
+            return this;
+        }
+
+        public boolean isEmpty() { return rows.isEmpty(); }
+
+        public TradeSegment build() {
+
+            UUID[] uuidDictionary = new UUID[uuids.size()];
+            for (UUID uuid : uuids.keySet()) uuidDictionary[uuids.get(uuid)] = uuid;
+
+            String[] identifierDictionary = new String[identifiers.size()];
+            for (String identifier : identifiers.keySet()) identifierDictionary[identifiers.get(identifier)] = identifier;
+
+            int size = rows.size();
+
+            long[] seconds = new long[size];
+            int[] uuidColumn = new int[size];
+            int[] identifierColumn = new int[size];
+            int[] amounts = new int[size];
+            double[] valueColumn = new double[size];
+            byte[] flags = new byte[size];
+
+            for (int i = 0; i < size; i++) {
+                long[] row = rows.get(i);
+                seconds[i] = row[0];
+                uuidColumn[i] = (int) row[1];
+                identifierColumn[i] = (int) row[2];
+                amounts[i] = (int) row[3];
+                flags[i] = (byte) row[4];
+                valueColumn[i] = values.get(i);
+            }
+
+            return new TradeSegment(lastId, uuidDictionary, identifierDictionary, seconds, uuidColumn, identifierColumn, amounts, valueColumn, flags);
+        }
+    }
+}
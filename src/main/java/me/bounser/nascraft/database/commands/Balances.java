@@ -11,7 +11,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
@@ -21,6 +24,8 @@ public class Balances {
 
     private static final Logger log = Nascraft.getInstance().getLogger();
 
+    private static final int SELECT_CHUNK = 500;
+
     public static void updateBalance(Connection connection, UUID uuid) {
 
         Player player = Bukkit.getPlayer(uuid);
@@ -114,6 +119,81 @@ public class Balances {
         }
     }
 
+    public static void saveBalances(Connection connection, Map<UUID, Double> currentBalances) {
+
+        if (currentBalances.isEmpty()) return;
+
+        try {
+            connection.setAutoCommit(false);
+
+            HashMap<UUID, Double> pastBalances = new HashMap<>();
+
+            // Only the rows of the players in the snapshot are read, in chunks that stay under the limit
+            // of parameters of a statement.
+            List<UUID> uuids = new ArrayList<>(currentBalances.keySet());
+
+            for (int from = 0; from < uuids.size(); from += SELECT_CHUNK) {
+
+                List<UUID> chunk = uuids.subList(from, Math.min(from + SELECT_CHUNK, uuids.size()));
+
+                String sqlSelect = "SELECT uuid, balance FROM balances WHERE uuid IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ");";
+
+                try (PreparedStatement prepSelect = connection.prepareStatement(sqlSelect)) {
+
+                    for (int i = 0; i < chunk.size(); i++) prepSelect.setString(i + 1, chunk.get(i).toString());
+
+                    try (ResultSet rs = prepSelect.executeQuery()) {
+                        while (rs.next()) pastBalances.put(UUID.fromString(rs.getString("uuid")), rs.getDouble("balance"));
+                    }
+                }
+            }
+
+            double supplyDifference = 0.0;
+
+            try (PreparedStatement prepUpdate = connection.prepareStatement("UPDATE balances SET balance = ? WHERE uuid = ?;");
+                 PreparedStatement prepInsert = connection.prepareStatement("INSERT INTO balances (uuid, balance) VALUES (?, ?);")) {
+
+                for (UUID uuid : currentBalances.keySet()) {
+
+                    double currentBalance = currentBalances.get(uuid);
+                    Double pastBalance = pastBalances.get(uuid);
+
+                    if (pastBalance == null) {
+                        prepInsert.setString(1, uuid.toString());
+                        prepInsert.setDouble(2, currentBalance);
+                        prepInsert.addBatch();
+                        supplyDifference += currentBalance;
+                    } else if (currentBalance != pastBalance) {
+                        prepUpdate.setDouble(1, currentBalance);
+                        prepUpdate.setString(2, uuid.toString());
+                        prepUpdate.addBatch();
+                        supplyDifference += currentBalance - pastBalance;
+                    }
+                }
+
+                prepUpdate.executeBatch();
+                prepInsert.executeBatch();
+            }
+
+            if (supplyDifference != 0.0) {
+                String sqlSupply = "INSERT INTO money_supply (day, supply) VALUES (?, ?) ON CONFLICT(day) DO UPDATE SET supply = supply + excluded.supply;";
+                try (PreparedStatement prepSupply = connection.prepareStatement(sqlSupply)) {
+                    prepSupply.setInt(1, NormalisedDate.getDays());
+                    prepSupply.setDouble(2, supplyDifference);
+                    prepSupply.executeUpdate();
+                }
+            }
+
+            connection.commit();
+
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {}
+            throw new RuntimeException("Failed to save the balances snapshot", e);
+        }
+    }
+
     public static Map<Integer, Double> getMoneySupplyHistory(Connection connection) throws SQLException {
         Map<Integer, Double> supplyHistory = new HashMap<>();
         String sql = "SELECT day, supply FROM money_supply ORDER BY day ASC;";
@@ -0,0 +1,101 @@
+package me.bounser.nascraft.database.commands;
+
+import me.bounser.nascraft.market.unit.stats.Candle;
+import me.bounser.nascraft.market.unit.stats.CandleResolution;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Candles {
+
+    private static final String UPSERT =
+            "INSERT INTO candles (identifier, resolution, start, open, high, low, close, volume) VALUES (?,?,?,?,?,?,?,?) " +
+            "ON CONFLICT(identifier, resolution, start) DO UPDATE SET " +
+            "open = excluded.open, high = excluded.high, low = excluded.low, close = excluded.close, volume = excluded.volume;";
+
+    public static void saveCandles(Connection connection, Map<String, List<Candle>> candles) {
+        try {
+            connection.setAutoCommit(false);
+
+            PreparedStatement statement = connection.prepareStatement(UPSERT);
+
+            for (String identifier : candles.keySet()) {
+                for (Candle candle : candles.get(identifier)) {
+                    statement.setString(1, identifier);
+                    statement.setInt(2, candle.getResolution().ordinal());
+                    statement.setLong(3, candle.getStart());
+                    statement.setFloat(4, candle.getOpen());
+                    statement.setFloat(5, candle.getHigh());
+                    statement.setFloat(6, candle.getLow());
+                    statement.setFloat(7, candle.getClose());
+                    statement.setInt(8, candle.getVolume());
+                    statement.addBatch();
+                }
+            }
+
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {}
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Identifier -> Candles starting at or after the given epoch second, from the oldest to the newest.
+    public static HashMap<String, List<Candle>> retrieveCandles(Connection connection, CandleResolution resolution, long since) {
+
+        HashMap<String, List<Candle>> candles = new HashMap<>();
+
+        try {
+            String sql = "SELECT identifier, start, open, high, low, close, volume FROM candles WHERE resolution = ? AND start >= ? ORDER BY start;";
+
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setInt(1, resolution.ordinal());
+            statement.setLong(2, since);
+
+            ResultSet resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+                candles.computeIfAbsent(resultSet.getString("identifier"), k -> new ArrayList<>()).add(new Candle(
+                        resolution,
+                        resultSet.getLong("start"),
+                        resultSet.getFloat("open"),
+                        resultSet.getFloat("high"),
+                        resultSet.getFloat("low"),
+                        resultSet.getFloat("close"),
+                        resultSet.getInt("volume")
+                ));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        return candles;
+    }
+
+    public static void purgeCandles(Connection connection) {
+        try {
+            PreparedStatement statement = connection.prepareStatement("DELETE FROM candles WHERE resolution = ? AND start < ?;");
+
+            long now = System.currentTimeMillis() / 1000;
+
+            for (CandleResolution resolution : CandleResolution.values()) {
+                if (resolution.getDaysStored() == -1) continue;
+                statement.setInt(1, resolution.ordinal());
+                statement.setLong(2, now - resolution.getDaysStored() * 86400L);
+                statement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
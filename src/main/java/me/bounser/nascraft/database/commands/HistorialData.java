@@ -1,5 +1,6 @@
 package me.bounser.nascraft.database.commands;
 
+import me.bounser.nascraft.database.archive.HistoryArchive;
 import me.bounser.nascraft.database.commands.resources.NormalisedDate;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.market.unit.stats.Instant;
@@ -377,6 +378,8 @@ public class HistorialData {
 
         List<Instant> prices = new LinkedList<>();
 
+        List<Instant> archived = HistoryArchive.getInstance().getPrices(item.getIdentifier());
+
         try {
             String select = "SELECT day FROM prices_history WHERE identifier=? ORDER BY day DESC LIMIT 1;";
 
@@ -386,7 +389,7 @@ public class HistorialData {
 
             ResultSet resultSet = preparedStatement.executeQuery();
 
-            if (!resultSet.next()) {
+            if (!resultSet.next() && archived.isEmpty()) {
 
                 prices.add(new Instant(LocalDateTime.now().minusDays(30), 0, 0));
                 prices.add(new Instant(LocalDateTime.now().minusMinutes(5), 0, 0));
@@ -414,6 +417,9 @@ public class HistorialData {
                     ));
                 }
 
+                // Days older than the ones in the database.
+                prices.addAll(archived);
+
                 prices.add(new Instant(LocalDateTime.now(), item.getPrice().getValue(), item.getVolume()));
 
                 prices.add(new Instant(LocalDateTime.now(), item.getPrice().getValue(), item.getVolume()));
@@ -1,6 +1,7 @@
 package me.bounser.nascraft.database.commands;
 
 import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.commands.resources.ItemState;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.market.unit.Item;
 
@@ -8,48 +9,15 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 public class ItemProperties {
 
     public static void saveItem(Connection connection, Item item) {
-
-        try {
-            String sql = "SELECT stock FROM items WHERE identifier=?;";
-
-            PreparedStatement prep = connection.prepareStatement(sql);
-            prep.setString(1, item.getIdentifier());
-            ResultSet rs = prep.executeQuery();
-
-            if (rs.next()) {
-                String sqlReplace = "REPLACE INTO items (lastprice, lowest, highest, stock, taxes, identifier) VALUES (?, ?, ?, ?, ?, ?);";
-                PreparedStatement prepReplace = connection.prepareStatement(sqlReplace);
-
-                prepReplace.setDouble(1, item.getPrice().getValue());
-                prepReplace.setDouble(2, item.getPrice().getHistoricalLow());
-                prepReplace.setDouble(3, item.getPrice().getHistoricalHigh());
-                prepReplace.setDouble(4, item.getPrice().getStock());
-                prepReplace.setDouble(5, item.getCollectedTaxes());
-
-                prepReplace.setString(6, item.getIdentifier());
-
-                prepReplace.executeUpdate();
-            } else {
-                String sqlInsert = "INSERT INTO items (lastprice, lowest, highest, stock, taxes, identifier) VALUES (?, ?, ?, ?, ?, ?);";
-                PreparedStatement prepInsert = connection.prepareStatement(sqlInsert);
-
-                prepInsert.setDouble(1, item.getPrice().getValue());
-                prepInsert.setDouble(2, item.getPrice().getHistoricalLow());
-                prepInsert.setDouble(3, item.getPrice().getHistoricalHigh());
-                prepInsert.setDouble(4, item.getPrice().getStock());
-                prepInsert.setDouble(5, item.getCollectedTaxes());
-
-                prepInsert.setString(6, item.getIdentifier());
-
-                prepInsert.executeUpdate();
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        saveItems(connection, Collections.singletonList(item));
     }
 
     public static void retrieveItem(Connection connection, Item item) {
@@ -62,7 +30,7 @@ public class ItemProperties {
             ResultSet rs = prep.executeQuery();
 
             if (rs.next()) {
-                item.getPrice().setStock(rs.getInt("stock"));
+                item.getPrice().loadStock(rs.getInt("stock"));
                 item.getPrice().setHistoricalHigh(rs.getFloat("highest"));
                 item.getPrice().setHistoricalLow(rs.getFloat("lowest"));
                 item.setCollectedTaxes(rs.getFloat("taxes"));
@@ -77,7 +45,7 @@ public class ItemProperties {
                 insertPrep.setFloat(5, 0);
                 insertPrep.setFloat(6, 0);
 
-                item.getPrice().setStock(0);
+                item.getPrice().loadStock(0);
                 item.getPrice().setHistoricalHigh(Config.getInstance().getInitialPrice(item.getIdentifier()));
                 item.getPrice().setHistoricalLow(Config.getInstance().getInitialPrice(item.getIdentifier()));
                 item.setCollectedTaxes(0);
@@ -90,6 +58,88 @@ public class ItemProperties {
         }
     }
 
+    public static HashMap<String, ItemState> retrieveItemStates(Connection connection) {
+
+        HashMap<String, ItemState> states = new HashMap<>();
+
+        try {
+            String sql = "SELECT identifier, lastprice, lowest, highest, stock, taxes FROM items;";
+
+            PreparedStatement prep = connection.prepareStatement(sql);
+            ResultSet rs = prep.executeQuery();
+
+            while (rs.next()) {
+                states.put(rs.getString("identifier"), new ItemState(
+                        rs.getFloat("lastprice"),
+                        rs.getFloat("lowest"),
+                        rs.getFloat("highest"),
+                        rs.getFloat("stock"),
+                        rs.getFloat("taxes")
+                ));
+            }
+
+            return states;
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Applies the stored state to the item, or the initial state if the item has never been saved.
+    public static void applyState(Item item, ItemState state) {
+
+        if (state != null) {
+            item.getPrice().loadStock(state.getStock());
+            item.getPrice().setHistoricalHigh(state.getHighest());
+            item.getPrice().setHistoricalLow(state.getLowest());
+            item.setCollectedTaxes(state.getTaxes());
+        } else {
+            item.getPrice().loadStock(0);
+            item.getPrice().setHistoricalHigh(Config.getInstance().getInitialPrice(item.getIdentifier()));
+            item.getPrice().setHistoricalLow(Config.getInstance().getInitialPrice(item.getIdentifier()));
+            item.setCollectedTaxes(0);
+        }
+    }
+
+    public static void saveItems(Connection connection, Collection<Item> items) {
+
+        HashMap<String, ItemState> states = new HashMap<>();
+
+        for (Item item : items) states.put(item.getIdentifier(), ItemState.of(item));
+
+        saveItemStates(connection, states);
+    }
+
+    public static void saveItemStates(Connection connection, Map<String, ItemState> states) {
+
+        try {
+            connection.setAutoCommit(false);
+
+            String sql = "INSERT INTO items (identifier, lastprice, lowest, highest, stock, taxes) VALUES (?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT(identifier) DO UPDATE SET lastprice = excluded.lastprice, lowest = excluded.lowest, " +
+                    "highest = excluded.highest, stock = excluded.stock, taxes = excluded.taxes;";
+
+            PreparedStatement prep = connection.prepareStatement(sql);
+
+            for (String identifier : states.keySet()) {
+                ItemState state = states.get(identifier);
+                prep.setString(1, identifier);
+                prep.setDouble(2, state.getLastPrice());
+                prep.setDouble(3, state.getLowest());
+                prep.setDouble(4, state.getHighest());
+                prep.setDouble(5, state.getStock());
+                prep.setDouble(6, state.getTaxes());
+                prep.addBatch();
+            }
+
+            prep.executeBatch();
+            connection.commit();
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static float retrieveLastPrice(Connection connection, Item item) {
 
         try {
@@ -129,7 +179,7 @@ public class ItemProperties {
                 if (item == null) continue;
 
                 if (item.isParent()) {
-                    item.getPrice().setStock(resultSet.getFloat("stock"));
+                    item.getPrice().loadStock(resultSet.getFloat("stock"));
                 }
 
             }
@@ -2,6 +2,7 @@ package me.bounser.nascraft.database.commands;
 
 import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.database.commands.resources.NormalisedDate;
+import me.bounser.nascraft.database.commands.resources.PlayerSnapshot;
 import me.bounser.nascraft.managers.DebtManager;
 import me.bounser.nascraft.portfolio.PortfoliosManager;
 import org.bukkit.Bukkit;
@@ -9,46 +10,43 @@ import org.bukkit.OfflinePlayer;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 public class PlayerStats {
 
+    private static final String UPSERT = "INSERT INTO player_stats (day, uuid, balance, portfolio, debt) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT(day, uuid) DO UPDATE SET balance = excluded.balance, portfolio = excluded.portfolio, debt = excluded.debt;";
+
     public static void saveOrUpdatePlayerStats(Connection connection, UUID uuid) {
+
+        OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
+        double balance = Nascraft.getEconomy().getBalance(player);
+        double portfolio = PortfoliosManager.getInstance().getPortfolio(uuid).getValueOfDefaultCurrency();
+        double debt = DebtManager.getInstance().getDebtOfPlayer(uuid);
+
+        saveStats(connection, Collections.singletonList(new PlayerSnapshot(uuid, balance, portfolio, debt)));
+    }
+
+    public static void saveStats(Connection connection, List<PlayerSnapshot> snapshots) {
         try {
             int day = NormalisedDate.getDays();
 
-            OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
-            double balance = Nascraft.getEconomy().getBalance(player);
-            double portfolio = PortfoliosManager.getInstance().getPortfolio(uuid).getValueOfDefaultCurrency();
-            double debt = DebtManager.getInstance().getDebtOfPlayer(uuid);
-
-            String sql1 = "SELECT day FROM player_stats WHERE day=? AND uuid=?;";
-            PreparedStatement prep1 = connection.prepareStatement(sql1);
-            prep1.setInt(1, day);
-            prep1.setString(2, uuid.toString());
-            ResultSet resultSet = prep1.executeQuery();
-
-            if (resultSet.next()) {
-                String sql2 = "UPDATE player_stats SET balance=?, portfolio=?, debt=? WHERE day=? AND uuid=?;";
-                PreparedStatement prep2 = connection.prepareStatement(sql2);
-                prep2.setDouble(1, balance);
-                prep2.setDouble(2, portfolio);
-                prep2.setDouble(3, debt);
-                prep2.setInt(4, day);
-                prep2.setString(5, uuid.toString());
-                prep2.executeUpdate();
-            } else {
-                String sql2 = "INSERT INTO player_stats (day, uuid, balance, portfolio, debt) VALUES (?, ?, ?, ?, ?);";
-                PreparedStatement prep2 = connection.prepareStatement(sql2);
-                prep2.setInt(1, day);
-                prep2.setString(2, uuid.toString());
-                prep2.setDouble(3, balance);
-                prep2.setDouble(4, portfolio);
-                prep2.setDouble(5, debt);
-                prep2.executeUpdate();
+            PreparedStatement prep = connection.prepareStatement(UPSERT);
+
+            for (PlayerSnapshot snapshot : snapshots) {
+                prep.setInt(1, day);
+                prep.setString(2, snapshot.getUuid().toString());
+                prep.setDouble(3, snapshot.getBalance());
+                prep.setDouble(4, snapshot.getPortfolio());
+                prep.setDouble(5, snapshot.getDebt());
+                prep.addBatch();
             }
+
+            prep.executeBatch();
+
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
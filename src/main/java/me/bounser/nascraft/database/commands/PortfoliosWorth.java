@@ -1,6 +1,7 @@
 package me.bounser.nascraft.database.commands;
 
 import me.bounser.nascraft.database.commands.resources.NormalisedDate;
+import me.bounser.nascraft.database.commands.resources.PlayerSnapshot;
 import me.bounser.nascraft.portfolio.Portfolio;
 import me.bounser.nascraft.portfolio.PortfoliosManager;
 
@@ -10,33 +11,21 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.UUID;
 
 public class PortfoliosWorth {
 
+    private static final String UPSERT = "INSERT INTO portfolios_worth (uuid, day, worth) VALUES (?,?,?) " +
+            "ON CONFLICT(day, uuid) DO UPDATE SET worth = excluded.worth;";
+
     public static void saveOrUpdateWorth(Connection connection, UUID uuid, int day, double worth) {
         try {
-            String sql1 = "SELECT id FROM portfolios_worth WHERE uuid=? AND day=?;";
-            PreparedStatement prep1 = connection.prepareStatement(sql1);
-            prep1.setString(1, uuid.toString());
-            prep1.setInt(2, day);
-            ResultSet resultSet = prep1.executeQuery();
-
-            if (resultSet.next()) {
-                String sql2 = "UPDATE portfolios_worth SET worth=? WHERE uuid=? AND day=?;";
-                PreparedStatement prep2 = connection.prepareStatement(sql2);
-                prep2.setDouble(1, worth);
-                prep2.setString(2, uuid.toString());
-                prep2.setInt(3, day);
-                prep2.executeUpdate();
-            } else {
-                String sql2 = "INSERT INTO portfolios_worth (uuid, day, worth) VALUES (?,?,?);";
-                PreparedStatement prep2 = connection.prepareStatement(sql2);
-                prep2.setString(1, uuid.toString());
-                prep2.setInt(2, day);
-                prep2.setDouble(3, worth);
-                prep2.executeUpdate();
-            }
+            PreparedStatement prep = connection.prepareStatement(UPSERT);
+            prep.setString(1, uuid.toString());
+            prep.setInt(2, day);
+            prep.setDouble(3, worth);
+            prep.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -47,6 +36,28 @@ public class PortfoliosWorth {
         saveOrUpdateWorth(connection, uuid, today, worth);
     }
 
+    public static void saveWorths(Connection connection, List<PlayerSnapshot> snapshots) {
+        try {
+            int today = NormalisedDate.getDays();
+
+            PreparedStatement prep = connection.prepareStatement(UPSERT);
+
+            for (PlayerSnapshot snapshot : snapshots) {
+                if (snapshot.getWorth() == 0) continue;
+
+                prep.setString(1, snapshot.getUuid().toString());
+                prep.setInt(2, today);
+                prep.setDouble(3, snapshot.getWorth());
+                prep.addBatch();
+            }
+
+            prep.executeBatch();
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static HashMap<UUID, Portfolio> getTopWorth(Connection connection, int n) {
         LinkedHashMap<UUID, Portfolio> result = new LinkedHashMap<>();
         try {
@@ -67,6 +78,24 @@ public class PortfoliosWorth {
         return result;
     }
 
+    // Latest worth of the n players worth the most, without loading their portfolios.
+    public static LinkedHashMap<UUID, Double> getTopWorthValues(Connection connection, int n) {
+        LinkedHashMap<UUID, Double> result = new LinkedHashMap<>();
+        try {
+            String sql = "SELECT uuid, worth FROM portfolios_worth WHERE (uuid, day) IN (SELECT uuid, MAX(day) FROM portfolios_worth GROUP BY uuid) ORDER BY worth DESC LIMIT ?;";
+            PreparedStatement prep = connection.prepareStatement(sql);
+            prep.setInt(1, n);
+            ResultSet resultSet = prep.executeQuery();
+
+            while (resultSet.next())
+                result.put(UUID.fromString(resultSet.getString("uuid")), resultSet.getDouble("worth"));
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
+
     public static double getLatestWorth(Connection connection, UUID uuid) {
         try {
             String sql = "SELECT worth FROM portfolios_worth WHERE uuid=? ORDER BY day DESC LIMIT 1;";
@@ -99,47 +99,21 @@ public class Statistics {
         }
     }
 
-    public static void addTransaction(Connection connection, double newFlow, double effectiveTaxes) {
+    public static void addFlows(Connection connection, int day, double flow, double taxes, int operations) {
 
         try {
 
-            String query = "SELECT flow, operations, taxes FROM flows WHERE day=?;";
+            String sql = "INSERT INTO flows (day, flow, taxes, operations) VALUES (?,?,?,?) " +
+                    "ON CONFLICT(day) DO UPDATE SET flow = flow + excluded.flow, taxes = taxes + excluded.taxes, operations = operations + excluded.operations;";
 
-            PreparedStatement prep = connection.prepareStatement(query);
-            prep.setInt(1, NormalisedDate.getDays());
-            ResultSet rs = prep.executeQuery();
-
-            if (rs.next()) {
-                double flow = rs.getFloat("flow");
-                double taxes = rs.getFloat("taxes");
-                int operations = rs.getInt("operations");
-
-                flow += newFlow;
-                taxes += Math.abs(effectiveTaxes);
-                operations++;
-
-                String sqlreplace = "REPLACE INTO flows(day, flow, taxes, operations) VALUES (?,?,?,?);";
-
-                PreparedStatement replacePrep = connection.prepareStatement(sqlreplace);
-                replacePrep.setInt(1, NormalisedDate.getDays());
-                replacePrep.setDouble(2, flow);
-                replacePrep.setDouble(3, taxes);
-                replacePrep.setInt(4, operations);
-
-                replacePrep.executeUpdate();
-
-            } else {
-
-                String sqlinsert = "INSERT INTO flows (day, flow, taxes, operations) VALUES (?,?,?,?);";
+            PreparedStatement prep = connection.prepareStatement(sql);
+            prep.setInt(1, day);
+            prep.setDouble(2, flow);
+            prep.setDouble(3, taxes);
+            prep.setInt(4, operations);
 
-                PreparedStatement insertPrep = connection.prepareStatement(sqlinsert);
-                insertPrep.setInt(1, NormalisedDate.getDays());
-                insertPrep.setDouble(2, newFlow);
-                insertPrep.setDouble(3, effectiveTaxes);
-                insertPrep.setInt(4, 1);
+            prep.executeUpdate();
 
-                insertPrep.executeUpdate();
-            }
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
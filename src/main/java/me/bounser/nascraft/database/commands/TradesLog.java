@@ -1,6 +1,7 @@
 package me.bounser.nascraft.database.commands;
 
 import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.archive.HistoryArchive;
 import me.bounser.nascraft.database.commands.resources.NormalisedDate;
 import me.bounser.nascraft.database.commands.resources.Trade;
 import me.bounser.nascraft.formatter.RoundUtils;
@@ -38,6 +39,34 @@ public class TradesLog {
         }
     }
 
+    public static void saveTrades(Connection connection, List<Trade> trades) {
+        try {
+            connection.setAutoCommit(false);
+
+            String insertSQL = "INSERT INTO trade_log (uuid, day, date, identifier, amount, value, buy, discord) VALUES (?,?,?,?,?,?,?,?);";
+            PreparedStatement statement = connection.prepareStatement(insertSQL);
+
+            int day = NormalisedDate.getDays();
+
+            for (Trade trade : trades) {
+                statement.setString(1, trade.getUuid().toString());
+                statement.setInt(2, day);
+                statement.setString(3, NormalisedDate.formatDateTime(trade.getDate()));
+                statement.setString(4, trade.getItem().getIdentifier());
+                statement.setInt(5, trade.getAmount());
+                statement.setFloat(6, RoundUtils.round(trade.getValue()));
+                statement.setBoolean(7, trade.isBuy());
+                statement.setBoolean(8, trade.throughDiscord());
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static List<Trade> retrieveTrades(Connection connection, UUID uuid, int offset, int limit) {
 
         if (uuid == null) return null;
@@ -168,6 +197,27 @@ public class TradesLog {
         return null;
     }
 
+    // Amount of trades in the table matching the uuid and item. A null uuid or item matches any.
+    public static int countTrades(Connection connection, UUID uuid, Item item) {
+        try {
+            String sql = "SELECT COUNT(*) FROM trade_log WHERE (? IS NULL OR uuid = ?) AND (? IS NULL OR identifier = ?);";
+            PreparedStatement statement = connection.prepareStatement(sql);
+
+            String uuidString = uuid == null ? null : uuid.toString();
+            String identifier = item == null ? null : item.getIdentifier();
+
+            statement.setString(1, uuidString);
+            statement.setString(2, uuidString);
+            statement.setString(3, identifier);
+            statement.setString(4, identifier);
+
+            ResultSet rs = statement.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static void purgeHistory(Connection connection) {
 
         int offset = Config.getInstance().getDatabasePurgeDays();
@@ -178,6 +228,8 @@ public class TradesLog {
             PreparedStatement prep = connection.prepareStatement(sql);
             prep.setDouble(1, NormalisedDate.getDays() - offset);
             prep.executeUpdate();
+
+            HistoryArchive.getInstance().purgeTrades(NormalisedDate.getDays() - offset);
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
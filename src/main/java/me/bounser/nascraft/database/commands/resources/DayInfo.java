@@ -20,6 +20,8 @@ public class DayInfo {
         return LocalDate.of(2023, 1, 1).plusDays(day).atStartOfDay();
     }
 
+    public int getDay() { return day; }
+
     public double getFlow() { return flow; }
 
     public double getTax() { return tax; }
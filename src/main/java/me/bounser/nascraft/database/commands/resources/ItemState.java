@@ -0,0 +1,40 @@
+package me.bounser.nascraft.database.commands.resources;
+
+import me.bounser.nascraft.market.unit.Item;
+
+public class ItemState {
+
+    private final float lastPrice;
+    private final float lowest;
+    private final float highest;
+    private final float stock;
+    private final float taxes;
+
+    public ItemState(float lastPrice, float lowest, float highest, float stock, float taxes) {
+        this.lastPrice = lastPrice;
+        this.lowest = lowest;
+        this.highest = highest;
+        this.stock = stock;
+        this.taxes = taxes;
+    }
+
+    public static ItemState of(Item item) {
+        return new ItemState(
+                (float) item.getPrice().getValue(),
+                (float) item.getPrice().getHistoricalLow(),
+                (float) item.getPrice().getHistoricalHigh(),
+                item.getPrice().getStock(),
+                item.getCollectedTaxes()
+        );
+    }
+
+    public float getLastPrice() { return lastPrice; }
+
+    public float getLowest() { return lowest; }
+
+    public float getHighest() { return highest; }
+
+    public float getStock() { return stock; }
+
+    public float getTaxes() { return taxes; }
+}
@@ -0,0 +1,29 @@
+package me.bounser.nascraft.database.commands.resources;
+
+import java.util.UUID;
+
+public class PlayerSnapshot {
+
+    private final UUID uuid;
+
+    private final double balance;
+    private final double portfolio;
+    private final double debt;
+
+    public PlayerSnapshot(UUID uuid, double balance, double portfolio, double debt) {
+        this.uuid = uuid;
+        this.balance = balance;
+        this.portfolio = portfolio;
+        this.debt = debt;
+    }
+
+    public UUID getUuid() { return uuid; }
+
+    public double getBalance() { return balance; }
+
+    public double getPortfolio() { return portfolio; }
+
+    public double getDebt() { return debt; }
+
+    public double getWorth() { return portfolio - debt; }
+}
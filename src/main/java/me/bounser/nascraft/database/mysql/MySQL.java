@@ -3,16 +3,22 @@ package me.bounser.nascraft.database.mysql;
 import me.bounser.nascraft.chart.cpi.CPIInstant;
 import me.bounser.nascraft.database.Database;
 import me.bounser.nascraft.database.commands.resources.DayInfo;
+import me.bounser.nascraft.database.commands.resources.ItemState;
+import me.bounser.nascraft.database.commands.resources.PlayerSnapshot;
 import me.bounser.nascraft.database.commands.resources.Trade;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.stats.Candle;
+import me.bounser.nascraft.market.unit.stats.CandleResolution;
 import me.bounser.nascraft.market.unit.stats.Instant;
 import me.bounser.nascraft.portfolio.Portfolio;
 
 import java.sql.Connection;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class MySQL implements Database {
@@ -138,6 +144,16 @@ public class MySQL implements Database {
         return 0.0;
     }
 
+    @Override
+    public void saveCandles(Map<String, List<Candle>> candles) {
+
+    }
+
+    @Override
+    public HashMap<String, List<Candle>> retrieveCandles(CandleResolution resolution, long since) {
+        return null;
+    }
+
     @Override
     public void saveItem(Item item) {
 
@@ -153,6 +169,16 @@ public class MySQL implements Database {
 
     }
 
+    @Override
+    public HashMap<String, ItemState> retrieveItemStates() {
+        return null;
+    }
+
+    @Override
+    public void saveItems(Collection<Item> items) {
+
+    }
+
 
     @Override
     public float retrieveLastPrice(Item item) {
@@ -164,6 +190,11 @@ public class MySQL implements Database {
 
     }
 
+    @Override
+    public void saveTrades(List<Trade> trades) {
+
+    }
+
     @Override
     public List<Trade> retrieveTrades(UUID uuid, int offset, int limit) {
         return null;
@@ -279,6 +310,11 @@ public class MySQL implements Database {
         return null;
     }
 
+    @Override
+    public LinkedHashMap<UUID, Double> getTopWorthValues(int n) {
+        return null;
+    }
+
     @Override
     public double getLatestWorth(UUID uuid) {
         return 0;
@@ -325,7 +361,7 @@ public class MySQL implements Database {
     }
 
     @Override
-    public void addTransaction(double newFlow, double effectiveTaxes) {
+    public void addFlows(int day, double flow, double taxes, int operations) {
 
     }
 
@@ -399,9 +435,19 @@ public class MySQL implements Database {
 
     }
 
+    @Override
+    public void saveBalances(Map<UUID, Double> balances) {
+
+    }
+
     @Override
     public void saveOrUpdatePlayerStats(UUID uuid) {
 
     }
 
+    @Override
+    public void savePlayerSnapshots(List<PlayerSnapshot> snapshots) {
+
+    }
+
 }
@@ -3,12 +3,18 @@ package me.bounser.nascraft.database.sqlite;
 import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.chart.cpi.CPIInstant;
 import me.bounser.nascraft.database.Database;
+import me.bounser.nascraft.database.StockJournal;
+import me.bounser.nascraft.database.archive.HistoryArchive;
 import me.bounser.nascraft.database.commands.*;
 import me.bounser.nascraft.database.commands.resources.DayInfo;
+import me.bounser.nascraft.database.commands.resources.ItemState;
+import me.bounser.nascraft.database.commands.resources.PlayerSnapshot;
 import me.bounser.nascraft.database.commands.resources.NormalisedDate;
 import me.bounser.nascraft.database.commands.resources.Trade;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.stats.Candle;
+import me.bounser.nascraft.market.unit.stats.CandleResolution;
 import me.bounser.nascraft.market.unit.stats.Instant;
 import me.bounser.nascraft.portfolio.Portfolio;
 
@@ -24,10 +30,28 @@ public class SQLite implements Database {
 
     private final String PATH = Nascraft.getInstance().getDataFolder().getPath() + "/data/sqlite.db";
 
+    // Every connection is opened to this: the file of the plugin, or a database kept in memory.
+    private final String url;
+    private final boolean inMemory;
+
     private static SQLite instance;
 
     public static SQLite getInstance() { return instance == null ? instance = new SQLite() : instance; }
 
+    private SQLite() {
+        url = "jdbc:sqlite:" + PATH;
+        inMemory = false;
+    }
+
+    private SQLite(String name) {
+        url = "jdbc:sqlite:file:" + name + "?mode=memory&cache=shared";
+        inMemory = true;
+    }
+
+    // Database that only exists in memory while it is connected, used by the market simulator to record
+    // its trades and limit orders (See MarketSimulator). Each name is a separate database.
+    public static SQLite createInMemory(String name) { return new SQLite(name); }
+
     private void createDatabaseIfNotExists() {
         File databaseFile = new File(PATH);
         if (!databaseFile.exists()) {
@@ -59,13 +83,35 @@ public class SQLite implements Database {
         }
     }
 
+    // Keeps the newest row of every duplicated key before the unique index is created on older databases.
+    // Once the index exists there can't be duplicates, so the cleanup only runs the first time.
+    private void createUniqueIndex(Connection connection, String tableName, String columns) {
+
+        String index = "idx_" + tableName + "_unique";
+
+        try (PreparedStatement prep = connection.prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'index' AND name = ?;")) {
+
+            prep.setString(1, index);
+
+            try (ResultSet resultSet = prep.executeQuery()) {
+                if (resultSet.next()) return;
+            }
+
+            Statement statement = connection.createStatement();
+            statement.execute("DELETE FROM " + tableName + " WHERE rowid NOT IN (SELECT MAX(rowid) FROM " + tableName + " GROUP BY " + columns + ");");
+            statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + index + " ON " + tableName + " (" + columns + ");");
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public void connect() {
 
-        createDatabaseIfNotExists();
+        if (!inMemory) createDatabaseIfNotExists();
 
         try {
-            connection = DriverManager.getConnection("jdbc:sqlite:" + PATH);
+            connection = DriverManager.getConnection(url);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
@@ -75,6 +121,17 @@ public class SQLite implements Database {
 
     @Override
     public void disconnect() {
+
+        // Holds nothing of the live market, the tables are just dropped with the last connection.
+        if (inMemory) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                Nascraft.getInstance().getLogger().warning(e.getMessage());
+            }
+            return;
+        }
+
         saveEverything();
     }
 
@@ -221,6 +278,20 @@ public class SQLite implements Database {
                         "portfolio DOUBLE NOT NULL," +
                         "debt DOUBLE NOT NULL");
 
+        createUniqueIndex(connection, "player_stats", "day, uuid");
+        createUniqueIndex(connection, "portfolios_worth", "day, uuid");
+
+        createTable(connection, "candles",
+                "identifier TEXT NOT NULL, " +
+                        "resolution INT NOT NULL, " +
+                        "start INT NOT NULL, " +
+                        "open REAL NOT NULL, " +
+                        "high REAL NOT NULL, " +
+                        "low REAL NOT NULL, " +
+                        "close REAL NOT NULL, " +
+                        "volume INT NOT NULL, " +
+                        "PRIMARY KEY (identifier, resolution, start)");
+
         createTable(connection, "discord",
                 "userid VARCHAR(18) NOT NULL," +
                         "uuid VARCHAR(36) NOT NULL," +
@@ -229,18 +300,46 @@ public class SQLite implements Database {
 
     @Override
     public void saveEverything() {
-        for (Item item : MarketManager.getInstance().getAllParentItems()) {
-            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-                ItemProperties.saveItem(connection, item);
-            } catch (SQLException e) {
-                Nascraft.getInstance().getLogger().warning(e.getMessage());
+
+        List<Item> changed = new ArrayList<>();
+
+        // The flags are cleared and the values read inside the checkpoint, so every stock change is either in
+        // this save or in the journal kept for the next one.
+        HashMap<String, ItemState> states = StockJournal.getInstance().checkpoint(() -> {
+
+            HashMap<String, ItemState> snapshot = new HashMap<>();
+
+            for (Item item : MarketManager.getInstance().getAllParentItems()) {
+                if (!item.isDirty()) continue;
+                item.setDirty(false);
+                changed.add(item);
+                // The changes the journal hasn't taken yet are in the state read, so they are dropped with it.
+                synchronized (item.getPrice()) {
+                    item.getPrice().takeUnjournaled();
+                    snapshot.put(item.getIdentifier(), ItemState.of(item));
+                }
             }
+
+            return snapshot;
+        });
+
+        if (states.isEmpty()) {
+            StockJournal.getInstance().commit();
+            return;
+        }
+
+        try (Connection connection = DriverManager.getConnection(url)) {
+            ItemProperties.saveItemStates(connection, states);
+            StockJournal.getInstance().commit();
+        } catch (SQLException | RuntimeException e) {
+            for (Item item : changed) item.setDirty(true);
+            Nascraft.getInstance().getLogger().warning("Error while trying to save the items: " + e.getMessage());
         }
     }
 
     @Override
     public void saveLink(String userId, UUID uuid, String nickname) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             DiscordLink.saveLink(connection, userId, uuid, nickname);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -249,7 +348,7 @@ public class SQLite implements Database {
 
     @Override
     public void removeLink(String userId) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             DiscordLink.removeLink(connection, userId);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -258,7 +357,7 @@ public class SQLite implements Database {
 
     @Override
     public UUID getUUID(String userId) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return DiscordLink.getUUID(connection, userId);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -268,7 +367,7 @@ public class SQLite implements Database {
 
     @Override
     public String getNickname(String userId) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return DiscordLink.getNickname(connection, userId);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -278,7 +377,7 @@ public class SQLite implements Database {
 
     @Override
     public String getUserId(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return DiscordLink.getUserId(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -288,7 +387,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveDayPrice(Item item, Instant instant) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             HistorialData.saveDayPrice(connection, item, instant);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -297,7 +396,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveMonthPrice(Item item, Instant instant) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             HistorialData.saveMonthPrice(connection, item, instant);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -306,7 +405,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveHistoryPrices(Item item, Instant instant) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             HistorialData.saveHistoryPrices(connection, item, instant);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -315,7 +414,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Instant> getDayPrices(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return HistorialData.getDayPrices(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -325,7 +424,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Instant> getMonthPrices(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return HistorialData.getMonthPrices(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -335,7 +434,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Instant> getYearPrices(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return HistorialData.getYearPrices(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -345,7 +444,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Instant> getAllPrices(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return HistorialData.getAllPrices(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -355,17 +454,37 @@ public class SQLite implements Database {
 
     @Override
     public Double getPriceOfDay(String identifier, int day) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            return HistorialData.getPriceOfDay(connection, identifier, day);
+        try (Connection connection = DriverManager.getConnection(url)) {
+            double price = HistorialData.getPriceOfDay(connection, identifier, day);
+            return price != 0 ? price : HistoryArchive.getInstance().getPriceOfDay(identifier, day);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
             return 0.0;
         }
     }
 
+    @Override
+    public void saveCandles(Map<String, List<Candle>> candles) {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            Candles.saveCandles(connection, candles);
+        } catch (SQLException e) {
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
+        }
+    }
+
+    @Override
+    public HashMap<String, List<Candle>> retrieveCandles(CandleResolution resolution, long since) {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            return Candles.retrieveCandles(connection, resolution, since);
+        } catch (SQLException e) {
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
     @Override
     public void saveItem(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             ItemProperties.saveItem(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -374,7 +493,7 @@ public class SQLite implements Database {
 
     @Override
     public void retrieveItem(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             ItemProperties.retrieveItem(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -383,16 +502,35 @@ public class SQLite implements Database {
 
     @Override
     public void retrieveItems() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             ItemProperties.retrieveItems(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
     }
 
+    @Override
+    public HashMap<String, ItemState> retrieveItemStates() {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            return ItemProperties.retrieveItemStates(connection);
+        } catch (SQLException e) {
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    @Override
+    public void saveItems(Collection<Item> items) {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            ItemProperties.saveItems(connection, items);
+        } catch (SQLException e) {
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
+        }
+    }
+
     @Override
     public float retrieveLastPrice(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return ItemProperties.retrieveLastPrice(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -402,17 +540,26 @@ public class SQLite implements Database {
 
     @Override
     public void saveTrade(Trade trade) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             TradesLog.saveTrade(connection, trade);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
     }
 
+    @Override
+    public void saveTrades(List<Trade> trades) {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            TradesLog.saveTrades(connection, trades);
+        } catch (SQLException e) {
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
+        }
+    }
+
     @Override
     public List<Trade> retrieveTrades(UUID uuid, int offset, int limit) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            return TradesLog.retrieveTrades(connection, uuid, offset, limit);
+        try (Connection connection = DriverManager.getConnection(url)) {
+            return withArchivedTrades(connection, TradesLog.retrieveTrades(connection, uuid, offset, limit), uuid, null, offset, limit);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
             return Collections.emptyList();
@@ -421,8 +568,8 @@ public class SQLite implements Database {
 
     @Override
     public List<Trade> retrieveTrades(UUID uuid, Item item, int offset, int limit) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            return TradesLog.retrieveTrades(connection, uuid, item, offset, limit);
+        try (Connection connection = DriverManager.getConnection(url)) {
+            return withArchivedTrades(connection, TradesLog.retrieveTrades(connection, uuid, item, offset, limit), uuid, item, offset, limit);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
             return Collections.emptyList();
@@ -431,8 +578,8 @@ public class SQLite implements Database {
 
     @Override
     public List<Trade> retrieveTrades(Item item, int offset, int limit) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            return TradesLog.retrieveTrades(connection, item, offset, limit);
+        try (Connection connection = DriverManager.getConnection(url)) {
+            return withArchivedTrades(connection, TradesLog.retrieveTrades(connection, item, offset, limit), null, item, offset, limit);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
             return Collections.emptyList();
@@ -441,18 +588,36 @@ public class SQLite implements Database {
 
     @Override
     public List<Trade> retrieveTrades(int offset, int limit) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            return TradesLog.retrieveLastTrades(connection, offset, limit);
+        try (Connection connection = DriverManager.getConnection(url)) {
+            return withArchivedTrades(connection, TradesLog.retrieveLastTrades(connection, offset, limit), null, null, offset, limit);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
             return Collections.emptyList();
         }
     }
 
+    // Completes a page of trades with archived ones once the table has no older rows left.
+    private List<Trade> withArchivedTrades(Connection connection, List<Trade> trades, UUID uuid, Item item, int offset, int limit) {
+
+        if (trades == null || trades.size() >= limit || !HistoryArchive.getInstance().hasTrades()) return trades;
+
+        int inTable = trades.isEmpty() ? TradesLog.countTrades(connection, uuid, item) : offset + trades.size();
+
+        trades.addAll(HistoryArchive.getInstance().getTrades(
+                uuid,
+                item == null ? null : item.getIdentifier(),
+                Math.max(0, offset - inTable),
+                limit - trades.size()));
+
+        return trades;
+    }
+
     @Override
     public void purgeHistory() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             TradesLog.purgeHistory(connection);
+            HistoryArchive.getInstance().archive(connection);
+            Candles.purgeCandles(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
@@ -460,7 +625,7 @@ public class SQLite implements Database {
 
     @Override
     public void updateItemPortfolio(UUID uuid, Item item, int quantity) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Portfolios.updateItemPortfolio(connection, uuid, item, quantity);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -469,7 +634,7 @@ public class SQLite implements Database {
 
     @Override
     public void removeItemPortfolio(UUID uuid, Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Portfolios.removeItemPortfolio(connection, uuid, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -478,7 +643,7 @@ public class SQLite implements Database {
 
     @Override
     public void clearPortfolio(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Portfolios.clearPortfolio(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -487,7 +652,7 @@ public class SQLite implements Database {
 
     @Override
     public void updateCapacity(UUID uuid, int capacity) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Portfolios.updateCapacity(connection, uuid, capacity);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -496,7 +661,7 @@ public class SQLite implements Database {
 
     @Override
     public LinkedHashMap<Item, Integer> retrievePortfolio(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Portfolios.retrievePortfolio(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -506,7 +671,7 @@ public class SQLite implements Database {
 
     @Override
     public int retrieveCapacity(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Portfolios.retrieveCapacity(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -516,7 +681,7 @@ public class SQLite implements Database {
 
     @Override
     public void logContribution(UUID uuid, Item item, int amount) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             PortfoliosLog.logContribution(connection, uuid, item, amount);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -525,7 +690,7 @@ public class SQLite implements Database {
 
     @Override
     public void logWithdraw(UUID uuid, Item item, int amount) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             PortfoliosLog.logWithdraw(connection, uuid, item, amount);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -534,7 +699,7 @@ public class SQLite implements Database {
 
     @Override
     public HashMap<Integer, Double> getContributionChangeEachDay(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return PortfoliosLog.getContributionChangeEachDay(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -544,7 +709,7 @@ public class SQLite implements Database {
 
     @Override
     public HashMap<Integer, HashMap<String, Integer>> getCompositionEachDay(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return PortfoliosLog.getCompositionEachDay(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -554,7 +719,7 @@ public class SQLite implements Database {
 
     @Override
     public int getFirstDay(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return PortfoliosLog.getFirstDay(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -564,7 +729,7 @@ public class SQLite implements Database {
 
     @Override
     public void increaseDebt(UUID uuid, Double debt) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Debt.increaseDebt(connection, uuid, debt);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -573,7 +738,7 @@ public class SQLite implements Database {
 
     @Override
     public void decreaseDebt(UUID uuid, Double debt) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Debt.decreaseDebt(connection, uuid, debt);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -582,7 +747,7 @@ public class SQLite implements Database {
 
     @Override
     public double getDebt(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Debt.getDebt(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -592,7 +757,7 @@ public class SQLite implements Database {
 
     @Override
     public HashMap<UUID, Double> getUUIDAndDebt() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Debt.getUUIDAndDebt(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -602,7 +767,7 @@ public class SQLite implements Database {
 
     @Override
     public void addInterestPaid(UUID uuid, Double interest) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Debt.addInterestPaid(connection, uuid, interest);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -611,7 +776,7 @@ public class SQLite implements Database {
 
     @Override
     public HashMap<UUID, Double> getUUIDAndInterestsPaid() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Debt.getUUIDAndInterestsPaid(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -621,7 +786,7 @@ public class SQLite implements Database {
 
     @Override
     public double getInterestsPaid(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Debt.getInterestsPaid(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -631,7 +796,7 @@ public class SQLite implements Database {
 
     @Override
     public double getAllOutstandingDebt() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Debt.getAllOutstandingDebt(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -641,7 +806,7 @@ public class SQLite implements Database {
 
     @Override
     public double getAllInterestsPaid() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Debt.getAllInterestsPaid(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -651,7 +816,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveOrUpdateWorth(UUID uuid, int day, double worth) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             PortfoliosWorth.saveOrUpdateWorth(connection, uuid, day, worth);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -660,7 +825,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveOrUpdateWorthToday(UUID uuid, double worth) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             PortfoliosWorth.saveOrUpdateWorthToday(connection, uuid, worth);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -669,7 +834,7 @@ public class SQLite implements Database {
 
     @Override
     public HashMap<UUID, Portfolio> getTopWorth(int n) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return PortfoliosWorth.getTopWorth(connection, n);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -677,9 +842,19 @@ public class SQLite implements Database {
         return null;
     }
 
+    @Override
+    public LinkedHashMap<UUID, Double> getTopWorthValues(int n) {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            return PortfoliosWorth.getTopWorthValues(connection, n);
+        } catch (SQLException e) {
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
+        }
+        return null;
+    }
+
     @Override
     public double getLatestWorth(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return PortfoliosWorth.getLatestWorth(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -689,7 +864,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveCPIValue(float indexValue) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Statistics.saveCPI(connection, indexValue);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -698,7 +873,7 @@ public class SQLite implements Database {
 
     @Override
     public List<CPIInstant> getCPIHistory() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Statistics.getAllCPI(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -708,7 +883,7 @@ public class SQLite implements Database {
 
     @Override
     public List<Instant> getPriceAgainstCPI(Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Statistics.getPriceAgainstCPI(connection, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -717,17 +892,17 @@ public class SQLite implements Database {
     }
 
     @Override
-    public void addTransaction(double newFlow, double effectiveTaxes) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
-            Statistics.addTransaction(connection, newFlow, effectiveTaxes);
+    public void addFlows(int day, double flow, double taxes, int operations) {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            Statistics.addFlows(connection, day, flow, taxes, operations);
         } catch (SQLException e) {
-            Nascraft.getInstance().getLogger().warning("Error while trying to log a transaction");
+            Nascraft.getInstance().getLogger().warning("Error while trying to log the flows");
         }
     }
 
     @Override
     public List<DayInfo> getDayInfos() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Statistics.getDayInfos(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -737,7 +912,7 @@ public class SQLite implements Database {
 
     @Override
     public double getAllTaxesCollected() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return Statistics.getAllTaxesCollected(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -751,7 +926,7 @@ public class SQLite implements Database {
             if (connection != null && !connection.isClosed()) {
                 Alerts.addAlert(connection, userid, item, price);
             } else {
-                try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+                try (Connection connection = DriverManager.getConnection(url)) {
                     Alerts.addAlert(connection, userid, item, price);
                 } catch (SQLException e) {
                     Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -765,7 +940,7 @@ public class SQLite implements Database {
 
     @Override
     public void removeAlert(String userid, Item item) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Alerts.removeAlert(connection, userid, item);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -786,7 +961,7 @@ public class SQLite implements Database {
 
     @Override
     public void removeAllAlerts(String userid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Alerts.removeAllAlerts(connection, userid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -795,7 +970,7 @@ public class SQLite implements Database {
 
     @Override
     public void purgeAlerts() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Alerts.purgeAlerts(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -804,7 +979,7 @@ public class SQLite implements Database {
 
     @Override
     public void addLimitOrder(UUID uuid, LocalDateTime expiration, Item item, int type, double price, int amount) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             LimitOrders.addLimitOrder(connection, uuid, expiration, item, type, price, amount);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -813,7 +988,7 @@ public class SQLite implements Database {
 
     @Override
     public void updateLimitOrder(UUID uuid, Item item, int completed, double cost) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             LimitOrders.updateLimitOrder(connection, uuid, item, completed, cost);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -822,7 +997,7 @@ public class SQLite implements Database {
 
     @Override
     public void removeLimitOrder(String uuid, String identifier) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             LimitOrders.removeLimitOrder(connection, uuid, identifier);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -831,7 +1006,7 @@ public class SQLite implements Database {
 
     @Override
     public void retrieveLimitOrders() {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             LimitOrders.retrieveLimitOrders(connection);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -840,7 +1015,7 @@ public class SQLite implements Database {
 
     @Override
     public String getNameByUUID(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             return UserNames.getNameByUUID(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -850,7 +1025,7 @@ public class SQLite implements Database {
 
     @Override
     public void saveOrUpdateName(UUID uuid, String name) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             UserNames.saveOrUpdateNick(connection, uuid, name);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
@@ -859,20 +1034,48 @@ public class SQLite implements Database {
 
     @Override
     public void updateBalance(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             Balances.updateBalance(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
     }
 
+    @Override
+    public void saveBalances(Map<UUID, Double> balances) {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            Balances.saveBalances(connection, balances);
+        } catch (SQLException e) {
+            Nascraft.getInstance().getLogger().warning(e.getMessage());
+        }
+    }
+
     @Override
     public void saveOrUpdatePlayerStats(UUID uuid) {
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + PATH)) {
+        try (Connection connection = DriverManager.getConnection(url)) {
             PlayerStats.saveOrUpdatePlayerStats(connection, uuid);
         } catch (SQLException e) {
             Nascraft.getInstance().getLogger().warning(e.getMessage());
         }
     }
 
-}
\ No newline at end of file
+    @Override
+    public void savePlayerSnapshots(List<PlayerSnapshot> snapshots) {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            try {
+                connection.setAutoCommit(false);
+                PlayerStats.saveStats(connection, snapshots);
+                PortfoliosWorth.saveWorths(connection, snapshots);
+                connection.commit();
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (Exception e) {
+            Nascraft.getInstance().getLogger().warning("Error while trying to save the player snapshots: " + e.getMessage());
+        }
+    }
+
+}
@@ -18,17 +18,18 @@ import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.entities.emoji.Emoji;
-import net.dv8tion.jda.api.events.interaction.ModalInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
-import net.dv8tion.jda.api.events.interaction.component.StringSelectInteractionEvent;
 import net.dv8tion.jda.api.exceptions.ContextException;
 import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.components.ActionRow;
 import net.dv8tion.jda.api.interactions.components.ItemComponent;
 import net.dv8tion.jda.api.interactions.components.buttons.Button;
 import net.dv8tion.jda.api.interactions.components.selections.StringSelectMenu;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import net.dv8tion.jda.api.requests.restaction.MessageEditAction;
 import net.dv8tion.jda.api.utils.FileUpload;
 
 import java.awt.*;
@@ -37,7 +38,10 @@ import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Collections;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 public class DiscordBot {
@@ -50,6 +54,15 @@ public class DiscordBot {
 
     static DiscordBot instance;
 
+    // Channel id -> Menu message kept in it, edited on every update instead of sending a new one.
+    private final ConcurrentHashMap<Long, MenuMessage> menuMessages = new ConcurrentHashMap<>();
+
+    private byte[] menuImage;
+    private long menuImageVersion;
+
+    // The menu left by the last run is purged once at startup, and nothing is sent before that finished.
+    private volatile boolean menuCleared = false;
+
     public DiscordBot() {
 
         instance = this;
@@ -98,7 +111,17 @@ public class DiscordBot {
 
     public void update() {
 
-        if (!Config.getInstance().getDiscordMenuEnabled()) return;
+        if (!Config.getInstance().getDiscordMenuEnabled() || !menuCleared) return;
+
+        List<ActionRow> rows = getMenuRows();
+        MessageEmbed embed = getEmbedded();
+
+        long imageVersion = MarketManager.getInstance().getSnapshotVersion();
+
+        StringBuilder content = new StringBuilder(embed.toData().toString());
+        for (ActionRow row : rows) content.append(row.toData().toString());
+
+        int contentHash = Objects.hash(content.toString(), imageVersion);
 
         jda.getGuilds().forEach(guild -> {
 
@@ -109,52 +132,73 @@ public class DiscordBot {
                 return;
             }
 
-            textChannel.getHistoryFromBeginning(10).queue(
-                    result -> {
+            MenuMessage menu = menuMessages.get(textChannel.getIdLong());
 
-                        if (result.size() > 2) {
-                            removeAllMessages();
-                        }
-                    }
-            );
-
-            List<ItemComponent> componentList1 = new ArrayList<>();
-            List<ItemComponent> componentList2 = new ArrayList<>();
-
-            if (Config.getInstance().getOptionWikiEnabled()) componentList1.add(Button.primary("data", Emoji.fromFormatted("U+2754")));
-            componentList1.add(Button.secondary("search", Lang.get().message(Message.DISCORD_BUTTON_1)).withEmoji(Emoji.fromFormatted("U+1F50D")));
-            if (Config.getInstance().getOptionPersonalLogEnabled()) componentList1.add(Button.secondary("history", Lang.get().message(Message.DISCORD_BUTTON_2)).withEmoji(Emoji.fromFormatted("U+1F4DC")));
-            if (Config.getInstance().getOptionCPIEnabled() || Config.getInstance().getOptionAlertEnabled()) componentList1.add(Button.secondary("advanced", Lang.get().message(Message.DISCORD_BUTTON_3)).withEmoji(Emoji.fromFormatted("U+1F4CA")));
-
-            componentList2.add(Button.secondary("link", Lang.get().message(Message.DISCORD_BUTTON_4)).withEmoji(Emoji.fromFormatted("U+1F517")));
-            componentList2.add(Button.secondary("inventory", Lang.get().message(Message.DISCORD_BUTTON_5)).withEmoji(Emoji.fromFormatted("U+1F392")));
-            componentList2.add(Button.secondary("balance", Lang.get().message(Message.DISCORD_BUTTON_6)).withEmoji(Emoji.fromFormatted("U+1FA99")));
-
-            if (Config.getInstance().getOptionSelectionEnabled()) {
-                textChannel.sendMessageEmbeds(getEmbedded())
-                        .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(MainImage.getImage()), "image.png"))
-                        .addActionRow(getOptionsList())
-                        .addActionRow(componentList1)
-                        .addActionRow(componentList2)
-                        .queue(message -> {
-                            try {
-                                message.delete().queueAfter(Config.getInstance().getUpdateTime(), TimeUnit.SECONDS);
-                            } catch (ErrorResponseException ignored) { }
-                        });
-            } else {
-                textChannel.sendMessageEmbeds(getEmbedded())
-                        .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(MainImage.getImage()), "image.png"))
-                        .addActionRow(componentList1)
-                        .addActionRow(componentList2)
-                        .queue(message -> {
-                            try {
-                                message.delete().queueAfter(Config.getInstance().getUpdateTime(), TimeUnit.SECONDS);
-                            } catch (ErrorResponseException ignored) { }
-                        });
+            // Still being sent, or nothing changed since the last edit.
+            if (menu != null && (menu.messageId == 0 || menu.contentHash == contentHash)) return;
+
+            if (menu == null) {
+                menuMessages.put(textChannel.getIdLong(), new MenuMessage(0, contentHash, imageVersion));
+
+                textChannel.sendMessageEmbeds(embed)
+                        .addFiles(FileUpload.fromData(getMenuImage(imageVersion), "image.png"))
+                        .setComponents(rows)
+                        .queue(
+                                message -> menuMessages.put(textChannel.getIdLong(), new MenuMessage(message.getIdLong(), contentHash, imageVersion)),
+                                error -> menuMessages.remove(textChannel.getIdLong()));
+                return;
             }
+
+            MessageEditAction edit = textChannel.editMessageEmbedsById(menu.messageId, embed).setComponents(rows);
+
+            // The image attached before is kept unless the market changed.
+            if (menu.imageVersion != imageVersion)
+                edit = edit.setFiles(FileUpload.fromData(getMenuImage(imageVersion), "image.png"));
+
+            edit.queue(
+                    message -> menuMessages.put(textChannel.getIdLong(), new MenuMessage(menu.messageId, contentHash, imageVersion)),
+                    error -> {
+                        // Removed by someone else, a new one is sent on the next update.
+                        if (error instanceof ErrorResponseException && ((ErrorResponseException) error).getErrorResponse() == ErrorResponse.UNKNOWN_MESSAGE)
+                            menuMessages.remove(textChannel.getIdLong());
+                    });
         });
     }
 
+    private List<ActionRow> getMenuRows() {
+
+        List<ItemComponent> componentList1 = new ArrayList<>();
+        List<ItemComponent> componentList2 = new ArrayList<>();
+
+        if (Config.getInstance().getOptionWikiEnabled()) componentList1.add(Button.primary("data", Emoji.fromFormatted("U+2754")));
+        componentList1.add(Button.secondary("search", Lang.get().message(Message.DISCORD_BUTTON_1)).withEmoji(Emoji.fromFormatted("U+1F50D")));
+        if (Config.getInstance().getOptionPersonalLogEnabled()) componentList1.add(Button.secondary("history", Lang.get().message(Message.DISCORD_BUTTON_2)).withEmoji(Emoji.fromFormatted("U+1F4DC")));
+        if (Config.getInstance().getOptionCPIEnabled() || Config.getInstance().getOptionAlertEnabled()) componentList1.add(Button.secondary("advanced", Lang.get().message(Message.DISCORD_BUTTON_3)).withEmoji(Emoji.fromFormatted("U+1F4CA")));
+
+        componentList2.add(Button.secondary("link", Lang.get().message(Message.DISCORD_BUTTON_4)).withEmoji(Emoji.fromFormatted("U+1F517")));
+        componentList2.add(Button.secondary("inventory", Lang.get().message(Message.DISCORD_BUTTON_5)).withEmoji(Emoji.fromFormatted("U+1F392")));
+        componentList2.add(Button.secondary("balance", Lang.get().message(Message.DISCORD_BUTTON_6)).withEmoji(Emoji.fromFormatted("U+1FA99")));
+
+        List<ActionRow> rows = new ArrayList<>();
+
+        if (Config.getInstance().getOptionSelectionEnabled()) rows.add(ActionRow.of(getOptionsList()));
+        rows.add(ActionRow.of(componentList1));
+        rows.add(ActionRow.of(componentList2));
+
+        return rows;
+    }
+
+    // The image is only rendered again when the market changed since the last one.
+    private synchronized byte[] getMenuImage(long version) {
+
+        if (menuImage == null || menuImageVersion != version) {
+            menuImage = ImagesManager.getBytesOfImage(MainImage.getImage());
+            menuImageVersion = version;
+        }
+
+        return menuImage;
+    }
+
     public static DiscordBot getInstance() { return instance; }
 
     public MessageEmbed getEmbedded() {
@@ -223,15 +267,22 @@ public class DiscordBot {
                 TextChannel textChannel = guild.getTextChannelById(Config.getInstance().getChannel());
                 if (textChannel == null) {
                     Nascraft.getInstance().getLogger().info("textChannel is null #1");
+                    menuCleared = true;
                     return;
                 }
 
                 textChannel.getHistory().retrievePast(10).queue(messages -> {
                     if (!messages.isEmpty()) {
-                        textChannel.purgeMessages(messages);
-                        removeAllMessages();
+                        // The next page is only read once these are gone.
+                        CompletableFuture.allOf(textChannel.purgeMessages(messages).toArray(new CompletableFuture[0]))
+                                .whenComplete((result, error) -> {
+                                    if (error == null) removeAllMessages();
+                                    else menuCleared = true;
+                                });
+                    } else {
+                        menuCleared = true;
                     }
-                });
+                }, error -> menuCleared = true);
             });
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
@@ -249,7 +300,7 @@ public class DiscordBot {
         });
     }
 
-    public void sendBasicScreen(Item item, User user, ModalInteractionEvent mEvent, StringSelectInteractionEvent sEvent, SlashCommandInteractionEvent cEvent) {
+    public void sendBasicScreen(Item item, User user, IReplyCallback event) {
 
         Lang lang = Lang.get();
 
@@ -284,25 +335,16 @@ public class DiscordBot {
 
         embedBuilder.setImage("attachment://image.png");
 
-        if (mEvent != null)
-            mEvent.replyEmbeds(embedBuilder.build())
-                    .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(ItemBasicImage.getImage(item)), "image.png"))
-                    .setEphemeral(true)
-                    .addActionRow(timeComponents)
-                    .addActionRow(componentList)
-                    .queue(message -> message.editOriginalEmbeds(getBasicEditedEmbedded()).queueAfter(getSecondsRemainingToUpdate(), TimeUnit.SECONDS));
+        byte[] image = ImagesManager.getBytesOfImage(ItemBasicImage.getImage(item));
 
-        if (sEvent != null)
-            sEvent.replyEmbeds(embedBuilder.build())
-                    .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(ItemBasicImage.getImage(item)), "image.png"))
-                    .setEphemeral(true)
-                    .addActionRow(timeComponents)
-                    .addActionRow(componentList)
-                    .queue(message -> message.editOriginalEmbeds(getBasicEditedEmbedded()).queueAfter(getSecondsRemainingToUpdate(), TimeUnit.SECONDS));
-
-        if (cEvent != null)
-            cEvent.replyEmbeds(embedBuilder.build())
-                    .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(ItemBasicImage.getImage(item)), "image.png"))
+        if (event.isAcknowledged())
+            event.getHook().editOriginalEmbeds(embedBuilder.build())
+                    .setFiles(FileUpload.fromData(image, "image.png"))
+                    .setComponents(ActionRow.of(timeComponents), ActionRow.of(componentList))
+                    .queue(message -> event.getHook().editOriginalEmbeds(getBasicEditedEmbedded()).queueAfter(getSecondsRemainingToUpdate(), TimeUnit.SECONDS));
+        else
+            event.replyEmbeds(embedBuilder.build())
+                    .addFiles(FileUpload.fromData(image, "image.png"))
                     .setEphemeral(true)
                     .addActionRow(timeComponents)
                     .addActionRow(componentList)
@@ -380,4 +422,17 @@ public class DiscordBot {
     public float getDiscordBuyTax() { return discordBuyTax; }
     public float getDiscordSellTax() { return discordSellTax; }
 
+
+    private static class MenuMessage {
+
+        private final long messageId;
+        private final int contentHash;
+        private final long imageVersion;
+
+        private MenuMessage(long messageId, int contentHash, long imageVersion) {
+            this.messageId = messageId;
+            this.contentHash = contentHash;
+            this.imageVersion = imageVersion;
+        }
+    }
 }
@@ -68,10 +68,24 @@ public class DiscordButtons extends ListenerAdapter {
 
         if (!event.getChannel().getId().equals(Config.getInstance().getChannel())) { return; }
 
+        String id = event.getComponentId();
+
+        boolean trade = id.matches("[bs]\\d\\d.+");
+
+        // Images and trades take a while, so they are acknowledged before being handled.
+        boolean defer = trade || id.startsWith("time") || id.equals("cpi") || id.equals("flows") || id.equals("inventory") || id.equals("balance") || id.equals("sellallconfirmed");
+
+        String type = trade ? "trade" : id.startsWith("time") ? "graph" : id.startsWith("info") ? "info" : id;
+
+        DiscordInteractions.getInstance().dispatch(type, event, defer, () -> handle(event));
+    }
+
+    private void handle(ButtonInteractionEvent event) {
+
         switch (event.getComponentId()) {
 
             case "alerts":
-                HashMap<Item, Double> alerts = DiscordAlerts.getInstance().getAlerts().get(event.getUser().getId());
+                Map<Item, Double> alerts = DiscordAlerts.getInstance().getAlerts().get(event.getUser().getId());
 
                 if (alerts == null || alerts.size() == 0) {
                     event.reply(Lang.get().message(Message.DISCORD_NO_ALERTS_SETUP))
@@ -179,9 +193,8 @@ public class DiscordButtons extends ListenerAdapter {
 
                 embedBuilder.setImage("attachment://image.png");
 
-                event.replyEmbeds(embedBuilder.build())
-                        .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(CPIChart.getImage(500, 250)), "image.png"))
-                        .setEphemeral(true)
+                event.getHook().editOriginalEmbeds(embedBuilder.build())
+                        .setFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(CPIChart.getImage(500, 250)), "image.png"))
                         .queue();
 
                 return;
@@ -209,9 +222,8 @@ public class DiscordButtons extends ListenerAdapter {
 
                 embedBuilderFlow.setImage("attachment://image.png");
 
-                event.replyEmbeds(embedBuilderFlow.build())
-                        .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(FlowChart.getImage(700, 400)), "image.png"))
-                        .setEphemeral(true)
+                event.getHook().editOriginalEmbeds(embedBuilderFlow.build())
+                        .setFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(FlowChart.getImage(700, 400)), "image.png"))
                         .queue();
 
                 return;
@@ -373,15 +385,11 @@ public class DiscordButtons extends ListenerAdapter {
             switch (LinkManager.getInstance().getLinkingMethod()) {
 
                 case DISCORDSRV:
-                    event.reply(Lang.get().message(Message.DISCORD_LINK_DISCORDSRV))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(10, TimeUnit.SECONDS));
+                    sendMessage(event, Lang.get().message(Message.DISCORD_LINK_DISCORDSRV), 10);
                     return;
 
                 case NATIVE:
-                    event.reply(Lang.get().message(Message.DISCORD_LINK_NATIVE, "[CODE]", String.valueOf(LinkManager.getInstance().startLinkingProcess(event.getUser().getId()))))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(10, TimeUnit.SECONDS));
+                    sendMessage(event, Lang.get().message(Message.DISCORD_LINK_NATIVE, "[CODE]", String.valueOf(LinkManager.getInstance().startLinkingProcess(event.getUser().getId()))), 10);
                     return;
 
             }
@@ -402,16 +410,14 @@ public class DiscordButtons extends ListenerAdapter {
                     actionRow.add(Button.success("i_buy", Lang.get().message(Message.DISCORD_BUY_SLOT) + Formatter.plainFormat(CurrenciesManager.getInstance().getDefaultCurrency(), discordInventory.getNextSlotPrice(), Style.REDUCED_LENGTH)));
                     actionRow.add(Button.danger("all", Lang.get().message(Message.DISCORD_SELL_ALL)));
 
-                    event.replyFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)) , "image.png"))
-                            .setEphemeral(true)
-                            .addActionRow(actionRow)
-                            .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
+                    event.getHook().editOriginalAttachments(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)) , "image.png"))
+                            .setActionRow(actionRow)
+                            .queue(message -> event.getHook().deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
 
                 } else {
 
-                    event.replyFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)), "image.png"))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
+                    event.getHook().editOriginalAttachments(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)), "image.png"))
+                            .queue(message -> event.getHook().deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
                 }
                 return;
 
@@ -422,26 +428,22 @@ public class DiscordButtons extends ListenerAdapter {
             case "sellallconfirmed":
 
                 if (DebtManager.getInstance().getDebtOfPlayer(uuid) != 0) {
-                    event.reply(Lang.get().message(Message.PORTFOLIO_DEBT_DIS_LOCKED))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(4, TimeUnit.SECONDS));
-
+                    sendMessage(event, Lang.get().message(Message.PORTFOLIO_DEBT_DIS_LOCKED), 4);
                     return;
                 }
 
                 if (!MarketManager.getInstance().getActive()) {
-                    event.reply(Lang.get().message(Message.DISCORD_MARKET_CLOSED))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(25, TimeUnit.SECONDS));
+                    sendMessage(event, Lang.get().message(Message.DISCORD_MARKET_CLOSED), 25);
                     return;
                 }
 
-                PortfoliosManager.getInstance().getPortfolio(uuid).sellAll(
-                        value -> event.reply( Lang.get().message(Message.DISCORD_SOLD_EVERYTHING, "[VALUE]", Formatter.plainFormat
-                                        (CurrenciesManager.getInstance().getVaultCurrency(), value, Style.ROUND_BASIC)))
-                                .setEphemeral(true)
-                                .queue(message -> message.deleteOriginal().queueAfter(25, TimeUnit.SECONDS))
-                );
+                Portfolio portfolio = PortfoliosManager.getInstance().getPortfolio(uuid);
+
+                // Deferred, as the server thread may take longer than Discord waits for an answer.
+                DiscordInteractions.getInstance().runOnMainThread(event, () -> portfolio.sellAll(
+                        value -> sendMessage(event, Lang.get().message(Message.DISCORD_SOLD_EVERYTHING, "[VALUE]", Formatter.plainFormat
+                                        (CurrenciesManager.getInstance().getVaultCurrency(), value, Style.ROUND_BASIC)), 25)
+                ));
                 return;
 
             case "balance":
@@ -481,10 +483,9 @@ public class DiscordButtons extends ListenerAdapter {
                                       new Color(250,100,100),
                                       purse/total, inventory/total, brokerValue/total));
 
-                event.replyEmbeds(eb.build())
-                        .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(BalanceImage.getImage(event.getUser())) , "image.png"))
-                        .setEphemeral(true)
-                        .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
+                event.getHook().editOriginalEmbeds(eb.build())
+                        .setFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(BalanceImage.getImage(event.getUser())) , "image.png"))
+                        .queue(message -> event.getHook().deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
                 return;
 
             case "hback":
@@ -562,18 +563,15 @@ public class DiscordButtons extends ListenerAdapter {
 
             embedBuilder.setImage("attachment://image.png");
 
-            event.replyEmbeds(embedBuilder.build())
-                    .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(ItemTimeGraph.getImage(MarketManager.getInstance().getItem(event.getComponentId().substring(5)), chartType, event.getUser().getId())), "image.png"))
-                    .setEphemeral(true)
+            event.getHook().editOriginalEmbeds(embedBuilder.build())
+                    .setFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(ItemTimeGraph.getImage(MarketManager.getInstance().getItem(event.getComponentId().substring(5)), chartType, event.getUser().getId())), "image.png"))
                     .queue();
 
             return;
         }
 
         if (!MarketManager.getInstance().getActive()) {
-            event.reply(Lang.get().message(Message.DISCORD_MARKET_CLOSED))
-                    .setEphemeral(true)
-                    .queue(message -> message.deleteOriginal().queueAfter(25, TimeUnit.SECONDS));
+            sendMessage(event, Lang.get().message(Message.DISCORD_MARKET_CLOSED), 25);
             return;
         }
 
@@ -589,12 +587,22 @@ public class DiscordButtons extends ListenerAdapter {
             
         } else if (!initial.equals("i")) { return; }
         
+        Item tradedItem = item;
+        int tradedQuantity = quantity;
+
+        // Loaded here so the server thread never waits for the database.
+        Portfolio discordInventory = PortfoliosManager.getInstance().getPortfolio(uuid);
+
+        DiscordInteractions.getInstance().runOnMainThread(event, () -> trade(event, uuid, discordInventory, tradedItem, tradedQuantity));
+    }
+
+    // Runs on the server thread.
+    private void trade(ButtonInteractionEvent event, UUID uuid, Portfolio discordInventory, Item item, int quantity) {
+
         double value;
 
         OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
 
-        Portfolio discordInventory = PortfoliosManager.getInstance().getPortfolio(uuid);
-
         boolean limitReached = !item.getPrice().canStockChange(quantity, true);
 
         switch (String.valueOf(event.getComponentId().charAt(0))) {
@@ -602,9 +610,7 @@ public class DiscordButtons extends ListenerAdapter {
             case "b":
 
                 if (limitReached && item.isPriceRestricted()) {
-                    event.reply(lang.message(Message.DISCORD_BUY_LIMIT_FEEDBACK))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(4, TimeUnit.SECONDS));
+                    sendMessage(event, lang.message(Message.DISCORD_BUY_LIMIT_FEEDBACK), 4);
                     return;
                 }
 
@@ -612,20 +618,16 @@ public class DiscordButtons extends ListenerAdapter {
 
                 if (!MoneyManager.getInstance().hasEnoughMoney(player, item.getCurrency(), value)) {
 
-                    event.reply(lang.message(Message.DISCORD_INSUFFICIENT_BALANCE)
+                    sendMessage(event, lang.message(Message.DISCORD_INSUFFICIENT_BALANCE)
                                     .replace("[VALUE1]", Formatter.plainFormat(item.getCurrency(), MoneyManager.getInstance().getBalance(player, item.getCurrency()), Style.ROUND_BASIC))
-                                    .replace("[VALUE2]", Formatter.plainFormat(item.getCurrency(), value, Style.ROUND_BASIC)))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(4, TimeUnit.SECONDS));
+                                    .replace("[VALUE2]", Formatter.plainFormat(item.getCurrency(), value, Style.ROUND_BASIC)), 4);
 
 
                     return;
                 }
 
                 if (!discordInventory.hasSpace(item, quantity)) {
-                    event.reply(lang.message(Message.DISCORD_WITHOUT_SPACE))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(4, TimeUnit.SECONDS));
+                    sendMessage(event, lang.message(Message.DISCORD_WITHOUT_SPACE), 4);
 
                     return;
                 }
@@ -653,9 +655,7 @@ public class DiscordButtons extends ListenerAdapter {
                 database.saveTrade(buyTrade);
                 if (Config.getInstance().getLogChannelEnabled()) DiscordLog.getInstance().sendTradeLog(buyTrade);
 
-                event.reply(buyText)
-                        .setEphemeral(true)
-                        .queue(message -> message.deleteOriginal().queueAfter(6, TimeUnit.SECONDS));
+                sendMessage(event, buyText, 6);
 
                 if (!limitReached) item.ghostBuyItem(quantity);
                 discordInventory.addItem(item, quantity);
@@ -665,24 +665,18 @@ public class DiscordButtons extends ListenerAdapter {
             case "s":
 
                 if (limitReached && item.isPriceRestricted()) {
-                    event.reply(lang.message(Message.DISCORD_SELL_LIMIT_FEEDBACK))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(4, TimeUnit.SECONDS));
+                    sendMessage(event, lang.message(Message.DISCORD_SELL_LIMIT_FEEDBACK), 4);
                     return;
                 }
 
                 if (!discordInventory.hasItem(item, quantity)) {
-                    event.reply(Lang.get().message(Message.DISCORD_NOT_ENOUGH_ITEMS))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(4, TimeUnit.SECONDS));
+                    sendMessage(event, Lang.get().message(Message.DISCORD_NOT_ENOUGH_ITEMS), 4);
 
                     return;
                 }
 
                 if (DebtManager.getInstance().getDebtOfPlayer(uuid) != 0) {
-                    event.reply(Lang.get().message(Message.PORTFOLIO_DEBT_DIS_LOCKED))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(4, TimeUnit.SECONDS));
+                    sendMessage(event, Lang.get().message(Message.PORTFOLIO_DEBT_DIS_LOCKED), 4);
 
                     return;
                 }
@@ -712,9 +706,7 @@ public class DiscordButtons extends ListenerAdapter {
                 database.saveTrade(sellTrade);
                 if (Config.getInstance().getLogChannelEnabled()) DiscordLog.getInstance().sendTradeLog(sellTrade);
 
-                event.reply(sellText)
-                        .setEphemeral(true)
-                        .queue(message -> message.deleteOriginal().queueAfter(6, TimeUnit.SECONDS));
+                sendMessage(event, sellText, 6);
 
                 if (!limitReached) item.ghostSellItem(quantity);
                 discordInventory.removeItem(item, quantity);
@@ -728,16 +720,12 @@ public class DiscordButtons extends ListenerAdapter {
 
                 if (!MoneyManager.getInstance().hasEnoughMoney(player, CurrenciesManager.getInstance().getDefaultCurrency(), price)) {
 
-                    event.reply(Lang.get().message(Message.DISCORD_NOT_ENOUGH_SLOT, "[PRICE]", Formatter.plainFormat(CurrenciesManager.getInstance().getDefaultCurrency(), price, Style.ROUND_BASIC)))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(4, TimeUnit.SECONDS));
+                    sendMessage(event, Lang.get().message(Message.DISCORD_NOT_ENOUGH_SLOT, "[PRICE]", Formatter.plainFormat(CurrenciesManager.getInstance().getDefaultCurrency(), price, Style.ROUND_BASIC)), 4);
                     return;
                 }
 
                 if (discordInventory.getCapacity() >= 27) {
-                    event.reply(Lang.get().message(Message.DISCORD_ALREADY_MAX_SLOTS))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(4, TimeUnit.SECONDS));
+                    sendMessage(event, Lang.get().message(Message.DISCORD_ALREADY_MAX_SLOTS), 4);
                     return;
                 }
 
@@ -759,9 +747,7 @@ public class DiscordButtons extends ListenerAdapter {
     }
 
     private void sendMessage(ButtonInteractionEvent event, String text, int delay) {
-        event.reply(text)
-                .setEphemeral(true)
-                .queue(message -> message.deleteOriginal().queueAfter(delay, TimeUnit.SECONDS));
+        DiscordInteractions.reply(event, text, delay);
     }
 
 }
@@ -36,6 +36,14 @@ public class DiscordCommands extends ListenerAdapter {
     @Override
     public void onSlashCommandInteraction(SlashCommandInteractionEvent event) {
 
+        // These answer with an image, so they are acknowledged before being handled.
+        boolean defer = event.getName().equals("balance") || event.getName().equals("inventory") || event.getName().equals("search");
+
+        DiscordInteractions.getInstance().dispatch("/" + event.getName(), event, defer, () -> handle(event));
+    }
+
+    private void handle(SlashCommandInteractionEvent event) {
+
         switch (event.getName()) {
 
             case "alert":
@@ -197,24 +205,19 @@ public class DiscordCommands extends ListenerAdapter {
                             new Color(250,100,100),
                             purse/total, inventory/total, brokerValue/total));
 
-                    event.replyEmbeds(eb.build())
-                            .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(BalanceImage.getImage(event.getUser())), "image.png"))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
+                    event.getHook().editOriginalEmbeds(eb.build())
+                            .setFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(BalanceImage.getImage(event.getUser())), "image.png"))
+                            .queue(message -> event.getHook().deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
 
                 } else
-                    event.reply(Lang.get().message(Message.DISCORD_NOT_LINKED))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(10, TimeUnit.SECONDS));
+                    DiscordInteractions.reply(event, Lang.get().message(Message.DISCORD_NOT_LINKED), 10);
 
                 break;
 
             case "inventory":
 
                 if (LinkManager.getInstance().getUUID(event.getUser().getId()) == null) {
-                    event.reply(Lang.get().message(Message.DISCORD_NOT_LINKED))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(10, TimeUnit.SECONDS));
+                    DiscordInteractions.reply(event, Lang.get().message(Message.DISCORD_NOT_LINKED), 10);
                     return;
                 }
 
@@ -222,16 +225,14 @@ public class DiscordCommands extends ListenerAdapter {
 
                 if (discordInventory.getCapacity() < 40) {
 
-                    event.replyFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)), "image.png"))
-                            .setEphemeral(true)
-                            .addActionRow(Button.success("i_buy", Lang.get().message(Message.DISCORD_BUY_SLOT) + discordInventory.getNextSlotPrice() + Lang.get().message(Message.CURRENCY)))
-                            .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
+                    event.getHook().editOriginalAttachments(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)), "image.png"))
+                            .setActionRow(Button.success("i_buy", Lang.get().message(Message.DISCORD_BUY_SLOT) + discordInventory.getNextSlotPrice() + Lang.get().message(Message.CURRENCY)))
+                            .queue(message -> event.getHook().deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
 
                 } else {
 
-                    event.replyFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)) , "image.png"))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
+                    event.getHook().editOriginalAttachments(FileUpload.fromData(ImagesManager.getBytesOfImage(InventoryImage.getImage(discordInventory)) , "image.png"))
+                            .queue(message -> event.getHook().deleteOriginal().queueAfter(15, TimeUnit.SECONDS));
                 }
                 break;
 
@@ -247,11 +248,9 @@ public class DiscordCommands extends ListenerAdapter {
                 }
 
                 if (itemSearched == null) {
-                    event.reply(Lang.get().message(Message.DISCORD_MATERIAL_NOT_RECOGNIZED))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(10, TimeUnit.SECONDS));
+                    DiscordInteractions.reply(event, Lang.get().message(Message.DISCORD_MATERIAL_NOT_RECOGNIZED), 10);
                 } else {
-                    DiscordBot.getInstance().sendBasicScreen(itemSearched, event.getUser(), null, null, event);
+                    DiscordBot.getInstance().sendBasicScreen(itemSearched, event.getUser(), event);
                 }
 
                 break;
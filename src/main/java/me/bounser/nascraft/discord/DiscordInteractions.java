@@ -0,0 +1,164 @@
+package me.bounser.nascraft.discord;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.metrics.Metrics;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.bukkit.Bukkit;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Interactions are handled on a few worker threads so the JDA event thread is never blocked
+// rendering images or waiting for the database. Each user can only have a couple in progress.
+public class DiscordInteractions {
+
+    private static final int THREADS = 4;
+    private static final int QUEUE_CAPACITY = 64;
+
+    private static final int MAX_PER_USER = 2;
+
+    // Discord stops accepting the first response of an interaction after 3 seconds.
+    private static final long RESPONSE_DEADLINE_NANOS = TimeUnit.MILLISECONDS.toNanos(2500);
+
+    private static final long MAIN_THREAD_TIMEOUT_SECONDS = 10;
+
+    private static final String BUSY_MESSAGE = ":hourglass: Too many requests, try again in a moment.";
+    private static final String SERVER_BUSY_MESSAGE = ":hourglass: The server is busy, nothing was done. Try again in a moment.";
+
+    private static DiscordInteractions instance;
+
+    public static DiscordInteractions getInstance() { return instance == null ? instance = new DiscordInteractions() : instance; }
+
+    private final ThreadPoolExecutor executor;
+
+    private final ConcurrentHashMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger expired = new AtomicInteger();
+
+    private DiscordInteractions() {
+
+        AtomicInteger threadCount = new AtomicInteger();
+
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "Nascraft-Discord-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Metrics.getInstance().registerCounter("discord_interactions", "rejected", rejected::get);
+        Metrics.getInstance().registerCounter("discord_interactions", "expired", expired::get);
+        Metrics.getInstance().registerGauge("discord_interactions", "queued", this::getQueued);
+    }
+
+    // Runs the handler on a worker. If defer is set the interaction is acknowledged right away and
+    // the handler has to answer through the hook of the event.
+    public void dispatch(String type, IReplyCallback event, boolean defer, Runnable handler) {
+
+        long received = System.nanoTime();
+
+        AtomicInteger userCount = inFlight.computeIfAbsent(event.getUser().getId(), id -> new AtomicInteger());
+
+        if (userCount.incrementAndGet() > MAX_PER_USER) {
+            userCount.decrementAndGet();
+            rejected.incrementAndGet();
+            reply(event, BUSY_MESSAGE, 4);
+            return;
+        }
+
+        if (defer) event.deferReply(true).queue();
+
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!event.isAcknowledged() && System.nanoTime() - received > RESPONSE_DEADLINE_NANOS) {
+                        expired.incrementAndGet();
+                        return;
+                    }
+                    handler.run();
+                } catch (Exception e) {
+                    Nascraft.getInstance().getLogger().warning("Error handling discord interaction " + type + ": " + e.getMessage());
+                } finally {
+                    release(event.getUser().getId(), userCount);
+                    Metrics.getInstance().stop("discord", type, received);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(event.getUser().getId(), userCount);
+            rejected.incrementAndGet();
+            reply(event, BUSY_MESSAGE, 4);
+        }
+    }
+
+    private void release(String userId, AtomicInteger userCount) {
+        if (userCount.decrementAndGet() == 0) inFlight.remove(userId, userCount);
+    }
+
+    // Runs the task on the server thread and waits for it, so trades from Discord change money,
+    // stock and portfolios on the same thread as the trades made in game. Anything the task needs
+    // from the database has to be loaded before, on the worker. If the server thread doesn't pick it
+    // up in time the task is cancelled, and failure is only reported once it is sure it never ran.
+    public void runOnMainThread(IReplyCallback event, Runnable task) {
+
+        Future<Void> future = Bukkit.getScheduler().callSyncMethod(Nascraft.getInstance(), () -> {
+            task.run();
+            return null;
+        });
+
+        try {
+            try {
+                future.get(MAIN_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                if (future.cancel(false)) {
+                    reply(event, SERVER_BUSY_MESSAGE, 6);
+                    return;
+                }
+                // Already running, so it is waited for.
+                future.get();
+            }
+        } catch (CancellationException e) {
+            reply(event, SERVER_BUSY_MESSAGE, 6);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // Ephemeral text answer deleted after a few seconds, whether or not the interaction was deferred.
+    public static void reply(IReplyCallback event, String text, int seconds) {
+        if (event.isAcknowledged()) {
+            event.getHook().editOriginal(text)
+                    .queue(message -> event.getHook().deleteOriginal().queueAfter(seconds, TimeUnit.SECONDS));
+        } else {
+            event.reply(text)
+                    .setEphemeral(true)
+                    .queue(message -> message.deleteOriginal().queueAfter(seconds, TimeUnit.SECONDS));
+        }
+    }
+
+    public int getRejected() { return rejected.get(); }
+
+    public int getExpired() { return expired.get(); }
+
+    public int getQueued() { return executor.getQueue().size(); }
+
+    public static void shutdown() {
+        if (instance == null) return;
+        instance.executor.shutdown();
+        try {
+            instance.executor.awaitTermination(3, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {}
+    }
+}
@@ -9,16 +9,33 @@ import me.bounser.nascraft.database.commands.resources.Trade;
 import me.bounser.nascraft.discord.linking.LinkManager;
 import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.formatter.Style;
+import me.bounser.nascraft.metrics.Metrics;
 import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Trades are queued and a single thread turns them into lines, joining the lines of a short
+// window into one message. If the queue is full the trade isn't logged and is counted as dropped.
 public class DiscordLog {
 
+    private static final int QUEUE_CAPACITY = 1024;
+
+    // Discord rejects longer messages.
+    private static final int MAX_MESSAGE_LENGTH = 2000;
+
+    private static final long COALESCE_MILLIS = 2000;
+
+    private static final long MENTION_EXPIRATION_MILLIS = 10 * 60 * 1000;
+
     private final JDA jda;
     private static DiscordLog instance;
 
@@ -33,91 +50,197 @@ public class DiscordLog {
         return instance;
     }
 
-    private final AtomicReference<StringBuffer> buffer = new AtomicReference<>(new StringBuffer());
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final ArrayBlockingQueue<Trade> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private long droppedReported = 0;
+
+    private volatile boolean flushRequested = false;
+
+    // Only used by the sender thread.
+    private final HashMap<UUID, Mention> mentions = new HashMap<>();
+    private final StringBuilder message = new StringBuilder();
+    private long windowStart;
+
+    private final Thread sender;
 
     private DiscordLog() {
         jda = DiscordBot.getInstance().getJDA();
+
+        sender = new Thread(this::run, "Nascraft-DiscordLog");
+        sender.setDaemon(true);
+        sender.start();
+
+        Metrics.getInstance().registerCounter("discord_log", "sent", sent::get);
+        Metrics.getInstance().registerCounter("discord_log", "dropped", dropped::get);
+        Metrics.getInstance().registerGauge("discord_log", "queued", this::getQueued);
     }
 
     public void sendTradeLog(Trade trade) {
-        prepareMessageAsync(trade).thenAcceptAsync(message -> {
-            StringBuffer currentBuffer = buffer.get();
-            synchronized (currentBuffer) {
-                currentBuffer.append("\n").append(message);
-                if (currentBuffer.length() > 1000) {
-                    flushBuffer();
-                }
-            }
-        }, executorService).exceptionally(throwable -> {
-            Nascraft.getInstance().getLogger().warning("Error in sendTradeLog: " + throwable.getMessage());
-            return null;
-        });
+        if (!queue.offer(trade)) dropped.incrementAndGet();
     }
 
-    private CompletableFuture<String> prepareMessageAsync(Trade trade) {
-        return CompletableFuture.supplyAsync(() -> {
-            Player player = Bukkit.getPlayer(trade.getUuid());
-            String action = trade.isBuy() ? Lang.get().message(Message.DISCORD_LOG_BUY) : Lang.get().message(Message.DISCORD_LOG_SELL);
-
-            String userId = LinkManager.getInstance().getUserDiscordID(trade.getUuid());
-            String nickname = (player != null) ? player.getName() : DatabaseManager.get().getDatabase().getNickname(userId);
-
-            String message = userId == null ?
-                    Lang.get().message(Message.DISCORD_LOG_TRADE_NOT_LINKED) :
-                    Lang.get().message(Message.DISCORD_LOG_TRADE_LINKED);
-
-            return message
-                    .replace("[UUID]", trade.getUuid().toString())
-                    .replace("[NICK]", nickname)
-                    .replace("[ACTION]", action)
-                    .replace("[QUANTITY]", String.valueOf(trade.getAmount()))
-                    .replace("[ALIAS]", trade.getItem().getName())
-                    .replace("[WORTH]", Formatter.plainFormat(trade.getItem().getCurrency(), trade.getValue(), Style.ROUND_BASIC));
-        }, executorService).thenCompose(message ->
-                trade.getUuid() != null && LinkManager.getInstance().getUserDiscordID(trade.getUuid()) != null ?
-                        retrieveDiscordUserMessage(LinkManager.getInstance().getUserDiscordID(trade.getUuid()), message) :
-                        CompletableFuture.completedFuture(message));
+    // Sends the lines waiting in the current window without waiting for it to end.
+    public void flushBuffer() { flushRequested = true; }
+
+    public long getDropped() { return dropped.get(); }
+
+    public long getSentMessages() { return sent.get(); }
+
+    public int getQueued() { return queue.size(); }
+
+    // Sends what is still queued before the bot disconnects.
+    public static void shutdown() {
+        if (instance == null) return;
+        instance.sender.interrupt();
+        try {
+            instance.sender.join(3000);
+        } catch (InterruptedException ignored) {}
     }
 
-    private CompletableFuture<String> retrieveDiscordUserMessage(String userId, String message) {
-        CompletableFuture<String> futureMessage = new CompletableFuture<>();
-        jda.retrieveUserById(userId).queue(user -> {
-            if (user != null) {
-                futureMessage.complete(message.replace("[USER]", user.getName()).replace("[ID]", userId));
-            } else {
-                futureMessage.complete(message);
+    private void run() {
+
+        while (true) {
+
+            Trade trade;
+            try {
+                long wait = message.length() == 0 ? COALESCE_MILLIS : Math.max(1, windowStart + COALESCE_MILLIS - System.currentTimeMillis());
+                trade = queue.poll(wait, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                queue.forEach(this::append);
+                send();
+                return;
+            }
+
+            try {
+                if (trade != null) append(trade);
+
+                boolean flush = flushRequested;
+                flushRequested = false;
+
+                if (message.length() > 0 && (flush || System.currentTimeMillis() - windowStart >= COALESCE_MILLIS)) send();
+            } catch (Exception e) {
+                Nascraft.getInstance().getLogger().warning("Error in the discord trade log: " + e.getMessage());
             }
-        }, error -> {
-            Nascraft.getInstance().getLogger().warning("Error retrieving Discord user: " + error.getMessage());
-            futureMessage.complete(message);
-        });
-        return futureMessage;
+        }
+    }
+
+    private void append(Trade trade) {
+
+        String line = format(trade);
+        if (line.length() > MAX_MESSAGE_LENGTH) line = line.substring(0, MAX_MESSAGE_LENGTH);
+
+        if (message.length() + 1 + line.length() > MAX_MESSAGE_LENGTH) send();
+
+        if (message.length() == 0) windowStart = System.currentTimeMillis();
+        else message.append("\n");
+
+        message.append(line);
+    }
+
+    private String format(Trade trade) {
+
+        Mention mention = getMention(trade.getUuid());
+
+        String action = trade.isBuy() ? Lang.get().message(Message.DISCORD_LOG_BUY) : Lang.get().message(Message.DISCORD_LOG_SELL);
+
+        String line = mention.userId == null ?
+                Lang.get().message(Message.DISCORD_LOG_TRADE_NOT_LINKED) :
+                Lang.get().message(Message.DISCORD_LOG_TRADE_LINKED);
+
+        line = line
+                .replace("[UUID]", trade.getUuid().toString())
+                .replace("[NICK]", String.valueOf(mention.nickname))
+                .replace("[ACTION]", action)
+                .replace("[QUANTITY]", String.valueOf(trade.getAmount()))
+                .replace("[ALIAS]", trade.getItem().getName())
+                .replace("[WORTH]", Formatter.plainFormat(trade.getItem().getCurrency(), trade.getValue(), Style.ROUND_BASIC));
+
+        if (mention.userId != null && mention.userName != null)
+            line = line.replace("[USER]", mention.userName).replace("[ID]", mention.userId);
+
+        return line;
     }
 
-    public void flushBuffer() {
-        StringBuffer currentBuffer = buffer.getAndSet(new StringBuffer());
+    // Link, nickname and discord name are looked up once and reused for a while.
+    private Mention getMention(UUID uuid) {
+
+        Mention mention = mentions.get(uuid);
+
+        if (mention != null && mention.expiration > System.currentTimeMillis()) return mention;
 
-        if (currentBuffer.isEmpty()) return;
+        String userId = LinkManager.getInstance().getUserDiscordID(uuid);
 
-        executorService.submit(() -> {
+        Player player = Bukkit.getPlayer(uuid);
+        String nickname = (player != null) ? player.getName() : DatabaseManager.get().getDatabase().getNickname(userId);
+
+        String userName = null;
+        if (userId != null) {
             try {
-                if (!jda.getStatus().isInit()) {
-                    Nascraft.getInstance().getLogger().warning("JDA not ready. Log skipped.");
-                    return;
-                }
+                User user = jda.getUserById(userId);
+                if (user == null) user = jda.retrieveUserById(userId).complete();
+                if (user != null) userName = user.getName();
+            } catch (RuntimeException e) {
+                Nascraft.getInstance().getLogger().warning("Error retrieving Discord user: " + e.getMessage());
+            }
+        }
 
-                jda.getGuilds().forEach(guild -> {
-                    TextChannel textChannel = guild.getTextChannelById(Config.getInstance().getLogChannel());
-                    if (textChannel != null) {
-                        textChannel.sendMessage(currentBuffer.toString()).queue();
-                    } else {
-                        Nascraft.getInstance().getLogger().warning("Log channel not found for guild: " + guild.getName());
-                    }
-                });
-            } catch (Exception e) {
-                Nascraft.getInstance().getLogger().severe("Error flushing buffer: " + e.getMessage());
+        mention = new Mention(userId, userName, nickname, System.currentTimeMillis() + MENTION_EXPIRATION_MILLIS);
+        mentions.put(uuid, mention);
+
+        if (mentions.size() > 1000) mentions.values().removeIf(entry -> entry.expiration <= System.currentTimeMillis());
+
+        return mention;
+    }
+
+    // Blocks until Discord accepts the message. JDA waits out the rate limits of the channel, so the
+    // queue keeps filling meanwhile and trades start being dropped only if that goes on.
+    private void send() {
+
+        if (message.length() == 0) return;
+
+        String content = message.toString();
+        message.setLength(0);
+
+        long droppedNow = dropped.get();
+        if (droppedNow > droppedReported) {
+            Nascraft.getInstance().getLogger().warning("Discord log queue full, " + (droppedNow - droppedReported) + " trades were not logged.");
+            droppedReported = droppedNow;
+        }
+
+        if (!jda.getStatus().isInit()) {
+            Nascraft.getInstance().getLogger().warning("JDA not ready. Log skipped.");
+            return;
+        }
+
+        for (Guild guild : jda.getGuilds()) {
+            TextChannel textChannel = guild.getTextChannelById(Config.getInstance().getLogChannel());
+            if (textChannel == null) {
+                Nascraft.getInstance().getLogger().warning("Log channel not found for guild: " + guild.getName());
+                continue;
             }
-        });
+            try {
+                textChannel.sendMessage(content).complete();
+                sent.incrementAndGet();
+            } catch (RuntimeException e) {
+                Nascraft.getInstance().getLogger().warning("Error sending the discord trade log: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class Mention {
+
+        private final String userId;
+        private final String userName;
+        private final String nickname;
+        private final long expiration;
+
+        private Mention(String userId, String userName, String nickname, long expiration) {
+            this.userId = userId;
+            this.userName = userName;
+            this.nickname = nickname;
+            this.expiration = expiration;
+        }
     }
 }
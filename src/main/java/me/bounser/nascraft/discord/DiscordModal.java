@@ -27,6 +27,16 @@ public class DiscordModal extends ListenerAdapter {
     @Override
     public void onModalInteraction(@Nonnull ModalInteractionEvent event) {
 
+        String id = event.getModalId();
+
+        // These answer with an image, so they are acknowledged before being handled.
+        boolean defer = id.equals("basic") || id.equals("advanced") || id.equals("compare-item-cpi");
+
+        DiscordInteractions.getInstance().dispatch("modal-" + id, event, defer, () -> handle(event));
+    }
+
+    private void handle(ModalInteractionEvent event) {
+
         switch (event.getModalId()) {
 
             case "createalert":
@@ -105,9 +115,7 @@ public class DiscordModal extends ListenerAdapter {
                 }
 
                 if (advancedItem == null) {
-                    event.reply(Lang.get().message(Message.DISCORD_ALERT_INVALID_MATERIAL))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(10, TimeUnit.SECONDS));
+                    DiscordInteractions.reply(event, Lang.get().message(Message.DISCORD_ALERT_INVALID_MATERIAL), 10);
                 } else {
                     sendAdvancedMessage(advancedItem, event);
                 }
@@ -126,11 +134,9 @@ public class DiscordModal extends ListenerAdapter {
                 }
 
                 if (itemBasic == null) {
-                    event.reply(Lang.get().message(Message.DISCORD_ALERT_INVALID_MATERIAL))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(10, TimeUnit.SECONDS));
+                    DiscordInteractions.reply(event, Lang.get().message(Message.DISCORD_ALERT_INVALID_MATERIAL), 10);
                 } else {
-                    DiscordBot.getInstance().sendBasicScreen(itemBasic, event.getUser(), event, null, null);
+                    DiscordBot.getInstance().sendBasicScreen(itemBasic, event.getUser(), event);
                 }
 
                 return;
@@ -147,9 +153,7 @@ public class DiscordModal extends ListenerAdapter {
                 }
 
                 if (itemToCompare == null) {
-                    event.reply(Lang.get().message(Message.DISCORD_ALERT_INVALID_MATERIAL))
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(10, TimeUnit.SECONDS));
+                    DiscordInteractions.reply(event, Lang.get().message(Message.DISCORD_ALERT_INVALID_MATERIAL), 10);
                 } else {
                     EmbedBuilder embedBuilderFlow = new EmbedBuilder();
 
@@ -157,9 +161,8 @@ public class DiscordModal extends ListenerAdapter {
 
                     embedBuilderFlow.setImage("attachment://image.png");
 
-                    event.replyEmbeds(embedBuilderFlow.build())
-                            .addFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(ItemAndCPIChart.getImage(500, 300, itemToCompare)), "image.png"))
-                            .setEphemeral(true)
+                    event.getHook().editOriginalEmbeds(embedBuilderFlow.build())
+                            .setFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(ItemAndCPIChart.getImage(500, 300, itemToCompare)), "image.png"))
                             .queue();
                 }
         }
@@ -175,9 +178,8 @@ public class DiscordModal extends ListenerAdapter {
         componentList.add(Button.secondary("future-" + item.getIdentifier(), "Futures").withEmoji(Emoji.fromFormatted("U+1F4D1")));
         componentList.add(Button.secondary("recurring-" + item.getIdentifier(), "Programmed actions").withEmoji(Emoji.fromFormatted("U+1F4C5")));
 
-        modalEvent.replyFiles(FileUpload.fromData(ImagesManager.getBytesOfImage(ItemAdvancedImage.getImage(item)), "image.png"))
-                .addActionRow(componentList)
-                .setEphemeral(true)
+        modalEvent.getHook().editOriginalAttachments(FileUpload.fromData(ImagesManager.getBytesOfImage(ItemAdvancedImage.getImage(item)), "image.png"))
+                .setActionRow(componentList)
                 .queue();
     }
 }
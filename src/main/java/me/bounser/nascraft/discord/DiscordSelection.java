@@ -14,29 +14,36 @@ public class DiscordSelection extends ListenerAdapter {
     @Override
     public void onStringSelectInteraction(StringSelectInteractionEvent event) {
 
-        if (event.getChannel().getId().equals(Config.getInstance().getChannel())) {
+        if (!event.getChannel().getId().equals(Config.getInstance().getChannel())) return;
 
-            if (event.getValues().get(0).contains("alert-")) {
+        // Choosing an item answers with its image, so it is acknowledged before being handled.
+        boolean defer = !event.getValues().get(0).contains("alert-");
 
-                if (DiscordAlerts.getInstance().getAlerts().get(event.getUser().getId()) == null || !DiscordAlerts.getInstance().getAlerts().get(event.getUser().getId()).containsKey(MarketManager.getInstance().getItem(event.getValues().get(0).substring(6)))) {
-                    event.reply(":exclamation: There is no alert currently setup for that item!")
-                            .setEphemeral(true)
-                            .queue(message -> message.deleteOriginal().queueAfter(7, TimeUnit.SECONDS));
-                }
+        DiscordInteractions.getInstance().dispatch(defer ? "select-item" : "select-alert", event, defer, () -> handle(event));
+    }
+
+    private void handle(StringSelectInteractionEvent event) {
 
-                DiscordAlerts.getInstance().removeAlert(event.getUser().getId(), MarketManager.getInstance().getItem(event.getValues().get(0).substring(6)));
+        if (event.getValues().get(0).contains("alert-")) {
 
-                event.reply(":no_bell: Alert of item ``" + MarketManager.getInstance().getItem(event.getValues().get(0).substring(6)).getName() + "`` removed!")
+            if (DiscordAlerts.getInstance().getAlerts().get(event.getUser().getId()) == null || !DiscordAlerts.getInstance().getAlerts().get(event.getUser().getId()).containsKey(MarketManager.getInstance().getItem(event.getValues().get(0).substring(6)))) {
+                event.reply(":exclamation: There is no alert currently setup for that item!")
                         .setEphemeral(true)
                         .queue(message -> message.deleteOriginal().queueAfter(7, TimeUnit.SECONDS));
-
-                return;
             }
 
-            Item item = MarketManager.getInstance().getItem(event.getValues().get(0));
+            DiscordAlerts.getInstance().removeAlert(event.getUser().getId(), MarketManager.getInstance().getItem(event.getValues().get(0).substring(6)));
 
-            DiscordBot.getInstance().sendBasicScreen(item, event.getUser(), null, event, null);
+            event.reply(":no_bell: Alert of item ``" + MarketManager.getInstance().getItem(event.getValues().get(0).substring(6)).getName() + "`` removed!")
+                    .setEphemeral(true)
+                    .queue(message -> message.deleteOriginal().queueAfter(7, TimeUnit.SECONDS));
+
+            return;
         }
+
+        Item item = MarketManager.getInstance().getItem(event.getValues().get(0));
+
+        DiscordBot.getInstance().sendBasicScreen(item, event.getUser(), event);
     }
 
 }
@@ -0,0 +1,83 @@
+package me.bounser.nascraft.discord.alerts;
+
+import me.bounser.nascraft.market.unit.Item;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class AlertThresholds {
+
+    // Threshold -> Alerts that trigger when the price goes over it.
+    private final TreeMap<Double, List<Alert>> above = new TreeMap<>();
+
+    // Threshold -> Alerts that trigger when the price goes under it.
+    private final TreeMap<Double, List<Alert>> below = new TreeMap<>();
+
+    public synchronized void add(String userId, Item item, double threshold, boolean up) {
+        (up ? above : below).computeIfAbsent(threshold, t -> new ArrayList<>()).add(new Alert(userId, item, threshold, up));
+    }
+
+    public synchronized void remove(String userId, Item item, double threshold, boolean up) {
+
+        TreeMap<Double, List<Alert>> side = up ? above : below;
+
+        List<Alert> alerts = side.get(threshold);
+
+        if (alerts == null) return;
+
+        alerts.removeIf(alert -> alert.getUserId().equals(userId) && alert.getItem() == item);
+
+        if (alerts.isEmpty()) side.remove(threshold);
+    }
+
+    // Removes and returns every alert crossed by the given value.
+    public synchronized List<Alert> poll(double value) {
+
+        List<Alert> crossed = new ArrayList<>();
+
+        drain(above.headMap(value, false), crossed);
+        drain(below.tailMap(value, false), crossed);
+
+        return crossed;
+    }
+
+    private void drain(Map<Double, List<Alert>> range, List<Alert> crossed) {
+
+        if (range.isEmpty()) return;
+
+        Iterator<List<Alert>> iterator = range.values().iterator();
+
+        while (iterator.hasNext()) {
+            crossed.addAll(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    public synchronized boolean isEmpty() { return above.isEmpty() && below.isEmpty(); }
+
+    public static class Alert {
+
+        private final String userId;
+        private final Item item;
+        private final double threshold;
+        private final boolean up;
+
+        public Alert(String userId, Item item, double threshold, boolean up) {
+            this.userId = userId;
+            this.item = item;
+            this.threshold = threshold;
+            this.up = up;
+        }
+
+        public String getUserId() { return userId; }
+
+        public Item getItem() { return item; }
+
+        public double getThreshold() { return threshold; }
+
+        public boolean isUp() { return up; }
+    }
+}
@@ -1,7 +1,10 @@
 package me.bounser.nascraft.discord.alerts;
 
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
+import me.bounser.nascraft.database.DatabaseExecutor;
 import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.discord.DiscordBot;
 import me.bounser.nascraft.discord.linking.LinkManager;
@@ -9,26 +12,37 @@ import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
 
-import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DiscordAlerts implements Listener {
 
-    // UserId -> (Item, Price)
-    private final HashMap<String, HashMap<Item, Double>> alerts = new HashMap<>();
+    // UserId -> (Item, Price). Changed from the database executor, the Discord threads and price updates.
+    private final ConcurrentHashMap<String, Map<Item, Double>> alerts = new ConcurrentHashMap<>();
 
-    private static DiscordAlerts instance;
+    // Price -> Thresholds of all the alerts on the items that share it.
+    private final ConcurrentHashMap<Price, AlertThresholds> thresholds = new ConcurrentHashMap<>();
 
+    private final boolean enabled = Config.getInstance().getDiscordEnabled() && Config.getInstance().getDiscordMenuEnabled();
+
+    private static volatile DiscordAlerts instance;
+
+    // The stored alerts are loaded on the database executor, so the first call doesn't wait for them.
     public static DiscordAlerts getInstance() {
         if (instance == null) {
             instance = new DiscordAlerts();
 
-            DatabaseManager.get().getDatabase().purgeAlerts();
-            DatabaseManager.get().getDatabase().retrieveAlerts();
+            DatabaseExecutor.getInstance().execute(() -> {
+                DatabaseManager.get().getDatabase().purgeAlerts();
+                DatabaseManager.get().getDatabase().retrieveAlerts();
+            });
         }
         return instance;
     }
@@ -39,18 +53,19 @@ public class DiscordAlerts implements Listener {
 
         if (item == null) return OperationResult.NOT_VALID;
 
-        if (alerts.containsKey(userID) && alerts.get(userID).size() > 8) return OperationResult.LIMIT_REACHED;
+        Map<Item, Double> content = alerts.computeIfAbsent(userID, id -> new ConcurrentHashMap<>());
+
+        boolean up = !(price < item.getPrice().getValue());
 
-        if (alerts.containsKey(userID) && alerts.get(userID).containsKey(item)) return OperationResult.REPEATED;
+        synchronized (content) {
+            if (content.size() > 8) return OperationResult.LIMIT_REACHED;
 
-        HashMap<Item, Double> content;
-        if (alerts.get(userID) == null) content = new HashMap<>();
-        else content = alerts.get(userID);
+            if (content.containsKey(item)) return OperationResult.REPEATED;
 
-        if (price < item.getPrice().getValue()) content.put(item, -price);
-        else content.put(item, price);
+            content.put(item, up ? price : -price);
+        }
 
-        alerts.put(userID, content);
+        thresholds.computeIfAbsent(item.getPrice(), p -> new AlertThresholds()).add(userID, item, price, up);
         DatabaseManager.get().getDatabase().addAlert(userID, item, price);
 
         return OperationResult.SUCCESS;
@@ -58,55 +73,52 @@ public class DiscordAlerts implements Listener {
 
     public OperationResult removeAlert(String userID, Item item) {
 
-        HashMap<Item, Double> content = alerts.get(userID);
+        Map<Item, Double> content = alerts.get(userID);
 
-        if (content == null || !content.containsKey(item)) {
-            return OperationResult.NOT_FOUND;
-        }
+        Double price = content == null ? null : content.remove(item);
+
+        if (price == null) return OperationResult.NOT_FOUND;
 
-        content.remove(item);
         DatabaseManager.get().getDatabase().removeAlert(userID, item);
 
-        alerts.put(userID, content);
+        AlertThresholds itemThresholds = thresholds.get(item.getPrice());
+        if (itemThresholds != null) itemThresholds.remove(userID, item, Math.abs(price), price >= 0);
+
         return OperationResult.SUCCESS;
     }
 
-    public void updateAlerts() {
-
-        HashMap<String, Item> alertsToRemove = new HashMap<>();
-
-        for (String userID : alerts.keySet()) {
+    // Called on every price update. Only the alerts whose threshold has been crossed are visited.
+    public static void checkPrice(Price price, double value) {
 
-            for (Item item : alerts.get(userID).keySet()) {
+        if (instance == null || !instance.enabled) return;
 
-                if (alerts.get(userID).get(item) < 0) {
+        AlertThresholds itemThresholds = instance.thresholds.get(price);
 
-                    if (!(item.getPrice().getValue() < Math.abs(alerts.get(userID).get(item)))) continue;
+        if (itemThresholds == null) return;
 
-                    reachedMessage(userID, item, Math.abs(alerts.get(userID).get(item)), ":chart_with_downwards_trend:", false);
+        List<AlertThresholds.Alert> crossed = itemThresholds.poll(value);
 
-                } else {
+        if (crossed.isEmpty()) return;
 
-                    if (!(item.getPrice().getValue() > alerts.get(userID).get(item))) continue;
+        Bukkit.getScheduler().runTaskAsynchronously(Nascraft.getInstance(), () -> {
+            for (AlertThresholds.Alert alert : crossed) {
+                instance.removeAlert(alert.getUserId(), alert.getItem());
 
-                    reachedMessage(userID, item, Math.abs(alerts.get(userID).get(item)), ":chart_with_upwards_trend:", true);
-                }
-                alertsToRemove.put(userID, item);
+                if (alert.isUp())
+                    instance.reachedMessage(alert.getUserId(), alert.getItem(), alert.getThreshold(), ":chart_with_upwards_trend:", true);
+                else
+                    instance.reachedMessage(alert.getUserId(), alert.getItem(), alert.getThreshold(), ":chart_with_downwards_trend:", false);
             }
-        }
-
-        for (String userid : alertsToRemove.keySet()) {
-            removeAlert(userid, alertsToRemove.get(userid));
-        }
+        });
     }
 
-    public HashMap<String, HashMap<Item, Double>> getAlerts() { return alerts; }
+    public ConcurrentHashMap<String, Map<Item, Double>> getAlerts() { return alerts; }
 
-    public HashMap<Item, Double> getAlertsOfUUID(UUID uuid) {
+    public Map<Item, Double> getAlertsOfUUID(UUID uuid) {
 
         String userid = LinkManager.getInstance().getUserDiscordID(uuid);
 
-        return alerts.get(userid);
+        return userid == null ? null : alerts.get(userid);
     }
 
     public void reachedMessage(String userId, Item item, double price, String emoji, boolean up) {
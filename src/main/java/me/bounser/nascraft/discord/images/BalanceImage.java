@@ -3,6 +3,7 @@ package me.bounser.nascraft.discord.images;
 import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.portfolio.PortfoliosManager;
 import me.bounser.nascraft.discord.linking.LinkManager;
+import me.bounser.nascraft.metrics.Metrics;
 import net.dv8tion.jda.api.entities.User;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
@@ -13,6 +14,10 @@ import java.awt.image.BufferedImage;
 public class BalanceImage {
 
     public static BufferedImage getImage(User user) {
+        return Metrics.getInstance().time("render", "BalanceImage", () -> render(user));
+    }
+
+    private static BufferedImage render(User user) {
 
         BufferedImage image = new BufferedImage(600, 50, BufferedImage.TYPE_INT_ARGB);
 
@@ -8,6 +8,7 @@ import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.metrics.Metrics;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
@@ -22,6 +23,10 @@ public class InventoryImage {
     private static final Lang lang = Lang.get();
 
     public static BufferedImage getImage(Portfolio discordInventory) {
+        return Metrics.getInstance().time("render", "InventoryImage", () -> render(discordInventory));
+    }
+
+    private static BufferedImage render(Portfolio discordInventory) {
 
         HashMap<Item, Integer> inventory = discordInventory.getContent();
 
@@ -4,6 +4,7 @@ import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.market.unit.plot.PlotData;
+import me.bounser.nascraft.metrics.Metrics;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -11,6 +12,10 @@ import java.awt.image.BufferedImage;
 public class ItemAdvancedImage {
 
     public static BufferedImage getImage(Item item) {
+        return Metrics.getInstance().time("render", "ItemAdvancedImage", () -> render(item));
+    }
+
+    private static BufferedImage render(Item item) {
 
         BufferedImage image = new BufferedImage(8*128, 4*124, BufferedImage.TYPE_INT_ARGB);
 
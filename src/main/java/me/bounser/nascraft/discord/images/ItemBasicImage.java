@@ -8,6 +8,7 @@ import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.market.unit.plot.PlotData;
+import me.bounser.nascraft.metrics.Metrics;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
@@ -23,6 +24,10 @@ public class ItemBasicImage {
     private static final Lang lang = Lang.get();
 
     public static BufferedImage getImage(Item item) {
+        return Metrics.getInstance().time("render", "ItemBasicImage", () -> render(item));
+    }
+
+    private static BufferedImage render(Item item) {
 
         BufferedImage image = new BufferedImage(8*128, 5*128, BufferedImage.TYPE_INT_ARGB);
 
@@ -5,6 +5,7 @@ import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.chart.price.ItemChart;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.metrics.Metrics;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -12,6 +13,10 @@ import java.awt.image.BufferedImage;
 public class ItemTimeGraph {
 
     public static BufferedImage getImage(Item item, ChartType chartType, String userid) {
+        return Metrics.getInstance().time("render", "ItemTimeGraph", () -> render(item, chartType, userid));
+    }
+
+    private static BufferedImage render(Item item, ChartType chartType, String userid) {
 
         BufferedImage image = new BufferedImage(610, 290, BufferedImage.TYPE_INT_ARGB);
 
@@ -8,6 +8,7 @@ import me.bounser.nascraft.managers.ImagesManager;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.market.unit.plot.PlotData;
+import me.bounser.nascraft.metrics.Metrics;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -17,6 +18,10 @@ public class MainImage {
     private static Lang lang = Lang.get();
 
     public static BufferedImage getImage() {
+        return Metrics.getInstance().time("render", "MainImage", MainImage::render);
+    }
+
+    private static BufferedImage render() {
 
 
         BufferedImage image;
@@ -6,7 +6,6 @@ import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
 import me.bounser.nascraft.database.DatabaseManager;
-import me.bounser.nascraft.database.sqlite.SQLite;
 import me.bounser.nascraft.discord.DiscordBot;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -41,7 +40,7 @@ public class LinkManager {
                 return DiscordSRV.getPlugin().getAccountLinkManager().getDiscordId(uuid);
 
             case NATIVE:
-                return SQLite.getInstance().getUserId(uuid);
+                return DatabaseManager.get().getDatabase().getUserId(uuid);
 
             default: return null;
         }
@@ -66,7 +65,7 @@ public class LinkManager {
 
                 } else {
 
-                    UUID uuid = SQLite.getInstance().getUUID(userId);
+                    UUID uuid = DatabaseManager.get().getDatabase().getUUID(userId);
 
                     if (uuid != null) {
                         userToUUID.put(userId, uuid);
@@ -118,7 +117,7 @@ public class LinkManager {
 
             userToUUID.put(String.valueOf(confirmingCodes.get(code)), uuid);
 
-            SQLite.getInstance().saveLink(String.valueOf(confirmingCodes.get(code)), uuid, nickname);
+            DatabaseManager.get().getDatabase().saveLink(String.valueOf(confirmingCodes.get(code)), uuid, nickname);
 
             if (Config.getInstance().getLogChannelEnabled())
                 DiscordBot.getInstance().sendLinkLog(confirmingCodes.get(code), uuid, nickname, true);
@@ -152,7 +151,7 @@ public class LinkManager {
                 UUID uuid = userToUUID.get(userId);
                 userToUUID.remove(userId);
 
-                DiscordBot.getInstance().sendLinkLog(userId, uuid, SQLite.getInstance().getNickname(userId), false);
+                DiscordBot.getInstance().sendLinkLog(userId, uuid, DatabaseManager.get().getDatabase().getNickname(userId), false);
 
                 DatabaseManager.get().getDatabase().removeLink(userId);
                 DatabaseManager.get().getDatabase().removeAllAlerts(userId);
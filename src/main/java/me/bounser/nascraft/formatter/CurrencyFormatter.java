@@ -0,0 +1,153 @@
+package me.bounser.nascraft.formatter;
+
+// Formats amounts of one currency. The templates are split around [AMOUNT] once, the digits are written
+// into a builder reused by each thread, and the last formatted amounts are kept to be returned again.
+public class CurrencyFormatter {
+
+    private static final String AMOUNT = "[AMOUNT]";
+
+    private static final int MAX_PRECISION = 6;
+
+    private static final int CACHE_SIZE = 512;
+
+    private static final ThreadLocal<StringBuilder> DIGITS = ThreadLocal.withInitial(() -> new StringBuilder(24));
+    private static final ThreadLocal<StringBuilder> RESULT = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    private final String[] format;
+    private final String[] plainFormat;
+
+    // Same templates with the separators already swapped for the comma separator.
+    private final String[] formatComma;
+    private final String[] plainFormatComma;
+
+    private final int precision;
+    private final double scale;
+
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+
+    public CurrencyFormatter(String format, String plainFormat, int precision) {
+        this.format = split(format);
+        this.plainFormat = split(plainFormat);
+        this.formatComma = swap(this.format);
+        this.plainFormatComma = swap(this.plainFormat);
+        this.precision = precision;
+        this.scale = Math.pow(10, precision);
+    }
+
+    private static String[] split(String template) {
+        return template.split(AMOUNT.replace("[", "\\[").replace("]", "\\]"), -1);
+    }
+
+    private static String[] swap(String[] parts) {
+        String[] swapped = new String[parts.length];
+        for (int i = 0; i < parts.length; i++) swapped[i] = parts[i].replace(".", "_").replace(",", ".").replace("_", ",");
+        return swapped;
+    }
+
+    // Returns null if the amount can't be written here and has to go through the JDK formatters.
+    public String format(double value, Style style, boolean plain, boolean comma) {
+
+        long bits = Double.doubleToLongBits(value);
+        int key = style.ordinal() << 2 | (plain ? 2 : 0) | (comma ? 1 : 0);
+
+        int hash = (int) (bits ^ (bits >>> 32)) * 31 + key;
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+
+        Entry entry = cache[slot];
+        if (entry != null && entry.bits == bits && entry.key == key) return entry.text;
+
+        String text = compute(value, style, plain, comma);
+
+        if (text != null) cache[slot] = new Entry(bits, key, text);
+
+        return text;
+    }
+
+    private String compute(double value, Style style, boolean plain, boolean comma) {
+
+        if (!DecimalWriter.isSupported() || precision < 0 || precision > MAX_PRECISION) return null;
+
+        // Same rounding as Formatter.roundToDecimals, keeping the integer to know the exact decimal value.
+        long units = Math.round(value * scale);
+        if (units > DecimalWriter.LIMIT || units < -DecimalWriter.LIMIT) return null;
+
+        double number = units / scale;
+
+        StringBuilder digits = DIGITS.get();
+        digits.setLength(0);
+
+        switch (style) {
+
+            case ROUND_TO_ONE:
+                DecimalWriter.fixed(digits, units, precision, 1);
+                break;
+
+            case ROUND_BASIC:
+                if (number >= 0.1) {
+                    if (!DecimalWriter.pattern(digits, number, units, precision, 2, true)) return null;
+                } else {
+                    if (!DecimalWriter.pattern(digits, number, units, precision, 3, false)) return null;
+                }
+                break;
+
+            case REDUCED_LENGTH:
+                if (!plain || precision != 0) {
+                    if (number <= 0.1) { DecimalWriter.fixed(digits, units, precision, 3); break; }
+                    if (number < 100) { DecimalWriter.fixed(digits, units, precision, 2); break; }
+                }
+
+                if (number < 1000) {
+                    if (!DecimalWriter.pattern(digits, number, units, precision, 1, false)) return null;
+                } else if (number < 1_000_000) {
+                    if (!DecimalWriter.pattern(digits, number / 1000, units, precision + 3, 1, false)) return null;
+                    digits.append('k');
+                } else {
+                    if (!DecimalWriter.pattern(digits, number / 1_000_000, units, precision + 6, 1, false)) return null;
+                    digits.append('m');
+                }
+                break;
+
+            default:
+                return null;
+        }
+
+        String[] parts = plain ? (comma ? plainFormatComma : plainFormat) : (comma ? formatComma : format);
+
+        StringBuilder result = RESULT.get();
+        result.setLength(0);
+
+        result.append(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            appendDigits(result, digits, comma);
+            result.append(parts[i]);
+        }
+
+        return result.toString();
+    }
+
+    private static void appendDigits(StringBuilder result, StringBuilder digits, boolean comma) {
+
+        if (!comma) {
+            result.append(digits);
+            return;
+        }
+
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            result.append(c == '.' ? ',' : c == ',' ? '.' : c);
+        }
+    }
+
+    private static class Entry {
+
+        private final long bits;
+        private final int key;
+        private final String text;
+
+        private Entry(long bits, int key, String text) {
+            this.bits = bits;
+            this.key = key;
+            this.text = text;
+        }
+    }
+}
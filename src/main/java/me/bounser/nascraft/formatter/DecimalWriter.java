@@ -0,0 +1,115 @@
+package me.bounser.nascraft.formatter;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+// Writes numbers the same way String.format("%.Nf") and the DecimalFormat patterns used by the Formatter
+// do, without creating formatters or intermediate strings. Numbers come as an integer of units of 10^-scale.
+public class DecimalWriter {
+
+    // Above this the arithmetic below could lose precision, so those numbers are left to the JDK.
+    public static final long LIMIT = 10_000_000_000_000L;
+
+    private static final long[] POWERS = new long[19];
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) POWERS[i] = POWERS[i - 1] * 10;
+    }
+
+    // Only the symbols of the english locales are written here, any other locale goes through the JDK.
+    private static final boolean SUPPORTED;
+
+    static {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+        SUPPORTED = symbols.getZeroDigit() == '0' && symbols.getDecimalSeparator() == '.' &&
+                symbols.getGroupingSeparator() == ',' && symbols.getMinusSign() == '-';
+    }
+
+    public static boolean isSupported() { return SUPPORTED; }
+
+    // String.format("%.<fraction>f"): the digits are rounded half up and the sign is kept even if they round to zero.
+    public static void fixed(StringBuilder builder, long units, int scale, int fraction) {
+
+        long absolute = Math.abs(units);
+        long rounded;
+
+        if (scale <= fraction) {
+            rounded = absolute * POWERS[fraction - scale];
+        } else {
+            long divisor = POWERS[scale - fraction];
+            rounded = absolute / divisor;
+            if (2 * (absolute % divisor) >= divisor) rounded++;
+        }
+
+        if (units < 0) builder.append('-');
+
+        builder.append(rounded / POWERS[fraction]);
+
+        if (fraction > 0) {
+            builder.append('.');
+            appendPadded(builder, rounded % POWERS[fraction], fraction);
+        }
+    }
+
+    // DecimalFormat with up to maxFraction decimals and no trailing zeros. Returns false without writing anything
+    // if the number is exactly halfway between two outputs, as DecimalFormat then decides from the internal
+    // state of its double to decimal conversion.
+    public static boolean pattern(StringBuilder builder, double value, long units, int scale, int maxFraction, boolean grouping) {
+
+        long absolute = Math.abs(units);
+        long rounded;
+        int fraction;
+
+        if (scale <= maxFraction) {
+            rounded = absolute;
+            fraction = scale;
+        } else {
+            long divisor = POWERS[scale - maxFraction];
+            rounded = absolute / divisor;
+            long twice = 2 * (absolute % divisor);
+
+            if (twice == divisor) return false;
+            if (twice > divisor) rounded++;
+
+            fraction = maxFraction;
+        }
+
+        long integer = rounded / POWERS[fraction];
+        long decimals = rounded % POWERS[fraction];
+
+        while (fraction > 0 && decimals % 10 == 0) {
+            decimals /= 10;
+            fraction--;
+        }
+
+        if (value < 0) builder.append('-');
+
+        if (grouping) appendGrouped(builder, integer);
+        else builder.append(integer);
+
+        if (fraction > 0) {
+            builder.append('.');
+            appendPadded(builder, decimals, fraction);
+        }
+
+        return true;
+    }
+
+    private static void appendPadded(StringBuilder builder, long number, int digits) {
+        for (int i = digits - 1; i > 0 && number < POWERS[i]; i--) builder.append('0');
+        builder.append(number);
+    }
+
+    private static void appendGrouped(StringBuilder builder, long number) {
+
+        if (number < 1000) {
+            builder.append(number);
+            return;
+        }
+
+        appendGrouped(builder, number / 1000);
+        builder.append(',');
+        appendPadded(builder, number % 1000, 3);
+    }
+}
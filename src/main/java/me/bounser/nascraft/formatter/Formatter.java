@@ -14,6 +14,9 @@ public class Formatter {
 
         double number = toFormat.doubleValue();
 
+        String formatted = currency.getFormatter().format(number, style, false, separator == Separator.COMMA);
+        if (formatted != null) return formatted;
+
         String formattedText = null;
 
         number = roundToDecimals(number, currency.getDecimalPrecission());
@@ -65,6 +68,9 @@ public class Formatter {
 
         double number = toFormat.doubleValue();
 
+        String formatted = currency.getFormatter().format(number, style, true, separator == Separator.COMMA);
+        if (formatted != null) return formatted;
+
         String formattedText = null;
 
         number = roundToDecimals(number, currency.getDecimalPrecission());
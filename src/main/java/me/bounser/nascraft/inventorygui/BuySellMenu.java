@@ -13,6 +13,7 @@ import me.bounser.nascraft.market.limitorders.LimitOrder;
 import me.bounser.nascraft.market.limitorders.LimitOrdersManager;
 import me.bounser.nascraft.market.limitorders.OrderType;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
 import net.kyori.adventure.platform.bukkit.BukkitComponentSerializer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
@@ -24,12 +25,15 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.metadata.FixedMetadataValue;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static me.bounser.nascraft.inventorygui.LimitOrdersMenu.getFormattedTime;
 
-public class BuySellMenu implements MenuPage{
+public class BuySellMenu implements LiveMenu {
 
     private Inventory gui;
 
@@ -53,29 +57,9 @@ public class BuySellMenu implements MenuPage{
 
         // Item
 
-        ItemStack itemStack = item.getItemStack();
-
-        ItemMeta meta = itemStack.getItemMeta();
-
-        meta.setDisplayName(item.getFormattedName());
-
-        List<String> prevLore = meta.getLore();
-
-        List<String> itemLore = MarketMenuManager.getInstance().getLoreFromItem(item, Lang.get().message(Message.GUI_BUYSELL_ITEM_LORE));
-
-        if (meta.hasLore() && prevLore != null) {
-            itemLore.add("");
-            itemLore.addAll(prevLore);
-            meta.setLore(itemLore);
-        } else {
-            meta.setLore(itemLore);
-        }
-
-        itemStack.setItemMeta(meta);
-
         gui.setItem(
                 config.getBuySellMenuItemSlot(),
-                itemStack
+                getItemDisplay()
         );
 
         // Back button
@@ -99,7 +83,7 @@ public class BuySellMenu implements MenuPage{
 
         if (config.getAlertsBuySellEnabled()) {
 
-            HashMap<Item, Double> alerts = DiscordAlerts.getInstance().getAlertsOfUUID(player.getUniqueId());
+            Map<Item, Double> alerts = DiscordAlerts.getInstance().getAlertsOfUUID(player.getUniqueId());
 
             if (alerts != null && alerts.containsKey(item)) {
 
@@ -260,62 +244,15 @@ public class BuySellMenu implements MenuPage{
 
         HashMap<Integer, Integer> buyButtons = config.getBuySellBuySlots();
 
-        for (int amount : buyButtons.keySet()) {
-
-            Component buyComponent = MiniMessage.miniMessage().deserialize(Lang.get().message(Message.GUI_BUYSELL_BUY_BUTTONS_NAME)
-                    .replace("[AMOUNT]", String.valueOf(amount)));
-
-            lore.clear();
-            String buyLore = Lang.get().message(Message.GUI_BUYSELL_BUY_BUTTONS_LORE)
-                    .replace("[AMOUNT]", String.valueOf(amount))
-                    .replace("[WORTH]", String.valueOf(Formatter.format(item.getCurrency(), item.getPrice().getProjectedCost(-amount, item.getPrice().getBuyTaxMultiplier()), Style.ROUND_BASIC)));
-
-            for (String line : buyLore.split("\\n")) {
-                Component loreComponent = MiniMessage.miniMessage().deserialize(line);
-                lore.add(BukkitComponentSerializer.legacy().serialize(loreComponent));
-            }
-
-            ItemStack buyButton = MarketMenuManager.getInstance().generateItemStack(
-                    config.getBuySellBuyMaterial(),
-                    BukkitComponentSerializer.legacy().serialize(buyComponent),
-                    lore
-            );
-
-            buyButton.setAmount(amount);
-
-            gui.setItem(buyButtons.get(amount), buyButton);
-
-        }
+        for (int amount : buyButtons.keySet())
+            gui.setItem(buyButtons.get(amount), getBuyButton(amount));
 
         // Sell button
 
         HashMap<Integer, Integer> sellButtons = config.getBuySellSellSlots();
 
-        for (int amount : sellButtons.keySet()) {
-
-            Component buyComponent = MiniMessage.miniMessage().deserialize(Lang.get().message(Message.GUI_BUYSELL_SELL_BUTTONS_NAME)
-                    .replace("[AMOUNT]", String.valueOf(amount)));
-
-            lore.clear();
-            String sellLore = Lang.get().message(Message.GUI_BUYSELL_SELL_BUTTONS_LORE)
-                    .replace("[AMOUNT]", String.valueOf(amount))
-                    .replace("[WORTH]", String.valueOf(Formatter.format(item.getCurrency(), item.getPrice().getProjectedCost(amount, item.getPrice().getSellTaxMultiplier()), Style.ROUND_BASIC)));
-
-            for (String line : sellLore.split("\\n")) {
-                Component loreComponent = MiniMessage.miniMessage().deserialize(line);
-                lore.add(BukkitComponentSerializer.legacy().serialize(loreComponent));
-            }
-
-            ItemStack sellButton = MarketMenuManager.getInstance().generateItemStack(
-                    config.getBuySellSellMaterial(),
-                    BukkitComponentSerializer.legacy().serialize(buyComponent),
-                    lore
-            );
-
-            sellButton.setAmount(amount);
-
-            gui.setItem(sellButtons.get(amount), sellButton);
-        }
+        for (int amount : sellButtons.keySet())
+            gui.setItem(sellButtons.get(amount), getSellButton(amount));
 
         player.openInventory(gui);
         player.setMetadata("NascraftMenu", new FixedMetadataValue(Nascraft.getInstance(), "item-menu-" + item.getIdentifier()));
@@ -351,7 +288,7 @@ public class BuySellMenu implements MenuPage{
 
         if (config.getAlertsBuySellEnabled()) {
 
-            HashMap<Item, Double> alerts = DiscordAlerts.getInstance().getAlertsOfUUID(player.getUniqueId());
+            Map<Item, Double> alerts = DiscordAlerts.getInstance().getAlertsOfUUID(player.getUniqueId());
 
             if (alerts != null && alerts.containsKey(item)) {
 
@@ -393,66 +330,129 @@ public class BuySellMenu implements MenuPage{
 
         HashMap<Integer, Integer> buyButtons = config.getBuySellBuySlots();
 
-        for (int amount : buyButtons.keySet()) {
+        for (int amount : buyButtons.keySet())
+            gui.setItem(buyButtons.get(amount), getBuyButton(amount));
 
-            Component buyComponent = MiniMessage.miniMessage().deserialize(Lang.get().message(Message.GUI_BUYSELL_BUY_BUTTONS_NAME)
-                    .replace("[AMOUNT]", String.valueOf(amount)));
+        // Sell button
 
-            lore.clear();
-            String buyLore = Lang.get().message(Message.GUI_BUYSELL_BUY_BUTTONS_LORE)
-                    .replace("[AMOUNT]", String.valueOf(amount))
-                    .replace("[WORTH]", String.valueOf(Formatter.format(item.getCurrency(), item.getPrice().getProjectedCost(-amount, item.getPrice().getBuyTaxMultiplier()), Style.ROUND_BASIC)));
+        HashMap<Integer, Integer> sellButtons = config.getBuySellSellSlots();
 
-            for (String line : buyLore.split("\\n")) {
-                Component loreComponent = MiniMessage.miniMessage().deserialize(line);
-                lore.add(BukkitComponentSerializer.legacy().serialize(loreComponent));
-            }
+        for (int amount : sellButtons.keySet())
+            gui.setItem(sellButtons.get(amount), getSellButton(amount));
+
+        player.openInventory(gui);
+        player.setMetadata("NascraftMenu", new FixedMetadataValue(Nascraft.getInstance(), "item-menu-" + item.getIdentifier()));
+        MarketMenuManager.getInstance().setMenuOfPlayer(player, this);
+    }
 
-            ItemStack buyButton = MarketMenuManager.getInstance().generateItemStack(
-                    config.getBuySellBuyMaterial(),
-                    BukkitComponentSerializer.legacy().serialize(buyComponent),
-                    lore
-            );
+    @Override
+    public Collection<Item> getDisplayedItems() { return Collections.singletonList(item); }
 
-            buyButton.setAmount(amount);
+    // The alerts and limit orders depend on the player and are left as they are.
+    @Override
+    public int refresh(Price price) {
 
-            gui.setItem(buyButtons.get(amount), buyButton);
+        if (item.getPrice() != price) return 0;
 
-        }
+        Config config = Config.getInstance();
+        MenuSubscriptions subscriptions = MenuSubscriptions.getInstance();
 
-        // Sell button
+        gui.setItem(config.getBuySellMenuItemSlot(), subscriptions.getRendered("item-" + item.getIdentifier(), this::getItemDisplay));
+
+        int slots = 1;
+
+        HashMap<Integer, Integer> buyButtons = config.getBuySellBuySlots();
+
+        for (int amount : buyButtons.keySet()) {
+            gui.setItem(buyButtons.get(amount), subscriptions.getRendered("buy-" + amount + "-" + item.getIdentifier(), () -> getBuyButton(amount)));
+            slots++;
+        }
 
         HashMap<Integer, Integer> sellButtons = config.getBuySellSellSlots();
 
         for (int amount : sellButtons.keySet()) {
+            gui.setItem(sellButtons.get(amount), subscriptions.getRendered("sell-" + amount + "-" + item.getIdentifier(), () -> getSellButton(amount)));
+            slots++;
+        }
 
-            Component buyComponent = MiniMessage.miniMessage().deserialize(Lang.get().message(Message.GUI_BUYSELL_SELL_BUTTONS_NAME)
-                    .replace("[AMOUNT]", String.valueOf(amount)));
+        return slots;
+    }
 
-            lore.clear();
-            String sellLore = Lang.get().message(Message.GUI_BUYSELL_SELL_BUTTONS_LORE)
-                    .replace("[AMOUNT]", String.valueOf(amount))
-                    .replace("[WORTH]", String.valueOf(Formatter.format(item.getCurrency(), item.getPrice().getProjectedCost(amount, item.getPrice().getSellTaxMultiplier()), Style.ROUND_BASIC)));
+    private ItemStack getItemDisplay() {
 
-            for (String line : sellLore.split("\\n")) {
-                Component loreComponent = MiniMessage.miniMessage().deserialize(line);
-                lore.add(BukkitComponentSerializer.legacy().serialize(loreComponent));
-            }
+        ItemStack itemStack = item.getItemStack();
+
+        ItemMeta meta = itemStack.getItemMeta();
+
+        meta.setDisplayName(item.getFormattedName());
 
-            ItemStack sellButton = MarketMenuManager.getInstance().generateItemStack(
-                    config.getBuySellSellMaterial(),
-                    BukkitComponentSerializer.legacy().serialize(buyComponent),
-                    lore
-            );
+        List<String> prevLore = meta.getLore();
 
-            sellButton.setAmount(amount);
+        List<String> itemLore = MarketMenuManager.getInstance().getLoreFromItem(item, Lang.get().message(Message.GUI_BUYSELL_ITEM_LORE));
 
-            gui.setItem(sellButtons.get(amount), sellButton);
+        if (meta.hasLore() && prevLore != null) {
+            itemLore.add("");
+            itemLore.addAll(prevLore);
+            meta.setLore(itemLore);
+        } else {
+            meta.setLore(itemLore);
         }
 
-        player.openInventory(gui);
-        player.setMetadata("NascraftMenu", new FixedMetadataValue(Nascraft.getInstance(), "item-menu-" + item.getIdentifier()));
-        MarketMenuManager.getInstance().setMenuOfPlayer(player, this);
+        itemStack.setItemMeta(meta);
+
+        return itemStack;
+    }
+
+    private ItemStack getBuyButton(int amount) {
+
+        Component buyComponent = MiniMessage.miniMessage().deserialize(Lang.get().message(Message.GUI_BUYSELL_BUY_BUTTONS_NAME)
+                .replace("[AMOUNT]", String.valueOf(amount)));
+
+        List<String> lore = new ArrayList<>();
+        String buyLore = Lang.get().message(Message.GUI_BUYSELL_BUY_BUTTONS_LORE)
+                .replace("[AMOUNT]", String.valueOf(amount))
+                .replace("[WORTH]", String.valueOf(Formatter.format(item.getCurrency(), item.getPrice().getProjectedCost(-amount, item.getPrice().getBuyTaxMultiplier()), Style.ROUND_BASIC)));
+
+        for (String line : buyLore.split("\\n")) {
+            Component loreComponent = MiniMessage.miniMessage().deserialize(line);
+            lore.add(BukkitComponentSerializer.legacy().serialize(loreComponent));
+        }
+
+        ItemStack buyButton = MarketMenuManager.getInstance().generateItemStack(
+                Config.getInstance().getBuySellBuyMaterial(),
+                BukkitComponentSerializer.legacy().serialize(buyComponent),
+                lore
+        );
+
+        buyButton.setAmount(amount);
+
+        return buyButton;
+    }
+
+    private ItemStack getSellButton(int amount) {
+
+        Component sellComponent = MiniMessage.miniMessage().deserialize(Lang.get().message(Message.GUI_BUYSELL_SELL_BUTTONS_NAME)
+                .replace("[AMOUNT]", String.valueOf(amount)));
+
+        List<String> lore = new ArrayList<>();
+        String sellLore = Lang.get().message(Message.GUI_BUYSELL_SELL_BUTTONS_LORE)
+                .replace("[AMOUNT]", String.valueOf(amount))
+                .replace("[WORTH]", String.valueOf(Formatter.format(item.getCurrency(), item.getPrice().getProjectedCost(amount, item.getPrice().getSellTaxMultiplier()), Style.ROUND_BASIC)));
+
+        for (String line : sellLore.split("\\n")) {
+            Component loreComponent = MiniMessage.miniMessage().deserialize(line);
+            lore.add(BukkitComponentSerializer.legacy().serialize(loreComponent));
+        }
+
+        ItemStack sellButton = MarketMenuManager.getInstance().generateItemStack(
+                Config.getInstance().getBuySellSellMaterial(),
+                BukkitComponentSerializer.legacy().serialize(sellComponent),
+                lore
+        );
+
+        sellButton.setAmount(amount);
+
+        return sellButton;
     }
 
 }
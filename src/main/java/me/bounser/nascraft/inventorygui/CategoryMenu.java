@@ -6,6 +6,7 @@ import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
 import me.bounser.nascraft.market.resources.Category;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
 import net.kyori.adventure.platform.bukkit.BukkitComponentSerializer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
@@ -17,15 +18,20 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.metadata.FixedMetadataValue;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 
-public class CategoryMenu implements MenuPage {
+public class CategoryMenu implements LiveMenu {
 
     private final Player player;
     private final Category category;
 
     private Inventory gui;
 
+    // Slot -> Item shown in it.
+    private final HashMap<Integer, Item> displayed = new HashMap<>();
+
     public CategoryMenu(Player player, Category category) {
         this.player = player;
         this.category = category;
@@ -84,33 +90,16 @@ public class CategoryMenu implements MenuPage {
 
         List<Integer> categorySlots = config.getCategoryItemsSlots();
 
+        displayed.clear();
+
         for (int i : categorySlots) {
 
             if (j + page * categorySlots.size() < items.size()) {
 
                 Item item = items.get(j + page * categorySlots.size());
 
-                ItemStack itemStack = item.getItemStack();
-
-                ItemMeta meta = itemStack.getItemMeta();
-
-                meta.setDisplayName(item.getFormattedName());
-
-                List<String> prevLore = meta.getLore();
-
-                List<String> itemLore = MarketMenuManager.getInstance().getLoreFromItem(item, Lang.get().message(Message.GUI_CATEGORY_ITEM_LORE));
-
-                if (meta.hasLore() && prevLore != null) {
-                    itemLore.add("");
-                    itemLore.addAll(prevLore);
-                    meta.setLore(itemLore);
-                } else {
-                    meta.setLore(itemLore);
-                }
-
-                itemStack.setItemMeta(meta);
-
-                gui.setItem(i, itemStack);
+                gui.setItem(i, getItemDisplay(item));
+                displayed.put(i, item);
 
             } else {
                 gui.setItem(i, new ItemStack(Material.AIR));
@@ -172,4 +161,48 @@ public class CategoryMenu implements MenuPage {
         player.setMetadata("NascraftPage", new FixedMetadataValue(Nascraft.getInstance(), page));
         MarketMenuManager.getInstance().setMenuOfPlayer(player, this);
     }
+
+    @Override
+    public Collection<Item> getDisplayedItems() { return displayed.values(); }
+
+    @Override
+    public int refresh(Price price) {
+
+        int slots = 0;
+
+        for (int slot : displayed.keySet()) {
+            Item item = displayed.get(slot);
+            if (item.getPrice() != price) continue;
+
+            gui.setItem(slot, MenuSubscriptions.getInstance().getRendered("category-" + item.getIdentifier(), () -> getItemDisplay(item)));
+            slots++;
+        }
+
+        return slots;
+    }
+
+    private ItemStack getItemDisplay(Item item) {
+
+        ItemStack itemStack = item.getItemStack();
+
+        ItemMeta meta = itemStack.getItemMeta();
+
+        meta.setDisplayName(item.getFormattedName());
+
+        List<String> prevLore = meta.getLore();
+
+        List<String> itemLore = MarketMenuManager.getInstance().getLoreFromItem(item, Lang.get().message(Message.GUI_CATEGORY_ITEM_LORE));
+
+        if (meta.hasLore() && prevLore != null) {
+            itemLore.add("");
+            itemLore.addAll(prevLore);
+            meta.setLore(itemLore);
+        } else {
+            meta.setLore(itemLore);
+        }
+
+        itemStack.setItemMeta(meta);
+
+        return itemStack;
+    }
 }
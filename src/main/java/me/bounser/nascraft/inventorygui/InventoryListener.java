@@ -168,7 +168,7 @@ public class InventoryListener implements Listener {
 
                 if (userId == null) return;
 
-                HashMap<Item, Double> alerts = DiscordAlerts.getInstance().getAlertsOfUUID(player.getUniqueId());
+                Map<Item, Double> alerts = DiscordAlerts.getInstance().getAlertsOfUUID(player.getUniqueId());
 
                 if (alerts != null && alerts.containsKey(item)) {
 
@@ -0,0 +1,17 @@
+package me.bounser.nascraft.inventorygui;
+
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
+
+import java.util.Collection;
+
+// Menu showing prices that are redrawn while it is open.
+public interface LiveMenu extends MenuPage {
+
+    Collection<Item> getDisplayedItems();
+
+    // Redraws the slots of the items with that price without reopening the inventory.
+    // Returns the amount of slots set.
+    int refresh(Price price);
+
+}
@@ -36,7 +36,10 @@ public class MarketMenuManager {
     }
 
     public void setMenuOfPlayer(Player player, MenuPage menu) {
-        playerMenus.put(player, menu);
+        MenuPage previous = playerMenus.put(player, menu);
+
+        if (previous instanceof LiveMenu && previous != menu) MenuSubscriptions.getInstance().unsubscribe((LiveMenu) previous);
+        if (menu instanceof LiveMenu) MenuSubscriptions.getInstance().subscribe((LiveMenu) menu);
     }
 
     public MenuPage getMenuFromPlayer(Player player) {
@@ -44,7 +47,9 @@ public class MarketMenuManager {
     }
 
     public void removeMenuFromPlayer(Player player) {
-        playerMenus.remove(player);
+        MenuPage menu = playerMenus.remove(player);
+
+        if (menu instanceof LiveMenu) MenuSubscriptions.getInstance().unsubscribe((LiveMenu) menu);
     }
 
     public ItemStack generateItemStack(Material material, String name, List<String> lore) {
@@ -0,0 +1,124 @@
+package me.bounser.nascraft.inventorygui;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
+import me.bounser.nascraft.metrics.Metrics;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+// Open menus subscribe to the prices of the items they show. A price change marks the price as dirty
+// and once per tick the dirty prices are redrawn in every menu showing them, up to a budget of slots.
+public class MenuSubscriptions {
+
+    // Created in onEnable, read afterwards from the threads changing prices.
+    private static volatile MenuSubscriptions instance;
+
+    public static MenuSubscriptions getInstance() { return instance == null ? instance = new MenuSubscriptions() : instance; }
+
+    private final boolean enabled;
+
+    // Price -> Menus showing it. Only used from the main thread.
+    private final HashMap<Price, Set<LiveMenu>> subscribers = new HashMap<>();
+    private final HashMap<LiveMenu, List<Price>> subscriptions = new HashMap<>();
+
+    // Prices shown in some menu, checked from any thread when a price changes.
+    private final Set<Price> watched = ConcurrentHashMap.newKeySet();
+
+    // Each dirty price is queued once, in the order they changed.
+    private final Set<Price> dirty = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<Price> queue = new ConcurrentLinkedQueue<>();
+
+    // Stacks drawn during the current refresh, shared by all the menus showing the same thing.
+    private final HashMap<String, ItemStack> rendered = new HashMap<>();
+
+    private MenuSubscriptions() {
+        enabled = Config.getInstance().getLiveMenusEnabled();
+
+        if (enabled) Bukkit.getScheduler().runTaskTimer(Nascraft.getInstance(), this::refresh, 1, 1);
+
+        Metrics.getInstance().registerGauge("live_menus", "subscribed", this::getSubscribedMenus);
+        Metrics.getInstance().registerGauge("live_menus", "pending", this::getPending);
+    }
+
+    public void subscribe(LiveMenu menu) {
+
+        if (!enabled) return;
+
+        unsubscribe(menu);
+
+        List<Price> prices = new ArrayList<>();
+        for (Item item : menu.getDisplayedItems())
+            if (!prices.contains(item.getPrice())) prices.add(item.getPrice());
+
+        subscriptions.put(menu, prices);
+
+        for (Price price : prices) {
+            subscribers.computeIfAbsent(price, k -> new HashSet<>()).add(menu);
+            watched.add(price);
+        }
+    }
+
+    public void unsubscribe(LiveMenu menu) {
+
+        List<Price> prices = subscriptions.remove(menu);
+
+        if (prices == null) return;
+
+        for (Price price : prices) {
+            Set<LiveMenu> menus = subscribers.get(price);
+            if (menus == null) continue;
+
+            menus.remove(menu);
+
+            if (menus.isEmpty()) {
+                subscribers.remove(price);
+                watched.remove(price);
+            }
+        }
+    }
+
+    public void markDirty(Price price) {
+        if (watched.contains(price) && dirty.add(price)) queue.add(price);
+    }
+
+    // All the menus of a price are redrawn together, so the budget can be exceeded by the last price drawn.
+    private void refresh() {
+
+        if (queue.isEmpty()) return;
+
+        int budget = Config.getInstance().getLiveMenusSlotsPerTick();
+
+        Price price;
+        while (budget > 0 && (price = queue.poll()) != null) {
+
+            dirty.remove(price);
+
+            Set<LiveMenu> menus = subscribers.get(price);
+            if (menus == null) continue;
+
+            for (LiveMenu menu : new ArrayList<>(menus)) budget -= menu.refresh(price);
+        }
+
+        rendered.clear();
+    }
+
+    public ItemStack getRendered(String key, Supplier<ItemStack> renderer) {
+        return rendered.computeIfAbsent(key, k -> renderer.get());
+    }
+
+    public int getSubscribedMenus() { return subscriptions.size(); }
+
+    public int getPending() { return dirty.size(); }
+
+}
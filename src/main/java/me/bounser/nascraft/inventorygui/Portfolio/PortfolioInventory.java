@@ -161,6 +161,11 @@ public class PortfolioInventory implements Listener {
 
         if (!player.hasMetadata("NascraftPortfolio")) return;
 
+        if (PortfoliosManager.getInstance().getLoadedPortfolio(player.getUniqueId()) == null) {
+            PortfoliosManager.getInstance().whenLoaded(player.getUniqueId(), portfolio -> updatePortfolioInventory(player));
+            return;
+        }
+
         Inventory inventory = player.getOpenInventory().getTopInventory();
 
         inventory.clear();
@@ -1,6 +1,5 @@
 package me.bounser.nascraft.managers;
 
-import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
@@ -16,7 +15,6 @@ import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
@@ -36,7 +34,7 @@ public class DebtManager {
 
     public void checkMargins() {
 
-        Bukkit.getScheduler().runTaskTimer(Nascraft.getInstance(),
+        MarketScheduler.getInstance().schedule("margin-calls", MarketScheduler.now() + 30, Config.getInstance().getMarginCheckingPeriod(), true,
                 () -> {
 
                     HashMap<UUID, Double> debtors = DatabaseManager.get().getDatabase().getUUIDAndDebt();
@@ -59,12 +57,12 @@ public class DebtManager {
                         }
                     }
 
-                }, 30*20, 20L * Config.getInstance().getMarginCheckingPeriod());
+                });
     }
 
     public void interestCollector() {
 
-        Bukkit.getScheduler().runTaskTimer(Nascraft.getInstance(),
+        MarketScheduler.getInstance().schedule("interests", MarketScheduler.atNext(Config.getInstance().getInterestPaymentHour()), TimeUnit.DAYS.toSeconds(1), true,
                 () -> {
 
                     HashMap<UUID, Double> debtors = DatabaseManager.get().getDatabase().getUUIDAndDebt();
@@ -95,7 +93,7 @@ public class DebtManager {
                         }
                     }
 
-                }, calculateInitialDelay(LocalTime.now(), Config.getInstance().getInterestPaymentHour())*20, TimeUnit.DAYS.toSeconds(1)*20);
+                });
     }
 
     public double getNextPayment(UUID uuid) {
@@ -111,17 +109,6 @@ public class DebtManager {
         return Config.getInstance().getInterestPaymentHour();
     }
 
-    private static long calculateInitialDelay(LocalTime currentTime, LocalTime targetTime) {
-        if (currentTime.isBefore(targetTime)) {
-            return Duration.between(currentTime, targetTime).toSeconds();
-        } else {
-            LocalTime midnight = LocalTime.MIDNIGHT;
-            long timeUntilMidnight = Duration.between(currentTime, midnight).toSeconds();
-            long timeFromMidnightToTarget = Duration.between(midnight, targetTime).toSeconds();
-            return timeUntilMidnight + timeFromMidnightToTarget;
-        }
-    }
-
     public double getDebtOfPlayer(UUID uuid) {
         return DatabaseManager.get().getDatabase().getDebt(uuid);
     }
@@ -186,9 +173,7 @@ public class DebtManager {
 
         } else {
 
-            Portfolio portfolio = PortfoliosManager.getInstance().getPortfolio(uuid);
-
-            portfolio.liquidatePerCurrency(currency, result -> {
+            PortfoliosManager.getInstance().whenLoaded(uuid, portfolio -> portfolio.liquidatePerCurrency(currency, result -> {
 
                 if (debt <= result) {
                     MoneyManager.getInstance().simpleWithdraw(player, currency, debt);
@@ -203,7 +188,7 @@ public class DebtManager {
                 if (onlinePlayer != null)
                     Lang.get().message(onlinePlayer, Message.PORTFOLIO_DEBT_LIQUIDATED);
 
-            });
+            }));
 
         }
     }
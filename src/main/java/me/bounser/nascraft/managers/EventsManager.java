@@ -22,6 +22,8 @@ public class EventsManager implements Listener {
         UUID uuid = player.getUniqueId();
         String name = player.getName();
 
+        PortfoliosManager.getInstance().prefetch(uuid);
+
         String txKey = "join-" + uuid;
         DatabaseExecutor.getInstance().executeIdempotent(txKey, conn -> {
             UserNames.saveOrUpdateNick(conn, uuid, name);
@@ -39,6 +41,7 @@ public class EventsManager implements Listener {
             PortfoliosManager.getInstance().savePortfolioOfPlayer(player);
             Balances.updateBalance(conn, uuid);
             PlayerStats.saveOrUpdatePlayerStats(conn, uuid);
+            PortfoliosManager.getInstance().evict(uuid);
         });
     }
 }
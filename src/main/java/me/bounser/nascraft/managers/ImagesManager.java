@@ -2,6 +2,7 @@ package me.bounser.nascraft.managers;
 
 import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.metrics.Metrics;
 import org.bukkit.configuration.file.FileConfiguration;
 
 import javax.imageio.ImageIO;
@@ -78,6 +79,10 @@ public class ImagesManager {
     }
 
     public static byte[] getBytesOfImage(BufferedImage image) {
+        return Metrics.getInstance().time("render", "PNGEncoding", () -> encode(image));
+    }
+
+    private static byte[] encode(BufferedImage image) {
         ByteArrayOutputStream baosBalance = new ByteArrayOutputStream();
         try {
             ImageIO.write(image, "png", baosBalance);
@@ -0,0 +1,253 @@
+package me.bounser.nascraft.managers;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.metrics.Metrics;
+import org.bukkit.Bukkit;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Runs the periodic jobs of the market from a timer wheel that advances every second of the wall clock.
+// The wheel has a level of seconds, one of minutes and one of hours; jobs further away wait in a list that
+// is looked at once a day. Jobs due in the same second run together: those for the server thread in one
+// task, the rest on the market threads, where the sweeps share a single pass over the items.
+public class MarketScheduler {
+
+    private static final int SECONDS = 60;
+    private static final int MINUTES = 60;
+    private static final int HOURS = 24;
+
+    private static final int THREADS = 2;
+
+    private static MarketScheduler instance;
+
+    public static MarketScheduler getInstance() { return instance == null ? instance = new MarketScheduler() : instance; }
+
+    private final List<List<ScheduledJob>> seconds = createLevel(SECONDS);
+    private final List<List<ScheduledJob>> minutes = createLevel(MINUTES);
+    private final List<List<ScheduledJob>> hours = createLevel(HOURS);
+    private final List<ScheduledJob> later = new ArrayList<>();
+
+    private final ConcurrentLinkedQueue<ScheduledJob> pending = new ConcurrentLinkedQueue<>();
+
+    private final CopyOnWriteArrayList<ScheduledJob> jobs = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService clock;
+    private final ThreadPoolExecutor executor;
+
+    // Last second the wheel advanced to. Only used by the clock thread.
+    private long current;
+
+    private MarketScheduler() {
+
+        current = now();
+
+        clock = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Nascraft-Scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicInteger threadCount = new AtomicInteger();
+
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "Nascraft-Market-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long untilNextSecond = 1000 - System.currentTimeMillis() % 1000;
+        clock.scheduleAtFixedRate(this::tick, untilNextSecond, 1000, TimeUnit.MILLISECONDS);
+
+        Metrics.getInstance().registerGauge("scheduler", "queued", this::getQueued);
+    }
+
+    private static List<List<ScheduledJob>> createLevel(int size) {
+        List<List<ScheduledJob>> level = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) level.add(new ArrayList<>());
+        return level;
+    }
+
+    public static long now() { return System.currentTimeMillis() / 1000; }
+
+    public static long atNextMinute() { return (now() / 60 + 1) * 60; }
+
+    // Next o'clock of the server time zone, which isn't always a whole hour of UTC.
+    public static long atNextHour() {
+        return ZonedDateTime.now(ZoneId.systemDefault()).truncatedTo(ChronoUnit.HOURS).plusHours(1).toEpochSecond();
+    }
+
+    // Next time the clock shows the given time.
+    public static long atNext(LocalTime time) {
+
+        LocalDateTime next = LocalDateTime.now().with(time);
+        if (!next.isAfter(LocalDateTime.now())) next = next.plusDays(1);
+
+        return next.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    public ScheduledJob schedule(String name, long firstFire, long period, boolean mainThread, Runnable task) {
+        return register(new ScheduledJob(name, firstFire, period, mainThread, task, null));
+    }
+
+    // The action is done with every parent item, then the task (if any) runs once.
+    public ScheduledJob scheduleSweep(String name, long firstFire, long period, Consumer<Item> perItem, Runnable after) {
+        return register(new ScheduledJob(name, firstFire, period, false, after, perItem));
+    }
+
+    private ScheduledJob register(ScheduledJob job) {
+        jobs.add(job);
+        pending.add(job);
+        Metrics.getInstance().registerCounter("job_overruns", job.getName(), job::getOverruns);
+        return job;
+    }
+
+    public List<ScheduledJob> getJobs() { return new ArrayList<>(jobs); }
+
+    public int getQueued() { return executor.getQueue().size(); }
+
+    private void tick() {
+        try {
+            long target = now();
+            while (current < target) advance();
+        } catch (Exception e) {
+            Nascraft.getInstance().getLogger().warning("Error in the market scheduler: " + e.getMessage());
+        }
+    }
+
+    private void advance() {
+
+        current++;
+
+        List<ScheduledJob> due = new ArrayList<>();
+
+        // Jobs come down a level as their time gets closer.
+        if (current % 86400 == 0) cascade(later, due);
+        if (current % 3600 == 0) cascade(hours.get((int) (current / 3600 % HOURS)), due);
+        if (current % 60 == 0) cascade(minutes.get((int) (current / 60 % MINUTES)), due);
+
+        ScheduledJob added;
+        while ((added = pending.poll()) != null) insert(added, due);
+
+        List<ScheduledJob> slot = seconds.get((int) (current % SECONDS));
+        for (ScheduledJob job : new ArrayList<>(slot)) {
+            if (job.getNextFire() <= current) {
+                slot.remove(job);
+                due.add(job);
+            }
+        }
+
+        if (due.isEmpty()) return;
+
+        List<ScheduledJob> mainThread = new ArrayList<>();
+        List<ScheduledJob> async = new ArrayList<>();
+
+        for (ScheduledJob job : due) {
+
+            if (job.tryStart()) (job.isMainThread() ? mainThread : async).add(job);
+
+            // A job that fell behind skips the runs it missed.
+            do job.advance(); while (job.getNextFire() <= current);
+            insert(job, null);
+        }
+
+        if (!mainThread.isEmpty()) Bukkit.getScheduler().runTask(Nascraft.getInstance(), () -> run(mainThread));
+        if (!async.isEmpty()) executor.execute(() -> run(async));
+    }
+
+    private void cascade(List<ScheduledJob> level, List<ScheduledJob> due) {
+        List<ScheduledJob> jobs = new ArrayList<>(level);
+        level.clear();
+        for (ScheduledJob job : jobs) insert(job, due);
+    }
+
+    private void insert(ScheduledJob job, List<ScheduledJob> due) {
+
+        long fire = job.getNextFire();
+
+        if (fire <= current) {
+            if (due != null) due.add(job);
+            else seconds.get((int) ((current + 1) % SECONDS)).add(job);
+        } else if (fire - current < SECONDS) {
+            seconds.get((int) (fire % SECONDS)).add(job);
+        } else if (fire / 60 - current / 60 < MINUTES) {
+            minutes.get((int) (fire / 60 % MINUTES)).add(job);
+        } else if (fire / 3600 - current / 3600 < HOURS) {
+            hours.get((int) (fire / 3600 % HOURS)).add(job);
+        } else {
+            later.add(job);
+        }
+    }
+
+    private void run(List<ScheduledJob> group) {
+
+        List<ScheduledJob> sweeps = new ArrayList<>();
+
+        for (ScheduledJob job : group) {
+
+            if (job.isSweep()) {
+                job.sweepNanos = 0;
+                sweeps.add(job);
+                continue;
+            }
+
+            long start = System.nanoTime();
+            runSafely(job, job.getTask());
+            job.finish(System.nanoTime() - start);
+        }
+
+        if (sweeps.isEmpty()) return;
+
+        for (Item item : MarketManager.getInstance().getAllParentItems()) {
+            for (ScheduledJob job : sweeps) {
+                long start = System.nanoTime();
+                try {
+                    job.getPerItem().accept(item);
+                } catch (Exception e) {
+                    Nascraft.getInstance().getLogger().warning("Error in " + job.getName() + " with item " + item.getIdentifier() + ": " + e.getMessage());
+                }
+                job.sweepNanos += System.nanoTime() - start;
+            }
+        }
+
+        for (ScheduledJob job : sweeps) {
+            long start = System.nanoTime();
+            if (job.getTask() != null) runSafely(job, job.getTask());
+            job.finish(job.sweepNanos + System.nanoTime() - start);
+        }
+    }
+
+    private static void runSafely(ScheduledJob job, Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            Nascraft.getInstance().getLogger().warning("Error in " + job.getName() + ": " + e.getMessage());
+        }
+    }
+
+    public static void shutdown() {
+        if (instance == null) return;
+        instance.clock.shutdownNow();
+        instance.executor.shutdown();
+        try {
+            instance.executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {}
+    }
+
+}
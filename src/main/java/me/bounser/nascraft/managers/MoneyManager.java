@@ -1,7 +1,7 @@
 package me.bounser.nascraft.managers;
 
 import me.bounser.nascraft.Nascraft;
-import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.FlowLedger;
 import me.bounser.nascraft.managers.currencies.Currency;
 import me.clip.placeholderapi.PlaceholderAPI;
 import net.milkbowl.vault.economy.Economy;
@@ -29,9 +29,9 @@ public class MoneyManager {
                 economy.withdrawPlayer(player, amount);
 
                 if (taxRate == 0)
-                    DatabaseManager.get().getDatabase().addTransaction(amount, 0);
+                    FlowLedger.getInstance().addTransaction(amount, 0);
                 else
-                    DatabaseManager.get().getDatabase().addTransaction(amount, amount * taxRate);
+                    FlowLedger.getInstance().addTransaction(amount, amount * taxRate);
 
                 break;
 
@@ -85,9 +85,9 @@ public class MoneyManager {
                 economy.depositPlayer(player, amount);
 
                 if (taxRate == 0)
-                    DatabaseManager.get().getDatabase().addTransaction(-amount, Math.abs(amount - amount / taxRate));
+                    FlowLedger.getInstance().addTransaction(-amount, Math.abs(amount - amount / taxRate));
                 else
-                    DatabaseManager.get().getDatabase().addTransaction(-amount, 0);
+                    FlowLedger.getInstance().addTransaction(-amount, 0);
 
                 break;
 
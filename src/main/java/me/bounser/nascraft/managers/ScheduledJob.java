@@ -0,0 +1,78 @@
+package me.bounser.nascraft.managers;
+
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.metrics.Metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Periodic job of the MarketScheduler. Either a task, or a sweep that does something with every
+// parent item in the same pass over the items as the other sweeps firing at the same time.
+public class ScheduledJob {
+
+    private final String name;
+    private final long period;
+    private final boolean mainThread;
+
+    private final Runnable task;
+    private final Consumer<Item> perItem;
+
+    // Epoch second of the next run. Only changed by the scheduler thread.
+    private volatile long nextFire;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private volatile long lastDuration = 0;
+    private volatile long runs = 0;
+    private volatile long overruns = 0;
+
+    // Time spent in the current sweep, by the thread running it.
+    long sweepNanos;
+
+    ScheduledJob(String name, long nextFire, long period, boolean mainThread, Runnable task, Consumer<Item> perItem) {
+        this.name = name;
+        this.nextFire = nextFire;
+        this.period = Math.max(1, period);
+        this.mainThread = mainThread;
+        this.task = task;
+        this.perItem = perItem;
+    }
+
+    public String getName() { return name; }
+
+    public long getPeriod() { return period; }
+
+    public boolean isMainThread() { return mainThread; }
+
+    public boolean isSweep() { return perItem != null; }
+
+    public long getNextFire() { return nextFire; }
+
+    // Nanoseconds the last run took, including its part of the sweep.
+    public long getLastDuration() { return lastDuration; }
+
+    public long getRuns() { return runs; }
+
+    // Times the job was due while the previous run hadn't finished, which were skipped.
+    public long getOverruns() { return overruns; }
+
+    Runnable getTask() { return task; }
+
+    Consumer<Item> getPerItem() { return perItem; }
+
+    void advance() { nextFire += period; }
+
+    boolean tryStart() {
+        if (running.compareAndSet(false, true)) return true;
+        overruns++;
+        return false;
+    }
+
+    void finish(long duration) {
+        Metrics.getInstance().record("job", name, duration);
+        lastDuration = duration;
+        runs++;
+        running.set(false);
+    }
+
+}
@@ -4,14 +4,25 @@ import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.advancedgui.LayoutModifier;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
+import me.bounser.nascraft.database.DatabaseExecutor;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.CandleStore;
+import me.bounser.nascraft.database.FlowLedger;
+import me.bounser.nascraft.database.StockJournal;
+import me.bounser.nascraft.database.commands.resources.PlayerSnapshot;
 import me.bounser.nascraft.discord.alerts.DiscordAlerts;
+import me.bounser.nascraft.managers.currencies.CurrenciesManager;
+import me.bounser.nascraft.managers.currencies.Currency;
 import me.bounser.nascraft.discord.DiscordBot;
 import me.bounser.nascraft.discord.DiscordLog;
+import me.bounser.nascraft.market.ConsumerPriceIndex;
 import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.PriceNoise;
 import me.bounser.nascraft.market.unit.stats.Instant;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.metrics.Metrics;
+import me.bounser.nascraft.portfolio.Portfolio;
 import me.bounser.nascraft.portfolio.PortfoliosManager;
 import me.leoko.advancedgui.manager.GuiWallManager;
 import me.leoko.advancedgui.utils.GuiWallInstance;
@@ -19,15 +30,19 @@ import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.DoubleAdder;
 
 public class TasksManager {
 
     public static TasksManager instance;
 
-    private final int ticksPerSecond = 20;
+    // Sum of the changes of the items in the current minute sweep, added from the market threads and reset once it's done.
+    private final DoubleAdder minuteChanges = new DoubleAdder();
 
     private final Plugin AGUI = Bukkit.getPluginManager().getPlugin("AdvancedGUI");
 
@@ -35,38 +50,38 @@ public class TasksManager {
 
     private TasksManager(){
 
-        LocalTime timeNow = LocalTime.now();
-
-        LocalTime nextMinute = timeNow.plusMinutes(1).withSecond(0);
-        Duration timeRemaining = Duration.between(timeNow, nextMinute);
-
-        // Registering tasks:
+        // Registering jobs:
         saveDataTask();
-        noiseTask((int) timeRemaining.getSeconds());
-        discordTask((int) timeRemaining.getSeconds());
-        shortTermPricesTask((int) timeRemaining.getSeconds());
+        flowsTask();
+        candlesTask();
+        journalTask();
+        noiseTask();
+        discordTask();
+        minuteSweep();
         hourlyTask();
-        saveInstants();
         stockRestockTask();
+        metricsTask();
 
-        DatabaseManager.get().getDatabase().purgeHistory();
+        DatabaseExecutor.getInstance().execute(() -> DatabaseManager.get().getDatabase().purgeHistory());
     }
 
-    private void shortTermPricesTask(int delay) {
+    // Short term prices and instants are updated in the same pass over the items, at the start of every minute.
+    private void minuteSweep() {
 
-        Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(), () -> {
+        MarketScheduler scheduler = MarketScheduler.getInstance();
 
-            float allChanges = 0;
-            for (Item item : MarketManager.getInstance().getAllParentItems()) {
-                if (Config.getInstance().getPriceNoise())
-                    allChanges += item.getPrice().getChange();
+        scheduler.scheduleSweep("short-term-prices", MarketScheduler.atNextMinute(), 60, item -> {
 
-                item.lowerOperations();
+            if (Config.getInstance().getPriceNoise())
+                minuteChanges.add(item.getPrice().getChange());
 
-                item.getPrice().addValueToShortTermStorage();
-            }
+            item.lowerOperations();
+
+            item.getPrice().addValueToShortTermStorage();
 
-            MarketManager.getInstance().updateMarketChange1h(allChanges/MarketManager.getInstance().getAllParentItems().size());
+        }, () -> {
+
+            MarketManager.getInstance().updateMarketChange1h((float) minuteChanges.sumThenReset()/MarketManager.getInstance().getAllParentItems().size());
 
             if (AGUI != null &&
                 AGUI.isEnabled() &&
@@ -80,81 +95,138 @@ public class TasksManager {
                                 LayoutModifier.getInstance().updateMainPage(instance.getInteraction(player).getComponentTree(), true, player);
 
                 }
+        });
+
+        scheduler.scheduleSweep("instants", MarketScheduler.atNextMinute() + 60, 60, item -> {
+
+            item.getItemStats().addInstant(new Instant(
+                    LocalDateTime.now(),
+                    item.getPrice().getValue(),
+                    item.getVolume()
+            ));
 
-        }, (long) delay * ticksPerSecond, 60L * ticksPerSecond);
+            item.restartVolume();
+
+        }, null);
     }
 
-    private void discordTask(int delay) {
+    private void discordTask() {
 
         if (Config.getInstance().getDiscordEnabled()) {
 
-            Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(), () -> {
+            // Alerts are checked on every price change once loaded, which happens on the database executor.
+            if (Config.getInstance().getDiscordMenuEnabled())
+                DiscordAlerts.getInstance();
+
+            MarketScheduler.getInstance().schedule("discord", MarketScheduler.atNextMinute(), Config.getInstance().getUpdateTime(), false, () -> {
 
-                if (Config.getInstance().getDiscordMenuEnabled()) {
+                if (Config.getInstance().getDiscordMenuEnabled())
                     DiscordBot.getInstance().update();
-                    DiscordAlerts.getInstance().updateAlerts();
-                }
 
                 if (Config.getInstance().getLogChannelEnabled())
                     DiscordLog.getInstance().flushBuffer();
 
-            }, (long) delay * ticksPerSecond, ((long) Config.getInstance().getUpdateTime() *  ticksPerSecond));
+            });
         }
     }
 
-    private void noiseTask(int delay) {
+    private void noiseTask() {
 
-        Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(), () -> {
+        MarketScheduler.getInstance().schedule("noise", MarketScheduler.atNextMinute(), Config.getInstance().getNoiseTime(), false, () -> {
 
-            for (Item item : MarketManager.getInstance().getAllParentItems()) {
-                if (Config.getInstance().getPriceNoise())
-                    item.getPrice().applyNoise();
+            if (Config.getInstance().getPriceNoise())
+                PriceNoise.getInstance().apply(MarketManager.getInstance().getAllParentItems());
 
-            }
-        }, (long) delay * ticksPerSecond, (long) Config.getInstance().getNoiseTime() *  ticksPerSecond);
+        });
     }
 
     private void saveDataTask() {
 
-        Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(), () -> {
+        long inFiveMinutes = MarketScheduler.now() + 60 * 5;
+
+        MarketScheduler.getInstance().schedule("save", inFiveMinutes, 60 * 5, false, () -> {
 
             DatabaseManager.get().getDatabase().saveEverything();
 
             DatabaseManager.get().getDatabase().saveCPIValue(MarketManager.getInstance().getConsumerPriceIndex());
 
-            PortfoliosManager.getInstance().savePortfoliosWorthOfOnlinePlayers();
+            PortfoliosManager.getInstance().evictIdle();
 
-            for (Player player : Bukkit.getOnlinePlayers())
-                DatabaseManager.get().getDatabase().updateBalance(player.getUniqueId());
+        }); // 5 min
 
-        }, 60L * 5 * ticksPerSecond, 60L * 5 * ticksPerSecond); // 5 min
+        MarketScheduler.getInstance().schedule("player-snapshots", inFiveMinutes, 60 * 5, true, this::savePlayersSnapshot); // 5 min
     }
 
-    private void saveInstants() {
+    // Balances and portfolios are read in the main thread in a single pass and then written together asynchronously.
+    private void savePlayersSnapshot() {
 
-        Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(), () -> {
+        HashMap<UUID, Double> balances = new HashMap<>();
+        HashMap<UUID, Double> portfolios = new HashMap<>();
+        HashMap<UUID, Double> balancesToSave = new HashMap<>();
 
-            for (Item item : MarketManager.getInstance().getAllParentItems()) {
+        Currency currency = CurrenciesManager.getInstance().getDefaultCurrency();
 
-                item.getItemStats().addInstant(new Instant(
-                        LocalDateTime.now(),
-                        item.getPrice().getValue(),
-                        item.getVolume()
-                ));
+        for (Player player : Bukkit.getOnlinePlayers()) {
 
-                item.restartVolume();
-            }
+            UUID uuid = player.getUniqueId();
+
+            // Players whose portfolio is still loading are left for the next snapshot.
+            Portfolio portfolio = PortfoliosManager.getInstance().getLoadedPortfolio(uuid);
+            if (portfolio == null) continue;
+
+            balances.put(uuid, MoneyManager.getInstance().getBalance(player, currency));
+            portfolios.put(uuid, portfolio.getValueOfDefaultCurrency());
+
+            if (!player.isOp()) balancesToSave.put(uuid, balances.get(uuid));
+        }
+
+        if (balances.isEmpty()) return;
+
+        DatabaseExecutor.getInstance().execute(() -> {
 
-        }, 2400, 60L * ticksPerSecond);
+            DatabaseManager.get().getDatabase().saveBalances(balancesToSave);
+
+            HashMap<UUID, Double> debts = DatabaseManager.get().getDatabase().getUUIDAndDebt();
+
+            List<PlayerSnapshot> snapshots = new ArrayList<>();
+
+            for (UUID uuid : balances.keySet())
+                snapshots.add(new PlayerSnapshot(uuid, balances.get(uuid), portfolios.get(uuid), debts == null ? 0 : debts.getOrDefault(uuid, 0.0)));
+
+            DatabaseManager.get().getDatabase().savePlayerSnapshots(snapshots);
+        });
     }
 
-    private void hourlyTask() {
-        LocalTime timeNow = LocalTime.now();
+    private void flowsTask() {
+
+        MarketScheduler.getInstance().schedule("flows", MarketScheduler.now() + 30, 30, false, () -> {
 
-        LocalTime nextHour = timeNow.plusHours(1).withMinute(0).withSecond(0);
-        Duration timeRemaining = Duration.between(timeNow, nextHour);
+            FlowLedger.getInstance().flush();
 
-        Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(), () -> {
+        }); // 30 sec
+    }
+
+    private void candlesTask() {
+
+        MarketScheduler.getInstance().schedule("candles", MarketScheduler.now() + 60, 60, false, () -> {
+
+            CandleStore.getInstance().flush();
+
+        }); // 1 min
+    }
+
+    private void journalTask() {
+
+        MarketScheduler.getInstance().schedule("stock-journal", MarketScheduler.now() + 1, 1, false, () -> {
+
+            StockJournal.getInstance().sync();
+
+        }); // 1 sec
+    }
+
+    private void hourlyTask() {
+
+        MarketScheduler.getInstance().schedule("hourly", MarketScheduler.atNextHour(), 60 * 60, false, () -> {
 
             for (Item item : MarketManager.getInstance().getAllItems()) {
                 item.getPrice().restartHourLimits();
@@ -162,9 +234,24 @@ public class TasksManager {
 
             MarketManager.getInstance().setOperationsLastHour(0);
 
+            ConsumerPriceIndex.getInstance().refreshWeights();
+
             if (Config.getInstance().getAlertsMenuEnabled()) DatabaseManager.get().getDatabase().purgeAlerts();
 
-        }, timeRemaining.getSeconds()*ticksPerSecond, 60 * 60 * ticksPerSecond); // 1 hour
+        }); // 1 hour
+    }
+
+    private void metricsTask() {
+
+        if (!Config.getInstance().getMetricsEnabled() || !Config.getInstance().getMetricsFileEnabled()) return;
+
+        int period = Config.getInstance().getMetricsFilePeriod();
+
+        MarketScheduler.getInstance().schedule("metrics-file", MarketScheduler.now() + period, period, false, () -> {
+
+            Metrics.getInstance().writePrometheus(Metrics.getPrometheusFile());
+
+        });
     }
 
     private void stockRestockTask() {
@@ -174,35 +261,30 @@ public class TasksManager {
         int warningMinutes = Config.getInstance().getStockRestockWarningMinutes();
         int restockAmount = Config.getInstance().getStockRestockAmount();
 
-        long intervalTicks = (long) intervalMinutes * 60 * ticksPerSecond;
-        long warningTicks = (long) warningMinutes * 60 * ticksPerSecond;
+        long interval = (long) intervalMinutes * 60;
+        long warning = (long) warningMinutes * 60;
+
+        long firstRestock = MarketScheduler.now() + interval;
 
         // Schedule the warning task (runs warningMinutes before the restock)
         if (warningMinutes > 0 && warningMinutes < intervalMinutes) {
-            long warningDelay = intervalTicks - warningTicks;
 
-            Bukkit.getScheduler().runTaskTimer(Nascraft.getInstance(), () -> {
+            MarketScheduler.getInstance().schedule("restock-warning", firstRestock - warning, interval, true, () -> {
                 // Broadcast warning to all online players
                 for (Player player : Bukkit.getOnlinePlayers()) {
                     Lang.get().message(player, Message.STOCK_RESTOCK_WARNING, "[MINUTES]", String.valueOf(warningMinutes));
                 }
-            }, warningDelay, intervalTicks);
+            });
         }
 
-        // Schedule the actual restock task
-        Bukkit.getScheduler().runTaskTimerAsynchronously(Nascraft.getInstance(), () -> {
-            // Add stock to all parent items (using per-item restock amount)
-            for (Item item : MarketManager.getInstance().getAllParentItems()) {
-                int itemRestockAmount = Config.getInstance().getItemRestockAmount(item.getIdentifier());
-                item.addStock(itemRestockAmount);
-            }
-
+        // Add stock to all parent items (using per-item restock amount)
+        MarketScheduler.getInstance().scheduleSweep("restock", firstRestock, interval, Item::restock, () -> {
             // Broadcast restock complete to all online players (must run on main thread)
             Bukkit.getScheduler().runTask(Nascraft.getInstance(), () -> {
                 for (Player player : Bukkit.getOnlinePlayers()) {
                     Lang.get().message(player, Message.STOCK_RESTOCK_COMPLETE, "[AMOUNT]", String.valueOf(restockAmount));
                 }
             });
-        }, intervalTicks, intervalTicks);
+        });
     }
 }
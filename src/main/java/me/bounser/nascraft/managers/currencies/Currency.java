@@ -1,6 +1,7 @@
 package me.bounser.nascraft.managers.currencies;
 
 import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.formatter.CurrencyFormatter;
 import me.bounser.nascraft.formatter.Formatter;
 import net.kyori.adventure.platform.bukkit.BukkitComponentSerializer;
 import net.kyori.adventure.text.Component;
@@ -24,6 +25,8 @@ public class Currency {
 
     final int decimalPrecision;
 
+    final private CurrencyFormatter formatter;
+
     final double topLimit;
     final double lowLimit;
 
@@ -39,6 +42,7 @@ public class Currency {
             this.decimalPrecision = decimalPrecision;
             this.topLimit = topLimit;
             this.lowLimit = lowLimit;
+            this.formatter = new CurrencyFormatter(format, plainFormat, decimalPrecision);
     }
 
     public String getCurrencyIdentifier() { return currencyIdentifier; }
@@ -57,6 +61,8 @@ public class Currency {
 
     public int getDecimalPrecission() { return decimalPrecision; }
 
+    public CurrencyFormatter getFormatter() { return formatter; }
+
     public double getTopLimit() { return topLimit; }
 
     public double getLowLimit() { return lowLimit; }
@@ -0,0 +1,224 @@
+package me.bounser.nascraft.market;
+
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.managers.currencies.CurrenciesManager;
+import me.bounser.nascraft.market.resources.Category;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
+import me.bounser.nascraft.market.unit.stats.Candle;
+import me.bounser.nascraft.market.unit.stats.CandleResolution;
+import me.bounser.nascraft.market.unit.stats.ItemCandles;
+import me.bounser.nascraft.metrics.Metrics;
+
+import java.util.HashMap;
+import java.util.List;
+
+// Ratios between the value and the initial value of the items counted in the CPI, kept summed up as the
+// prices change so the index is read without going through the items. The items counted are decided
+// when the market is loaded or changed: parents in the default currency not excluded from the CPI.
+// The same sums give the index of each category, which goes with the volume of its counted items into
+// candles like the ones of the items, so its changes, volume and volatility are read from them.
+public class ConsumerPriceIndex {
+
+    // The running sums are computed again from the ratios after this many changes, so rounding errors don't add up.
+    private static final int RESUM_PERIOD = 100_000;
+
+    private static ConsumerPriceIndex instance;
+
+    public static ConsumerPriceIndex getInstance() { return instance == null ? instance = new ConsumerPriceIndex() : instance; }
+
+    private HashMap<Price, Integer> slots = new HashMap<>();
+
+    private double[] ratios = new double[0];
+    private double[] weights = new double[0];
+    private int[] categoryOf = new int[0];
+
+    private HashMap<Category, Integer> categories = new HashMap<>();
+    private double[] categorySums = new double[0];
+    private int[] categoryCounts = new int[0];
+    private ItemCandles[] categorySlotCandles = new ItemCandles[0];
+
+    // By identifier, so they are kept when the categories are loaded again.
+    private final HashMap<String, ItemCandles> categoryCandles = new HashMap<>();
+
+    private double sum = 0;
+    private double weightedSum = 0;
+    private double totalWeight = 0;
+
+    private int changes = 0;
+
+    private ConsumerPriceIndex() {
+        Metrics.getInstance().registerGauge("cpi", "index", this::getIndex);
+        Metrics.getInstance().registerGauge("cpi", "volume_weighted", this::getVolumeWeightedIndex);
+    }
+
+    public synchronized void rebuild(List<Item> parents) {
+
+        HashMap<Price, Integer> newSlots = new HashMap<>();
+        HashMap<Category, Integer> newCategories = new HashMap<>();
+
+        for (Item item : parents) {
+            if (!item.getCurrency().equals(CurrenciesManager.getInstance().getDefaultCurrency())) continue;
+            if (!Config.getInstance().includeInCPI(item)) continue;
+
+            newSlots.put(item.getPrice(), newSlots.size());
+
+            if (item.getCategory() != null && !newCategories.containsKey(item.getCategory()))
+                newCategories.put(item.getCategory(), newCategories.size());
+        }
+
+        ratios = new double[newSlots.size()];
+        weights = new double[newSlots.size()];
+        categoryOf = new int[newSlots.size()];
+        categorySums = new double[newCategories.size()];
+        categoryCounts = new int[newCategories.size()];
+        categorySlotCandles = new ItemCandles[newCategories.size()];
+
+        for (Category category : newCategories.keySet())
+            categorySlotCandles[newCategories.get(category)] = getCategoryCandles(category);
+
+        for (Price price : newSlots.keySet()) {
+            int slot = newSlots.get(price);
+            Category category = price.getItem().getCategory();
+
+            ratios[slot] = getRatio(price, price.getValue());
+            categoryOf[slot] = category == null ? -1 : newCategories.get(category);
+            if (categoryOf[slot] >= 0) categoryCounts[categoryOf[slot]]++;
+        }
+
+        slots = newSlots;
+        categories = newCategories;
+
+        refreshWeights();
+    }
+
+    // Called on every change of value. Prices not counted in the CPI are ignored.
+    public synchronized void update(Price price, double value) {
+
+        Integer slot = slots.get(price);
+        if (slot == null) return;
+
+        double ratio = getRatio(price, value);
+        double change = ratio - ratios[slot];
+
+        if (change == 0) return;
+
+        ratios[slot] = ratio;
+
+        sum += change;
+        weightedSum += change * weights[slot];
+        if (categoryOf[slot] >= 0) categorySums[categoryOf[slot]] += change;
+
+        if (++changes >= RESUM_PERIOD) resum();
+
+        if (categoryOf[slot] >= 0) categorySlotCandles[categoryOf[slot]].addPrice(getCategoryIndex(categoryOf[slot]));
+    }
+
+    // Volume traded of an item, added to its category. Prices not counted in the CPI are ignored.
+    public synchronized void addVolume(Price price, int volume) {
+
+        Integer slot = slots.get(price);
+        if (slot == null || categoryOf[slot] < 0) return;
+
+        categorySlotCandles[categoryOf[slot]].addVolume(volume);
+    }
+
+    // Items are weighted by the volume they had in the last 24 hours. Called every hour.
+    public synchronized void refreshWeights() {
+
+        for (Price price : slots.keySet()) {
+
+            double volume = 0;
+            for (Candle candle : price.getCandles().getCandles(CandleResolution.HOUR, 24)) volume += candle.getVolume();
+
+            weights[slots.get(price)] = volume;
+        }
+
+        resum();
+    }
+
+    private void resum() {
+
+        sum = 0;
+        weightedSum = 0;
+        totalWeight = 0;
+        for (int i = 0; i < categorySums.length; i++) categorySums[i] = 0;
+
+        for (int i = 0; i < ratios.length; i++) {
+            sum += ratios[i];
+            weightedSum += ratios[i] * weights[i];
+            totalWeight += weights[i];
+            if (categoryOf[i] >= 0) categorySums[categoryOf[i]] += ratios[i];
+        }
+
+        changes = 0;
+    }
+
+    private static double getRatio(Price price, double value) {
+        return price.getInitialValue() == 0 ? 0 : value / price.getInitialValue();
+    }
+
+    public synchronized float getIndex() {
+        return (float) (sum / ratios.length) * 100;
+    }
+
+    // Same index with each item counting as much as the volume traded. Without any volume it's the plain index.
+    public synchronized float getVolumeWeightedIndex() {
+        if (totalWeight == 0) return getIndex();
+        return (float) (weightedSum / totalWeight) * 100;
+    }
+
+    // Index of the items of a category. 100 if none of them is counted in the CPI.
+    public synchronized float getCategoryIndex(Category category) {
+        Integer index = categories.get(category);
+        return index == null ? 100 : getCategoryIndex(index);
+    }
+
+    private float getCategoryIndex(int index) {
+        if (categoryCounts[index] == 0) return 100;
+        return (float) (categorySums[index] / categoryCounts[index]) * 100;
+    }
+
+    public synchronized ItemCandles getCategoryCandles(Category category) {
+        return categoryCandles.computeIfAbsent(category.getIdentifier(), identifier -> new ItemCandles());
+    }
+
+    // Percentage of change of the index of the category in the last hour and day.
+    public double getCategoryChange1h(Category category) {
+        return getCategoryCandles(category).getChange(CandleResolution.MINUTE, 60, getCategoryIndex(category));
+    }
+
+    public double getCategoryChange24h(Category category) {
+        return getCategoryCandles(category).getChange(CandleResolution.HOUR, 24, getCategoryIndex(category));
+    }
+
+    public long getCategoryVolume24h(Category category) {
+        return getCategoryCandles(category).getVolume(CandleResolution.HOUR, 24);
+    }
+
+    // Standard deviation, in percentage, of the changes of the index of the category from one hour to the next in the last day.
+    public double getCategoryVolatility(Category category) {
+
+        List<Candle> last = getCategoryCandles(category).getCandles(CandleResolution.HOUR, 25);
+
+        int count = 0;
+        double mean = 0;
+        double squares = 0;
+
+        for (int i = 1; i < last.size(); i++) {
+
+            double previous = last.get(i - 1).getClose();
+            if (previous == 0) continue;
+
+            double change = Math.log(last.get(i).getClose() / previous);
+
+            count++;
+            double delta = change - mean;
+            mean += delta / count;
+            squares += delta * (change - mean);
+        }
+
+        return count < 2 ? 0 : 100 * Math.sqrt(squares / (count - 1));
+    }
+
+}
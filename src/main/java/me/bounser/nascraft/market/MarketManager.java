@@ -2,20 +2,40 @@ package me.bounser.nascraft.market;
 
 import de.tr7zw.changeme.nbtapi.NBT;
 import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.api.events.Action;
+import me.bounser.nascraft.api.events.SellItemEvent;
+import me.bounser.nascraft.api.events.SellItemsEvent;
+import me.bounser.nascraft.api.events.TransactionCompletedEvent;
+import me.bounser.nascraft.database.DatabaseExecutor;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.CandleStore;
+import me.bounser.nascraft.database.StockJournal;
+import me.bounser.nascraft.database.commands.ItemProperties;
+import me.bounser.nascraft.database.commands.resources.ItemState;
+import me.bounser.nascraft.database.commands.resources.Trade;
+import me.bounser.nascraft.discord.DiscordLog;
+import me.bounser.nascraft.managers.MoneyManager;
 import me.bounser.nascraft.managers.ImagesManager;
 import me.bounser.nascraft.managers.GraphManager;
 import me.bounser.nascraft.managers.TasksManager;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
+import me.bounser.nascraft.managers.currencies.Currency;
 import me.bounser.nascraft.market.resources.Category;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
 import me.bounser.nascraft.config.Config;
 import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 
 import java.awt.image.BufferedImage;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class MarketManager {
 
@@ -55,45 +75,111 @@ public class MarketManager {
             categories.add(category);
         }
 
-        for (String identifier : Config.getInstance().getAllMaterials()) {
+        long start = System.currentTimeMillis();
 
-            ItemStack itemStack = config.getItemStackOfItem(identifier);
+        List<String> identifiersToLoad = new ArrayList<>(Config.getInstance().getAllMaterials());
 
-            if (itemStack == null) {
-                Nascraft.getInstance().getLogger().warning("Error with the itemStack item: " + identifier);
-                Nascraft.getInstance().getLogger().warning("Make sure the material is correct and exists in your version.");
-                continue;
-            }
+        // Images are decoded in parallel while the rest of the state is loaded.
+        ExecutorService imageLoader = Executors.newFixedThreadPool(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())), runnable -> {
+            Thread thread = new Thread(runnable, "Nascraft-Images");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        HashMap<String, Future<BufferedImage>> images = new HashMap<>();
+
+        for (String identifier : identifiersToLoad)
+            images.put(identifier, imageLoader.submit(() -> ImagesManager.getInstance().getImage(identifier)));
+
+        imageLoader.shutdown();
+
+        HashMap<String, ItemState> states = DatabaseManager.get().getDatabase().retrieveItemStates();
+        if (states == null) states = new HashMap<>();
 
-            Category category = config.getCategoryFromMaterial(identifier);
+        long statesLoaded = System.currentTimeMillis();
 
-            if (category == null) {
-                Nascraft.getInstance().getLogger().warning("No category found for item: " + identifier);
-                continue;
+        HashMap<String, BufferedImage> decodedImages = new HashMap<>();
+
+        for (String identifier : identifiersToLoad) {
+            try {
+                decodedImages.put(identifier, images.get(identifier).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Nascraft.getInstance().getLogger().warning("Unable to load the image of item: " + identifier + " (" + e.getCause().getMessage() + ")");
             }
+        }
+
+        long imagesLoaded = System.currentTimeMillis();
+
+        List<Item> notSaved = new ArrayList<>();
+
+        for (String identifier : identifiersToLoad) {
 
-            BufferedImage image = ImagesManager.getInstance().getImage(identifier);
+            try {
 
-            Item item = new Item(
-                    itemStack,
-                    identifier,
-                    config.getAlias(identifier),
-                    category,
-                    image
-            );
+                ItemStack itemStack = config.getItemStackOfItem(identifier);
 
-            DatabaseManager.get().getDatabase().retrieveItem(item);
+                if (itemStack == null) {
+                    Nascraft.getInstance().getLogger().warning("Error with the itemStack item: " + identifier);
+                    Nascraft.getInstance().getLogger().warning("Make sure the material is correct and exists in your version.");
+                    continue;
+                }
+
+                Category category = config.getCategoryFromMaterial(identifier);
+
+                if (category == null) {
+                    Nascraft.getInstance().getLogger().warning("No category found for item: " + identifier);
+                    continue;
+                }
+
+                ItemState state = states.get(identifier);
 
-            items.add(item);
-            identifiers.put(identifier, item);
-            category.addItem(item);
+                Item item = new Item(
+                        itemStack,
+                        identifier,
+                        config.getAlias(identifier),
+                        category,
+                        decodedImages.get(identifier),
+                        state != null ? state.getLastPrice() : config.getInitialPrice(identifier)
+                );
+
+                ItemProperties.applyState(item, state);
+
+                if (state == null) notSaved.add(item);
+                else item.setDirty(false);
+
+                items.add(item);
+                identifiers.put(identifier, item);
+                category.addItem(item);
+
+                for (Item child : config.getChilds(identifier)) {
+                    item.addChildItem(child);
+                    items.add(child);
+                }
 
-            for (Item child : config.getChilds(identifier)) {
-                item.addChildItem(child);
-                items.add(child);
+            } catch (RuntimeException e) {
+                Nascraft.getInstance().getLogger().warning("Unable to load item: " + identifier + " (" + e.getMessage() + ")");
             }
         }
 
+        if (!notSaved.isEmpty())
+            DatabaseExecutor.getInstance().execute(() -> DatabaseManager.get().getDatabase().saveItems(notSaved));
+
+        int replayed = StockJournal.getInstance().replay(identifiers);
+
+        if (replayed > 0)
+            Nascraft.getInstance().getLogger().info("Recovered " + replayed + " stock changes that weren't saved before the last shutdown.");
+
+        DatabaseExecutor.getInstance().execute(() -> CandleStore.getInstance().load());
+
+        ConsumerPriceIndex.getInstance().rebuild(getAllParentItems());
+
+        long registered = System.currentTimeMillis();
+
+        Nascraft.getInstance().getLogger().info("Loaded " + identifiers.size() + " items in " + (registered - start) + " ms " +
+                "(state: " + (statesLoaded - start) + " ms, images: " + (imagesLoaded - statesLoaded) + " ms, items: " + (registered - imagesLoaded) + " ms)");
+
         Nascraft.getInstance().getLogger().info("Loaded " + categories.size() + " categories.");
 
         Plugin AGUI = Bukkit.getPluginManager().getPlugin("AdvancedGUI");
@@ -164,6 +250,88 @@ public class MarketManager {
         return parents;
     }
 
+    // Sells several items in one operation: one price integration per price (items that share it are sold
+    // as a single stock change), one trade per item and one payment per currency. A SellItemsEvent is fired
+    // for the whole batch, and the SellItemEvent and TransactionCompletedEvent of each item as if it was sold
+    // alone. Removing the items from the seller is up to the caller. Returns the worth obtained for each item
+    // that got sold.
+    public HashMap<Item, Double> sellItems(Map<Item, Integer> items, UUID uuid, boolean payment) {
+
+        HashMap<Item, Double> sold = new HashMap<>();
+
+        if (!active || items.isEmpty()) return sold;
+
+        Player player = Bukkit.getPlayer(uuid);
+
+        SellItemsEvent event = new SellItemsEvent(player, new HashMap<>(items));
+        Bukkit.getPluginManager().callEvent(event);
+
+        if (event.isCancelled()) return sold;
+
+        LinkedHashMap<Price, HashMap<Item, Integer>> byPrice = new LinkedHashMap<>();
+
+        for (Item item : event.getItems().keySet()) {
+
+            int amount = event.getItems().get(item);
+
+            if (amount <= 0) continue;
+
+            SellItemEvent itemEvent = new SellItemEvent(player, item, amount);
+            Bukkit.getPluginManager().callEvent(itemEvent);
+
+            if (itemEvent.isCancelled()) continue;
+
+            byPrice.computeIfAbsent(item.getPrice(), price -> new HashMap<>()).put(item, amount);
+        }
+
+        HashMap<Currency, Double> proceeds = new HashMap<>();
+        HashMap<Currency, Double> weightedTaxes = new HashMap<>();
+
+        List<Trade> trades = new ArrayList<>();
+
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Price price : byPrice.keySet()) {
+
+            HashMap<Item, Integer> amounts = byPrice.get(price);
+
+            for (Map.Entry<Item, Double> entry : Item.sellInBulk(price, amounts).entrySet()) {
+
+                Item item = entry.getKey();
+                double worth = entry.getValue();
+
+                sold.put(item, worth);
+
+                proceeds.merge(item.getCurrency(), worth, Double::sum);
+                weightedTaxes.merge(item.getCurrency(), worth * price.getSellTaxMultiplier(), Double::sum);
+
+                trades.add(new Trade(item, now, worth, amounts.get(item), false, false, uuid));
+                addOperation();
+            }
+        }
+
+        if (trades.isEmpty()) return sold;
+
+        if (payment) {
+            for (Currency currency : proceeds.keySet()) {
+                double worth = proceeds.get(currency);
+                if (worth == 0) continue;
+                MoneyManager.getInstance().deposit(Bukkit.getOfflinePlayer(uuid), currency, worth, weightedTaxes.get(currency) / worth);
+            }
+        }
+
+        DatabaseExecutor.getInstance().execute(() -> DatabaseManager.get().getDatabase().saveTrades(trades));
+
+        if (Config.getInstance().getDiscordEnabled() && Config.getInstance().getLogChannelEnabled())
+            for (Trade trade : trades)
+                DiscordLog.getInstance().sendTradeLog(trade);
+
+        for (Trade trade : trades)
+            Bukkit.getPluginManager().callEvent(new TransactionCompletedEvent(player, trade.getItem(), trade.getAmount(), Action.SELL, trade.getValue()));
+
+        return sold;
+    }
+
     public void stop() { active = false; }
     public void resume() { active = true; }
 
@@ -347,6 +515,20 @@ public class MarketManager {
         return benchmark;
     }
 
+    // Changes whenever something drawn in the market overview changes: prices, their last hour and the operations.
+    public long getSnapshotVersion() {
+
+        long version = 1;
+
+        for (Item item : getAllParentItems()) {
+            version = 31 * version + Double.hashCode(item.getPrice().getValue());
+            version = 31 * version + item.getPrice().getValuesPastHour().hashCode();
+            version = 31 * version + item.getOperations();
+        }
+
+        return version;
+    }
+
     public float getChange1h(){
 
         float change = 0;
@@ -371,9 +553,15 @@ public class MarketManager {
 
     public void setOperationsLastHour(int operations) { operationsLastHour = operations; }
 
-    public void removeItem(Item item) { items.remove(item); }
+    public void removeItem(Item item) {
+        items.remove(item);
+        ConsumerPriceIndex.getInstance().rebuild(getAllParentItems());
+    }
 
-    public void addItem(Item item) { items.add(item); }
+    public void addItem(Item item) {
+        items.add(item);
+        ConsumerPriceIndex.getInstance().rebuild(getAllParentItems());
+    }
 
     public void removeCategory(Category category) { categories.remove(category); }
 
@@ -389,21 +577,6 @@ public class MarketManager {
         return null;
     }
 
-    public float getConsumerPriceIndex() {
-
-        float index = 0;
-        int numOfItems = 0;
-
-        for (Item item : getAllParentItems()) {
-            if (!item.getCurrency().equals(CurrenciesManager.getInstance().getDefaultCurrency())) continue;
-
-            if (Config.getInstance().includeInCPI(item)) {
-                index += (float) (item.getPrice().getValue()/item.getPrice().getInitialValue());
-                numOfItems++;
-            }
-        }
-
-        return (index/numOfItems)*100;
-    }
+    public float getConsumerPriceIndex() { return ConsumerPriceIndex.getInstance().getIndex(); }
 
 }
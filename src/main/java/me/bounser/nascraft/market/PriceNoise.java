@@ -0,0 +1,137 @@
+package me.bounser.nascraft.market;
+
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+// Noise of all the prices computed in one pass. The state the noise depends on is copied into arrays,
+// the changes of stock and resulting values are computed over them (in parallel for large catalogs)
+// and then applied to each price in order. Same distribution as applying the noise price by price.
+public class PriceNoise {
+
+    // Below this many items splitting the work costs more than it saves.
+    private static final int PARALLEL_THRESHOLD = 4096;
+    private static final int CHUNK_SIZE = 1024;
+
+    private static PriceNoise instance;
+
+    public static PriceNoise getInstance() {
+        if (instance == null) {
+            long seed = Config.getInstance().getNoiseSeed();
+            instance = seed == 0 ? new PriceNoise() : new PriceNoise(seed);
+        }
+        return instance;
+    }
+
+    // Every pass splits one generator per chunk from this one, in order, so with a seed the results
+    // don't depend on how the chunks are scheduled.
+    private final SplittableRandom random;
+
+    private int size = 0;
+
+    private float[] stock = new float[0];
+    private float[] elasticity = new float[0];
+    private float[] intensity = new float[0];
+    private double[] initialValue = new double[0];
+    private double[] value = new double[0];
+    private double[] support = new double[0];
+    private double[] resistance = new double[0];
+
+    private float[] change = new float[0];
+    private double[] newValue = new double[0];
+
+    public PriceNoise() { random = new SplittableRandom(); }
+
+    // The market simulator applies the noise to its copies of the items through an instance of its own.
+    public PriceNoise(long seed) { random = new SplittableRandom(seed); }
+
+    public synchronized void apply(List<Item> items) {
+
+        load(items);
+
+        computeChanges(size, stock, elasticity, intensity, initialValue, value, support, resistance, change, newValue);
+
+        for (int i = 0; i < size; i++) {
+            if (change[i] == 0) continue;
+            Item item = items.get(i);
+            item.getPrice().applyNoise(stock[i], change[i], newValue[i]);
+        }
+    }
+
+    // Fills change and newValue with the noise of the first size entries of the other arrays.
+    private void computeChanges(int size, float[] stock, float[] elasticity, float[] intensity, double[] initialValue,
+                                            double[] value, double[] support, double[] resistance, float[] change, double[] newValue) {
+
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int i = 0; i < chunks; i++) randoms[i] = random.split();
+
+        IntConsumer kernel = chunk -> {
+
+            SplittableRandom random = randoms[chunk];
+            int end = Math.min(size, (chunk + 1) * CHUNK_SIZE);
+
+            // The draws are made in the same order and under the same conditions as they were made per price.
+            for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+
+                if (elasticity[i] == 0 || intensity[i] == 0) {
+                    change[i] = 0;
+                    continue;
+                }
+
+                float delta;
+
+                if (support[i] != 0 && value[i] < support[i] && random.nextDouble() > 0.8) {
+                    delta = - (float) ((8 - 12 * random.nextDouble()) * intensity[i]);
+                } else if (resistance[i] != 0 && value[i] > resistance[i] && random.nextDouble() > 0.8) {
+                    delta = (float) ((8 - 12 * random.nextDouble()) * intensity[i]);
+                } else {
+                    delta = (float) ((10 - 20 * random.nextDouble()) * intensity[i]);
+                }
+
+                change[i] = delta;
+                newValue[i] = Price.getValueFromStock(initialValue[i], elasticity[i], stock[i] + delta);
+            }
+        };
+
+        if (size >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, chunks).parallel().forEach(kernel);
+        } else {
+            for (int chunk = 0; chunk < chunks; chunk++) kernel.accept(chunk);
+        }
+    }
+
+    private void load(List<Item> items) {
+
+        size = items.size();
+
+        if (stock.length < size) {
+            stock = new float[size];
+            elasticity = new float[size];
+            intensity = new float[size];
+            initialValue = new double[size];
+            value = new double[size];
+            support = new double[size];
+            resistance = new double[size];
+            change = new float[size];
+            newValue = new double[size];
+        }
+
+        for (int i = 0; i < size; i++) {
+            Price price = items.get(i).getPrice();
+            stock[i] = price.getStock();
+            elasticity[i] = price.getElasticity();
+            intensity[i] = price.getNoiseIntensity();
+            initialValue[i] = price.getInitialValue();
+            value[i] = price.getValue();
+            support[i] = price.getSupport();
+            resistance[i] = price.getResistance();
+        }
+    }
+
+}
@@ -2,7 +2,7 @@ package me.bounser.nascraft.market.limitorders;
 
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
-import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.Database;
 import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.market.unit.Item;
@@ -55,13 +55,14 @@ public class LimitOrder {
 
     public LocalDateTime getExpiration() { return expiration; }
 
-    public void checkOrder() {
+    // Also run by the market simulator, with its own clock and database.
+    public void checkOrder(LocalDateTime now, Database database) {
 
         if (completed == toComplete) { return; }
 
         if (expired) return;
 
-        if (expiration.isBefore(LocalDateTime.now())) {
+        if (expiration.isBefore(now)) {
             expired = true;
             return;
         }
@@ -85,7 +86,7 @@ public class LimitOrder {
                 cost += Math.abs(buyImpact);
                 completed += buyOrder;
 
-                if (toComplete == completed) {
+                if (toComplete == completed && !item.isSimulated()) {
 
                     Player player = Bukkit.getPlayer(uuid);
 
@@ -113,7 +114,7 @@ public class LimitOrder {
                 cost += Math.abs(sellImpact);
                 completed += sellOrder;
 
-                if (toComplete == completed) {
+                if (toComplete == completed && !item.isSimulated()) {
 
                     Player player = Bukkit.getPlayer(uuid);
 
@@ -125,7 +126,7 @@ public class LimitOrder {
                 break;
         }
 
-        DatabaseManager.get().getDatabase().updateLimitOrder(uuid, item, completed, cost);
+        database.updateLimitOrder(uuid, item, completed, cost);
 
     }
 
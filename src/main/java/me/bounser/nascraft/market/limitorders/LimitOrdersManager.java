@@ -1,29 +1,35 @@
 package me.bounser.nascraft.market.limitorders;
 
-import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.Database;
 import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.managers.MarketScheduler;
 import me.bounser.nascraft.market.unit.Item;
-import org.bukkit.Bukkit;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.UUID;
 
 public class LimitOrdersManager {
 
-    private HashMap<LimitOrder, Boolean> limitOrders = new HashMap<>();
+    // Checked in the order they were placed.
+    private LinkedHashMap<LimitOrder, Boolean> limitOrders = new LinkedHashMap<>();
 
     private List<Duration> durations;
 
+    // Only set for the orders of the market simulator, the live ones use the database of the plugin.
+    private final Database database;
+
     private static LimitOrdersManager instance = null;
 
     public static LimitOrdersManager getInstance() { return instance == null ? new LimitOrdersManager() : instance; }
 
     private LimitOrdersManager() {
 
+        database = null;
+
         if(!Config.getInstance().getLimitOrdersEnabled()) return;
 
         instance = this;
@@ -31,10 +37,17 @@ public class LimitOrdersManager {
 
         durations = Config.getInstance().getDurations();
 
-        Bukkit.getScheduler().runTaskTimer(Nascraft.getInstance(),
-                this::checkOrders, 200, 20L * Config.getInstance().getCheckingPeriod());
+        MarketScheduler.getInstance().schedule("limit-orders", MarketScheduler.now() + 10, Config.getInstance().getCheckingPeriod(), true, this::checkOrders);
+    }
+
+    // Orders of the market simulator (See MarketSimulator), kept in its database and checked on its clock.
+    public LimitOrdersManager(Database database) {
+        this.database = database;
+        durations = Config.getInstance().getDurations();
     }
 
+    private Database getDatabase() { return database != null ? database : DatabaseManager.get().getDatabase(); }
+
     public List<Duration> getDurationOptions() {
         return durations;
     }
@@ -43,22 +56,30 @@ public class LimitOrdersManager {
         limitOrders.put(limitOrder, !limitOrder.isExpired());
     }
 
-    public void registerNewLimitOrder(UUID uuid, LocalDateTime expiration, Item item, int type, double price, int amount) {
+    public LimitOrder registerNewLimitOrder(UUID uuid, LocalDateTime expiration, Item item, int type, double price, int amount) {
+
+        LimitOrder limitOrder = new LimitOrder(uuid, item, expiration, amount, 0, price, 0, type == 1 ? OrderType.LIMIT_BUY : OrderType.LIMIT_SELL);
+
+        limitOrders.put(limitOrder, true);
 
-        limitOrders.put(new LimitOrder(uuid, item, expiration, amount, 0, price, 0, type == 1 ? OrderType.LIMIT_BUY : OrderType.LIMIT_SELL), true);
+        getDatabase().addLimitOrder(uuid, expiration, item, type, price, amount);
 
-        DatabaseManager.get().getDatabase().addLimitOrder(uuid, expiration, item, type, price, amount);
+        return limitOrder;
     }
 
     public void deleteLimitOrder(LimitOrder limitOrder) {
 
         limitOrders.remove(limitOrder);
 
-        DatabaseManager.get().getDatabase().removeLimitOrder(limitOrder.getOwnerUuid().toString(), limitOrder.getItem().getIdentifier());
+        getDatabase().removeLimitOrder(limitOrder.getOwnerUuid().toString(), limitOrder.getItem().getIdentifier());
 
     }
 
-    public void checkOrders() {
+    public void checkOrders() { checkOrders(LocalDateTime.now()); }
+
+    public void checkOrders(LocalDateTime now) {
+
+        Database database = getDatabase();
 
         for (LimitOrder limitOrder : limitOrders.keySet()) {
 
@@ -67,7 +88,7 @@ public class LimitOrdersManager {
             if (limitOrder.isExpired() || limitOrder.isCompleted()) {
                 limitOrders.put(limitOrder, false);
             } else {
-                limitOrder.checkOrder();
+                limitOrder.checkOrder(now, database);
             }
         }
     }
@@ -2,10 +2,9 @@ package me.bounser.nascraft.market.resources;
 
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
-import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.market.ConsumerPriceIndex;
 import me.bounser.nascraft.market.unit.Item;
 import me.bounser.nascraft.config.Config;
-import me.bounser.nascraft.market.unit.stats.Instant;
 import net.kyori.adventure.platform.bukkit.BukkitComponentSerializer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
@@ -49,9 +48,13 @@ public class Category {
         this.material = Config.getInstance().getMaterialOfCategory(this);
     }
 
-    public void addItem(Item item) { items.add(item); }
+    public void addItem(Item item) {
+        items.add(item);
+    }
 
-    public void removeItem(Item item) { items.remove(item); }
+    public void removeItem(Item item) {
+        items.remove(item);
+    }
 
     //
 
@@ -85,20 +88,10 @@ public class Category {
         return itemsIdentifiers;
     }
 
-    public void setItems(List<Item> items) { this.items = items; }
-
-    public double getDayChange() {
-
-        double changes = 0;
-
-        for (Item item : items) {
-
-            Instant firstInstant = DatabaseManager.get().getDatabase().getDayPrices(item).getFirst();
-
-            if (firstInstant.getPrice() != 0 )
-                changes += ((item.getPrice().getValue() - firstInstant.getPrice()) / firstInstant.getPrice());
-        }
-        return changes/items.size();
+    public void setItems(List<Item> items) {
+        this.items = items;
     }
 
+    public double getDayChange() { return ConsumerPriceIndex.getInstance().getCategoryChange24h(this) / 100; }
+
 }
@@ -0,0 +1,204 @@
+package me.bounser.nascraft.market.simulation;
+
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.market.limitorders.LimitOrder;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.metrics.Histogram;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Runs a simulated market on a clock that jumps from one event to the next instead of waiting for it,
+// so hours of trades, noise, limit orders and restocks take as long as the work they do.
+// With the same seed, items and trades, two runs end with the same prices.
+public class MarketSimulator {
+
+    private static final AtomicBoolean running = new AtomicBoolean(false);
+
+    private static final long HOUR = 3600;
+
+    // Synthetic limit orders last a day and are placed up to 10% away from the price.
+    private static final long ORDER_DURATION = 24 * HOUR;
+    private static final double ORDER_SPREAD = 0.1;
+    private static final int MAX_ORDER_AMOUNT = 256;
+
+    // Price samples kept for the trajectories, whatever the length of the simulation.
+    private static final int MAX_SAMPLES = 500;
+
+    // Owner of the trades that come from the trade source.
+    private static final UUID TRADER = new UUID(0, 0);
+
+    private final SimulatedMarket market;
+    private final TradeSource source;
+    private final SplittableRandom random;
+
+    private final long noisePeriod;
+    private final long checkingPeriod;
+    private final long restockPeriod;
+
+    private final int ordersPerHour;
+
+    // Real time the clock of the simulation starts from, for the expirations of the limit orders.
+    private final LocalDateTime start = LocalDateTime.now();
+
+    private final List<LimitOrder> orders = new ArrayList<>();
+
+    private final Histogram tradeLatency = new Histogram();
+    private final Histogram noiseLatency = new Histogram();
+    private final Histogram ordersLatency = new Histogram();
+
+    private long executed = 0;
+    private long rejected = 0;
+
+    // Has to be created in the main thread, as it reads the configuration.
+    public MarketSimulator(SimulatedMarket market, TradeSource source, long seed, int ordersPerHour) {
+
+        this.market = market;
+        this.source = source;
+        this.random = new SplittableRandom(seed);
+
+        Config config = Config.getInstance();
+
+        noisePeriod = config.getPriceNoise() ? Math.max(1, config.getNoiseTime()) : 0;
+        checkingPeriod = config.getLimitOrdersEnabled() ? Math.max(1, config.getCheckingPeriod()) : 0;
+        restockPeriod = config.getStockRestockEnabled() ? Math.max(1, config.getStockRestockIntervalMinutes()) * 60L : 0;
+
+        this.ordersPerHour = checkingPeriod == 0 ? 0 : ordersPerHour;
+    }
+
+    // Only one simulation can run at a time.
+    public static boolean start() { return running.compareAndSet(false, true); }
+
+    public static void finish() { running.set(false); }
+
+    public SimulationReport run(int hours) {
+
+        long end = hours * HOUR;
+        long sampleEvery = Math.max(1, (hours + MAX_SAMPLES - 1) / MAX_SAMPLES) * HOUR;
+
+        List<double[]> samples = new ArrayList<>();
+        samples.add(sample());
+
+        SimulatedTrade trade = new SimulatedTrade();
+        boolean hasTrade = source.next(trade);
+
+        long nextNoise = noisePeriod == 0 ? Long.MAX_VALUE : noisePeriod;
+        long nextCheck = checkingPeriod == 0 ? Long.MAX_VALUE : checkingPeriod;
+        long nextRestock = restockPeriod == 0 ? Long.MAX_VALUE : restockPeriod;
+        long nextHour = HOUR;
+        long nextSample = sampleEvery;
+
+        long started = System.nanoTime();
+
+        while (true) {
+
+            long now = Math.min(Math.min(nextNoise, nextCheck), Math.min(nextRestock, Math.min(nextHour, nextSample)));
+            if (hasTrade) now = Math.min(now, trade.time);
+
+            if (now > end) break;
+
+            // Trades of a second go before the tasks scheduled for it.
+            if (hasTrade && trade.time == now) {
+
+                long before = System.nanoTime();
+                double worth = market.trade(trade.index, trade.amount, trade.buy, TRADER);
+                tradeLatency.record(System.nanoTime() - before);
+
+                if (worth < 0) rejected++;
+                else executed++;
+
+                hasTrade = source.next(trade);
+                continue;
+            }
+
+            if (nextNoise == now) {
+                long before = System.nanoTime();
+                market.applyNoise();
+                noiseLatency.record(System.nanoTime() - before);
+                nextNoise += noisePeriod;
+            }
+
+            if (nextCheck == now) {
+                long before = System.nanoTime();
+                checkOrders(now);
+                ordersLatency.record(System.nanoTime() - before);
+                nextCheck += checkingPeriod;
+            }
+
+            if (nextRestock == now) {
+                market.restock();
+                nextRestock += restockPeriod;
+            }
+
+            if (nextHour == now) {
+                placeOrders(now);
+                nextHour += HOUR;
+            }
+
+            if (nextSample == now) {
+                samples.add(sample());
+                nextSample += sampleEvery;
+            }
+        }
+
+        long elapsed = System.nanoTime() - started;
+
+        List<String> identifiers = new ArrayList<>(market.size());
+        double[] volumes = new double[market.size()];
+
+        for (int i = 0; i < market.size(); i++) {
+            identifiers.add(market.getParents().get(i).getIdentifier());
+            volumes[i] = market.getVolume(i);
+        }
+
+        long ordersFilled = 0;
+        long ordersExpired = 0;
+
+        for (LimitOrder order : orders) {
+            if (order.isCompleted()) ordersFilled++;
+            else if (order.isExpired()) ordersExpired++;
+        }
+
+        return new SimulationReport(source.getDescription(), hours, elapsed, identifiers, samples, sampleEvery / HOUR, volumes,
+                executed, rejected, orders.size(), ordersFilled, ordersExpired,
+                tradeLatency, noiseLatency, ordersLatency);
+    }
+
+    private double[] sample() {
+        double[] values = new double[market.size()];
+        for (int i = 0; i < values.length; i++) values[i] = market.getParents().get(i).getPrice().getValue();
+        return values;
+    }
+
+    // Placed through the limit orders manager of the simulated market, by owners of their own.
+    private void placeOrders(long now) {
+
+        if (market.size() == 0) return;
+
+        for (int n = 0; n < ordersPerHour; n++) {
+
+            Item item = market.getParents().get(random.nextInt(market.size()));
+            boolean buy = random.nextBoolean();
+
+            double distance = ORDER_SPREAD * random.nextDouble();
+            double limit = buy ?
+                    item.getPrice().getBuyPrice() * (1 - distance) :
+                    item.getPrice().getSellPrice() * (1 + distance);
+
+            orders.add(market.getLimitOrders().registerNewLimitOrder(
+                    new UUID(random.nextLong(), random.nextLong()),
+                    start.plusSeconds(now + ORDER_DURATION),
+                    item,
+                    buy ? 1 : 2,
+                    limit,
+                    1 + random.nextInt(MAX_ORDER_AMOUNT)));
+        }
+    }
+
+    private void checkOrders(long now) { market.getLimitOrders().checkOrders(start.plusSeconds(now)); }
+
+}
@@ -0,0 +1,97 @@
+package me.bounser.nascraft.market.simulation;
+
+import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.database.commands.resources.Trade;
+import me.bounser.nascraft.market.unit.Item;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Last trades of the trade log replayed with the same spacing they had. Once they run out they start over,
+// so a short log can drive a long simulation.
+public class RecordedTrades implements TradeSource {
+
+    private static final int PAGE_SIZE = 1000;
+
+    // A minute between the last trade of a replay and the first of the next.
+    private static final long REPLAY_GAP = 60;
+
+    private final long[] times;
+    private final int[] indexes;
+    private final int[] amounts;
+    private final boolean[] buys;
+
+    private final int size;
+    private final long span;
+
+    private int position = 0;
+    private long offset = 0;
+
+    // Reads from the database, so it shouldn't be created in the main thread.
+    public RecordedTrades(SimulatedMarket market, int limit) {
+
+        List<Trade> trades = new ArrayList<>();
+
+        while (trades.size() < limit) {
+
+            List<Trade> page = DatabaseManager.get().getDatabase().retrieveTrades(trades.size(), Math.min(PAGE_SIZE, limit - trades.size()));
+
+            if (page == null || page.isEmpty()) break;
+
+            trades.addAll(page);
+        }
+
+        // The log is read from the newest trade.
+        Collections.reverse(trades);
+
+        times = new long[trades.size()];
+        indexes = new int[trades.size()];
+        amounts = new int[trades.size()];
+        buys = new boolean[trades.size()];
+
+        LocalDateTime start = trades.isEmpty() ? null : trades.get(0).getDate();
+
+        int count = 0;
+
+        for (Trade trade : trades) {
+
+            Item item = trade.getItem();
+            if (item == null || trade.getDate() == null) continue;
+
+            int index = market.getIndex(item.getIdentifier());
+            if (index < 0) continue;
+
+            times[count] = Math.max(0, Duration.between(start, trade.getDate()).getSeconds());
+            indexes[count] = index;
+            amounts[count] = trade.getAmount();
+            buys[count] = trade.isBuy();
+            count++;
+        }
+
+        size = count;
+        span = size == 0 ? 0 : times[size - 1] + REPLAY_GAP;
+    }
+
+    @Override
+    public boolean next(SimulatedTrade trade) {
+
+        if (size == 0) return false;
+
+        if (position == size) {
+            position = 0;
+            offset += span;
+        }
+
+        trade.set(offset + times[position], indexes[position], amounts[position], buys[position]);
+        position++;
+
+        return true;
+    }
+
+    @Override
+    public String getDescription() { return "trade log, " + size + " trades over " + Math.max(1, span / 60) + " minutes"; }
+
+}
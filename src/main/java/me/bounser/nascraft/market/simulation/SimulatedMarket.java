@@ -0,0 +1,98 @@
+package me.bounser.nascraft.market.simulation;
+
+import me.bounser.nascraft.database.sqlite.SQLite;
+import me.bounser.nascraft.market.PriceNoise;
+import me.bounser.nascraft.market.limitorders.LimitOrdersManager;
+import me.bounser.nascraft.market.unit.Item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+// Copies of the parent items and their childs, traded, noised, restocked and matched against limit orders
+// through the same Item, Price, PriceNoise and LimitOrdersManager code as the live market. Their trades and
+// orders are recorded in a database kept in memory, and nothing done here reaches the real market.
+public class SimulatedMarket {
+
+    private final SQLite database;
+
+    // The parents first, in the order they were given, followed by the childs.
+    private final List<Item> items = new ArrayList<>();
+    private final List<Item> parents;
+    private final HashMap<String, Integer> indexes = new HashMap<>();
+
+    private final double[] volume;
+
+    private final PriceNoise noise;
+
+    private final LimitOrdersManager limitOrders;
+
+    // Has to be created in the main thread, as it reads the items. Has to be closed once done.
+    public SimulatedMarket(List<Item> originals, long seed) {
+
+        database = SQLite.createInMemory("nascraft-simulation-" + seed + "-" + System.nanoTime());
+        database.connect();
+
+        List<Item> parents = new ArrayList<>();
+
+        try {
+            for (Item original : originals) parents.add(new Item(original, database));
+        } catch (RuntimeException e) {
+            database.disconnect();
+            throw e;
+        }
+
+        this.parents = Collections.unmodifiableList(parents);
+
+        items.addAll(parents);
+        for (Item parent : parents) items.addAll(parent.getChilds());
+
+        for (int i = 0; i < items.size(); i++) indexes.put(items.get(i).getIdentifier(), i);
+
+        volume = new double[parents.size()];
+
+        noise = new PriceNoise(seed);
+
+        limitOrders = new LimitOrdersManager(database);
+    }
+
+    public int size() { return parents.size(); }
+
+    public List<Item> getParents() { return parents; }
+
+    // Index of an item or child item, -1 if it isn't in the market.
+    public int getIndex(String identifier) { return indexes.getOrDefault(identifier, -1); }
+
+    public Item getItem(int index) { return items.get(index); }
+
+    public double getVolume(int i) { return volume[i]; }
+
+    public LimitOrdersManager getLimitOrders() { return limitOrders; }
+
+    // Through the same methods limit orders use to trade, as there are no players or money here.
+    // Returns the worth of the trade or -1 if the market rejected it.
+    public double trade(int index, int amount, boolean buy, UUID uuid) {
+
+        Item item = items.get(index);
+        Item parent = item.isParent() ? item : item.getParent();
+
+        double value = parent.getPrice().getValue();
+
+        double worth = buy ? item.buyWithoutCost(amount, uuid) : item.sellWithoutPayment(amount, uuid);
+
+        if (buy ? worth <= 0 : worth < 0) return -1;
+
+        volume[indexes.get(parent.getIdentifier())] += amount * item.getMultiplier() * value;
+
+        return worth;
+    }
+
+    public void applyNoise() { noise.apply(parents); }
+
+    public void restock() { for (Item parent : parents) parent.restock(); }
+
+    public void close() { database.disconnect(); }
+
+}
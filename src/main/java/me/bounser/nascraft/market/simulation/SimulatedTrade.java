@@ -0,0 +1,21 @@
+package me.bounser.nascraft.market.simulation;
+
+// Trade fed to the simulator. Reused by the sources, so it is only valid until the next one is read.
+public class SimulatedTrade {
+
+    // Seconds since the start of the simulation.
+    long time;
+
+    // Index of the item or child item in the simulated market (See SimulatedMarket#getIndex).
+    int index;
+    int amount;
+    boolean buy;
+
+    void set(long time, int index, int amount, boolean buy) {
+        this.time = time;
+        this.index = index;
+        this.amount = amount;
+        this.buy = buy;
+    }
+
+}
@@ -0,0 +1,140 @@
+package me.bounser.nascraft.market.simulation;
+
+import me.bounser.nascraft.metrics.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+public class SimulationReport {
+
+    private static final int MOVERS = 5;
+
+    private final String source;
+    private final int hours;
+    private final long elapsedNanos;
+
+    private final List<String> identifiers;
+    private final List<double[]> samples;
+    private final long hoursPerSample;
+    private final double[] volumes;
+
+    private final long executed;
+    private final long rejected;
+    private final long ordersPlaced;
+    private final long ordersFilled;
+    private final long ordersExpired;
+
+    private final Histogram tradeLatency;
+    private final Histogram noiseLatency;
+    private final Histogram ordersLatency;
+
+    public SimulationReport(String source, int hours, long elapsedNanos, List<String> identifiers, List<double[]> samples, long hoursPerSample, double[] volumes,
+                            long executed, long rejected, long ordersPlaced, long ordersFilled, long ordersExpired,
+                            Histogram tradeLatency, Histogram noiseLatency, Histogram ordersLatency) {
+        this.source = source;
+        this.hours = hours;
+        this.elapsedNanos = elapsedNanos;
+        this.identifiers = identifiers;
+        this.samples = samples;
+        this.hoursPerSample = hoursPerSample;
+        this.volumes = volumes;
+        this.executed = executed;
+        this.rejected = rejected;
+        this.ordersPlaced = ordersPlaced;
+        this.ordersFilled = ordersFilled;
+        this.ordersExpired = ordersExpired;
+        this.tradeLatency = tradeLatency;
+        this.noiseLatency = noiseLatency;
+        this.ordersLatency = ordersLatency;
+    }
+
+    public List<String> getLines() {
+
+        List<String> lines = new ArrayList<>();
+
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        long trades = executed + rejected;
+
+        lines.add(String.format(Locale.ROOT, "Simulated %d hours of %d items (%s) in %.2fs, %.0f hours/s.",
+                hours, identifiers.size(), source, seconds, hours / seconds));
+        lines.add(String.format(Locale.ROOT, "Trades: %d executed, %d rejected, %.0f trades/s.",
+                executed, rejected, trades / seconds));
+        lines.add(String.format(Locale.ROOT, "Limit orders: %d placed, %d filled, %d expired.",
+                ordersPlaced, ordersFilled, ordersExpired));
+
+        lines.add(latencyLine("Trade", tradeLatency));
+        lines.add(latencyLine("Noise pass", noiseLatency));
+        lines.add(latencyLine("Order check", ordersLatency));
+
+        if (samples.size() > 1) {
+
+            double[] first = samples.get(0);
+            double[] last = samples.get(samples.size() - 1);
+
+            List<Integer> movers = new ArrayList<>();
+            for (int i = 0; i < identifiers.size(); i++) if (first[i] > 0) movers.add(i);
+
+            movers.sort(Comparator.comparingDouble(i -> -Math.abs(last[i] / first[i] - 1)));
+
+            lines.add("Biggest moves:");
+
+            for (int i : movers.subList(0, Math.min(MOVERS, movers.size()))) {
+                lines.add(String.format(Locale.ROOT, " %s: %.4f -> %.4f (%+.1f%%), range %.4f - %.4f",
+                        identifiers.get(i), first[i], last[i], 100 * (last[i] / first[i] - 1), getLow(i), getHigh(i)));
+            }
+        }
+
+        return lines;
+    }
+
+    private static String latencyLine(String name, Histogram latency) {
+        return String.format(Locale.ROOT, "%s latency (us): p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f, %d samples.",
+                name,
+                latency.getPercentile(0.5) / 1e3,
+                latency.getPercentile(0.99) / 1e3,
+                latency.getPercentile(0.999) / 1e3,
+                latency.getMax() / 1e3,
+                latency.getCount());
+    }
+
+    private double getHigh(int item) {
+        double high = 0;
+        for (double[] sample : samples) high = Math.max(high, sample[item]);
+        return high;
+    }
+
+    private double getLow(int item) {
+        double low = Double.MAX_VALUE;
+        for (double[] sample : samples) low = Math.min(low, sample[item]);
+        return low;
+    }
+
+    // One row per sample with the price of every item, and a last row with the volume of each one.
+    public void writeTrajectories(File file) throws IOException {
+
+        file.getParentFile().mkdirs();
+
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+
+            writer.print("hour");
+            for (String identifier : identifiers) writer.print("," + identifier);
+            writer.println();
+
+            for (int n = 0; n < samples.size(); n++) {
+                writer.print(n * hoursPerSample);
+                for (double value : samples.get(n)) writer.print("," + value);
+                writer.println();
+            }
+
+            writer.print("volume");
+            for (double volume : volumes) writer.print("," + volume);
+            writer.println();
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package me.bounser.nascraft.market.simulation;
+
+import java.util.SplittableRandom;
+
+// Trades arriving at random at an average rate, each on any parent item with the same probability,
+// buying or selling between 1 and 64 units.
+public class SyntheticTrades implements TradeSource {
+
+    private static final int MAX_AMOUNT = 64;
+
+    private final SplittableRandom random;
+    private final int items;
+    private final double perSecond;
+
+    private double time = 0;
+
+    public SyntheticTrades(int items, int tradesPerHour, long seed) {
+        this.random = new SplittableRandom(seed);
+        this.items = items;
+        this.perSecond = tradesPerHour / 3600.0;
+    }
+
+    @Override
+    public boolean next(SimulatedTrade trade) {
+
+        if (items == 0 || perSecond <= 0) return false;
+
+        time += -Math.log(1 - random.nextDouble()) / perSecond;
+
+        trade.set((long) time, random.nextInt(items), 1 + random.nextInt(MAX_AMOUNT), random.nextBoolean());
+
+        return true;
+    }
+
+    @Override
+    public String getDescription() { return "synthetic, " + Math.round(perSecond * 3600) + " trades/hour"; }
+
+}
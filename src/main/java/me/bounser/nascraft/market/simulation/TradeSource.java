@@ -0,0 +1,10 @@
+package me.bounser.nascraft.market.simulation;
+
+public interface TradeSource {
+
+    // Fills the trade with the next one, in order of time. Returns false once there are no more.
+    boolean next(SimulatedTrade trade);
+
+    String getDescription();
+
+}
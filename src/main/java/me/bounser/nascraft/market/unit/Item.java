@@ -6,6 +6,7 @@ import me.bounser.nascraft.api.events.Action;
 import me.bounser.nascraft.api.events.TransactionCompletedEvent;
 import me.bounser.nascraft.config.lang.Lang;
 import me.bounser.nascraft.config.lang.Message;
+import me.bounser.nascraft.database.Database;
 import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.api.events.BuyItemEvent;
 import me.bounser.nascraft.api.events.SellItemEvent;
@@ -16,6 +17,7 @@ import me.bounser.nascraft.formatter.RoundUtils;
 import me.bounser.nascraft.managers.InventoryManager;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import me.bounser.nascraft.managers.currencies.Currency;
+import me.bounser.nascraft.market.ConsumerPriceIndex;
 import me.bounser.nascraft.market.MarketManager;
 import me.bounser.nascraft.managers.MoneyManager;
 import me.bounser.nascraft.market.resources.Category;
@@ -23,6 +25,7 @@ import me.bounser.nascraft.config.Config;
 import me.bounser.nascraft.formatter.Style;
 import me.bounser.nascraft.market.unit.stats.Instant;
 import me.bounser.nascraft.market.unit.stats.ItemStats;
+import me.bounser.nascraft.metrics.Metrics;
 import net.kyori.adventure.platform.bukkit.BukkitComponentSerializer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.TextComponent;
@@ -55,6 +58,7 @@ public class Item {
     private int volume;
 
     private float collectedTaxes;
+    private volatile boolean taxesChanged;
 
     private int stock;
     private int maxStock;
@@ -69,7 +73,18 @@ public class Item {
 
     boolean restricted;
 
+    // Set on the copies made for the market simulator (See MarketSimulator): their trades are recorded
+    // there, and nothing reaches the live market, the players or the listeners of the plugin.
+    private final Database simulationDatabase;
+
     public Item (ItemStack itemStack, String identifier, String alias, Category category, BufferedImage image) {
+        this(itemStack, identifier, alias, category, image, null);
+    }
+
+    // The last price can be provided when it has already been loaded, avoiding a query per item.
+    public Item (ItemStack itemStack, String identifier, String alias, Category category, BufferedImage image, Float lastPrice) {
+
+        simulationDatabase = null;
 
         itemStack.setAmount(1);
 
@@ -96,7 +111,7 @@ public class Item {
         this.icon = image;
         this.restricted = Config.getInstance().getRestricted(identifier);
 
-        price.initializeHourValues(DatabaseManager.get().getDatabase().retrieveLastPrice(this));
+        price.initializeHourValues(lastPrice != null ? lastPrice : DatabaseManager.get().getDatabase().retrieveLastPrice(this));
 
         this.category = category;
         operations = 0;
@@ -111,6 +126,7 @@ public class Item {
 
     public Item(Item parent, float multiplier, ItemStack itemStack, String identifier, String alias, Currency currency){
 
+        this.simulationDatabase = parent.simulationDatabase;
         this.currency = parent.getCurrency();
 
         itemStack.setAmount(1);
@@ -125,6 +141,37 @@ public class Item {
         setupAlias(alias);
     }
 
+    // Copy of a parent item and its childs for the market simulator, recording into the given database.
+    // Has to be created in the main thread.
+    public Item(Item original, Database simulationDatabase) {
+
+        this.simulationDatabase = simulationDatabase;
+
+        this.itemStack = original.itemStack.clone();
+        this.identifier = original.identifier;
+        this.alias = original.alias;
+        this.taggedAlias = original.taggedAlias;
+        this.formattedAlias = original.formattedAlias;
+        this.icon = original.icon;
+        this.category = original.category;
+        this.currency = original.currency;
+        this.restricted = original.restricted;
+
+        this.price = new Price(this, original.price);
+
+        operations = 0;
+        multiplier = 1;
+        parent = null;
+
+        maxStock = original.maxStock;
+        stock = original.stock;
+
+        itemStats = new ItemStats(this);
+
+        for (Item child : original.childs)
+            addChildItem(new Item(this, child.multiplier, child.itemStack.clone(), child.identifier, child.taggedAlias, currency));
+    }
+
     public void setupAlias(String alias) {
 
         taggedAlias = alias;
@@ -184,6 +231,17 @@ public class Item {
 
     public double buy(int amount, UUID uuid, boolean feedback) {
 
+        long start = System.nanoTime();
+
+        double worth = processBuy(amount, uuid, feedback);
+
+        Metrics.getInstance().stop("trade", worth > 0 ? "buy" : "buy-rejected", start);
+
+        return worth;
+    }
+
+    private double processBuy(int amount, UUID uuid, boolean feedback) {
+
         Player player = Bukkit.getPlayer(uuid);
         OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(uuid);
 
@@ -256,7 +314,7 @@ public class Item {
 
     public double buyWithoutCost(int amount, UUID uuid) {
 
-        Player player = Bukkit.getPlayer(uuid);
+        Player player = isSimulated() ? null : Bukkit.getPlayer(uuid);
 
         boolean limitReached = !price.canStockChange(amount, true);
 
@@ -270,12 +328,14 @@ public class Item {
             return 0;
         }
 
-        BuyItemEvent event = new BuyItemEvent(player, this, amount);
-        Bukkit.getPluginManager().callEvent(event);
+        if (!isSimulated()) {
+            BuyItemEvent event = new BuyItemEvent(player, this, amount);
+            Bukkit.getPluginManager().callEvent(event);
 
-        if (event.isCancelled()) return 0;
+            if (event.isCancelled()) return 0;
 
-        if(!MarketManager.getInstance().getActive()) { Lang.get().message(player, Message.SHOP_CLOSED); return 0; }
+            if(!MarketManager.getInstance().getActive()) { Lang.get().message(player, Message.SHOP_CLOSED); return 0; }
+        }
 
         double worth = price.getProjectedCost(-amount*multiplier, price.getBuyTaxMultiplier());
 
@@ -299,7 +359,9 @@ public class Item {
 
         Trade trade = new Trade(this, LocalDateTime.now(), worth, amount, true, false, uuid);
 
-        DatabaseManager.get().getDatabase().saveTrade(trade);
+        getDatabase().saveTrade(trade);
+
+        if (isSimulated()) return worth;
 
         if (Config.getInstance().getDiscordEnabled() && Config.getInstance().getLogChannelEnabled())
             DiscordLog.getInstance().sendTradeLog(trade);
@@ -322,6 +384,17 @@ public class Item {
 
     public double sell(int amount, UUID uuid, boolean feedback) {
 
+        long start = System.nanoTime();
+
+        double worth = processSell(amount, uuid, feedback);
+
+        Metrics.getInstance().stop("trade", worth >= 0 ? "sell" : "sell-rejected", start);
+
+        return worth;
+    }
+
+    private double processSell(int amount, UUID uuid, boolean feedback) {
+
         Player player = Bukkit.getPlayer(uuid);
         OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(uuid);
 
@@ -398,7 +471,7 @@ public class Item {
 
     public double sellWithoutPayment(int amount, UUID uuid) {
 
-        Player player = Bukkit.getPlayer(uuid);
+        Player player = isSimulated() ? null : Bukkit.getPlayer(uuid);
 
         boolean limitReached = !price.canStockChange(amount, false);
 
@@ -406,19 +479,17 @@ public class Item {
             return -1;
         }
 
-        SellItemEvent event = new SellItemEvent(player, this, amount);
-        Bukkit.getPluginManager().callEvent(event);
+        if (!isSimulated()) {
+            SellItemEvent event = new SellItemEvent(player, this, amount);
+            Bukkit.getPluginManager().callEvent(event);
 
-        if (event.isCancelled()) return -1;
+            if (event.isCancelled()) return -1;
 
-        if (!MarketManager.getInstance().getActive()) {
-            return -1;
+            if (!MarketManager.getInstance().getActive()) {
+                return -1;
+            }
         }
 
-        ItemStack operationItemStack = itemStack.clone();
-
-        operationItemStack.setAmount(1);
-
         double worth = price.getProjectedCost(amount*multiplier, price.getSellTaxMultiplier());
 
         if (!limitReached) {
@@ -444,7 +515,10 @@ public class Item {
 
         Trade trade = new Trade(this, LocalDateTime.now(), worth, amount, false, false, uuid);
 
-        DatabaseManager.get().getDatabase().saveTrade(trade);
+        getDatabase().saveTrade(trade);
+
+        if (isSimulated()) return worth;
+
         if (Config.getInstance().getDiscordEnabled() && Config.getInstance().getLogChannelEnabled())
             DiscordLog.getInstance().sendTradeLog(trade);
         MarketManager.getInstance().addOperation();
@@ -455,6 +529,55 @@ public class Item {
         return worth;
     }
 
+    // Sells items that share one price (a parent and its childs) as a single stock change: the whole
+    // amount is priced at once and split between the items by the units each one adds. Events, trades
+    // and payments are left to the caller (See MarketManager#sellItems). Returns the worth of each item sold.
+    public static HashMap<Item, Double> sellInBulk(Price price, Map<Item, Integer> amounts) {
+
+        HashMap<Item, Double> sold = new HashMap<>();
+
+        float units = getUnits(amounts);
+
+        boolean limitReached = !price.canStockChange(units, false);
+
+        if (limitReached) {
+            amounts = new HashMap<>(amounts);
+            amounts.keySet().removeIf(Item::isRestricted);
+            units = getUnits(amounts);
+        }
+
+        if (amounts.isEmpty() || units == 0) return sold;
+
+        double worth = price.getProjectedCost(units, price.getSellTaxMultiplier());
+
+        int operations = 0;
+
+        for (Map.Entry<Item, Integer> entry : amounts.entrySet()) {
+            sold.put(entry.getKey(), (double) RoundUtils.round(worth * entry.getValue() * entry.getKey().multiplier / units));
+            operations += entry.getValue();
+        }
+
+        Item stockItem = price.getItem();
+
+        if (!limitReached)
+            stockItem.updateInternalValues(operations,
+                    operations*price.getValue(),
+                    units,
+                    price.getValue()*(1-price.getBuyTaxMultiplier())*units);
+
+        if (Config.getInstance().getStockRestockEnabled()) {
+            stockItem.addStock((int) units);
+        }
+
+        return sold;
+    }
+
+    private static float getUnits(Map<Item, Integer> amounts) {
+        float units = 0;
+        for (Map.Entry<Item, Integer> entry : amounts.entrySet()) units += entry.getValue() * entry.getKey().multiplier;
+        return units;
+    }
+
     public List<Double> getValuesPastHour() {
         return price.getValuesPastHour();
     }
@@ -472,8 +595,11 @@ public class Item {
     private void updateInternalValues(int operations, double volume, float stockChange, double taxes) {
         this.operations += operations;
         this.volume += volume;
+        // Candles count the units traded, like the noise does, not the money they were worth.
+        recordVolume(Math.round(Math.abs(stockChange)));
         this.price.changeStock(stockChange);
         this.collectedTaxes += taxes;
+        if (taxes != 0) taxesChanged = true;
     }
 
     public String getIdentifier() { return identifier; }
@@ -491,10 +617,16 @@ public class Item {
 
     public boolean isParent() { return parent == null; }
 
+    public boolean isSimulated() { return simulationDatabase != null; }
+
+    private Database getDatabase() { return isSimulated() ? simulationDatabase : DatabaseManager.get().getDatabase(); }
+
     public Item getParent() { return parent; }
 
     public float getMultiplier() { return multiplier; }
 
+    public boolean isRestricted() { return restricted; }
+
     public Price getPrice() { return price; }
 
     public Currency getCurrency() { return currency; }
@@ -516,9 +648,24 @@ public class Item {
 
     public float getCollectedTaxes() { return collectedTaxes; }
 
-    public void setCollectedTaxes(float newCollectedTaxes) { collectedTaxes = newCollectedTaxes; }
+    public void setCollectedTaxes(float newCollectedTaxes) { collectedTaxes = newCollectedTaxes; taxesChanged = true; }
+
+    public boolean isDirty() { return taxesChanged || price.isDirty(); }
+
+    public void setDirty(boolean dirty) {
+        taxesChanged = dirty;
+        price.setDirty(dirty);
+    }
+
+    public void addVolume(int volume) {
+        this.volume += volume;
+        recordVolume(volume);
+    }
 
-    public void addVolume(int volume) { this.volume += volume; }
+    private void recordVolume(int volume) {
+        price.getCandles().addVolume(volume);
+        ConsumerPriceIndex.getInstance().addVolume(price, volume);
+    }
 
     public void restartVolume() { volume = 0; }
 
@@ -561,6 +708,8 @@ public class Item {
 
     public void addStock(int amount) { this.stock = Math.max(0, stock + amount); }
 
+    public void restock() { addStock(Config.getInstance().getItemRestockAmount(identifier)); }
+
     public boolean hasStock() { return stock > 0; }
 
     public boolean canBuyAmount(int amount) { return stock >= amount; }
@@ -1,7 +1,11 @@
 package me.bounser.nascraft.market.unit;
 
 import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.discord.alerts.DiscordAlerts;
 import me.bounser.nascraft.formatter.RoundUtils;
+import me.bounser.nascraft.inventorygui.MenuSubscriptions;
+import me.bounser.nascraft.market.ConsumerPriceIndex;
+import me.bounser.nascraft.market.unit.stats.ItemCandles;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -29,6 +33,9 @@ public class Price {
 
     private float stock;
 
+    // Changes of the stock not taken by the journal yet. Guarded by this price.
+    private float unjournaled;
+
     private double support;
     private double resistance;
     private float noiseIntensity;
@@ -43,7 +50,8 @@ public class Price {
     private final List<Double> dayHigh = new ArrayList<>();
     private final List<Double> dayLow = new ArrayList<>();
 
-    private List<Double> hourValues;
+    // Replaced instead of modified, so other threads can read the last hour without locking.
+    private volatile List<Double> hourValues;
 
     private final float taxBuy;
     private final float taxSell;
@@ -63,11 +71,20 @@ public class Price {
     private float yearChange;
     private float allChange;
 
+    // Whether the persisted state (value, stock and historical limits) changed since the last save.
+    private volatile boolean dirty = true;
+
+    private final ItemCandles candles = new ItemCandles();
+
     public Price(Item item, float initialValue, float elasticity, float support, float resistance, float noiseIntensity) {
 
         this.item = item;
 
-        updateValue();
+        // Provisional value, as the limits and the initial value aren't set yet. The real one comes with the
+        // stock, so this one is kept out of the candles, the index, the menus and the alerts.
+        value = getValueFromStock(this.initialValue, this.elasticity, stock);
+        enforceLimits();
+        updateLimits();
         previousValue = value;
 
         precission = item.getCurrency().getDecimalPrecission();
@@ -96,13 +113,60 @@ public class Price {
         lowerStockThreshold = getStockFromValue(lowLimit);
     }
 
+    // Copy of the price of a live item for its copy in the market simulator: same configuration, limits,
+    // stock and value, and candles and hour values of its own.
+    public Price(Item item, Price original) {
+
+        this.item = item;
+
+        synchronized (original) {
+            stock = original.stock;
+            value = original.value;
+        }
+
+        previousValue = value;
+        precission = original.precission;
+        topLimit = original.topLimit;
+        lowLimit = original.lowLimit;
+        upperStockThreshold = original.upperStockThreshold;
+        lowerStockThreshold = original.lowerStockThreshold;
+        initialValue = original.initialValue;
+        support = original.support;
+        resistance = original.resistance;
+        noiseIntensity = original.noiseIntensity;
+        elasticity = original.elasticity;
+        taxBuy = original.taxBuy;
+        taxSell = original.taxSell;
+        historicalHigh = original.historicalHigh;
+        historicalLow = original.historicalLow;
+
+        hourHigh = value;
+        hourLow = value;
+        dayHigh.add(hourHigh);
+        dayLow.add(hourLow);
+
+        initializeHourValues(value);
+    }
+
     public double getValue() { return value; }
 
+    public ItemCandles getCandles() { return candles; }
+
     public double getBuyPrice() { return getProjectedCost(-1, taxBuy); }
 
     public double getSellPrice() { return getProjectedCost(1, taxSell); }
 
+    // Admin edits and any other change of the stock that has to survive a crash before the next save.
     public void setStock(float stock) {
+        synchronized (this) {
+            unjournaled += stock - this.stock;
+            this.stock = stock;
+        }
+        updateValue();
+    }
+
+    // Stock read from the items table, which the journal is replayed over.
+    public void loadStock(float stock) {
         this.stock = stock;
         updateValue();
     }
@@ -199,6 +263,10 @@ public class Price {
 
     public float getElasticity() { return elasticity; }
 
+    public double getTopLimit() { return topLimit; }
+
+    public double getLowLimit() { return lowLimit; }
+
     public double getUpperStockLimit() { return upperStockThreshold; }
 
     public double getLowerStockThreshold() { return lowerStockThreshold; }
@@ -229,44 +297,57 @@ public class Price {
         if (Config.getInstance().takeIntoAccountTax()) {
 
             if (change > 0) {
-                stock += change * (1 + (1-taxSell));
+                addStock(change * (1 + (1-taxSell)));
             } else {
-                stock += change * taxBuy;
+                addStock(change * taxBuy);
             }
 
         } else {
-            stock += change;
+            addStock(change);
         }
 
         updateValue();
     }
 
+    // Every stock change is kept until the journal takes it (See StockJournal#sync), so it survives a
+    // crash before the next save. Only the lock of this price is taken.
+    private synchronized void addStock(float change) {
+        stock += change;
+        unjournaled += change;
+    }
+
+    // Stock changes made since the last call.
+    public synchronized float takeUnjournaled() {
+        float change = unjournaled;
+        unjournaled = 0;
+        return change;
+    }
+
+    // Applied while the items are loaded: only the stock and the value it results in change, none of
+    // the listeners of a price update (alerts, menus, index, candles) are called.
+    public void replayStockChange(float change) {
+        stock += change;
+        value = getValueFromStock(this.initialValue, this.elasticity, stock);
+        enforceLimits();
+        updateLimits();
+        dirty = true;
+    }
+
     public void enforceLimits() {
         value = Math.min(value, topLimit);
         value = Math.max(value, lowLimit);
     }
 
-    public void applyNoise() {
-
-        if (elasticity == 0 || noiseIntensity == 0) return;
+    // Applies a change of stock computed by PriceNoise, along with the value it results in. If the stock
+    // was changed by a trade after the noise was computed, the value is computed again.
+    public void applyNoise(float computedFrom, float change, double newValue) {
 
         float prevStock = stock;
 
-        if (support != 0 && value < support && Math.random() > 0.8) {
-
-            stock -= (float) ((8 - 12 * Math.random()) * noiseIntensity);
+        addStock(change);
 
-        } else if (resistance != 0 && value > resistance && Math.random() > 0.8) {
-
-            stock += (float) ((8 - 12 * Math.random()) * noiseIntensity);
-
-        } else {
-
-            stock += (float) ((10 - 20 * Math.random()) * noiseIntensity);
-
-        }
-
-        updateValue();
+        if (prevStock == computedFrom) setValue(newValue);
+        else updateValue();
 
         item.addVolume(Math.abs(Math.round(stock - prevStock)));
     }
@@ -282,9 +363,13 @@ public class Price {
 
     public double getHistoricalLow() { return historicalLow; }
 
-    public void setHistoricalHigh(float newHistoricalHigh) { historicalHigh = newHistoricalHigh; }
+    public void setHistoricalHigh(float newHistoricalHigh) { historicalHigh = newHistoricalHigh; dirty = true; }
+
+    public void setHistoricalLow(float newHistoricalLow) { historicalLow = newHistoricalLow; dirty = true; }
+
+    public boolean isDirty() { return dirty; }
 
-    public void setHistoricalLow(float newHistoricalLow) { historicalLow = newHistoricalLow; }
+    public void setDirty(boolean dirty) { this.dirty = dirty; }
 
     public double getDayHigh() {
 
@@ -305,11 +390,30 @@ public class Price {
     }
 
     public void updateValue() {
+        setValue(getValueFromStock(initialValue, elasticity, stock));
+    }
+
+    private void setValue(double newValue) {
+
+        double previous = value;
 
-        value = (float) (initialValue * Math.exp(-0.0005 * elasticity * stock));
+        value = newValue;
         enforceLimits();
         updateLimits();
 
+        dirty = true;
+
+        candles.addPrice(value);
+
+        // The copies of the simulator stay out of the index, the categories, the menus and the alerts.
+        if (item.isSimulated()) return;
+
+        ConsumerPriceIndex.getInstance().update(this, value);
+
+        MenuSubscriptions.getInstance().markDirty(this);
+
+        if (value != previous) DiscordAlerts.checkPrice(this, value);
+
     }
 
     private void updateLimits() {
@@ -335,12 +439,13 @@ public class Price {
 
     public void initializeHourValues(double value) {
         if (hourValues == null)
-            hourValues = new ArrayList<>(Collections.nCopies(60, value));
+            hourValues = Collections.nCopies(60, value);
     }
 
     public void addValueToShortTermStorage() {
-        hourValues.remove(0);
-        hourValues.add(value);
+        List<Double> values = new ArrayList<>(hourValues.subList(1, hourValues.size()));
+        values.add(value);
+        hourValues = Collections.unmodifiableList(values);
     }
 
     public float getValueChangeLastHour() {
@@ -351,10 +456,36 @@ public class Price {
 
     public List<Double> getValuesPastHour() { return hourValues; }
 
-    public double getProjectedCost(float stockChange, float tax) {
+    public double getProjectedCost(float stockChange, float tax) { return getProjectedCost(stock, stockChange, tax); }
+
+    // Cost of the stock change starting from the given stock instead of the current one.
+    public double getProjectedCost(float stock, float stockChange, float tax) {
+        return getProjectedCost(value, initialValue, elasticity, upperStockThreshold, lowerStockThreshold, taxBuy, taxSell, precission, stock, stockChange, tax);
+    }
+
+    public double integratePiecewise(double start, double end) {
+        return integratePiecewise(initialValue, elasticity, upperStockThreshold, lowerStockThreshold, start, end);
+    }
+
+    public double integrateAnalytically(double x1, double x2) {
+        return integrateAnalytically(initialValue, elasticity, x1, x2);
+    }
+
+    // The pricing math only depends on these parameters, so it is also used by the market simulator.
+
+    public static double getValueFromStock(double initialValue, float elasticity, float stock) {
+        return (float) (initialValue * Math.exp(-0.0005 * elasticity * stock));
+    }
+
+    public static double getStockFromValue(double initialValue, float elasticity, double value) {
+        return (Math.log(value / initialValue) / (-0.0005 * elasticity));
+    }
+
+    public static double getProjectedCost(double value, double initialValue, float elasticity, double upperStockThreshold, double lowerStockThreshold,
+                                          float taxBuy, float taxSell, int precision, float stock, float stockChange, float tax) {
 
         if (elasticity == 0)
-            return roundToDecimals(Math.abs((value * stockChange * tax)), precission);
+            return roundToDecimals(Math.abs((value * stockChange * tax)), precision);
 
         float change;
 
@@ -370,12 +501,12 @@ public class Price {
             change = stockChange;
         }
 
-        double cost = integratePiecewise(stock, stock + change);
+        double cost = integratePiecewise(initialValue, elasticity, upperStockThreshold, lowerStockThreshold, stock, stock + change);
 
-        return roundToDecimals(cost*tax, precission);
+        return roundToDecimals(cost*tax, precision);
     }
 
-    public double integratePiecewise(double start, double end) {
+    public static double integratePiecewise(double initialValue, float elasticity, double upperStockThreshold, double lowerStockThreshold, double start, double end) {
 
         double initialStock = start;
         double finalStock = end;
@@ -399,7 +530,7 @@ public class Price {
         double segment2_start = Math.max(initialStock, upperStockThreshold);
         double segment2_end = Math.min(finalStock, lowerStockThreshold);
         if (segment2_end > segment2_start) {
-            totalIntegral += integrateAnalytically(segment2_start, segment2_end);
+            totalIntegral += integrateAnalytically(initialValue, elasticity, segment2_start, segment2_end);
         }
 
         double segment3_start = Math.max(initialStock, lowerStockThreshold);
@@ -411,7 +542,7 @@ public class Price {
         return totalIntegral;
     }
 
-    public double integrateAnalytically(double x1, double x2) {
+    public static double integrateAnalytically(double initialValue, float elasticity, double x1, double x2) {
 
         final double k = 0.0005 * elasticity;
 
@@ -445,7 +576,7 @@ public class Price {
     }
 
     public double getStockFromValue(double value) {
-        return (Math.log(value / initialValue) / (-0.0005 * elasticity));
+        return getStockFromValue(initialValue, elasticity, value);
     }
 
 }
@@ -0,0 +1,44 @@
+package me.bounser.nascraft.market.unit.stats;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+public class Candle {
+
+    private final CandleResolution resolution;
+    private final long start;
+
+    private final float open;
+    private final float high;
+    private final float low;
+    private final float close;
+    private final int volume;
+
+    public Candle(CandleResolution resolution, long start, float open, float high, float low, float close, int volume) {
+        this.resolution = resolution;
+        this.start = start;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+
+    public CandleResolution getResolution() { return resolution; }
+
+    // Epoch second in which the candle starts.
+    public long getStart() { return start; }
+
+    public LocalDateTime getLocalDateTime() { return LocalDateTime.ofInstant(java.time.Instant.ofEpochSecond(start), ZoneId.systemDefault()); }
+
+    public float getOpen() { return open; }
+
+    public float getHigh() { return high; }
+
+    public float getLow() { return low; }
+
+    public float getClose() { return close; }
+
+    public int getVolume() { return volume; }
+
+}
@@ -0,0 +1,74 @@
+package me.bounser.nascraft.market.unit.stats;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+public enum CandleResolution {
+
+    // Length in seconds, candles kept in memory, days kept in the database (-1 to keep them all).
+    MINUTE(60, 120, 1),
+    FIVE_MINUTES(300, 288, 7),
+    HOUR(3600, 168, 60),
+    FOUR_HOURS(14400, 180, 365),
+    DAY(86400, 400, -1);
+
+    private final int seconds;
+    private final int retained;
+    private final int daysStored;
+
+    // Candle the last second asked for fell in, so the time zone is only looked at once per candle.
+    private volatile Window current = new Window(0, 0);
+
+    CandleResolution(int seconds, int retained, int daysStored) {
+        this.seconds = seconds;
+        this.retained = retained;
+        this.daysStored = daysStored;
+    }
+
+    public int getSeconds() { return seconds; }
+
+    public int getRetained() { return retained; }
+
+    public int getDaysStored() { return daysStored; }
+
+    // Start of the candle that contains the given second. Candles start on the clock of the server time zone,
+    // like the days everywhere else in the plugin, so an hour can start at half past in UTC and a day is the
+    // local one, 23 or 25 hours long when the clocks change.
+    public long getStart(long epochSecond) {
+
+        Window last = current;
+        if (epochSecond >= last.start && epochSecond < last.end) return last.start;
+
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), zone);
+        LocalDateTime start;
+        LocalDateTime end;
+
+        switch (this) {
+            case MINUTE: start = time.truncatedTo(ChronoUnit.MINUTES); end = start.plusMinutes(1); break;
+            case FIVE_MINUTES: start = time.truncatedTo(ChronoUnit.MINUTES).minusMinutes(time.getMinute() % 5); end = start.plusMinutes(5); break;
+            case HOUR: start = time.truncatedTo(ChronoUnit.HOURS); end = start.plusHours(1); break;
+            case FOUR_HOURS: start = time.truncatedTo(ChronoUnit.HOURS).withHour(time.getHour() / 4 * 4); end = start.plusHours(4); break;
+            default: start = time.truncatedTo(ChronoUnit.DAYS); end = start.plusDays(1); break;
+        }
+
+        Window window = new Window(start.atZone(zone).toEpochSecond(), end.atZone(zone).toEpochSecond());
+        current = window;
+
+        return window.start;
+    }
+
+    private static final class Window {
+
+        private final long start;
+        private final long end;
+
+        private Window(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+}
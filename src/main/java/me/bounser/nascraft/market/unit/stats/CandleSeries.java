@@ -0,0 +1,152 @@
+package me.bounser.nascraft.market.unit.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Last candles of one resolution, kept column by column in a ring so updating them doesn't allocate.
+public class CandleSeries {
+
+    private final CandleResolution resolution;
+
+    private final long[] starts;
+    private final float[] opens;
+    private final float[] highs;
+    private final float[] lows;
+    private final float[] closes;
+    private final int[] volumes;
+
+    // Position of the current candle and amount of candles stored.
+    private int head = -1;
+    private int size = 0;
+
+    // Start of the oldest candle changed since the last time they were collected to be saved.
+    private long unsavedFrom = Long.MAX_VALUE;
+
+    public CandleSeries(CandleResolution resolution) {
+        this.resolution = resolution;
+
+        int capacity = resolution.getRetained();
+        starts = new long[capacity];
+        opens = new float[capacity];
+        highs = new float[capacity];
+        lows = new float[capacity];
+        closes = new float[capacity];
+        volumes = new int[capacity];
+    }
+
+    public void addPrice(long epochSecond, float price) {
+
+        long start = resolution.getStart(epochSecond);
+
+        if (size == 0 || start > starts[head]) {
+            open(start, size == 0 ? price : closes[head]);
+        } else if (start < starts[head]) {
+            return;
+        }
+
+        if (price > highs[head]) highs[head] = price;
+        if (price < lows[head]) lows[head] = price;
+        closes[head] = price;
+
+        unsavedFrom = Math.min(unsavedFrom, starts[head]);
+    }
+
+    public void addVolume(long epochSecond, int volume) {
+
+        if (size == 0) return;
+
+        long start = resolution.getStart(epochSecond);
+
+        if (start > starts[head]) {
+            open(start, closes[head]);
+        } else if (start < starts[head]) {
+            return;
+        }
+
+        volumes[head] += volume;
+
+        unsavedFrom = Math.min(unsavedFrom, starts[head]);
+    }
+
+    // A new candle opens at the close of the previous one.
+    private void open(long start, float price) {
+        head = (head + 1) % starts.length;
+        if (size < starts.length) size++;
+
+        starts[head] = start;
+        opens[head] = price;
+        highs[head] = price;
+        lows[head] = price;
+        closes[head] = price;
+        volumes[head] = 0;
+    }
+
+    // Puts candles read from the database before the ones made since the server started.
+    // A stored candle with the same start as one in memory is combined with it.
+    public void load(List<Candle> stored) {
+
+        List<Candle> recent = getCandles(size);
+
+        head = -1;
+        size = 0;
+
+        for (Candle candle : stored) put(candle);
+        for (Candle candle : recent) put(candle);
+    }
+
+    private void put(Candle candle) {
+
+        if (size > 0 && candle.getStart() < starts[head]) return;
+
+        if (size > 0 && candle.getStart() == starts[head]) {
+            highs[head] = Math.max(highs[head], candle.getHigh());
+            lows[head] = Math.min(lows[head], candle.getLow());
+            closes[head] = candle.getClose();
+            volumes[head] += candle.getVolume();
+            return;
+        }
+
+        open(candle.getStart(), candle.getOpen());
+        highs[head] = candle.getHigh();
+        lows[head] = candle.getLow();
+        closes[head] = candle.getClose();
+        volumes[head] = candle.getVolume();
+    }
+
+    // Last candles, from the oldest to the current one.
+    public List<Candle> getCandles(int count) {
+
+        count = Math.min(count, size);
+
+        List<Candle> candles = new ArrayList<>(count);
+
+        for (int i = count - 1; i >= 0; i--) candles.add(get(i));
+
+        return candles;
+    }
+
+    // Candles changed since the previous call, from the oldest to the current one.
+    public List<Candle> collectUnsaved() {
+
+        List<Candle> candles = new ArrayList<>();
+
+        for (int i = 0; i < size && starts[index(i)] >= unsavedFrom; i++) candles.add(0, get(i));
+
+        unsavedFrom = Long.MAX_VALUE;
+
+        return candles;
+    }
+
+    public void markUnsaved(long start) { unsavedFrom = Math.min(unsavedFrom, start); }
+
+    public int size() { return size; }
+
+    // Candle counting back from the current one, 0 being the current.
+    private Candle get(int back) {
+        int i = index(back);
+        return new Candle(resolution, starts[i], opens[i], highs[i], lows[i], closes[i], volumes[i]);
+    }
+
+    private int index(int back) { return Math.floorMod(head - back, starts.length); }
+
+}
@@ -0,0 +1,120 @@
+package me.bounser.nascraft.market.unit.stats;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+
+// Open, high, low, close and volume of an item at every resolution, updated as the price and volume change.
+public class ItemCandles {
+
+    private final EnumMap<CandleResolution, CandleSeries> series = new EnumMap<>(CandleResolution.class);
+
+    // Candles aren't saved until the stored ones are loaded, otherwise a partial candle would replace a stored one.
+    private boolean loaded = false;
+
+    public ItemCandles() {
+        for (CandleResolution resolution : CandleResolution.values())
+            series.put(resolution, new CandleSeries(resolution));
+    }
+
+    public synchronized void addPrice(double price) {
+        long now = System.currentTimeMillis() / 1000;
+        for (CandleSeries candles : series.values()) candles.addPrice(now, (float) price);
+    }
+
+    public synchronized void addVolume(int volume) {
+        long now = System.currentTimeMillis() / 1000;
+        for (CandleSeries candles : series.values()) candles.addVolume(now, volume);
+    }
+
+    public synchronized void load(CandleResolution resolution, List<Candle> stored) {
+        series.get(resolution).load(stored);
+    }
+
+    public synchronized void setLoaded() { loaded = true; }
+
+    public synchronized List<Candle> getCandles(CandleResolution resolution, int count) {
+        return series.get(resolution).getCandles(count);
+    }
+
+    // Candle in progress of every resolution that has one. The ones before it don't change anymore.
+    public synchronized EnumMap<CandleResolution, Candle> getCurrentCandles() {
+
+        EnumMap<CandleResolution, Candle> current = new EnumMap<>(CandleResolution.class);
+
+        for (CandleResolution resolution : CandleResolution.values()) {
+            List<Candle> last = series.get(resolution).getCandles(1);
+            if (!last.isEmpty()) current.put(resolution, last.get(0));
+        }
+
+        return current;
+    }
+
+    // Percentage of change from the start of the last periods to the current value.
+    public synchronized double getChange(CandleResolution resolution, int periods, double current) {
+
+        List<Candle> last = series.get(resolution).getCandles(periods + 1);
+        if (last.isEmpty()) return 0;
+
+        long from = System.currentTimeMillis() / 1000 - (long) periods * resolution.getSeconds();
+
+        // Close of the candle the period starts in, or the first value known if the candles don't go that far.
+        double base = last.get(0).getOpen();
+        for (Candle candle : last) if (candle.getStart() <= from) base = candle.getClose();
+
+        return base == 0 ? 0 : 100 * (current / base - 1);
+    }
+
+    public synchronized long getVolume(CandleResolution resolution, int periods) {
+
+        long from = System.currentTimeMillis() / 1000 - (long) periods * resolution.getSeconds();
+        long volume = 0;
+
+        for (Candle candle : series.get(resolution).getCandles(periods + 1))
+            if (candle.getStart() + resolution.getSeconds() > from) volume += candle.getVolume();
+
+        return volume;
+    }
+
+    public synchronized List<Candle> collectUnsaved() {
+
+        List<Candle> candles = new ArrayList<>();
+
+        if (!loaded) return candles;
+
+        for (CandleSeries resolutionSeries : series.values()) candles.addAll(resolutionSeries.collectUnsaved());
+
+        return candles;
+    }
+
+    // Used when saving the collected candles failed.
+    public synchronized void markUnsaved(List<Candle> candles) {
+        for (Candle candle : candles) series.get(candle.getResolution()).markUnsaved(candle.getStart());
+    }
+
+    // Closing prices as chart points, with the same leading and trailing points the charts get from the database.
+    // Returns null if the candles don't cover the whole period yet.
+    public synchronized List<Instant> getInstants(CandleResolution resolution, int count, double currentValue, int currentVolume) {
+
+        CandleSeries candles = series.get(resolution);
+
+        long periodStart = System.currentTimeMillis() / 1000 - (long) count * resolution.getSeconds();
+
+        List<Candle> last = candles.getCandles(count);
+        if (last.isEmpty() || last.get(0).getStart() > periodStart + resolution.getSeconds()) return null;
+
+        List<Instant> instants = new ArrayList<>();
+
+        instants.add(new Instant(LocalDateTime.now().minusSeconds((long) count * resolution.getSeconds()), 0, 0));
+
+        for (Candle candle : last)
+            if (candle.getStart() >= periodStart)
+                instants.add(new Instant(candle.getLocalDateTime(), candle.getClose(), candle.getVolume()));
+
+        instants.add(new Instant(LocalDateTime.now(), currentValue, currentVolume));
+
+        return instants;
+    }
+
+}
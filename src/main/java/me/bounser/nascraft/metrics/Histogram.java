@@ -0,0 +1,86 @@
+package me.bounser.nascraft.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Durations in nanoseconds counted in buckets of 1/8 of a power of two, so percentiles are within 12.5%
+// whatever the magnitude of the durations. Can be recorded from any thread without locking.
+public class Histogram {
+
+    private static final int SUB_BUCKETS = 8;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+
+        if (nanos < 0) nanos = 0;
+
+        counts.incrementAndGet(bucket(nanos));
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    private static int bucket(long nanos) {
+
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+
+        return (exponent - 2) * SUB_BUCKETS + sub;
+    }
+
+    // Largest duration that falls in the bucket.
+    private static long upperBound(int bucket) {
+
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        int exponent = bucket / SUB_BUCKETS + 2;
+        long sub = bucket % SUB_BUCKETS;
+
+        return ((SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) count += counts.get(i);
+        return count;
+    }
+
+    public long getTotal() { return total.sum(); }
+
+    public long getMax() { return max.get(); }
+
+    public long getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : getTotal() / count;
+    }
+
+    // Percentile between 0 and 1.
+    public long getPercentile(double percentile) {
+
+        long count = getCount();
+        if (count == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(count * percentile));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(upperBound(i), getMax());
+        }
+
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+        total.reset();
+        max.reset();
+    }
+
+}
@@ -0,0 +1,168 @@
+package me.bounser.nascraft.metrics;
+
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Timings, counters and gauges of the plugin, each identified by a group and a name inside it,
+// like ("db", "saveTrade") or ("job", "noise"). Counters and gauges of other classes are registered
+// as suppliers, so they are only read when shown or written.
+public class Metrics {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static Metrics instance;
+
+    public static Metrics getInstance() { return instance == null ? instance = new Metrics() : instance; }
+
+    private final boolean enabled;
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Histogram>> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> adders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LongSupplier>> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, DoubleSupplier>> gauges = new ConcurrentHashMap<>();
+
+    private volatile long since = System.currentTimeMillis();
+
+    private Metrics() { enabled = Config.getInstance().getMetricsEnabled(); }
+
+    public boolean isEnabled() { return enabled; }
+
+    // Time (in milliseconds) of the start of the recording or of the last reset.
+    public long getSince() { return since; }
+
+    public void record(String group, String name, long nanos) {
+        if (!enabled) return;
+        timers.computeIfAbsent(group, k -> new ConcurrentHashMap<>()).computeIfAbsent(name, k -> new Histogram()).record(nanos);
+    }
+
+    // Records the time passed since start, taken from System.nanoTime().
+    public void stop(String group, String name, long start) { record(group, name, System.nanoTime() - start); }
+
+    public <T> T time(String group, String name, Supplier<T> task) {
+
+        if (!enabled) return task.get();
+
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            stop(group, name, start);
+        }
+    }
+
+    public void increment(String group, String name) { add(group, name, 1); }
+
+    public void add(String group, String name, long amount) {
+        if (!enabled) return;
+        adders.computeIfAbsent(group, k -> new ConcurrentHashMap<>()).computeIfAbsent(name, k -> {
+            LongAdder adder = new LongAdder();
+            registerCounter(group, name, adder::sum);
+            return adder;
+        }).add(amount);
+    }
+
+    // Value that only goes up, kept by another class.
+    public void registerCounter(String group, String name, LongSupplier counter) {
+        counters.computeIfAbsent(group, k -> new ConcurrentHashMap<>()).put(name, counter);
+    }
+
+    public void registerGauge(String group, String name, DoubleSupplier gauge) {
+        gauges.computeIfAbsent(group, k -> new ConcurrentHashMap<>()).put(name, gauge);
+    }
+
+    public Map<String, Map<String, Histogram>> getTimers() { return sorted(timers); }
+
+    public Map<String, Map<String, LongSupplier>> getCounters() { return sorted(counters); }
+
+    public Map<String, Map<String, DoubleSupplier>> getGauges() { return sorted(gauges); }
+
+    private static <T> Map<String, Map<String, T>> sorted(ConcurrentHashMap<String, ConcurrentHashMap<String, T>> metrics) {
+        TreeMap<String, Map<String, T>> copy = new TreeMap<>();
+        metrics.forEach((group, names) -> copy.put(group, Collections.unmodifiableMap(new TreeMap<>(names))));
+        return copy;
+    }
+
+    // Clears the timings and the counters kept here. Counters of other classes keep their values.
+    public void reset() {
+        timers.values().forEach(names -> names.values().forEach(Histogram::reset));
+        adders.values().forEach(names -> names.values().forEach(LongAdder::reset));
+        since = System.currentTimeMillis();
+    }
+
+    // Everything in the text format read by Prometheus. Timings are written as summaries in seconds.
+    public String toPrometheus() {
+
+        StringBuilder text = new StringBuilder();
+
+        getTimers().forEach((group, names) -> {
+            String metric = metricName(group) + "_seconds";
+            text.append("# TYPE ").append(metric).append(" summary\n");
+            names.forEach((name, histogram) -> {
+                for (double quantile : QUANTILES)
+                    text.append(metric).append("{name=\"").append(escape(name)).append("\",quantile=\"").append(quantile).append("\"} ")
+                            .append(seconds(histogram.getPercentile(quantile))).append('\n');
+                text.append(metric).append("_sum").append(label(name)).append(seconds(histogram.getTotal())).append('\n');
+                text.append(metric).append("_count").append(label(name)).append(histogram.getCount()).append('\n');
+            });
+        });
+
+        getCounters().forEach((group, names) -> {
+            String metric = metricName(group) + "_total";
+            text.append("# TYPE ").append(metric).append(" counter\n");
+            names.forEach((name, counter) -> text.append(metric).append(label(name)).append(counter.getAsLong()).append('\n'));
+        });
+
+        getGauges().forEach((group, names) -> {
+            String metric = metricName(group);
+            text.append("# TYPE ").append(metric).append(" gauge\n");
+            names.forEach((name, gauge) -> text.append(metric).append(label(name)).append(String.format(Locale.ROOT, "%f", gauge.getAsDouble())).append('\n'));
+        });
+
+        return text.toString();
+    }
+
+    // The file is replaced at once, so it is never read half written.
+    public void writePrometheus(File file) {
+
+        File temporary = new File(file.getPath() + ".tmp");
+
+        try {
+            file.getParentFile().mkdirs();
+            Files.write(temporary.toPath(), toPrometheus().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Nascraft.getInstance().getLogger().warning("Unable to write the metrics to " + file.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    public static File getPrometheusFile() { return new File(Nascraft.getInstance().getDataFolder(), "data/metrics.prom"); }
+
+    private static String metricName(String group) {
+        return "nascraft_" + group.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]", "_");
+    }
+
+    private static String label(String name) { return "{name=\"" + escape(name) + "\"} "; }
+
+    // Label value in the text format of Prometheus.
+    public static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String seconds(long nanos) { return String.format(Locale.ROOT, "%.9f", nanos / 1e9); }
+
+}
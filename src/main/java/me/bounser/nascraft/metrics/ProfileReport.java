@@ -0,0 +1,99 @@
+package me.bounser.nascraft.metrics;
+
+import me.bounser.nascraft.managers.MarketScheduler;
+import me.bounser.nascraft.managers.ScheduledJob;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// Lines shown by /nascraft profile.
+public class ProfileReport {
+
+    private static class Timer {
+
+        private final String name;
+        private final Histogram histogram;
+
+        private Timer(String name, Histogram histogram) {
+            this.name = name;
+            this.histogram = histogram;
+        }
+    }
+
+    // The timings that took the most time in total.
+    public static List<String> getTimings(int top) {
+
+        List<Timer> timers = new ArrayList<>();
+
+        Metrics.getInstance().getTimers().forEach((group, names) ->
+                names.forEach((name, histogram) -> {
+                    if (histogram.getCount() > 0) timers.add(new Timer(group + " " + name, histogram));
+                }));
+
+        timers.sort(Comparator.comparingLong((Timer timer) -> timer.histogram.getTotal()).reversed());
+
+        long minutes = (System.currentTimeMillis() - Metrics.getInstance().getSince()) / 60000;
+
+        List<String> lines = new ArrayList<>();
+        lines.add("Top " + Math.min(top, timers.size()) + " of " + timers.size() + " timings of the last " + minutes + " minutes, by total time:");
+
+        for (Timer timer : timers.subList(0, Math.min(top, timers.size()))) {
+            Histogram histogram = timer.histogram;
+            lines.add(String.format(Locale.ROOT, "%s: %s total, %d calls, mean %s, p99 %s, max %s",
+                    timer.name,
+                    format(histogram.getTotal()),
+                    histogram.getCount(),
+                    format(histogram.getMean()),
+                    format(histogram.getPercentile(0.99)),
+                    format(histogram.getMax())));
+        }
+
+        return lines;
+    }
+
+    public static List<String> getJobs() {
+
+        List<ScheduledJob> jobs = MarketScheduler.getInstance().getJobs();
+        jobs.sort(Comparator.comparingLong(ScheduledJob::getLastDuration).reversed());
+
+        List<String> lines = new ArrayList<>();
+        lines.add(jobs.size() + " scheduled jobs, " + MarketScheduler.getInstance().getQueued() + " waiting for a thread:");
+
+        for (ScheduledJob job : jobs)
+            lines.add(String.format(Locale.ROOT, "%s (every %ds%s): last %s, %d runs, %d overruns, next in %ds",
+                    job.getName(),
+                    job.getPeriod(),
+                    job.isMainThread() ? ", server thread" : job.isSweep() ? ", sweep" : "",
+                    format(job.getLastDuration()),
+                    job.getRuns(),
+                    job.getOverruns(),
+                    Math.max(0, job.getNextFire() - MarketScheduler.now())));
+
+        return lines;
+    }
+
+    public static List<String> getCounters() {
+
+        List<String> lines = new ArrayList<>();
+
+        Metrics.getInstance().getCounters().forEach((group, names) ->
+                names.forEach((name, counter) -> lines.add(group + " " + name + ": " + counter.getAsLong())));
+
+        Metrics.getInstance().getGauges().forEach((group, names) ->
+                names.forEach((name, gauge) -> lines.add(String.format(Locale.ROOT, "%s %s: %.2f", group, name, gauge.getAsDouble()))));
+
+        if (lines.isEmpty()) lines.add("Nothing counted yet.");
+
+        return lines;
+    }
+
+    private static String format(long nanos) {
+        if (nanos < 1_000) return nanos + "ns";
+        if (nanos < 1_000_000) return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        if (nanos < 1_000_000_000) return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+        return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+    }
+
+}
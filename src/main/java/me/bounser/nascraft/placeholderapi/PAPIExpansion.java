@@ -9,7 +9,9 @@ import me.bounser.nascraft.formatter.Formatter;
 import me.bounser.nascraft.managers.DebtManager;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
 import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.ConsumerPriceIndex;
 import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.resources.Category;
 import me.bounser.nascraft.formatter.RoundUtils;
 import me.bounser.nascraft.portfolio.Portfolio;
 import me.bounser.nascraft.portfolio.PortfoliosManager;
@@ -23,7 +25,6 @@ import java.util.List;
 
 public class PAPIExpansion extends PlaceholderExpansion {
 
-    private String cpi;
     private String cpiMonth;
     private String cpiWeek;
 
@@ -53,13 +54,40 @@ public class PAPIExpansion extends PlaceholderExpansion {
         switch (dividedParams[0].toLowerCase()) {
 
             case "cpi":
+                return String.valueOf(Math.round((MarketManager.getInstance().getConsumerPriceIndex()-100)*100.0)/100.0);
 
-                if (cpi == null) {
+            case "cpiweighted":
+                return String.valueOf(Math.round((ConsumerPriceIndex.getInstance().getVolumeWeightedIndex()-100)*100.0)/100.0);
 
-                    Bukkit.getScheduler().runTaskLaterAsynchronously(Nascraft.getInstance(), () -> cpi = null, 200);
-                    return cpi = String.valueOf(Math.round((MarketManager.getInstance().getConsumerPriceIndex()-100)*100.0)/100.0);
+            case "cpicategory":
 
-                } else return cpi;
+                if (dividedParams.length != 2) return "Invalid format.";
+
+                Category category = MarketManager.getInstance().getCategoryFromIdentifier(dividedParams[1]);
+
+                if (category == null) return "Invalid category.";
+
+                return String.valueOf(Math.round((ConsumerPriceIndex.getInstance().getCategoryIndex(category)-100)*100.0)/100.0);
+
+            case "categorychange1h":
+            case "categorychange24h":
+            case "categoryvolume":
+            case "categoryvolatility":
+
+                if (dividedParams.length != 2) return "Invalid format.";
+
+                Category statsCategory = MarketManager.getInstance().getCategoryFromIdentifier(dividedParams[1]);
+
+                if (statsCategory == null) return "Invalid category.";
+
+                ConsumerPriceIndex cpi = ConsumerPriceIndex.getInstance();
+
+                switch (dividedParams[0].toLowerCase()) {
+                    case "categorychange1h": return String.valueOf(Math.round(cpi.getCategoryChange1h(statsCategory)*100.0)/100.0);
+                    case "categorychange24h": return String.valueOf(Math.round(cpi.getCategoryChange24h(statsCategory)*100.0)/100.0);
+                    case "categoryvolume": return String.valueOf(cpi.getCategoryVolume24h(statsCategory));
+                    default: return String.valueOf(Math.round(cpi.getCategoryVolatility(statsCategory)*100.0)/100.0);
+                }
 
             case "cpimonth":
 
@@ -102,9 +130,9 @@ public class PAPIExpansion extends PlaceholderExpansion {
 
             case "portfoliovalue":
 
-                Portfolio portfolio = PortfoliosManager.getInstance().getPortfolio(player.getUniqueId());
+                Portfolio portfolio = PortfoliosManager.getInstance().getLoadedPortfolio(player.getUniqueId());
                 if (portfolio == null) return "0";
-                Double value = PortfoliosManager.getInstance().getPortfolio(player.getUniqueId()).getInventoryValuePerCurrency().get(CurrenciesManager.getInstance().getDefaultCurrency());
+                Double value = portfolio.getInventoryValuePerCurrency().get(CurrenciesManager.getInstance().getDefaultCurrency());
                 if (value == null) return "0";
                 return String.valueOf(Formatter.roundToDecimals(value, CurrenciesManager.getInstance().getDefaultCurrency().getDecimalPrecission()));
 
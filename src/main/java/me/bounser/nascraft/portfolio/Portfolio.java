@@ -66,6 +66,8 @@ public class Portfolio {
             if (inventory.get(item) <= 0) {
                 inventory.remove(item);
                 DatabaseManager.get().getDatabase().removeItemPortfolio(uuid, item);
+            } else {
+                DatabaseManager.get().getDatabase().updateItemPortfolio(uuid, item, inventory.get(item));
             }
 
             DatabaseManager.get().getDatabase().logWithdraw(uuid, item, amount);
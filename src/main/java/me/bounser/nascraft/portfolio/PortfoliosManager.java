@@ -1,59 +1,163 @@
 package me.bounser.nascraft.portfolio;
 
+import me.bounser.nascraft.Nascraft;
 import me.bounser.nascraft.database.DatabaseManager;
 import me.bounser.nascraft.discord.linking.LinkManager;
 import me.bounser.nascraft.managers.DebtManager;
 import me.bounser.nascraft.managers.currencies.CurrenciesManager;
+import me.bounser.nascraft.metrics.Metrics;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 public class PortfoliosManager {
 
+    private static final int MAX_SIZE = 500;
+    private static final long MAX_IDLE_MILLIS = 30 * 60 * 1000;
 
-    private final HashMap<UUID, Portfolio> inventories = new HashMap<>();
+    // A future per portfolio so concurrent requests for the same player share a single load.
+    private final ConcurrentHashMap<UUID, CompletableFuture<Portfolio>> portfolios = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Long> lastAccess = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
 
     private static PortfoliosManager instance;
 
     public static PortfoliosManager getInstance() { return instance == null ? instance = new PortfoliosManager() : instance; }
 
-    public Portfolio getPortfolio(UUID uuid) {
+    private PortfoliosManager() {
+        Metrics.getInstance().registerCounter("portfolio_cache", "hits", hits::get);
+        Metrics.getInstance().registerCounter("portfolio_cache", "misses", misses::get);
+        Metrics.getInstance().registerCounter("portfolio_cache", "evictions", evictions::get);
+        Metrics.getInstance().registerGauge("portfolio_cache", "size", this::getSize);
+        Metrics.getInstance().registerGauge("portfolio_cache", "hit_ratio", () -> {
+            long requests = hits.get() + misses.get();
+            return requests == 0 ? 0 : (double) hits.get() / requests;
+        });
+    }
 
-        if (inventories.containsKey(uuid)) return inventories.get(uuid);
+    // Waits for the portfolio if it isn't loaded yet. On the main thread use getLoadedPortfolio or
+    // whenLoaded instead, unless the portfolio is already known to be loaded (its owner is online).
+    public Portfolio getPortfolio(UUID uuid) {
 
-        inventories.put(uuid, new Portfolio(uuid));
+        if (uuid == null) return null;
 
-        return inventories.get(uuid);
+        return getFuture(uuid).join();
     }
 
     public Portfolio getPortfolio(String userid) {
+        return getPortfolio(LinkManager.getInstance().getUUID(userid));
+    }
+
+    // The portfolio if it is already loaded, or null while it loads in the background. Never blocks.
+    public Portfolio getLoadedPortfolio(UUID uuid) {
+
+        if (uuid == null) return null;
+
+        CompletableFuture<Portfolio> future = getFuture(uuid);
+
+        return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    // Runs the task on the main thread with the portfolio once it is loaded; right away if it already is
+    // and this is the main thread.
+    public void whenLoaded(UUID uuid, Consumer<Portfolio> task) {
+
+        CompletableFuture<Portfolio> future = getFuture(uuid);
+
+        if (future.isDone() && !future.isCompletedExceptionally() && Bukkit.isPrimaryThread()) {
+            task.accept(future.join());
+            return;
+        }
+
+        future.thenAccept(portfolio -> Bukkit.getScheduler().runTask(Nascraft.getInstance(), () -> task.accept(portfolio)));
+    }
+
+    // Starts loading the portfolio in the background so it is ready when first needed.
+    public void prefetch(UUID uuid) { getFuture(uuid); }
+
+    private CompletableFuture<Portfolio> getFuture(UUID uuid) {
 
-        UUID uuid = LinkManager.getInstance().getUUID(userid);
+        lastAccess.put(uuid, System.currentTimeMillis());
 
-        if (inventories.containsKey(uuid)) return inventories.get(uuid);
+        CompletableFuture<Portfolio> future = portfolios.get(uuid);
 
-        inventories.put(uuid, new Portfolio(uuid));
+        if (future != null) {
+            hits.incrementAndGet();
+            return future;
+        }
+
+        CompletableFuture<Portfolio> created = new CompletableFuture<>();
+        future = portfolios.putIfAbsent(uuid, created);
+
+        if (future != null) return future;
+
+        misses.incrementAndGet();
+
+        Bukkit.getScheduler().runTaskAsynchronously(Nascraft.getInstance(), () -> load(uuid, created));
+
+        if (portfolios.size() > MAX_SIZE) evictIdle();
+
+        return created;
+    }
+
+    private void load(UUID uuid, CompletableFuture<Portfolio> future) {
+        try {
+            future.complete(new Portfolio(uuid));
+        } catch (RuntimeException e) {
+            portfolios.remove(uuid, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    // Every change of a portfolio is written to the database when made, so evicting it loses nothing.
+    // Players that are online again (they quit and rejoined before this ran) keep their portfolio.
+    public void evict(UUID uuid) {
 
-        return inventories.get(uuid);
+        if (Bukkit.getPlayer(uuid) != null) return;
+
+        if (portfolios.remove(uuid) != null) evictions.incrementAndGet();
+        lastAccess.remove(uuid);
     }
 
-    public void savePortfoliosWorthOfOnlinePlayers() {
+    public void evictIdle() {
+
+        long now = System.currentTimeMillis();
 
-        for (Player player : Bukkit.getOnlinePlayers()) {
+        List<UUID> candidates = new ArrayList<>();
 
-            if (player == null) continue;
+        for (UUID uuid : portfolios.keySet())
+            if (Bukkit.getPlayer(uuid) == null) candidates.add(uuid);
 
-            double worth = getPortfolio(player.getUniqueId()).getValueOfDefaultCurrency() - DebtManager.getInstance().getDebtOfPlayer(player.getUniqueId());
-            double debt = DebtManager.getInstance().getDebtOfPlayer(player.getUniqueId());
+        candidates.sort(Comparator.comparingLong(uuid -> lastAccess.getOrDefault(uuid, 0L)));
 
-            if (worth == 0) continue;
+        int excess = portfolios.size() - MAX_SIZE;
 
-            DatabaseManager.get().getDatabase().saveOrUpdateWorthToday(player.getUniqueId(), worth - debt);
+        for (UUID uuid : candidates) {
+            if (excess <= 0 && now - lastAccess.getOrDefault(uuid, 0L) < MAX_IDLE_MILLIS) break;
+            evict(uuid);
+            excess--;
         }
     }
 
+    public long getHits() { return hits.get(); }
+
+    public long getMisses() { return misses.get(); }
+
+    public long getEvictions() { return evictions.get(); }
+
+    public int getSize() { return portfolios.size(); }
+
     public void savePortfolioOfPlayer(Player player) {
         if (player == null) return;
 
@@ -0,0 +1,99 @@
+package me.bounser.nascraft.sellwand;
+
+import me.bounser.nascraft.managers.currencies.Currency;
+import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.unit.Item;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.HashMap;
+import java.util.List;
+
+public class ContainerSnapshot {
+
+    private final ItemStack[] contents;
+
+    // Slot -> Item recognized in that slot.
+    private final HashMap<Integer, Item> slots = new HashMap<>();
+
+    // Item -> Total amount across all the recognized slots.
+    private final HashMap<Item, Integer> amounts = new HashMap<>();
+
+    private ContainerSnapshot(ItemStack[] contents) {
+        this.contents = contents;
+    }
+
+    // Has to be taken in the main thread. Copies are made so the scan can safely run asynchronously.
+    public static ContainerSnapshot take(Inventory inventory) {
+
+        ItemStack[] original = inventory.getContents();
+        ItemStack[] copy = new ItemStack[original.length];
+
+        for (int i = 0; i < original.length; i++) {
+            ItemStack itemStack = original[i];
+            if (itemStack == null || itemStack.getType().equals(Material.AIR)) continue;
+            copy[i] = itemStack.clone();
+        }
+
+        return new ContainerSnapshot(copy);
+    }
+
+    public void aggregate(List<Currency> currencies) {
+
+        slots.clear();
+        amounts.clear();
+
+        for (int i = 0; i < contents.length; i++) {
+
+            ItemStack itemStack = contents[i];
+
+            if (itemStack == null) continue;
+
+            Item item = MarketManager.getInstance().getItem(itemStack);
+
+            if (item == null || !currencies.contains(item.getCurrency())) continue;
+
+            slots.put(i, item);
+            amounts.merge(item, itemStack.getAmount(), Integer::sum);
+        }
+    }
+
+    public HashMap<Currency, Double> quote() {
+
+        HashMap<Currency, Double> values = new HashMap<>();
+
+        for (Item item : amounts.keySet())
+            values.merge(item.getCurrency(), item.sellPrice(amounts.get(item)), Double::sum);
+
+        return values;
+    }
+
+    // Drops every slot that changed since the snapshot was taken. Has to be called from the main thread.
+    public void retainUnchanged(Inventory inventory) {
+
+        ItemStack[] current = inventory.getContents();
+
+        slots.entrySet().removeIf(entry -> {
+            int slot = entry.getKey();
+            ItemStack snapshot = contents[slot];
+            ItemStack now = slot < current.length ? current[slot] : null;
+            return now == null || now.getAmount() != snapshot.getAmount() || !now.isSimilar(snapshot);
+        });
+
+        amounts.clear();
+
+        for (int slot : slots.keySet())
+            amounts.merge(slots.get(slot), contents[slot].getAmount(), Integer::sum);
+    }
+
+    public void clearSlotsOf(Inventory inventory, Item item) {
+        for (int slot : slots.keySet())
+            if (slots.get(slot) == item) inventory.setItem(slot, null);
+    }
+
+    public HashMap<Item, Integer> getAmounts() { return amounts; }
+
+    public boolean isEmpty() { return amounts.isEmpty(); }
+
+}
@@ -21,6 +21,7 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
@@ -29,11 +30,17 @@ import org.bukkit.persistence.PersistentDataType;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
 
 public class WandListener implements Listener {
 
     private final HashMap<Wand, HashMap<Player, Instant>> onCooldown = new HashMap<>();
 
+    // Players with a container scan in progress.
+    private final Set<UUID> pending = new HashSet<>();
+
     public WandListener() {
         for (Wand wand : WandsManager.getInstance().getWands().values())
             onCooldown.put(wand, new HashMap<>());
@@ -93,196 +100,235 @@ public class WandListener implements Listener {
                 return;
             }
 
-            Inventory inventory = getInventory(event.getClickedBlock());
-
-            HashMap<Item, Float> valuableItems = new HashMap<>();
+            Player player = event.getPlayer();
 
-            // ESTIMATE
-            if (wand.getEstimateAction() != null && event.getAction().equals(wand.getEstimateAction())) {
+            if (pending.contains(player.getUniqueId())) return;
 
-                for (ItemStack itemStack : inventory.getContents()) {
+            Block block = event.getClickedBlock();
+            Inventory inventory = getInventory(block);
 
-                    if (itemStack == null) continue;
+            if (inventory == null) return;
 
-                    Item item = MarketManager.getInstance().getItem(itemStack);
+            // ESTIMATE
+            if (wand.getEstimateAction() != null && event.getAction().equals(wand.getEstimateAction())) {
 
-                    if (item == null || !wand.getCurrencies().contains(item.getCurrency())) continue;
+                ContainerSnapshot snapshot = ContainerSnapshot.take(inventory);
 
-                    Item parent = item.isParent() ? item : item.getParent();
+                pending.add(player.getUniqueId());
 
-                    if (valuableItems.containsKey(parent)) {
-                        valuableItems.put(parent, valuableItems.get(parent) + itemStack.getAmount() * item.getMultiplier());
-                    } else {
-                        valuableItems.put(parent, itemStack.getAmount() * item.getMultiplier());
+                Bukkit.getScheduler().runTaskAsynchronously(Nascraft.getInstance(), () -> {
+                    try {
+                        snapshot.aggregate(wand.getCurrencies());
+                    } finally {
+                        Bukkit.getScheduler().runTask(Nascraft.getInstance(), () -> {
+                            pending.remove(player.getUniqueId());
+                            if (player.isOnline()) sendEstimate(player, wand, snapshot.quote());
+                        });
                     }
-                }
+                });
 
-                HashMap<Currency, Double> values = new HashMap<>();
+                return;
+            }
 
-                for (Currency currency : wand.getCurrencies())
-                    values.put(currency, 0d);
+            ////////////////////////////////////////////////////////////////
 
-                for (Item item : valuableItems.keySet())
-                    values.put(item.getCurrency(), values.get(item.getCurrency()) + item.getPrice().getProjectedCost(valuableItems.get(item), item.getPrice().getSellTaxMultiplier()));
+            // SELL
+            if (wand.getSellAction() != null &&  event.getAction().equals(wand.getSellAction())) {
 
-                for (Currency currency : wand.getCurrencies())
-                    values.put(currency, values.get(currency) * wand.getMultiplier());
+                if (getUses(meta) == 0) {
+                    Lang.get().message(player, Message.SELLWAND_RAN_OUT);
+                    return;
+                }
 
-                String result = "";
+                float maxProfitLeft = getMaxProfitLeft(meta);
 
-                boolean empty = true;
-                for (Currency currency : wand.getCurrencies()) {
-                    if (values.get(currency) == 0) continue;
-                    empty = false;
-                    result += Formatter.format(currency, values.get(currency), Style.ROUND_BASIC) + "\n";
+                if (maxProfitLeft <= 0 && maxProfitLeft != -1) {
+                    Lang.get().message(player, Message.SELLWAND_TOO_MUCH);
+                    return;
                 }
 
-                if (empty)
-                    Lang.get().message(event.getPlayer(), Message.SELLWAND_NOTHING_TO_SELL);
-                else
-                    Lang.get().message(event.getPlayer(), Message.SELLWAND_ESTIMATED_VALUE, "[WORTH]", result);
+                ContainerSnapshot snapshot = ContainerSnapshot.take(inventory);
+                EquipmentSlot hand = event.getHand();
 
-                return;
+                pending.add(player.getUniqueId());
+
+                Bukkit.getScheduler().runTaskAsynchronously(Nascraft.getInstance(), () -> {
+                    try {
+                        snapshot.aggregate(wand.getCurrencies());
+                    } finally {
+                        Bukkit.getScheduler().runTask(Nascraft.getInstance(), () -> {
+                            pending.remove(player.getUniqueId());
+                            if (player.isOnline()) completeSale(player, hand, wand, block, snapshot);
+                        });
+                    }
+                });
             }
+        }
+    }
 
-            ////////////////////////////////////////////////////////////////
+    private void sendEstimate(Player player, Wand wand, HashMap<Currency, Double> values) {
 
-            // SELL
-            if (wand.getSellAction() != null &&  event.getAction().equals(wand.getSellAction())) {
+        String result = "";
 
-                NamespacedKey keyUses = new NamespacedKey(Nascraft.getInstance(), "wand-uses");
+        boolean empty = true;
+        for (Currency currency : wand.getCurrencies()) {
+            if (values.get(currency) == null || values.get(currency) == 0) continue;
+            empty = false;
+            result += Formatter.format(currency, values.get(currency) * wand.getMultiplier(), Style.ROUND_BASIC) + "\n";
+        }
 
-                int uses = -1;
+        if (empty)
+            Lang.get().message(player, Message.SELLWAND_NOTHING_TO_SELL);
+        else
+            Lang.get().message(player, Message.SELLWAND_ESTIMATED_VALUE, "[WORTH]", result);
+    }
 
-                if (meta.getPersistentDataContainer().has(keyUses)) {
+    private void completeSale(Player player, EquipmentSlot hand, Wand wand, Block block, ContainerSnapshot snapshot) {
 
-                    uses = meta.getPersistentDataContainer().get(keyUses, PersistentDataType.INTEGER);
+        Inventory inventory = getInventory(block);
 
-                    if (uses == 0) {
-                        Lang.get().message(event.getPlayer(), Message.SELLWAND_RAN_OUT);
-                        return;
-                    }
-                }
+        if (inventory == null) return;
 
-                NamespacedKey keyMaxProfit = new NamespacedKey(Nascraft.getInstance(), "wand-max-profit");
+        ItemStack wandItem = hand == null ? null : player.getInventory().getItem(hand);
 
-                float maxProfitLeft = -1;
+        if (wandItem == null || wandItem.getItemMeta() == null) return;
 
-                if (meta.getPersistentDataContainer().has(keyMaxProfit)) {
+        ItemMeta meta = wandItem.getItemMeta();
 
-                    maxProfitLeft = meta.getPersistentDataContainer().get(keyMaxProfit, PersistentDataType.FLOAT);
+        NamespacedKey keyType = new NamespacedKey(Nascraft.getInstance(), "wand-type");
 
-                    if (maxProfitLeft <= 0 && maxProfitLeft != -1) {
-                        Lang.get().message(event.getPlayer(), Message.SELLWAND_TOO_MUCH);
-                        return;
-                    }
-                }
+        if (!wand.getName().equals(meta.getPersistentDataContainer().get(keyType, PersistentDataType.STRING))) return;
 
-                float expected = getWorthOfInventory(inventory);
+        int uses = getUses(meta);
 
-                if (maxProfitLeft != -1 && maxProfitLeft < expected*wand.getMultiplier()) {
-                    Lang.get().message(event.getPlayer(), Message.SELLWAND_TOO_MUCH);
-                    return;
-                }
+        if (uses == 0) {
+            Lang.get().message(player, Message.SELLWAND_RAN_OUT);
+            return;
+        }
 
-                HashMap<Currency, Double> totalWorth = new HashMap<>();
+        float maxProfitLeft = getMaxProfitLeft(meta);
 
-                for (Currency currency : wand.getCurrencies())
-                    totalWorth.put(currency, 0d);
+        // Slots modified while the container was being scanned are left untouched.
+        snapshot.retainUnchanged(inventory);
 
-                for (ItemStack itemStack : inventory.getContents()) {
+        if (snapshot.isEmpty()) {
+            Lang.get().message(player, Message.SELLWAND_NOTHING_TO_SELL);
+            return;
+        }
 
-                    if (MarketManager.getInstance().isAValidItem(itemStack)) {
+        float expected = 0;
 
-                        Item item = MarketManager.getInstance().getItem(itemStack);
+        for (double value : snapshot.quote().values())
+            expected += value;
 
-                        if (!wand.getCurrencies().contains(item.getCurrency())) continue;
+        if (maxProfitLeft != -1 && maxProfitLeft < expected*wand.getMultiplier()) {
+            Lang.get().message(player, Message.SELLWAND_TOO_MUCH);
+            return;
+        }
 
-                        totalWorth.put(item.getCurrency(), totalWorth.get(item.getCurrency()) + item.sell(itemStack.getAmount(), event.getPlayer().getUniqueId(), false));
+        HashMap<Currency, Double> totalWorth = new HashMap<>();
+        HashMap<Currency, Double> weightedTaxes = new HashMap<>();
 
-                        itemStack.setAmount(0);
-                    }
-                }
+        HashMap<Item, Double> sold = MarketManager.getInstance().sellItems(snapshot.getAmounts(), player.getUniqueId(), false);
 
-                float total = 0;
+        for (Item item : sold.keySet()) {
 
-                for (Currency currency : totalWorth.keySet())
-                    total += totalWorth.get(currency);
+            double worth = sold.get(item);
 
-                if (total == 0) {
-                    Lang.get().message(event.getPlayer(), Message.SELLWAND_NOTHING_TO_SELL);
-                    return;
-                }
+            snapshot.clearSlotsOf(inventory, item);
 
-                if (uses != -1) {
-                    uses--;
-                    meta.getPersistentDataContainer().set(keyUses, PersistentDataType.INTEGER, uses);
-                }
+            totalWorth.merge(item.getCurrency(), worth, Double::sum);
+            weightedTaxes.merge(item.getCurrency(), worth * item.getPrice().getSellTaxMultiplier(), Double::sum);
+        }
 
-                if (maxProfitLeft != -1) {
-                    maxProfitLeft -= total;
-                    if (maxProfitLeft < 0) {
-                        Lang.get().message(event.getPlayer(), Message.SELLWAND_TOO_MUCH);
-                        return;
-                    }
-                    meta.getPersistentDataContainer().set(keyMaxProfit, PersistentDataType.FLOAT, maxProfitLeft);
-                }
+        float total = 0;
 
-                meta.setLore(wand.getLore(uses, maxProfitLeft));
+        for (Currency currency : totalWorth.keySet())
+            total += totalWorth.get(currency);
 
-                event.getItem().setItemMeta(meta);
+        if (total == 0) {
+            Lang.get().message(player, Message.SELLWAND_NOTHING_TO_SELL);
+            return;
+        }
 
-                if (wand.getMultiplier() != 1) {
+        for (Currency currency : totalWorth.keySet()) {
 
-                    for (Currency currency : totalWorth.keySet()) {
+            double worth = totalWorth.get(currency);
 
-                        if (totalWorth.get(currency) == 0) continue;
+            if (worth == 0) continue;
 
-                        double result = totalWorth.get(currency) * wand.getMultiplier() - totalWorth.get(currency);
+            MoneyManager.getInstance().deposit(player, currency, worth * wand.getMultiplier(), weightedTaxes.get(currency) / worth);
+        }
 
-                        if (result > 0) {
-                            MoneyManager.getInstance().deposit(event.getPlayer(), currency, result, 0);
-                        } else {
-                            MoneyManager.getInstance().withdraw(event.getPlayer(), currency, Math.abs(result), 0);
-                        }
-                    }
+        if (uses != -1) {
+            uses--;
+            meta.getPersistentDataContainer().set(new NamespacedKey(Nascraft.getInstance(), "wand-uses"), PersistentDataType.INTEGER, uses);
+        }
 
-                    Lang.get().message(event.getPlayer(), Message.SELLWAND_SOLD_WITH_MULTIPLIER);
+        if (maxProfitLeft != -1) {
+            maxProfitLeft = Math.max(0, maxProfitLeft - total);
+            meta.getPersistentDataContainer().set(new NamespacedKey(Nascraft.getInstance(), "wand-max-profit"), PersistentDataType.FLOAT, maxProfitLeft);
+        }
 
-                    for (Currency currency : totalWorth.keySet()) {
-                        if (totalWorth.get(currency) == 0) continue;
-                        Lang.get().message(event.getPlayer(), Message.SELLWAND_SOLD_WITH_MULTIPLIER_SEGMENT, "[INITIAL-WORTH]", Formatter.format(CurrenciesManager.getInstance().getDefaultCurrency(), totalWorth.get(currency), Style.ROUND_BASIC), "[MULTIPLIER]", String.valueOf(wand.getMultiplier()), "[WORTH]", Formatter.format(CurrenciesManager.getInstance().getVaultCurrency(), totalWorth.get(currency) * wand.getMultiplier(), Style.ROUND_BASIC));
-                    }
+        meta.setLore(wand.getLore(uses, maxProfitLeft));
 
-                } else {
+        wandItem.setItemMeta(meta);
+        player.getInventory().setItem(hand, wandItem);
 
-                    String result = "";
+        if (wand.getMultiplier() != 1) {
 
-                    for (Currency currency : totalWorth.keySet()) {
+            Lang.get().message(player, Message.SELLWAND_SOLD_WITH_MULTIPLIER);
 
-                        if (totalWorth.get(currency) == 0) continue;
+            for (Currency currency : totalWorth.keySet()) {
+                if (totalWorth.get(currency) == 0) continue;
+                Lang.get().message(player, Message.SELLWAND_SOLD_WITH_MULTIPLIER_SEGMENT, "[INITIAL-WORTH]", Formatter.format(CurrenciesManager.getInstance().getDefaultCurrency(), totalWorth.get(currency), Style.ROUND_BASIC), "[MULTIPLIER]", String.valueOf(wand.getMultiplier()), "[WORTH]", Formatter.format(CurrenciesManager.getInstance().getVaultCurrency(), totalWorth.get(currency) * wand.getMultiplier(), Style.ROUND_BASIC));
+            }
 
-                        result += Formatter.format(currency, totalWorth.get(currency), Style.ROUND_BASIC) + "\n";
-                    }
+        } else {
 
-                    Lang.get().message(event.getPlayer(), Message.SELLWAND_SOLD, "[WORTH]", result);
-                }
+            String result = "";
 
-                if (wand.getCooldown() > 0) {
-                    HashMap<Player, Instant> players = onCooldown.get(wand);
-                    players.put(event.getPlayer(), Instant.now());
-                    onCooldown.put(wand, players);
+            for (Currency currency : totalWorth.keySet()) {
 
-                    Bukkit.getScheduler().runTaskLaterAsynchronously(Nascraft.getInstance(), () -> {
-                        HashMap<Player, Instant> players1 = onCooldown.get(wand);
-                        players1.remove(event.getPlayer());
-                        onCooldown.put(wand, players1);
-                    }, 20L * wand.getCooldown());
-                }
+                if (totalWorth.get(currency) == 0) continue;
+
+                result += Formatter.format(currency, totalWorth.get(currency), Style.ROUND_BASIC) + "\n";
             }
+
+            Lang.get().message(player, Message.SELLWAND_SOLD, "[WORTH]", result);
+        }
+
+        if (wand.getCooldown() > 0) {
+            HashMap<Player, Instant> players = onCooldown.get(wand);
+            players.put(player, Instant.now());
+            onCooldown.put(wand, players);
+
+            Bukkit.getScheduler().runTaskLaterAsynchronously(Nascraft.getInstance(), () -> {
+                HashMap<Player, Instant> players1 = onCooldown.get(wand);
+                players1.remove(player);
+                onCooldown.put(wand, players1);
+            }, 20L * wand.getCooldown());
         }
     }
 
+    private int getUses(ItemMeta meta) {
+
+        NamespacedKey keyUses = new NamespacedKey(Nascraft.getInstance(), "wand-uses");
+
+        if (!meta.getPersistentDataContainer().has(keyUses)) return -1;
+
+        return meta.getPersistentDataContainer().get(keyUses, PersistentDataType.INTEGER);
+    }
+
+    private float getMaxProfitLeft(ItemMeta meta) {
+
+        NamespacedKey keyMaxProfit = new NamespacedKey(Nascraft.getInstance(), "wand-max-profit");
+
+        if (!meta.getPersistentDataContainer().has(keyMaxProfit)) return -1;
+
+        return meta.getPersistentDataContainer().get(keyMaxProfit, PersistentDataType.FLOAT);
+    }
+
     public Inventory getInventory(Block block) {
 
         Inventory inventory = null;
@@ -304,33 +350,4 @@ public class WandListener implements Listener {
         }
         return inventory;
     }
-
-    public float getWorthOfInventory(Inventory inventory) {
-
-        HashMap<Item, Float> content = new HashMap<>();
-
-        for (ItemStack itemStack : inventory.getContents()) {
-
-            if (itemStack == null) continue;
-
-            Item item = MarketManager.getInstance().getItem(itemStack);
-
-            if (item == null) continue;
-
-            Item parent = item.isParent() ? item : item.getParent();
-
-            if (content.containsKey(parent)) {
-                content.put(parent, content.get(parent) + itemStack.getAmount() * item.getMultiplier());
-            } else {
-                content.put(parent, itemStack.getAmount() * item.getMultiplier());
-            }
-        }
-
-        float worth = 0;
-
-        for (Item item : content.keySet())
-            worth += item.getPrice().getProjectedCost(content.get(item) * item.getMultiplier(), item.getPrice().getSellTaxMultiplier());
-
-        return worth;
-    }
 }
@@ -0,0 +1,151 @@
+package me.bounser.nascraft.web;
+
+import com.google.gson.JsonObject;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.Price;
+import me.bounser.nascraft.market.unit.stats.Candle;
+import me.bounser.nascraft.market.unit.stats.CandleResolution;
+import me.bounser.nascraft.market.unit.stats.ItemCandles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+
+// State of an item when the snapshot was taken. Never changes after that.
+public class ItemSnapshot {
+
+    private final String identifier;
+    private final String name;
+    private final String category;
+    private final String currency;
+
+    private final double value;
+    private final double buyPrice;
+    private final double sellPrice;
+
+    private final double change1h;
+    private final double change24h;
+
+    private final int stock;
+    private final int operations;
+    private final long volume24h;
+
+    // Quotes are worked out from the pricing of the item when the snapshot was taken.
+    private final float priceStock;
+    private final double initialValue;
+    private final float elasticity;
+    private final double upperStockThreshold;
+    private final double lowerStockThreshold;
+    private final float taxBuy;
+    private final float taxSell;
+    private final int precision;
+
+    // Only the candles in progress are copied, the ones before them don't change and are read when asked for.
+    private final ItemCandles liveCandles;
+    private final EnumMap<CandleResolution, Candle> currentCandles;
+
+    ItemSnapshot(Item item) {
+
+        identifier = item.getIdentifier();
+        name = item.getName();
+        category = item.getCategory() == null ? "" : item.getCategory().getIdentifier();
+        currency = item.getCurrency().getCurrencyIdentifier();
+
+        Price price = item.getPrice();
+
+        priceStock = price.getStock();
+        initialValue = price.getInitialValue();
+        elasticity = price.getElasticity();
+        upperStockThreshold = price.getUpperStockLimit();
+        lowerStockThreshold = price.getLowerStockThreshold();
+        taxBuy = price.getBuyTaxMultiplier();
+        taxSell = price.getSellTaxMultiplier();
+        precision = item.getCurrency().getDecimalPrecission();
+
+        value = price.getValue();
+        buyPrice = price.getBuyPrice();
+        sellPrice = price.getSellPrice();
+
+        ItemCandles candles = price.getCandles();
+
+        liveCandles = candles;
+        currentCandles = candles.getCurrentCandles();
+
+        change1h = candles.getChange(CandleResolution.MINUTE, 60, value);
+        change24h = candles.getChange(CandleResolution.HOUR, 24, value);
+        volume24h = candles.getVolume(CandleResolution.HOUR, 24);
+
+        stock = item.getStock();
+        operations = item.getOperations();
+    }
+
+    public String getIdentifier() { return identifier; }
+
+    public String getName() { return name; }
+
+    public String getCategory() { return category; }
+
+    public String getCurrency() { return currency; }
+
+    public double getValue() { return value; }
+
+    public double getBuyPrice() { return buyPrice; }
+
+    public double getSellPrice() { return sellPrice; }
+
+    public double getChange1h() { return change1h; }
+
+    public double getChange24h() { return change24h; }
+
+    public int getStock() { return stock; }
+
+    public int getOperations() { return operations; }
+
+    public long getVolume24h() { return volume24h; }
+
+    // Price of buying and selling that many units at once.
+    public double getBuyQuote(int amount) { return getQuote(-amount, taxBuy); }
+
+    public double getSellQuote(int amount) { return getQuote(amount, taxSell); }
+
+    private double getQuote(int stockChange, float tax) {
+        return Price.getProjectedCost(value, initialValue, elasticity, upperStockThreshold, lowerStockThreshold, taxBuy, taxSell, precision, priceStock, stockChange, tax);
+    }
+
+    // Candles kept of the resolution as they were when the snapshot was taken, from the oldest to the current one.
+    public List<Candle> getCandles(CandleResolution resolution) {
+
+        Candle current = currentCandles.get(resolution);
+        if (current == null) return Collections.emptyList();
+
+        List<Candle> candles = new ArrayList<>();
+
+        for (Candle candle : liveCandles.getCandles(resolution, resolution.getRetained()))
+            if (candle.getStart() < current.getStart()) candles.add(candle);
+
+        candles.add(current);
+
+        return candles.size() > resolution.getRetained() ? candles.subList(candles.size() - resolution.getRetained(), candles.size()) : candles;
+    }
+
+    public JsonObject toJson() {
+
+        JsonObject json = new JsonObject();
+        json.addProperty("identifier", identifier);
+        json.addProperty("name", name);
+        json.addProperty("category", category);
+        json.addProperty("currency", currency);
+        json.addProperty("price", value);
+        json.addProperty("buy", buyPrice);
+        json.addProperty("sell", sellPrice);
+        json.addProperty("change1h", change1h);
+        json.addProperty("change24h", change24h);
+        json.addProperty("stock", stock);
+        json.addProperty("operations", operations);
+        json.addProperty("volume24h", volume24h);
+
+        return json;
+    }
+
+}
@@ -0,0 +1,156 @@
+package me.bounser.nascraft.web;
+
+import com.google.gson.JsonObject;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.market.unit.stats.CandleResolution;
+import me.bounser.nascraft.metrics.Metrics;
+
+import java.util.Locale;
+
+// Read-only JSON API of the market. Every answer comes from the last snapshot; the ones that don't depend
+// on the request are already serialized in it.
+public class MarketApi {
+
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private static final int MAX_QUOTE_AMOUNT = 1_000_000;
+
+    private static final int DEFAULT_CANDLES = 60;
+
+    private final WebServer server;
+
+    private final String allowedOrigin;
+
+    MarketApi(WebServer server) {
+        this.server = server;
+        String origin = Config.getInstance().getWebAllowedOrigin();
+        allowedOrigin = origin == null || origin.isEmpty() ? null : origin;
+    }
+
+    void register(Javalin app) {
+
+        app.get("/api/market", ctx -> send(ctx, "market", snapshot().getMarket()));
+        app.get("/api/items", ctx -> send(ctx, "items", snapshot().getItemList()));
+        app.get("/api/items/{id}", this::item);
+        app.get("/api/items/{id}/quote", this::quote);
+        app.get("/api/items/{id}/candles", this::candles);
+        app.get("/api/movers", ctx -> send(ctx, "movers", snapshot().getMovers()));
+        app.get("/api/leaderboards", ctx -> send(ctx, "leaderboards", snapshot().getLeaderboards()));
+    }
+
+    private MarketSnapshot snapshot() { return server.getSnapshot(); }
+
+    private void item(Context ctx) {
+
+        Response response = snapshot().getItemResponse(ctx.pathParam("id"));
+
+        if (response == null) error(ctx, 404, "Unknown item.");
+        else send(ctx, "item", response);
+    }
+
+    // Price of buying and selling ?amount= units at once, starting from the stock of the snapshot.
+    private void quote(Context ctx) {
+
+        long start = System.nanoTime();
+
+        MarketSnapshot snapshot = snapshot();
+        ItemSnapshot item = snapshot.getItem(ctx.pathParam("id"));
+
+        if (item == null) { error(ctx, 404, "Unknown item."); return; }
+
+        int amount;
+
+        try {
+            amount = Integer.parseInt(queryParam(ctx, "amount", "1"));
+        } catch (NumberFormatException e) {
+            error(ctx, 400, "Invalid amount.");
+            return;
+        }
+
+        if (amount <= 0 || amount > MAX_QUOTE_AMOUNT) {
+            error(ctx, 400, "The amount has to be between 1 and " + MAX_QUOTE_AMOUNT + ".");
+            return;
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("time", snapshot.getTime());
+        json.addProperty("item", item.getIdentifier());
+        json.addProperty("currency", item.getCurrency());
+        json.addProperty("amount", amount);
+        json.addProperty("buy", item.getBuyQuote(amount));
+        json.addProperty("sell", item.getSellQuote(amount));
+
+        write(ctx, new Response(json));
+
+        Metrics.getInstance().stop("web", "quote", start);
+    }
+
+    // Last ?limit= candles of ?resolution= (minute, five_minutes, hour, four_hours or day).
+    private void candles(Context ctx) {
+
+        MarketSnapshot snapshot = snapshot();
+        ItemSnapshot item = snapshot.getItem(ctx.pathParam("id"));
+
+        if (item == null) { error(ctx, 404, "Unknown item."); return; }
+
+        CandleResolution resolution;
+        int limit;
+
+        try {
+            resolution = CandleResolution.valueOf(queryParam(ctx, "resolution", "hour").toUpperCase(Locale.ROOT));
+            limit = Integer.parseInt(queryParam(ctx, "limit", String.valueOf(DEFAULT_CANDLES)));
+        } catch (IllegalArgumentException e) {
+            error(ctx, 400, "Invalid resolution or limit.");
+            return;
+        }
+
+        send(ctx, "candles", snapshot.getCandles(item, resolution, limit));
+    }
+
+    private static String queryParam(Context ctx, String name, String defaultValue) {
+        String value = ctx.queryParam(name);
+        return value == null ? defaultValue : value;
+    }
+
+    private void send(Context ctx, String name, Response response) {
+
+        long start = System.nanoTime();
+
+        write(ctx, response);
+
+        Metrics.getInstance().stop("web", name, start);
+    }
+
+    private void write(Context ctx, Response response) {
+
+        ctx.header("ETag", response.getEtag());
+        ctx.header("Cache-Control", "public, max-age=" + server.getSnapshotPeriod());
+        allowOrigin(ctx);
+
+        if (response.matches(ctx.header("If-None-Match"))) {
+            ctx.status(304);
+            return;
+        }
+
+        ctx.contentType(JSON_CONTENT_TYPE);
+        ctx.result(response.getBody());
+    }
+
+    private void allowOrigin(Context ctx) {
+        if (allowedOrigin != null) ctx.header("Access-Control-Allow-Origin", allowedOrigin);
+    }
+
+    private void error(Context ctx, int status, String message) {
+
+        JsonObject json = new JsonObject();
+        json.addProperty("error", message);
+
+        ctx.status(status);
+        allowOrigin(ctx);
+        ctx.contentType(JSON_CONTENT_TYPE);
+        ctx.result(new Response(json).getBody());
+    }
+
+}
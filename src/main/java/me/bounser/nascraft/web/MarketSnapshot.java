@@ -0,0 +1,252 @@
+package me.bounser.nascraft.web;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import me.bounser.nascraft.market.MarketManager;
+import me.bounser.nascraft.market.unit.Item;
+import me.bounser.nascraft.market.unit.stats.Candle;
+import me.bounser.nascraft.market.unit.stats.CandleResolution;
+import me.bounser.nascraft.metrics.Metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+// Copy of the market taken every few seconds, with the responses of the web server already built from it,
+// so requests are answered without reading the items or waiting for the server thread.
+public class MarketSnapshot {
+
+    private static final int RANKING_SIZE = 10;
+
+    private final long time;
+
+    private final List<ItemSnapshot> items;
+    private final Map<String, ItemSnapshot> itemsByIdentifier;
+
+    private final float cpi;
+    private final int operationsLastHour;
+    private final boolean active;
+
+    private final byte[] prometheus;
+
+    private final Response market;
+    private final Response itemList;
+    private final Map<String, Response> itemResponses;
+    private final Response movers;
+    private final Response leaderboards;
+
+    // Every candle kept of an item and resolution, serialized the first time any of them is asked for while
+    // this snapshot is the last one. Requests take the last ones they want from them.
+    private final ConcurrentHashMap<String, List<JsonObject>> candles = new ConcurrentHashMap<>();
+
+    private MarketSnapshot(List<PlayerWorth> richest) {
+
+        time = System.currentTimeMillis() / 1000;
+
+        List<ItemSnapshot> items = new ArrayList<>();
+        HashMap<String, ItemSnapshot> itemsByIdentifier = new HashMap<>();
+
+        for (Item item : MarketManager.getInstance().getAllParentItems()) {
+            ItemSnapshot snapshot = new ItemSnapshot(item);
+            items.add(snapshot);
+            itemsByIdentifier.put(snapshot.getIdentifier(), snapshot);
+        }
+
+        this.items = Collections.unmodifiableList(items);
+        this.itemsByIdentifier = Collections.unmodifiableMap(itemsByIdentifier);
+
+        cpi = MarketManager.getInstance().getConsumerPriceIndex();
+        operationsLastHour = MarketManager.getInstance().getOperationsLastHour();
+        active = MarketManager.getInstance().getActive();
+
+        prometheus = buildPrometheus().getBytes(StandardCharsets.UTF_8);
+
+        market = buildMarket();
+
+        JsonArray itemArray = new JsonArray();
+        HashMap<String, Response> itemResponses = new HashMap<>();
+
+        for (ItemSnapshot item : items) {
+            itemArray.add(item.toJson());
+            itemResponses.put(item.getIdentifier(), new Response(item.toJson()));
+        }
+
+        itemList = new Response(itemArray);
+        this.itemResponses = Collections.unmodifiableMap(itemResponses);
+
+        movers = buildMovers();
+        leaderboards = buildLeaderboards(richest);
+    }
+
+    public static MarketSnapshot take(List<PlayerWorth> richest) { return new MarketSnapshot(richest); }
+
+    private Response buildMarket() {
+
+        JsonObject json = new JsonObject();
+        json.addProperty("time", time);
+        json.addProperty("active", active);
+        json.addProperty("cpi", cpi);
+        json.addProperty("operationsLastHour", operationsLastHour);
+        json.addProperty("items", items.size());
+
+        return new Response(json);
+    }
+
+    private Response buildMovers() {
+
+        List<ItemSnapshot> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingDouble(ItemSnapshot::getChange24h).reversed());
+
+        JsonArray gainers = new JsonArray();
+        JsonArray losers = new JsonArray();
+
+        for (ItemSnapshot item : sorted.subList(0, Math.min(RANKING_SIZE, sorted.size())))
+            if (item.getChange24h() > 0) gainers.add(item.toJson());
+
+        Collections.reverse(sorted);
+
+        for (ItemSnapshot item : sorted.subList(0, Math.min(RANKING_SIZE, sorted.size())))
+            if (item.getChange24h() < 0) losers.add(item.toJson());
+
+        JsonObject json = new JsonObject();
+        json.addProperty("time", time);
+        json.add("gainers", gainers);
+        json.add("losers", losers);
+
+        return new Response(json);
+    }
+
+    private Response buildLeaderboards(List<PlayerWorth> richest) {
+
+        List<ItemSnapshot> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingLong(ItemSnapshot::getVolume24h).reversed());
+
+        JsonArray mostTraded = new JsonArray();
+        for (ItemSnapshot item : sorted.subList(0, Math.min(RANKING_SIZE, sorted.size())))
+            mostTraded.add(item.toJson());
+
+        JsonArray players = new JsonArray();
+        for (PlayerWorth player : richest) {
+            JsonObject json = new JsonObject();
+            json.addProperty("uuid", player.getUuid().toString());
+            json.addProperty("name", player.getName());
+            json.addProperty("worth", player.getWorth());
+            players.add(json);
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("time", time);
+        json.add("mostTraded", mostTraded);
+        json.add("richestPlayers", players);
+
+        return new Response(json);
+    }
+
+    // Market gauges followed by the metrics of the plugin.
+    private String buildPrometheus() {
+
+        StringBuilder text = new StringBuilder();
+
+        itemGauge(text, "nascraft_item_price", ItemSnapshot::getValue);
+        itemGauge(text, "nascraft_item_buy_price", ItemSnapshot::getBuyPrice);
+        itemGauge(text, "nascraft_item_sell_price", ItemSnapshot::getSellPrice);
+        itemGauge(text, "nascraft_item_stock", ItemSnapshot::getStock);
+        itemGauge(text, "nascraft_item_operations", ItemSnapshot::getOperations);
+        itemGauge(text, "nascraft_item_volume_24h", ItemSnapshot::getVolume24h);
+
+        gauge(text, "nascraft_market_cpi", cpi);
+        gauge(text, "nascraft_market_operations_last_hour", operationsLastHour);
+        gauge(text, "nascraft_market_items", items.size());
+        gauge(text, "nascraft_market_active", active ? 1 : 0);
+
+        text.append(Metrics.getInstance().toPrometheus());
+
+        return text.toString();
+    }
+
+    private void itemGauge(StringBuilder text, String metric, ToDoubleFunction<ItemSnapshot> value) {
+
+        text.append("# TYPE ").append(metric).append(" gauge\n");
+
+        for (ItemSnapshot item : items)
+            text.append(metric)
+                    .append("{item=\"").append(Metrics.escape(item.getIdentifier()))
+                    .append("\",category=\"").append(Metrics.escape(item.getCategory()))
+                    .append("\",currency=\"").append(Metrics.escape(item.getCurrency()))
+                    .append("\"} ").append(format(value.applyAsDouble(item))).append('\n');
+    }
+
+    private static void gauge(StringBuilder text, String metric, double value) {
+        text.append("# TYPE ").append(metric).append(" gauge\n");
+        text.append(metric).append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double value) { return String.format(Locale.ROOT, "%f", value); }
+
+    // Last candles of the item, from the oldest to the current one.
+    public Response getCandles(ItemSnapshot item, CandleResolution resolution, int limit) {
+
+        List<JsonObject> all = candles.computeIfAbsent(item.getIdentifier() + ":" + resolution, key -> {
+
+            List<JsonObject> serialized = new ArrayList<>();
+
+            for (Candle candle : item.getCandles(resolution)) {
+                JsonObject json = new JsonObject();
+                json.addProperty("time", candle.getStart());
+                json.addProperty("open", candle.getOpen());
+                json.addProperty("high", candle.getHigh());
+                json.addProperty("low", candle.getLow());
+                json.addProperty("close", candle.getClose());
+                json.addProperty("volume", candle.getVolume());
+                serialized.add(json);
+            }
+
+            return Collections.unmodifiableList(serialized);
+        });
+
+        int count = Math.min(Math.max(1, limit), all.size());
+
+        JsonArray array = new JsonArray();
+        for (JsonObject candle : all.subList(all.size() - count, all.size())) array.add(candle);
+
+        JsonObject json = new JsonObject();
+        json.addProperty("item", item.getIdentifier());
+        json.addProperty("resolution", resolution.toString().toLowerCase(Locale.ROOT));
+        json.add("candles", array);
+
+        return new Response(json);
+    }
+
+    // Epoch second the snapshot was taken.
+    public long getTime() { return time; }
+
+    public List<ItemSnapshot> getItems() { return items; }
+
+    public ItemSnapshot getItem(String identifier) { return itemsByIdentifier.get(identifier); }
+
+    public float getCpi() { return cpi; }
+
+    public int getOperationsLastHour() { return operationsLastHour; }
+
+    public boolean isActive() { return active; }
+
+    public byte[] getPrometheus() { return prometheus; }
+
+    public Response getMarket() { return market; }
+
+    public Response getItemList() { return itemList; }
+
+    public Response getItemResponse(String identifier) { return itemResponses.get(identifier); }
+
+    public Response getMovers() { return movers; }
+
+    public Response getLeaderboards() { return leaderboards; }
+
+}
@@ -0,0 +1,24 @@
+package me.bounser.nascraft.web;
+
+import java.util.UUID;
+
+// Entry of the leaderboard of the players worth the most.
+public class PlayerWorth {
+
+    private final UUID uuid;
+    private final String name;
+    private final double worth;
+
+    public PlayerWorth(UUID uuid, String name, double worth) {
+        this.uuid = uuid;
+        this.name = name;
+        this.worth = worth;
+    }
+
+    public UUID getUuid() { return uuid; }
+
+    public String getName() { return name; }
+
+    public double getWorth() { return worth; }
+
+}
@@ -0,0 +1,60 @@
+package me.bounser.nascraft.web;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// JSON body serialized once, with an ETag taken from its content. Snapshots that didn't change
+// what a response shows give it the same ETag, so clients keep getting 304 Not Modified.
+public class Response {
+
+    private static final Gson GSON = new Gson();
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final byte[] body;
+    private final String etag;
+
+    public Response(JsonElement json) {
+        body = GSON.toJson(json).getBytes(StandardCharsets.UTF_8);
+        etag = createEtag(body);
+    }
+
+    private static String createEtag(byte[] body) {
+
+        byte[] hash;
+
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        StringBuilder etag = new StringBuilder("\"");
+        for (int i = 0; i < 12; i++) etag.append(HEX[(hash[i] >> 4) & 0xF]).append(HEX[hash[i] & 0xF]);
+
+        return etag.append('"').toString();
+    }
+
+    public byte[] getBody() { return body; }
+
+    public String getEtag() { return etag; }
+
+    // Whether the If-None-Match header of a request names this response.
+    public boolean matches(String ifNoneMatch) {
+
+        if (ifNoneMatch == null) return false;
+
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,110 @@
+package me.bounser.nascraft.web;
+
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import me.bounser.nascraft.Nascraft;
+import me.bounser.nascraft.config.Config;
+import me.bounser.nascraft.database.DatabaseManager;
+import me.bounser.nascraft.managers.MarketScheduler;
+import me.bounser.nascraft.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Embedded HTTP server with the Prometheus metrics and the JSON API of the market. Its threads only ever
+// read the last market snapshot, which is replaced every few seconds by a job of the market scheduler.
+public class WebServer {
+
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final int LEADERBOARD_SIZE = 10;
+    private static final int LEADERBOARD_PERIOD = 60;
+
+    private static WebServer instance;
+
+    public static WebServer getInstance() { return instance == null ? instance = new WebServer() : instance; }
+
+    private Javalin app;
+
+    private volatile MarketSnapshot snapshot;
+
+    // Read from the database less often than the snapshots are taken.
+    private volatile List<PlayerWorth> richest = Collections.emptyList();
+
+    private final int snapshotPeriod;
+
+    private WebServer() { snapshotPeriod = Config.getInstance().getWebSnapshotPeriod(); }
+
+    public void start() {
+
+        snapshot = MarketSnapshot.take(richest);
+
+        // Jetty looks for its classes through the context class loader, which isn't the one of the plugin.
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(Nascraft.class.getClassLoader());
+
+        try {
+            app = Javalin.create(config -> config.showJavalinBanner = false);
+
+            app.get("/metrics", this::metrics);
+
+            new MarketApi(this).register(app);
+
+            app.start(Config.getInstance().getWebHost(), Config.getInstance().getWebPort());
+
+            Nascraft.getInstance().getLogger().info("Web server listening on " + Config.getInstance().getWebHost() + ":" + Config.getInstance().getWebPort());
+
+        } catch (Exception e) {
+            Nascraft.getInstance().getLogger().warning("Unable to start the web server: " + e.getMessage());
+            app = null;
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+
+        if (app == null) return;
+
+        MarketScheduler.getInstance().schedule("web-snapshot", MarketScheduler.now() + snapshotPeriod, snapshotPeriod, false,
+                () -> snapshot = MarketSnapshot.take(richest));
+
+        MarketScheduler.getInstance().schedule("web-leaderboards", MarketScheduler.now() + 1, LEADERBOARD_PERIOD, false,
+                this::updateLeaderboards);
+    }
+
+    private void metrics(Context ctx) {
+
+        long start = System.nanoTime();
+
+        ctx.contentType(PROMETHEUS_CONTENT_TYPE);
+        ctx.result(snapshot.getPrometheus());
+
+        Metrics.getInstance().stop("web", "metrics", start);
+    }
+
+    private void updateLeaderboards() {
+
+        LinkedHashMap<UUID, Double> top = DatabaseManager.get().getDatabase().getTopWorthValues(LEADERBOARD_SIZE);
+        if (top == null) return;
+
+        List<PlayerWorth> players = new ArrayList<>();
+
+        for (Map.Entry<UUID, Double> entry : top.entrySet())
+            players.add(new PlayerWorth(entry.getKey(), DatabaseManager.get().getDatabase().getNameByUUID(entry.getKey()), entry.getValue()));
+
+        richest = Collections.unmodifiableList(players);
+    }
+
+    public MarketSnapshot getSnapshot() { return snapshot; }
+
+    public int getSnapshotPeriod() { return snapshotPeriod; }
+
+    public static void shutdown() {
+        if (instance == null || instance.app == null) return;
+        instance.app.stop();
+        instance.app = null;
+    }
+
+}
@@ -0,0 +1,156 @@
+package me.bounser.nascraft.formatter;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Compares the CurrencyFormatter with the formatting the Formatter did before it, kept below as it was.
+// Amounts the CurrencyFormatter hands back (null) still go through that code, so only the others are compared.
+public class CurrencyFormatterTest {
+
+    private static final Style[] STYLES = { Style.ROUND_BASIC, Style.ROUND_TO_ONE, Style.REDUCED_LENGTH };
+
+    private static final String FORMAT = "<gold>[AMOUNT]<gray>, 1.5 coins";
+    private static final String PLAIN_FORMAT = "[AMOUNT]$ ([AMOUNT])";
+
+    private static final int RANDOM_AMOUNTS = 5_000;
+
+    @Test
+    public void matchesTheOriginalFormatter() {
+
+        List<Double> amounts = getAmounts();
+
+        int compared = 0;
+
+        for (int precision = 0; precision <= 6; precision++) {
+
+            CurrencyFormatter formatter = new CurrencyFormatter(FORMAT, PLAIN_FORMAT, precision);
+
+            for (double amount : amounts)
+                for (Style style : STYLES)
+                    for (boolean plain : new boolean[]{ false, true })
+                        for (boolean comma : new boolean[]{ false, true }) {
+
+                            String formatted = formatter.format(amount, style, plain, comma);
+                            if (formatted == null) continue;
+
+                            assertEquals(original(amount, precision, style, plain, comma), formatted,
+                                    "amount " + amount + ", precision " + precision + ", " + style + (plain ? ", plain" : "") + (comma ? ", comma" : ""));
+
+                            compared++;
+                        }
+        }
+
+        // Apart from the largest amounts at the highest precisions, little should be left to the JDK formatters.
+        if (DecimalWriter.isSupported())
+            assertTrue(compared > amounts.size() * 7 * STYLES.length * 4 * 0.8, "only " + compared + " amounts were formatted");
+    }
+
+    @Test
+    public void returnsTheSameTextFromTheCache() {
+
+        CurrencyFormatter formatter = new CurrencyFormatter(FORMAT, PLAIN_FORMAT, 2);
+
+        for (double amount : getAmounts()) {
+            String first = formatter.format(amount, Style.ROUND_BASIC, false, false);
+            assertEquals(first, formatter.format(amount, Style.ROUND_BASIC, false, false));
+        }
+    }
+
+    private static List<Double> getAmounts() {
+
+        List<Double> amounts = new ArrayList<>();
+
+        double[] edges = { 0, -0.0, 0.1, 0.0999, 0.1001, 0.05, 0.0005, 0.00049, 1, 1.005, 2.675, 99.995, 99.9949, 100,
+                999.95, 999.949, 1000, 1049.99, 999_999.5, 1_000_000, 1_950_000, 12_345_678.9, 9_999_999_999.99 };
+
+        for (double edge : edges) {
+            amounts.add(edge);
+            amounts.add(-edge);
+        }
+
+        Random random = new Random(41);
+
+        for (int i = 0; i < RANDOM_AMOUNTS; i++) {
+
+            double magnitude = Math.pow(10, random.nextInt(16) - 4);
+            double amount = random.nextDouble() * magnitude;
+
+            // Half of them exactly on a tie of some precision, where the rounding modes differ.
+            if (random.nextBoolean()) {
+                double scale = Math.pow(10, random.nextInt(7));
+                amount = (Math.floor(amount * scale) + 0.5) / scale;
+            }
+
+            amounts.add(random.nextInt(8) == 0 ? -amount : amount);
+        }
+
+        return amounts;
+    }
+
+    // Formatter.format and Formatter.plainFormat before the CurrencyFormatter.
+    private static String original(double number, int precision, Style style, boolean plain, boolean comma) {
+
+        String formattedText = null;
+
+        number = Formatter.roundToDecimals(number, precision);
+
+        switch (style) {
+
+            case ROUND_TO_ONE:
+
+                formattedText = String.format("%.1f", number);
+
+                break;
+
+            case ROUND_BASIC:
+                DecimalFormat decimalFormat;
+                if (number >= 0.1) decimalFormat = new DecimalFormat("#,###.##");
+                else decimalFormat = new DecimalFormat("#.###");
+                formattedText = decimalFormat.format(number);
+
+                break;
+
+            case REDUCED_LENGTH:
+
+                DecimalFormat numFormat = new DecimalFormat("0.#");
+
+                if (plain && precision == 0) {
+                    if (number < 1000) {
+                        formattedText = numFormat.format(number);
+                    } else if (number < 1_000_000) {
+                        formattedText = numFormat.format(number / 1000) + "k";
+                    } else {
+                        formattedText = numFormat.format(number / 1_000_000) + "m";
+                    }
+                    break;
+                }
+
+                if (number <= 0.1) {
+                    formattedText = String.format("%.3f", number);
+                } else if (number < 100) {
+                    formattedText = String.format("%.2f", number);
+                } else if (number < 1000) {
+                    formattedText = numFormat.format(number);
+                } else if (number < 1_000_000) {
+                    formattedText = numFormat.format(number / 1000) + "k";
+                } else {
+                    formattedText = numFormat.format(number / 1_000_000) + "m";
+                }
+
+                break;
+        }
+
+        String result = (plain ? PLAIN_FORMAT : FORMAT).replace("[AMOUNT]", formattedText);
+
+        if (!comma) return result;
+
+        return result.replace(".", "_").replace(",", ".").replace("_", ",");
+    }
+}